@@ -1,31 +1,241 @@
 package bank;
 
 import bank.accounts.Account;
+import bank.accounts.AccountKey;
 import bank.accounts.AccountTypeCommand;
-import bank.accounts.MoneyMarket;
+import bank.accounts.ColumnarAccountStore;
+import bank.events.ListingEvent;
+import bank.events.MonthEndEvent;
+import bank.events.SortEvent;
+import bank.output.OutputSink;
+import bank.output.ReportFormat;
+import bank.output.ReportType;
+import bank.output.ReportWriter;
+import bank.persistence.AccountSnapshot;
+import bank.persistence.MappedAccountStore;
+import bank.persistence.TransactionLog;
 import bank.personaldata.Profile;
 
-import java.text.DecimalFormat;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * This array based implementation make a bank
+ * This array based implementation make a bank.
+ * A hash index from AccountKey to array position is kept alongside the
+ * array, so lookups do not scan the whole bank. The balances, loyalty
+ * and withdrawal counts of the accounts live in a ColumnarAccountStore,
+ * one row per slot of the array, so UB runs over those columns alone.
+ * The listing order is kept up to date incrementally: open and close
+ * only note the account in a delta, and the next listing sorts the delta
+ * and merges it into the order of the last listing in one linear pass, so
+ * opening and closing never compare accounts and a listing usually sorts
+ * only the delta.
+ * The whole bank is radix sorted by its binary sort keys (see
+ * AccountSorter) only for the first listing, which covers bulk loads and
+ * restores, or once the delta grows past 1/DELTA_DIVISOR of the bank.
+ * Closing an account leaves a tombstone (null) in its slot. Tombstones are
+ * reclaimed a few slots at a time by an incremental compaction pass that
+ * runs alongside open and close, and the array shrinks once it is mostly
+ * empty.
+ * The database is thread-safe. Open, close and UB take the structure lock
+ * for writing. Every other method takes it for reading. Deposit and
+ * withdraw need no lock of their own, since Account updates its balance
+ * by compare-and-set, so transactions on different accounts never block
+ * each other.
+ * A bank made on a MappedAccountStore writes every change through to the
+ * store, so it survives a restart. The store's own index is then the
+ * index of the bank: the bank starts empty, and loads the accounts of a
+ * holder the first time the holder is looked up, and every account left
+ * the first time the whole bank is listed, updated or written out.
+ * A bank with a TransactionLog appends every accepted change to the log
+ * before the change is acknowledged. A snapshot records the log position
+ * it was taken at, so a restart only replays the log written after it.
+ * Deposit and withdraw hold the account while they change it and log it,
+ * so the log has the changes of each account in the order they happened.
+ * Sorts, listings and month-end runs are recorded as Flight Recorder
+ * events (see bank.events), which cost next to nothing unless a recording
+ * is on.
  * @author Dharmik Patel and Krish Patel
  */
 public class AccountDatabase {
     private final static int NOT_FOUND = -1;
     private final static int GROWTH_AMOUNT = 4;
+    private final static int GROWTH_FACTOR = 2;
+    private final static float HASH_LOAD_FACTOR = 0.75f;
     private final static int NO_ACCOUNTS = 0;
+    //compaction starts once more than 1/COMPACTION_DIVISOR slots are dead
+    private final static int COMPACTION_DIVISOR = 2;
+    //number of slots compacted on each open or close
+    private final static int COMPACTION_STEP = 64;
+    //capacity shrinks once less than 1/SHRINK_DIVISOR of it is in use
+    private final static int SHRINK_DIVISOR = 4;
+    private final static int NOT_COMPACTING = -1;
+    //a delta larger than 1/DELTA_DIVISOR of the bank is sorted with it
+    private final static int DELTA_DIVISOR = 8;
     private Account[] accounts; //the array holding the list of accounts
+    //the balances, loyalty and withdrawals of the accounts, one row per
+    //slot of accounts and always the same capacity
+    private final ColumnarAccountStore columns;
     //the number of accounts in the list. does not have to equal accounts.length
     private int numAccounts;
+    //the number of slots used, live or tombstone. slots after it are empty
+    private int numSlots;
+    //next slot the compaction pass reads, or NOT_COMPACTING(-1)
+    private int compactRead;
+    //next slot the compaction pass moves a live account into
+    private int compactWrite;
+    //maps the key of every account in the bank to its index in accounts
+    private HashMap<AccountKey, Integer> index;
+    //maps every holder to an immutable list of the accounts they hold
+    private HashMap<Profile, List<Account>> holders;
+    //every account in the bank at the last listing, ordered by account
+    //type and profile, or null if the whole bank must be sorted again
+    private Account[] sorted;
+    //accounts opened since the last listing, if sorted is not null.
+    //sorted, opened and closed are guarded by the lock on opened as well
+    //as the structure lock, since listings update them under the read lock
+    private final List<Account> opened;
+    //accounts closed since the last listing, if sorted is not null
+    private final Set<Account> closed;
+    //guards the array and every index. held for writing to change them
+    private final ReentrantReadWriteLock structureLock;
+    //threads used by UB, or null to run it on the calling thread
+    private ForkJoinPool monthEndPool;
+    //store every change is written through to, or null if in heap only
+    private MappedAccountStore store;
+    //log every accepted change is appended to, or null if not logged
+    private TransactionLog log;
+    //false while the store holds accounts the bank has not loaded yet.
+    //a holder in holders always has every account of theirs loaded
+    private volatile boolean fullyLoaded;
 
     /**
      * Instantiates a AccountDatabase object with an Account[] array
      * with initial capacity of GROWTH_AMOUNT(4) and numEvents to 0;
      */
     public AccountDatabase() {
-        accounts = new Account[GROWTH_AMOUNT];
+        this(GROWTH_AMOUNT);
+    }
+
+    /**
+     * Instantiates a AccountDatabase object pre-sized to hold the given
+     * number of accounts without growing.
+     * @param initialCapacity the number of accounts expected
+     */
+    public AccountDatabase(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException(
+                    "Initial capacity cannot be negative: " + initialCapacity);
+        }
+        accounts = new Account[Math.max(initialCapacity, GROWTH_AMOUNT)];
+        columns = new ColumnarAccountStore(accounts.length);
         numAccounts = 0;
+        numSlots = 0;
+        compactRead = NOT_COMPACTING;
+        int indexCapacity = (int) (initialCapacity / HASH_LOAD_FACTOR) + 1;
+        index = new HashMap<>(indexCapacity);
+        holders = new HashMap<>(indexCapacity);
+        opened = new ArrayList<>();
+        closed = Collections.newSetFromMap(new IdentityHashMap<>());
+        structureLock = new ReentrantReadWriteLock();
+        fullyLoaded = true;
+    }
+
+    /**
+     * Instantiates a AccountDatabase object on the accounts in the store,
+     * writing every later change through to the store. No account is read
+     * here; accounts are loaded from the store as they are needed.
+     * @param store the persistent store of the bank
+     */
+    public AccountDatabase(MappedAccountStore store) {
+        this();
+        this.store = store;
+        fullyLoaded = store.size() == NO_ACCOUNTS;
+    }
+
+    /**
+     * Instantiates a AccountDatabase object holding every account in the
+     * snapshot, sized for them and filled without checking each one.
+     * @param snapshot the loaded snapshot
+     */
+    public AccountDatabase(AccountSnapshot snapshot) {
+        this(snapshot.getAccounts().size());
+        loadTrusted(snapshot.getAccounts());
+    }
+
+    /**
+     * Puts accounts known to be distinct straight into the array, the
+     * columns and every index of an empty bank sized for them: no lookup
+     * before each account, no compaction step, and nothing written to a
+     * store or log. A snapshot is written from a bank, so it never holds
+     * an account twice.
+     * @param batch the accounts, none of them equal
+     */
+    private void loadTrusted(List<Account> batch) {
+        for (Account account : batch) {
+            List<Account> held = holders.putIfAbsent(account.getHolder(),
+                    List.of(account));
+            if (held != null) {
+                account.shareHolder(held.get(0).getHolder());
+                Account[] more = held.toArray(new Account[held.size() + 1]);
+                more[held.size()] = account;
+                holders.put(account.getHolder(), List.of(more));
+            }
+            columns.add(account, numSlots);
+            accounts[numSlots] = account;
+            index.put(account.getKey(), numSlots);
+            numSlots++;
+        }
+        numAccounts = numSlots;
+    }
+
+    /**
+     * Sets the log every later change is appended to. The log should be
+     * replayed into the bank before it is set, so replay is not logged
+     * again.
+     * @param log the transaction log, or null to stop logging
+     */
+    public void setTransactionLog(TransactionLog log) {
+        structureLock.writeLock().lock();
+        try {
+            this.log = log;
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sets how many threads UB uses to apply fees and interests.
+     * The printed report is the same for every parallelism level.
+     * @param parallelism the number of threads, 1 to run on the calling
+     * thread
+     */
+    public void setMonthEndParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(
+                    "Parallelism must be at least 1: " + parallelism);
+        }
+        structureLock.writeLock().lock();
+        try {
+            if (monthEndPool != null) {
+                monthEndPool.shutdown();
+            }
+            monthEndPool = parallelism == 1
+                    ? null : new ForkJoinPool(parallelism);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
     }
 
     /**
@@ -34,38 +244,227 @@ public class AccountDatabase {
      * @return The index of the account or NOT_FOUND(-1);
      */
     private int find(Account account) {
-        for (int i = 0; i < numAccounts; i++) {
-            if (accounts[i] != null && accounts[i].equals(account)) {
-                return i;
+        Integer position = index.get(account.getKey());
+        return position == null ? NOT_FOUND : position;
+    }
+
+    /**
+     * This helper method makes sure the array can hold at least
+     * minCapacity accounts. The array grows by GROWTH_FACTOR(2) each time,
+     * or straight to minCapacity if that is larger, so growth is amortized
+     * O(1) per account.
+     * @param minCapacity the number of accounts the array must hold
+     */
+    private void ensureCapacity(int minCapacity){
+        if (minCapacity > accounts.length) {
+            accounts = Arrays.copyOf(accounts,
+                    Math.max(minCapacity, accounts.length * GROWTH_FACTOR));
+            columns.resize(accounts.length);
+        }
+    }
+
+    /**
+     * Adds an account, known not to be in the bank, to the array and every
+     * index. Caller must make sure there is room in the array.
+     * @param account Account to add
+     */
+    private void insert(Account account){
+        internHolder(account);
+        if (store != null) {
+            try {
+                store.put(account);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (log != null) {
+            log.logOpen(account);
+        }
+        place(account);
+        if (sorted != null) {
+            //an account closed and opened again keeps its place in the delta
+            if (!closed.remove(account)) {
+                opened.add(account);
+            }
+            dropSortedIfStale();
+        }
+    }
+
+    /**
+     * Adds an account to the array, the columns and every index, without
+     * writing it to the store or the log. Caller must intern its holder,
+     * and make sure there is room in the array.
+     * @param account Account to add
+     */
+    private void place(Account account) {
+        columns.add(account, numSlots);
+        accounts[numSlots] = account;
+        index.put(account.getKey(), numSlots);
+        numSlots++;
+        numAccounts++;
+        addToHolder(account);
+    }
+
+    /**
+     * Loads every account of a holder from the store, unless the bank
+     * holds them already. Caller must hold the write lock.
+     * @param holder the profile of the person
+     */
+    private void loadHolder(Profile holder) {
+        if (fullyLoaded || holders.containsKey(holder)) return;
+        for (AccountTypeCommand accountType : AccountTypeCommand.values()) {
+            Account account = store.load(holder, accountType);
+            if (account != null) {
+                ensureCapacity(numSlots + 1);
+                internHolder(account);
+                place(account);
             }
         }
-        return NOT_FOUND;
+        fullyLoaded = numAccounts == store.size();
     }
 
     /**
-     * This helper method, grows the array by GROWTH_AMOUNT(4) everytime, the
-     * array is filled up. This performs a manual Array.copy()
+     * Loads every account of a holder from the store, as loadHolder()
+     * does, for a caller holding the read lock. If the store holds any,
+     * the read lock is let go while they are loaded and taken again, so
+     * nothing the caller found before may be used after.
+     * @param holder the profile of the person
      */
-    private void grow(){
-        Account[] arrTemp = new Account[accounts.length + GROWTH_AMOUNT];
-        for (int i = 0; i < accounts.length; i++) {
-            arrTemp[i] = accounts[i];
+    private void loadHolderWhileReading(Profile holder) {
+        if (fullyLoaded || holders.containsKey(holder)
+                || !storeHolds(holder)) {
+            return;
+        }
+        structureLock.readLock().unlock();
+        structureLock.writeLock().lock();
+        try {
+            loadHolder(holder);
+        } finally {
+            structureLock.readLock().lock();
+            structureLock.writeLock().unlock();
         }
-        accounts = arrTemp;
     }
 
     /**
-     * This helper method is used while sorting the array.
-     * Shifts the array left from i to the end. The caller needs to
-     * save the value of A[i] because it will be overwritten.
-     * @param position The index to start to shift from.
+     * Checks if the store holds any account of a holder, without loading
+     * it.
+     * @param holder the profile of the person
+     * @return True if it does, false if not.
      */
-    private void leftShiftArray(int position) {
-        for (int i = position; i < numAccounts - 1; i++) {
-            accounts[i] = accounts[i + 1];
+    private boolean storeHolds(Profile holder) {
+        for (AccountTypeCommand accountType : AccountTypeCommand.values()) {
+            if (store.contains(holder, accountType)) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    /**
+     * Loads every account in the store the bank has not loaded yet.
+     * Caller must hold the write lock.
+     */
+    private void loadRest() {
+        if (fullyLoaded) return;
+        List<Account> rest = store.loadRest();
+        ensureCapacity(numSlots + rest.size());
+        for (Account account : rest) {
+            internHolder(account);
+            place(account);
+        }
+        fullyLoaded = true;
+    }
+
+    /**
+     * Loads every account in the store the bank has not loaded yet, for
+     * a caller holding no lock.
+     */
+    private void loadAll() {
+        if (fullyLoaded) return;
+        structureLock.writeLock().lock();
+        try {
+            loadRest();
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This helper method is used while closing an account.
+     * Leaves a tombstone in the slot instead of shifting the rest of the
+     * array, and starts a compaction pass if too many slots are dead.
+     * @param position The index of the account to remove.
+     */
+    private void markDead(int position) {
+        index.remove(accounts[position].getKey());
+        columns.remove(accounts[position]);
+        accounts[position] = null;
         numAccounts--;
-        accounts[numAccounts] = null;
+        if (compactRead == NOT_COMPACTING
+                && numSlots - numAccounts > numSlots / COMPACTION_DIVISOR) {
+            compactRead = 0;
+            compactWrite = 0;
+        }
+    }
+
+    /**
+     * Runs up to maxSteps slots of the compaction pass, if one is in
+     * progress. Live accounts are moved down over tombstones, keeping the
+     * index up to date. Once the pass reaches the last used slot, the
+     * array is shrunk if it is mostly empty.
+     * @param maxSteps the most slots to look at
+     */
+    private void compactStep(int maxSteps) {
+        if (compactRead == NOT_COMPACTING) return;
+        int end = Math.min(numSlots, compactRead + maxSteps);
+        for (; compactRead < end; compactRead++) {
+            Account account = accounts[compactRead];
+            if (account != null) {
+                if (compactRead != compactWrite) {
+                    columns.move(account, compactWrite);
+                    accounts[compactWrite] = account;
+                    accounts[compactRead] = null;
+                    index.put(account.getKey(), compactWrite);
+                }
+                compactWrite++;
+            }
+        }
+        if (compactRead == numSlots) {
+            numSlots = compactWrite;
+            compactRead = NOT_COMPACTING;
+            shrinkIfSparse();
+        }
+    }
+
+    /**
+     * Runs the compaction pass to the end, so every tombstone is reclaimed.
+     */
+    public void compact() {
+        structureLock.writeLock().lock();
+        try {
+            if (compactRead == NOT_COMPACTING) {
+                compactRead = 0;
+                compactWrite = 0;
+            }
+            compactStep(Integer.MAX_VALUE);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Shrinks the array, and rebuilds the hash indexes at their current
+     * size, when less than 1/SHRINK_DIVISOR of the capacity is in use.
+     */
+    private void shrinkIfSparse() {
+        if (accounts.length > GROWTH_AMOUNT
+                && numSlots < accounts.length / SHRINK_DIVISOR) {
+            accounts = Arrays.copyOf(accounts,
+                    Math.max(GROWTH_AMOUNT, numSlots * GROWTH_FACTOR));
+            columns.resize(accounts.length);
+            index = new HashMap<>(index);
+            holders = new HashMap<>(holders);
+        }
     }
 
     /**
@@ -75,7 +474,13 @@ public class AccountDatabase {
      * @return True if account is in bank, false if its not.
      */
     public boolean contains(Account account){
-        return find(account) != NOT_FOUND;
+        structureLock.readLock().lock();
+        try {
+            loadHolderWhileReading(account.getHolder());
+            return find(account) != NOT_FOUND;
+        } finally {
+            structureLock.readLock().unlock();
+        }
     }
 
     /**
@@ -86,14 +491,197 @@ public class AccountDatabase {
      * @return True if it is, false if its not
      */
     public boolean contains(Profile profile, AccountTypeCommand accountType){
-        for (int i = 0; i < numAccounts; i++) {
-            if (accounts[i] != null
-                    && accounts[i].getHolder().equals(profile)
-                    && accounts[i].getClass().getSimpleName().equals(accountType.toString())) {
-                return true;
+        structureLock.readLock().lock();
+        try {
+            loadHolderWhileReading(profile);
+            return findHeld(profile, accountType) != null;
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the account of the given type held by the given person, in a
+     * single lookup of the holder index. Allocates nothing.
+     * Caller must hold the structure lock.
+     * @param holder the profile of the person
+     * @param accountType the account type
+     * @return The account, or null if the holder has none of that type.
+     */
+    private Account findHeld(Profile holder, AccountTypeCommand accountType) {
+        List<Account> held = holders.get(holder);
+        if (held == null) return null;
+        for (int i = 0; i < held.size(); i++) {
+            Account account = held.get(i);
+            if (account.getAccountType() == accountType) {
+                return account;
             }
         }
-        return false;
+        return null;
+    }
+
+    /**
+     * Finds every account held by the given person.
+     * The returned list is immutable and is replaced, not changed,
+     * when the holder opens or closes an account.
+     * @param profile the profile of the person
+     * @return The accounts of the holder, empty if they have none.
+     */
+    public List<Account> findByHolder(Profile profile){
+        structureLock.readLock().lock();
+        try {
+            loadHolderWhileReading(profile);
+            return holders.getOrDefault(profile, List.of());
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the account to the list of accounts of its holder.
+     * @param account Account that was opened
+     */
+    private void addToHolder(Account account) {
+        List<Account> held = new ArrayList<>(
+                holders.getOrDefault(account.getHolder(), List.of()));
+        held.add(account);
+        holders.put(account.getHolder(), List.copyOf(held));
+    }
+
+    /**
+     * Forgets the order of the last listing once the delta since then is
+     * so large that sorting the whole bank costs less than merging it.
+     * Caller must hold the write lock.
+     */
+    private void dropSortedIfStale() {
+        if (opened.size() + closed.size()
+                > numAccounts / DELTA_DIVISOR + COMPACTION_STEP) {
+            sorted = null;
+            opened.clear();
+            closed.clear();
+        }
+    }
+
+    /**
+     * Gets every account in the bank, ordered by account type and
+     * profile. Merges the accounts opened and closed since the last
+     * listing into its order, or sorts the whole bank if there is no
+     * order to merge into. Caller must hold the structure lock.
+     * @return the sorted accounts, which must not be changed, and which
+     * later opens and closes do not change
+     */
+    private Account[] sortedAccounts() {
+        synchronized (opened) {
+            if (sorted == null) {
+                sorted = sortAll();
+            } else if (!opened.isEmpty() || !closed.isEmpty()) {
+                sorted = mergeDelta();
+            }
+            return sorted;
+        }
+    }
+
+    /**
+     * Radix sorts every account in the bank.
+     * @return the accounts, sorted
+     */
+    private Account[] sortAll() {
+        Account[] view = new Account[numAccounts];
+        int numLive = 0;
+        for (int slot = 0; slot < numSlots; slot++) {
+            if (accounts[slot] != null) {
+                view[numLive++] = accounts[slot];
+            }
+        }
+        SortEvent event = new SortEvent();
+        event.begin();
+        AccountSorter.sort(view);
+        if (event.shouldCommit()) {
+            event.setRows(numLive);
+            event.commit();
+        }
+        return view;
+    }
+
+    /**
+     * Sorts the accounts opened since the last listing, and merges them
+     * into its order, leaving out the accounts closed since. Clears the
+     * delta.
+     * @return the accounts, sorted
+     */
+    private Account[] mergeDelta() {
+        Account[] added = new Account[opened.size()];
+        int numAdded = 0;
+        for (Account account : opened) {
+            if (!closed.contains(account)) {
+                added[numAdded++] = account;
+            }
+        }
+        added = Arrays.copyOf(added, numAdded);
+        AccountSorter.sort(added);
+        Account[] merged = new Account[numAccounts];
+        boolean anyClosed = !closed.isEmpty();
+        int next = 0;
+        int nextAdded = 0;
+        for (Account account : sorted) {
+            if (anyClosed && closed.contains(account)) continue;
+            while (nextAdded < numAdded
+                    && added[nextAdded].compareTo(account) < 0) {
+                merged[next++] = added[nextAdded++];
+            }
+            merged[next++] = account;
+        }
+        while (nextAdded < numAdded) {
+            merged[next++] = added[nextAdded++];
+        }
+        opened.clear();
+        closed.clear();
+        return next == merged.length ? merged : Arrays.copyOf(merged, next);
+    }
+
+    /**
+     * Gets a copy of the accounts in listing order, by account type and
+     * profile, as they are when the read lock is taken.
+     * @return the accounts, sorted; changing the array does not change
+     * the bank
+     */
+    public Account[] getSortedAccounts() {
+        loadAll();
+        structureLock.readLock().lock();
+        try {
+            return sortedAccounts().clone();
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Points the account at the Profile the bank already holds for its
+     * holder, if any, so a customer's accounts share one Profile.
+     * The keys of holders are the intern pool: one canonical Profile per
+     * customer, which leaves the pool with the customer's last account.
+     * @param account Account about to be added
+     */
+    private void internHolder(Account account) {
+        List<Account> held = holders.get(account.getHolder());
+        if (held != null) {
+            account.shareHolder(held.get(0).getHolder());
+        }
+    }
+
+    /**
+     * Removes the account from the list of accounts of its holder.
+     * @param account Account that was closed
+     */
+    private void removeFromHolder(Account account) {
+        List<Account> held = new ArrayList<>(
+                holders.getOrDefault(account.getHolder(), List.of()));
+        held.remove(account);
+        if (held.isEmpty()) {
+            holders.remove(account.getHolder());
+        } else {
+            holders.put(account.getHolder(), List.copyOf(held));
+        }
     }
 
     /**
@@ -105,18 +693,47 @@ public class AccountDatabase {
      * @return True is the given account is opened, or not.
      */
     public boolean open(Account account){
-        if (!(contains(account))) {
-            try {
-                accounts[numAccounts] = account;
-                numAccounts++;
-            } catch (ArrayIndexOutOfBoundsException e) {
-                grow();
-                accounts[numAccounts] = account;
-                numAccounts++;
-            }
-            return true;
-        } else {
-            return false;
+        structureLock.writeLock().lock();
+        try {
+            loadHolder(account.getHolder());
+            if (find(account) == NOT_FOUND) {
+                compactStep(COMPACTION_STEP);
+                ensureCapacity(numSlots + 1);
+                insert(account);
+                return true;
+            } else {
+                return false;
+            }
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Opens every account in the batch that is not already in the bank,
+     * in a single pass. The array is sized once for the whole batch.
+     * Accounts that repeat an account already in the bank, or one
+     * earlier in the same batch, are skipped.
+     * Other errors and restrictions must be checked by the caller.
+     * @param batch Accounts to open
+     * @return The number of accounts opened.
+     */
+    public int openAll(Collection<? extends Account> batch){
+        structureLock.writeLock().lock();
+        try {
+            compactStep(COMPACTION_STEP);
+            ensureCapacity(numSlots + batch.size());
+            int opened = 0;
+            for (Account account : batch) {
+                loadHolder(account.getHolder());
+                if (find(account) == NOT_FOUND) {
+                    insert(account);
+                    opened++;
+                }
+            }
+            return opened;
+        } finally {
+            structureLock.writeLock().unlock();
         }
     }
 
@@ -126,121 +743,342 @@ public class AccountDatabase {
      * @return True if account is closed, false if not.
      */
     public boolean close(Account account){
-        int positionToRemove = find(account);
-        if (positionToRemove == NOT_FOUND) {
-            return false;
-        } else {
-            leftShiftArray(positionToRemove);
-            return true;
+        structureLock.writeLock().lock();
+        try {
+            loadHolder(account.getHolder());
+            int positionToRemove = find(account);
+            if (positionToRemove == NOT_FOUND) {
+                return false;
+            } else {
+                removeFromHolder(accounts[positionToRemove]);
+                if (sorted != null) {
+                    closed.add(accounts[positionToRemove]);
+                    dropSortedIfStale();
+                }
+                if (store != null) {
+                    store.remove(accounts[positionToRemove]);
+                }
+                if (log != null) {
+                    log.logClose(accounts[positionToRemove]);
+                }
+                markDead(positionToRemove);
+                compactStep(COMPACTION_STEP);
+                return true;
+            }
+        } finally {
+            structureLock.writeLock().unlock();
         }
     }
 
     /**
      * Withdraws money from the account, if they are in bank.
      * Called must check if account
-     * is open in bank or not.
+     * is open in bank or not. If the account was closed in the meantime,
+     * nothing is withdrawn.
      * @param account Same Account type, profile, and the balance is the amount to withdraw
      * @return True if successful transaction, false if not.
      */
     public boolean withdraw(Account account){
-        Account accountToWithdrawFrom = accounts[find(account)];
-        return accountToWithdrawFrom.withdraw(account.getBalance());
+        return withdraw(account.getHolder(), account.getAccountType(),
+                account.getBalance()) == TransactionResult.OK;
+    }
+
+    /**
+     * Withdraws money from the account of the given type held by the
+     * given person. Finds the account in a single lookup, and allocates
+     * nothing.
+     * @param holder the profile of the account holder
+     * @param accountType the account type
+     * @param amount the amount to withdraw, in cents
+     * @return OK if withdrawn, NOT_FOUND if the holder has no such
+     * account, or INSUFFICIENT_FUNDS if the balance is less than amount.
+     */
+    public TransactionResult withdraw(Profile holder,
+                                      AccountTypeCommand accountType,
+                                      long amount){
+        structureLock.readLock().lock();
+        try {
+            loadHolderWhileReading(holder);
+            Account accountToWithdrawFrom = findHeld(holder, accountType);
+            if (accountToWithdrawFrom == null) {
+                return TransactionResult.NOT_FOUND;
+            }
+            if (log != null) {
+                synchronized (accountToWithdrawFrom) {
+                    if (!accountToWithdrawFrom.withdraw(amount)) {
+                        return TransactionResult.INSUFFICIENT_FUNDS;
+                    }
+                    log.logWithdraw(accountToWithdrawFrom, amount);
+                }
+            } else if (!accountToWithdrawFrom.withdraw(amount)) {
+                return TransactionResult.INSUFFICIENT_FUNDS;
+            }
+            if (store != null) {
+                store.update(accountToWithdrawFrom);
+            }
+            return TransactionResult.OK;
+        } finally {
+            structureLock.readLock().unlock();
+        }
     }
+
     /**
      * Adds money to the account, if they are in bank.
      * Called must check if account
-     * is open in bank or not.
+     * is open in bank or not. If the account was closed in the meantime,
+     * nothing is deposited.
      * @param account Same Account type, profile, and the balance is the amount to deposit
+     * @return True if deposited, false if the account is not in the bank
+     * or the balance would not fit in a long.
      */
-    public void deposit(Account account){
-        Account accountToDepositTo = accounts[find(account)];
-        accountToDepositTo.deposit(account.getBalance());
+    public boolean deposit(Account account){
+        return deposit(account.getHolder(), account.getAccountType(),
+                account.getBalance()) == TransactionResult.OK;
     }
 
     /**
-     * Utility method to perform inplace sorting of the accounts.
+     * Adds money to the account of the given type held by the given
+     * person. Finds the account in a single lookup, and allocates nothing.
+     * @param holder the profile of the account holder
+     * @param accountType the account type
+     * @param amount the amount to deposit, in cents
+     * @return OK if deposited, NOT_FOUND if the holder has no such
+     * account, or BALANCE_TOO_LARGE if the balance would not fit in a
+     * long.
      */
-    private void sort(){
-        for (int i = 0; i < numAccounts - 1; i++) {
-            int indexOfEarliestEvent = i;
-            for (int j = i + 1; j < numAccounts; j++) {
-                if (accounts[j].compareTo(
-                        accounts[indexOfEarliestEvent]) < 0) {
-                    indexOfEarliestEvent = j;
+    public TransactionResult deposit(Profile holder,
+                                     AccountTypeCommand accountType,
+                                     long amount){
+        structureLock.readLock().lock();
+        try {
+            loadHolderWhileReading(holder);
+            Account accountToDepositTo = findHeld(holder, accountType);
+            if (accountToDepositTo == null) {
+                return TransactionResult.NOT_FOUND;
+            }
+            if (log != null) {
+                synchronized (accountToDepositTo) {
+                    if (!accountToDepositTo.deposit(amount)) {
+                        return TransactionResult.BALANCE_TOO_LARGE;
+                    }
+                    log.logDeposit(accountToDepositTo, amount);
                 }
+            } else if (!accountToDepositTo.deposit(amount)) {
+                return TransactionResult.BALANCE_TOO_LARGE;
             }
-            swap(i, indexOfEarliestEvent);
+            if (store != null) {
+                store.update(accountToDepositTo);
+            }
+            return TransactionResult.OK;
+        } finally {
+            structureLock.readLock().unlock();
         }
     }
 
     /**
-     * Utility method used while sorting to swap two accounts in the bank system
-     * array.
-     * @param i Index of 1st Event to swap
-     * @param j Index of 2nd Event to swap
+     * Same as printFeesAndInterests(OutputSink), printing to System.out.
      */
-    private void swap(int i, int j) {
-        Account temp = accounts[j];
-        accounts[j] = accounts[i];
-        accounts[i] = temp;
+    public void printFeesAndInterests(){
+        printFeesAndInterests(OutputSink.standardOutput());
     }
 
     /**
      * Print sorted array by account type and profile
      * while displaying Fees and Interests.
+     * @param out where the list is printed
      */
-    public void printFeesAndInterests(){
-        if(numAccounts == NO_ACCOUNTS){
-            System.out.println("Account Database is empty!");
-            return;
+    public void printFeesAndInterests(OutputSink out){
+        try (ReportWriter report =
+                     ReportWriter.toSink(ReportFormat.TEXT, out)) {
+            printFeesAndInterests(report);
         }
-        sort();
-        System.out.println("\n*list of accounts with fee and monthly interest");
-        for (int i = 0; i < numAccounts; i++) {
-            System.out.printf("%s::fee $%.2f::monthly interest $%s\n",
-                    accounts[i],
-                    accounts[i].monthlyFee(),
-                    new DecimalFormat("#,##0.00").format(accounts[i].monthlyInterest()));
-        }
-        System.out.println("*end of list.\n");
+    }
+
+    /**
+     * Writes the accounts sorted by account type and profile, with the
+     * fee and interest each would be charged and paid.
+     * @param report where the report is written, in its format
+     */
+    public void printFeesAndInterests(ReportWriter report){
+        writeReport(ReportType.FEES_AND_INTERESTS, report);
+    }
+
+    /**
+     * Same as printUpdatedBalances(OutputSink), printing to System.out.
+     */
+    public void printUpdatedBalances(){
+        printUpdatedBalances(OutputSink.standardOutput());
     }
 
     /**
      * Print sorted array by account type and profile
      * with APPLIED Fees and Interests on balance.
+     * The fees and interests are worked out by the ColumnarAccountStore
+     * kernel over the columns the balances live in, then the report is
+     * rendered from the accounts, both in chunks that run in parallel if
+     * setMonthEndParallelism() asked for more than 1 thread.
+     * @param out where the list is printed
      */
-    public void printUpdatedBalances(){
-        if(numAccounts == NO_ACCOUNTS){
-            System.out.println("Account Database is empty!");
-            return;
+    public void printUpdatedBalances(OutputSink out){
+        try (ReportWriter report =
+                     ReportWriter.toSink(ReportFormat.TEXT, out)) {
+            printUpdatedBalances(report);
         }
-        sort();
-        System.out.println("\n*list of accounts with fees and interests applied.");
-        for (int i = 0; i < numAccounts; i++) {
-            accounts[i].deposit(accounts[i].monthlyInterest());
+    }
 
-            accounts[i].withdraw(accounts[i].monthlyFee());
+    /**
+     * Applies fees and interests to every account, as
+     * printUpdatedBalances(OutputSink) does, and writes the new balances.
+     * @param report where the report is written, in its format
+     */
+    public void printUpdatedBalances(ReportWriter report){
+        ListingEvent event = new ListingEvent();
+        event.begin();
+        structureLock.writeLock().lock();
+        try {
+            loadRest();
+            if(numAccounts == NO_ACCOUNTS){
+                report.empty(ReportType.UPDATED_BALANCES);
+            } else {
+                report.begin(ReportType.UPDATED_BALANCES);
+                runMonthEnd(report.getFormat()).writeRows(report);
+                report.end();
+            }
+            commit(event, ReportType.UPDATED_BALANCES, report);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+    /**
+     * Applies fees and interests to every account without printing them.
+     * Used to replay a logged UB.
+     */
+    public void applyMonthEnd(){
+        structureLock.writeLock().lock();
+        try {
+            loadRest();
+            runMonthEnd(null);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
 
-            if(accounts[i] instanceof MoneyMarket)
-                ((MoneyMarket) accounts[i]).resetWithdrawal();
+    /**
+     * Applies fees and interests to every account, and logs it.
+     * Caller must hold the write lock.
+     * @param format the layout to render the report in, or null for no
+     * report
+     * @return the finished month-end run, holding its report
+     */
+    private ParallelMonthEnd runMonthEnd(ReportFormat format) {
+        MonthEndEvent event = new MonthEndEvent();
+        event.begin();
+        ParallelMonthEnd monthEnd = new ParallelMonthEnd(columns, accounts,
+                numSlots, store, format == null ? null : sortedAccounts(),
+                format);
+        monthEnd.run(monthEndPool);
+        if (log != null) {
+            log.logMonthEnd();
+        }
+        if (event.shouldCommit()) {
+            event.setRows(numAccounts);
+            event.setParallelism(monthEndPool == null
+                    ? 1 : monthEndPool.getParallelism());
+            event.setReport(format != null);
+            event.commit();
+        }
+        return monthEnd;
+    }
 
-            System.out.println(accounts[i]);
+    /**
+     * Writes a snapshot of every account, with the log position it is up
+     * to date with. Takes the write lock, so no transaction runs while the
+     * snapshot is written.
+     * @param path the snapshot file, replaced if it exists
+     * @return the number of accounts written
+     * @throws IOException if the snapshot cannot be written
+     */
+    public int writeSnapshot(Path path) throws IOException {
+        structureLock.writeLock().lock();
+        try {
+            loadRest();
+            long logPosition = log == null ? 0 : log.size();
+            AccountSnapshot.write(path, Arrays.asList(sortedAccounts()),
+                    logPosition);
+            return numAccounts;
+        } finally {
+            structureLock.writeLock().unlock();
         }
-        System.out.println("*end of list.\n");
     }
+
     /**
-     * Print sorted array by account type and profile
+     * Same as printSorted(OutputSink), printing to System.out.
      */
     public void printSorted() {
-        if(numAccounts == NO_ACCOUNTS){
-            System.out.println("Account Database is empty!");
-            return;
+        printSorted(OutputSink.standardOutput());
+    }
+
+    /**
+     * Print sorted array by account type and profile
+     * @param out where the list is printed
+     */
+    public void printSorted(OutputSink out){
+        try (ReportWriter report =
+                     ReportWriter.toSink(ReportFormat.TEXT, out)) {
+            printSorted(report);
         }
-        sort();
-        System.out.println("\n*Accounts sorted by account type and profile.");
-        for (int i = 0; i < numAccounts; i++) {
-            System.out.println(accounts[i]);
+    }
+
+    /**
+     * Writes the accounts sorted by account type and profile.
+     * @param report where the report is written, in its format
+     */
+    public void printSorted(ReportWriter report){
+        writeReport(ReportType.ACCOUNTS, report);
+    }
+
+    /**
+     * Writes a report with one row per account, in sorted order, under
+     * the read lock.
+     * @param type the report
+     * @param report where the report is written
+     */
+    private void writeReport(ReportType type, ReportWriter report) {
+        ListingEvent event = new ListingEvent();
+        event.begin();
+        loadAll();
+        structureLock.readLock().lock();
+        try {
+            if(numAccounts == NO_ACCOUNTS){
+                report.empty(type);
+            } else {
+                report.begin(type);
+                for (Account account : sortedAccounts()) {
+                    report.row(account);
+                }
+                report.end();
+            }
+            commit(event, type, report);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ends a listing event, and records it if a recording wants it.
+     * Caller must hold the structure lock, so numAccounts is the number
+     * of rows listed.
+     * @param event the event, begun before the lock was taken
+     * @param type the report written
+     * @param report the writer it was written to
+     */
+    private void commit(ListingEvent event, ReportType type,
+                        ReportWriter report) {
+        if (event.shouldCommit()) {
+            event.setReport(type.name());
+            event.setFormat(report.getFormat().name());
+            event.setRows(numAccounts);
+            event.commit();
         }
-        System.out.println("*end of list.\n");
     }
 }
@@ -0,0 +1,113 @@
+package bank;
+
+import bank.accounts.Account;
+
+/**
+ * Utility class that sorts accounts into listing order with an MSD radix
+ * sort on their binary sort keys (see Account.getSortKeyByte()). Each
+ * pass splits a range of accounts into 256 buckets by one key byte, in a
+ * single counting pass, and only buckets holding more than one account
+ * go on to the next byte, so the work is close to linear in the total
+ * length of the keys. Small ranges are finished by insertion sort on the
+ * rest of the keys. No String is made and compareTo() is never called.
+ * @author Dharmik Patel and Krish Patel
+ */
+final class AccountSorter {
+    private static final int RADIX = 256;
+    private static final int INSERTION_SORT_CUTOFF = 32;
+
+    /**
+     * Not used, this class only has static methods.
+     */
+    private AccountSorter() {
+    }
+
+    /**
+     * Sorts accounts into listing order, by account type and profile.
+     * The accounts must all be different.
+     * @param accounts the accounts to sort, in place
+     */
+    static void sort(Account[] accounts) {
+        sort(accounts, new Account[accounts.length],
+                new int[accounts.length], 0, accounts.length, 0);
+    }
+
+    /**
+     * Sorts a range of accounts whose keys are equal before the given
+     * byte.
+     * @param accounts the accounts
+     * @param aux scratch space as long as accounts
+     * @param keyBytes scratch space as long as accounts
+     * @param from the first account of the range
+     * @param to one past the last account of the range
+     * @param depth the index of the key byte to sort on
+     */
+    private static void sort(Account[] accounts, Account[] aux,
+                             int[] keyBytes, int from, int to, int depth) {
+        if (to - from <= INSERTION_SORT_CUTOFF) {
+            insertionSort(accounts, from, to, depth);
+            return;
+        }
+        //counts[b + 2] counts byte b; b = -1 is the end of the key
+        int[] counts = new int[RADIX + 2];
+        for (int i = from; i < to; i++) {
+            keyBytes[i] = accounts[i].getSortKeyByte(depth);
+            counts[keyBytes[i] + 2]++;
+        }
+        for (int b = 0; b < RADIX + 1; b++) {
+            counts[b + 1] += counts[b];
+        }
+        for (int i = from; i < to; i++) {
+            aux[counts[keyBytes[i] + 1]++] = accounts[i];
+        }
+        System.arraycopy(aux, 0, accounts, from, to - from);
+        //bucket b is now [counts[b], counts[b + 1]); ended keys are first
+        for (int b = 0; b < RADIX; b++) {
+            if (counts[b + 1] - counts[b] > 1) {
+                sort(accounts, aux, keyBytes, from + counts[b],
+                        from + counts[b + 1], depth + 1);
+            }
+        }
+    }
+
+    /**
+     * Sorts a small range of accounts whose keys are equal before the
+     * given byte, by insertion.
+     * @param accounts the accounts
+     * @param from the first account of the range
+     * @param to one past the last account of the range
+     * @param depth the index of the first key byte that may differ
+     */
+    private static void insertionSort(Account[] accounts, int from, int to,
+                                      int depth) {
+        for (int i = from + 1; i < to; i++) {
+            Account account = accounts[i];
+            int j = i;
+            while (j > from
+                    && compareFrom(accounts[j - 1], account, depth) > 0) {
+                accounts[j] = accounts[j - 1];
+                j--;
+            }
+            accounts[j] = account;
+        }
+    }
+
+    /**
+     * Compares the sort keys of two accounts from the given byte on.
+     * @param a the first account
+     * @param b the second account
+     * @param depth the index of the first key byte to compare
+     * @return Negative if a sorts first, 0 if the keys are equal, positive
+     * if b sorts first
+     */
+    private static int compareFrom(Account a, Account b, int depth) {
+        while (true) {
+            int byteA = a.getSortKeyByte(depth);
+            int byteB = b.getSortKeyByte(depth);
+            if (byteA != byteB || byteA < 0) {
+                return byteA - byteB;
+            }
+            depth++;
+        }
+    }
+}
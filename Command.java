@@ -0,0 +1,61 @@
+package bank;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This enum class represents every command the Transaction Manager takes,
+ * with the token that starts its command line.
+ * @author Dharmik Patel and Krish Patel
+ */
+public enum Command {
+    OPEN("O"),
+    CLOSE("C"),
+    DEPOSIT("D"),
+    WITHDRAW("W"),
+    PRINT("P"),
+    DISPLAY_INT_FEE("PI"),
+    APPLY_INT_FEE("UB"),
+    SNAPSHOT("SNAP"),
+    STATS("STATS"),
+    QUIT("Q"),
+    EMPTY(""),
+    INVALID(null);
+    private static final Command[] COMMANDS = values();
+    private final byte[] token;
+
+    /**
+     * This constructor is used by JVM, makes all the Command enums.
+     * @param token the token of the command, null if it has none
+     */
+    Command(String token) {
+        this.token = token == null
+                ? null : token.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Gets the token that starts the command line of this command.
+     * @return the token, or null if the command has none
+     */
+    public String getToken() {
+        return token == null
+                ? null : new String(token, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Finds the command whose token is the given bytes. The match is case
+     * sensitive, like the rest of the command line.
+     * @param bytes the command line
+     * @param from the start of the token
+     * @param to the end of the token
+     * @return the command, or INVALID if no command has that token
+     */
+    static Command of(byte[] bytes, int from, int to) {
+        for (Command command : COMMANDS) {
+            if (command.token != null && ParsedCommand.tokenEquals(
+                    bytes, from, to, command.token)) {
+                return command;
+            }
+        }
+        return INVALID;
+    }
+}
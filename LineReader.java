@@ -0,0 +1,125 @@
+package bank;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+/**
+ * This class reads lines from a channel through one large buffer, without
+ * decoding them, so the caller can decide how to turn each line into
+ * tokens. A line ends at "\n"; a "\r" just before it is not part of the
+ * line. The last line of the input does not need a "\n".
+ * The buffer grows if a single line does not fit in it.
+ * @author Dharmik Patel and Krish Patel
+ */
+class LineReader {
+    private static final byte LINE_FEED = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final int GROWTH_FACTOR = 2;
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    //start of the unread bytes in the buffer
+    private int unread;
+    //first unread byte not yet checked for a line feed
+    private int scanned;
+    private boolean endOfInput;
+    private int lineStart;
+    private int lineEnd;
+
+    /**
+     * Makes a reader of the channel.
+     * @param channel the input
+     * @param bufferSize the starting size of the buffer in bytes
+     */
+    LineReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    /**
+     * Moves to the next line, reading more of the channel if needed.
+     * @return True if there is a next line, false at the end of input.
+     * @throws IOException if the channel cannot be read
+     */
+    boolean next() throws IOException {
+        byte[] bytes = buffer.array();
+        while (true) {
+            int end = buffer.position();
+            for (; scanned < end; scanned++) {
+                if (bytes[scanned] == LINE_FEED) {
+                    setLine(bytes, scanned);
+                    scanned++;
+                    unread = scanned;
+                    return true;
+                }
+            }
+            if (endOfInput) {
+                if (unread == end) return false;
+                setLine(bytes, end);
+                unread = end;
+                return true;
+            }
+            bytes = refill();
+        }
+    }
+
+    /**
+     * Makes the unread bytes up to the given end the current line.
+     * @param bytes the buffer
+     * @param end the position of the line feed, or the end of input
+     */
+    private void setLine(byte[] bytes, int end) {
+        lineStart = unread;
+        lineEnd = end > lineStart && bytes[end - 1] == CARRIAGE_RETURN
+                ? end - 1 : end;
+    }
+
+    /**
+     * Moves the unread bytes to the front of the buffer, growing it if
+     * they fill it, and reads more of the channel after them.
+     * @return the buffer array, which is new if the buffer grew
+     */
+    private byte[] refill() throws IOException {
+        byte[] bytes = buffer.array();
+        int end = buffer.position();
+        if (unread == 0 && end == bytes.length) {
+            buffer = ByteBuffer.wrap(
+                    Arrays.copyOf(bytes, bytes.length * GROWTH_FACTOR));
+            buffer.position(end);
+        } else if (unread > 0) {
+            System.arraycopy(bytes, unread, bytes, 0, end - unread);
+            buffer.position(end - unread);
+            scanned -= unread;
+            unread = 0;
+        }
+        if (channel.read(buffer) < 0) {
+            endOfInput = true;
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Gets the buffer holding the current line.
+     * @return the buffer array, valid until the next call to next()
+     */
+    byte[] array() {
+        return buffer.array();
+    }
+
+    /**
+     * Gets where the current line starts in array().
+     * @return the index of the first byte of the line
+     */
+    int lineStart() {
+        return lineStart;
+    }
+
+    /**
+     * Gets where the current line ends in array().
+     * @return the index just after the last byte of the line
+     */
+    int lineEnd() {
+        return lineEnd;
+    }
+}
@@ -0,0 +1,185 @@
+package bank;
+
+import bank.accounts.Account;
+import bank.accounts.ColumnarAccountStore;
+import bank.output.ReportFormat;
+import bank.output.ReportType;
+import bank.output.ReportWriter;
+import bank.persistence.MappedAccountStore;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * This class runs the month-end update (UB) over the columns a bank keeps
+ * its balances in. The rows are split into chunks of CHUNK_SIZE; each
+ * chunk applies fees and interests through the ColumnarAccountStore
+ * kernel, without touching Account objects unless the bank writes through
+ * to a MappedAccountStore. If there is a report, the sorted accounts are
+ * then split into chunks the same way, each rendering its own lines of the
+ * report. The chunks are written in order, so the report is the same no
+ * matter how many threads ran it.
+ * @author Dharmik Patel and Krish Patel
+ */
+class ParallelMonthEnd {
+    static final int CHUNK_SIZE = 4096;
+    private final ColumnarAccountStore columns;
+    private final Account[] slots;
+    private final int numRows;
+    private final MappedAccountStore store;
+    private final Account[] sorted;
+    private final ReportFormat format;
+    private final String[] chunkReports;
+
+    /**
+     * Prepares a month-end run over the first numRows rows of the columns.
+     * @param columns the columns holding the balances
+     * @param slots the account of each row, null for an empty row
+     * @param numRows the number of rows in use
+     * @param store the store to write new balances to, or null
+     * @param sorted the accounts in the order the report lists them, or
+     * null for no report
+     * @param format the layout to render the report in, or null for no
+     * report
+     */
+    ParallelMonthEnd(ColumnarAccountStore columns, Account[] slots,
+                     int numRows, MappedAccountStore store, Account[] sorted,
+                     ReportFormat format) {
+        this.columns = columns;
+        this.slots = slots;
+        this.numRows = numRows;
+        this.store = store;
+        this.sorted = sorted;
+        this.format = format;
+        chunkReports = format == null ? new String[0]
+                : new String[numChunks(sorted.length)];
+    }
+
+    /**
+     * Gets the number of chunks a number of rows is split into.
+     * @param rows the number of rows
+     * @return the number of chunks
+     */
+    private static int numChunks(int rows) {
+        return (rows + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    /**
+     * Applies fees and interests to every account, then renders the report
+     * if there is one, on the given pool, or on the calling thread if the
+     * pool is null. With no rows there are no chunks, and nothing is run.
+     * @param pool the pool to run the chunks on, or null
+     */
+    void run(ForkJoinPool pool) {
+        runChunks(pool, numChunks(numRows), this::applyChunk);
+        runChunks(pool, chunkReports.length, this::renderChunk);
+    }
+
+    /**
+     * Runs every chunk of one phase.
+     * @param pool the pool to run the chunks on, or null
+     * @param numChunks the number of chunks
+     * @param chunkAction runs one chunk, given its number
+     */
+    private static void runChunks(ForkJoinPool pool, int numChunks,
+                                  IntConsumer chunkAction) {
+        if (numChunks == 0) {
+            return;
+        }
+        if (pool == null) {
+            for (int chunk = 0; chunk < numChunks; chunk++) {
+                chunkAction.accept(chunk);
+            }
+        } else {
+            pool.invoke(new ChunkRange(0, numChunks, chunkAction));
+        }
+    }
+
+    /**
+     * Applies fees and interests to the rows of one chunk, and writes
+     * their new state into the store if there is one.
+     * @param chunk the chunk number
+     */
+    private void applyChunk(int chunk) {
+        int from = chunk * CHUNK_SIZE;
+        int to = Math.min(numRows, from + CHUNK_SIZE);
+        columns.applyMonthEnd(from, to);
+        if (store != null) {
+            for (int row = from; row < to; row++) {
+                if (slots[row] != null) {
+                    store.update(slots[row]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Renders the lines of the report for one chunk of the sorted
+     * accounts.
+     * @param chunk the chunk number
+     */
+    private void renderChunk(int chunk) {
+        int from = chunk * CHUNK_SIZE;
+        int to = Math.min(sorted.length, from + CHUNK_SIZE);
+        StringBuilder report = new StringBuilder();
+        for (int row = from; row < to; row++) {
+            format.appendRow(report, ReportType.UPDATED_BALANCES,
+                    sorted[row], row == 0);
+        }
+        chunkReports[chunk] = report.toString();
+    }
+
+    /**
+     * Writes the rows of the report, in the order of the accounts.
+     * Only valid after run() returns, with a format.
+     * @param report the report, already begun
+     */
+    void writeRows(ReportWriter report) {
+        for (int chunk = 0; chunk < chunkReports.length; chunk++) {
+            int from = chunk * CHUNK_SIZE;
+            report.rows(chunkReports[chunk],
+                    Math.min(sorted.length, from + CHUNK_SIZE) - from);
+        }
+    }
+
+    /**
+     * Fork/join task that splits a range of chunks in half until a single
+     * chunk is left, then runs it.
+     */
+    private static class ChunkRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final transient IntConsumer chunkAction;
+
+        /**
+         * Makes a task for the chunks in [from, to).
+         * @param from the first chunk
+         * @param to one past the last chunk
+         * @param chunkAction runs one chunk, given its number
+         */
+        ChunkRange(int from, int to, IntConsumer chunkAction) {
+            this.from = from;
+            this.to = to;
+            this.chunkAction = chunkAction;
+        }
+
+        /**
+         * Runs the chunk, or splits the range and runs both halves. An
+         * empty range runs nothing.
+         */
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) {
+                    chunkAction.accept(from);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChunkRange(from, middle, chunkAction),
+                        new ChunkRange(middle, to, chunkAction));
+            }
+        }
+    }
+}
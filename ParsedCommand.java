@@ -0,0 +1,523 @@
+package bank;
+
+import bank.accounts.AccountTypeCommand;
+import bank.accounts.Money;
+import bank.output.ReportFormat;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class is a command line split into tokens and parsed, straight from
+ * the bytes of the line. One instance is reused for every line, so parsing
+ * a well-formed line allocates nothing; strings are only made when the
+ * caller asks for a name or for the text of a token to print.
+ * Tokens are split on the same whitespace as the regex "\\s+", and a line
+ * that starts with whitespace has an empty first token, as with
+ * String.split().
+ * Token layout: COMMAND ACCOUNT_TYPE FNAME LNAME DOB AMOUNT CAMPUS|LOYALTY
+ * Reports take: COMMAND [FORMAT [FILE]]
+ * STATS takes: STATS [RESET]
+ * @author Dharmik Patel and Krish Patel
+ */
+class ParsedCommand {
+    static final long NOT_A_NUMBER = Long.MIN_VALUE;
+    private static final int INDEX_OF_CMD = 0;
+    private static final int INDEX_OF_ACCOUNT_TYPE = 1;
+    private static final int INDEX_OF_FNAME = 2;
+    private static final int INDEX_OF_LNAME = 3;
+    private static final int INDEX_OF_DOB = 4;
+    private static final int INDEX_OF_AMOUNT = 5;
+    private static final int INDEX_OF_CAMPUS_OR_LOYALTY = 6;
+    private static final int INDEX_OF_REPORT_FORMAT = 1;
+    private static final int INDEX_OF_REPORT_FILE = 2;
+    private static final int INDEX_OF_STATS_OPTION = 1;
+    private static final int MAX_TOKENS = 7;
+    private static final int RADIX = 10;
+    private static final int CENT_DIGITS = 2;
+    //longest whole dollar part parsed without Double.parseDouble()
+    private static final int MAX_FAST_DOLLAR_DIGITS = 13;
+    private static final byte DATE_SEPARATOR = '/';
+    private static final byte DECIMAL_POINT = '.';
+    private static final byte PLUS = '+';
+    private static final byte MINUS = '-';
+    private static final byte[] QUIT_LINE =
+            "Q".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] STATS_RESET =
+            "RESET".getBytes(StandardCharsets.US_ASCII);
+    private static final AccountTypeCommand[] ACCOUNT_TYPES =
+            AccountTypeCommand.values();
+    private static final byte[][] ACCOUNT_TYPE_TOKENS =
+            new byte[ACCOUNT_TYPES.length][];
+    private static final ReportFormat[] REPORT_FORMATS =
+            ReportFormat.values();
+    private static final byte[][] REPORT_FORMAT_TOKENS =
+            new byte[REPORT_FORMATS.length][];
+    static {
+        for (int i = 0; i < ACCOUNT_TYPES.length; i++) {
+            ACCOUNT_TYPE_TOKENS[i] = ACCOUNT_TYPES[i].name()
+                    .getBytes(StandardCharsets.US_ASCII);
+        }
+        for (int i = 0; i < REPORT_FORMATS.length; i++) {
+            REPORT_FORMAT_TOKENS[i] = REPORT_FORMATS[i].name()
+                    .getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+    private final Charset charset;
+    private final int[] tokenStarts = new int[MAX_TOKENS];
+    private final int[] tokenEnds = new int[MAX_TOKENS];
+    private byte[] bytes;
+    private int numTokens; //tokens on the line, counted up to MAX_TOKENS
+    private boolean quitLine;
+    private Command command;
+    private AccountTypeCommand accountType; //null if missing or unknown
+    private boolean dobWellFormed;
+    private int dobMonth;
+    private int dobDay;
+    private int dobYear;
+    private long amount; //in cents, or NOT_A_NUMBER
+    private boolean amountExact; //True if the amount needed no rounding
+    private long campusOrLoyalty; //or NOT_A_NUMBER
+
+    /**
+     * Makes an empty command, whose names are decoded with the given
+     * charset.
+     * @param charset the charset of the command lines
+     */
+    ParsedCommand(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * Splits the line into tokens and parses every field there is a token
+     * for. Nothing is checked against the bank or the calendar here.
+     * @param bytes holds the line, and must not change while this command
+     * is used
+     * @param from the start of the line
+     * @param to the end of the line, without the line separator
+     */
+    void parse(byte[] bytes, int from, int to) {
+        this.bytes = bytes;
+        tokenize(from, to);
+        quitLine = tokenEquals(bytes, from, to, QUIT_LINE);
+        command = Command.of(bytes, tokenStarts[INDEX_OF_CMD],
+                tokenEnds[INDEX_OF_CMD]);
+        accountType = has(INDEX_OF_ACCOUNT_TYPE) ? parseAccountType() : null;
+        dobWellFormed = has(INDEX_OF_DOB) && parseDate();
+        amount = has(INDEX_OF_AMOUNT) ? parseCents() : NOT_A_NUMBER;
+        campusOrLoyalty = has(INDEX_OF_CAMPUS_OR_LOYALTY)
+                ? parseInt(tokenStarts[INDEX_OF_CAMPUS_OR_LOYALTY],
+                tokenEnds[INDEX_OF_CAMPUS_OR_LOYALTY]) : NOT_A_NUMBER;
+    }
+
+    /**
+     * Finds where the first MAX_TOKENS tokens start and end, and counts
+     * them. A line of only whitespace has one empty token.
+     * @param from the start of the line
+     * @param to the end of the line
+     */
+    private void tokenize(int from, int to) {
+        numTokens = 0;
+        int i = from;
+        if (i == to || isWhitespace(bytes[i])) {
+            addToken(from, from);
+        }
+        while (numTokens < MAX_TOKENS) {
+            while (i < to && isWhitespace(bytes[i])) i++;
+            if (i == to) break;
+            int start = i;
+            while (i < to && !isWhitespace(bytes[i])) i++;
+            addToken(start, i);
+        }
+    }
+
+    /**
+     * Adds a token.
+     * @param start the start of the token
+     * @param end the end of the token
+     */
+    private void addToken(int start, int end) {
+        tokenStarts[numTokens] = start;
+        tokenEnds[numTokens] = end;
+        numTokens++;
+    }
+
+    /**
+     * Checks if a byte is whitespace to the regex "\\s".
+     * @param b the byte
+     * @return True if b is a space, tab, line feed, vertical tab, form
+     * feed or carriage return.
+     */
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || (b >= '\t' && b <= '\r');
+    }
+
+    /**
+     * Checks if the bytes in a range are the same as the given token.
+     * @param bytes holds the range
+     * @param from the start of the range
+     * @param to the end of the range
+     * @param token the token
+     * @return True if they are the same, false if not.
+     */
+    static boolean tokenEquals(byte[] bytes, int from, int to, byte[] token) {
+        if (to - from != token.length) return false;
+        for (int i = 0; i < token.length; i++) {
+            if (bytes[from + i] != token[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Checks if the line has the token at the given index.
+     * @param index the index of the token
+     * @return True if the line has that many tokens, false if not.
+     */
+    private boolean has(int index) {
+        return numTokens > index;
+    }
+
+    /**
+     * Parses the account type token, which must be the name of an
+     * AccountTypeCommand.
+     * @return the account type, or null if the token names none
+     */
+    private AccountTypeCommand parseAccountType() {
+        for (int i = 0; i < ACCOUNT_TYPES.length; i++) {
+            if (tokenEquals(bytes, tokenStarts[INDEX_OF_ACCOUNT_TYPE],
+                    tokenEnds[INDEX_OF_ACCOUNT_TYPE], ACCOUNT_TYPE_TOKENS[i])) {
+                return ACCOUNT_TYPES[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses the DOB token, MONTH/DAY/YEAR, into dobMonth, dobDay and
+     * dobYear. Anything after a third "/" is ignored, like Date(String)
+     * does.
+     * @return True if the token has three whole numbers, false if not.
+     */
+    private boolean parseDate() {
+        int end = tokenEnds[INDEX_OF_DOB];
+        int monthStart = tokenStarts[INDEX_OF_DOB];
+        int monthEnd = indexOf(DATE_SEPARATOR, monthStart, end);
+        if (monthEnd == end) return false;
+        int dayEnd = indexOf(DATE_SEPARATOR, monthEnd + 1, end);
+        if (dayEnd == end) return false;
+        int yearEnd = indexOf(DATE_SEPARATOR, dayEnd + 1, end);
+        long month = parseInt(monthStart, monthEnd);
+        long day = parseInt(monthEnd + 1, dayEnd);
+        long year = parseInt(dayEnd + 1, yearEnd);
+        if (month == NOT_A_NUMBER || day == NOT_A_NUMBER
+                || year == NOT_A_NUMBER) {
+            return false;
+        }
+        dobMonth = (int) month;
+        dobDay = (int) day;
+        dobYear = (int) year;
+        return true;
+    }
+
+    /**
+     * Finds a byte in a range of the line.
+     * @param b the byte to find
+     * @param from the start of the range
+     * @param to the end of the range
+     * @return the index of the first b, or to if there is none
+     */
+    private int indexOf(byte b, int from, int to) {
+        int i = from;
+        while (i < to && bytes[i] != b) i++;
+        return i;
+    }
+
+    /**
+     * Parses a whole number the way Integer.parseInt() does, with an
+     * optional sign and only ASCII digits.
+     * @param from the start of the number
+     * @param to the end of the number
+     * @return the number, or NOT_A_NUMBER if it is not an int
+     */
+    private long parseInt(int from, int to) {
+        int i = from;
+        boolean negative = false;
+        if (i < to && (bytes[i] == PLUS || bytes[i] == MINUS)) {
+            negative = bytes[i] == MINUS;
+            i++;
+        }
+        if (i == to) return NOT_A_NUMBER;
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit >= RADIX) return NOT_A_NUMBER;
+            value = value * RADIX + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) return NOT_A_NUMBER;
+        }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE ? NOT_A_NUMBER : value;
+    }
+
+    /**
+     * Parses the amount token, in dollars, into cents. Plain amounts with
+     * up to MAX_FAST_DOLLAR_DIGITS whole dollar digits and up to 2 cent
+     * digits are parsed from the bytes. Anything else goes through
+     * Double.parseDouble() and Money.toCents(), so it parses and rounds
+     * the same as it always has.
+     * @return the amount in cents, or NOT_A_NUMBER if it is not a number
+     */
+    private long parseCents() {
+        int from = tokenStarts[INDEX_OF_AMOUNT];
+        int to = tokenEnds[INDEX_OF_AMOUNT];
+        int i = from;
+        boolean negative = false;
+        if (i < to && (bytes[i] == PLUS || bytes[i] == MINUS)) {
+            negative = bytes[i] == MINUS;
+            i++;
+        }
+        long cents = 0;
+        int dollarDigits = 0;
+        int centDigits = 0;
+        for (; i < to && isDigit(bytes[i]); i++, dollarDigits++) {
+            cents = cents * RADIX + (bytes[i] - '0');
+        }
+        if (i < to && bytes[i] == DECIMAL_POINT) {
+            for (i++; i < to && isDigit(bytes[i]); i++, centDigits++) {
+                cents = cents * RADIX + (bytes[i] - '0');
+            }
+        }
+        if (i != to || dollarDigits + centDigits == 0
+                || dollarDigits > MAX_FAST_DOLLAR_DIGITS
+                || centDigits > CENT_DIGITS) {
+            return parseCentsSlowly(from, to);
+        }
+        for (; centDigits < CENT_DIGITS; centDigits++) {
+            cents *= RADIX;
+        }
+        amountExact = true;
+        return negative ? -cents : cents;
+    }
+
+    /**
+     * Parses an amount in dollars into cents through Double.parseDouble().
+     * @param from the start of the amount
+     * @param to the end of the amount
+     * @return the amount in cents, or NOT_A_NUMBER if it is not a number
+     */
+    private long parseCentsSlowly(int from, int to) {
+        amountExact = false;
+        try {
+            return Money.toCents(Double.parseDouble(
+                    new String(bytes, from, to - from, charset)));
+        } catch (NumberFormatException | ArithmeticException err) {
+            return NOT_A_NUMBER;
+        }
+    }
+
+    /**
+     * Checks if a byte is an ASCII digit.
+     * @param b the byte
+     * @return True if b is 0 to 9, false if not.
+     */
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * Decodes a token into a string.
+     * @param index the index of the token
+     * @return the token
+     */
+    private String token(int index) {
+        return new String(bytes, tokenStarts[index],
+                tokenEnds[index] - tokenStarts[index], charset);
+    }
+
+    /**
+     * Gets the command.
+     * @return the command, INVALID if the first token is not a command
+     */
+    Command getCommand() {
+        return command;
+    }
+
+    /**
+     * Checks if the whole line is CMD_QUIT("Q"), which ends the run.
+     * @return True if the line is "Q", false if not.
+     */
+    boolean isQuitLine() {
+        return quitLine;
+    }
+
+    /**
+     * Gets the account type.
+     * @return the account type, or null if it is missing or unknown
+     */
+    AccountTypeCommand getAccountType() {
+        return accountType;
+    }
+
+    /**
+     * Checks if the line has a first name, last name and DOB.
+     * @return True if it has, false if not.
+     */
+    boolean hasProfile() {
+        return has(INDEX_OF_DOB);
+    }
+
+    /**
+     * Gets the first name, as typed.
+     * @return the first name
+     */
+    String getFname() {
+        return token(INDEX_OF_FNAME);
+    }
+
+    /**
+     * Gets the format a report command asked for. Only an exact format
+     * name counts, so other words after P, PI or UB are still ignored.
+     * @return the format, or null if the second token is not one
+     */
+    ReportFormat getReportFormat() {
+        if (!has(INDEX_OF_REPORT_FORMAT)) return null;
+        for (int i = 0; i < REPORT_FORMATS.length; i++) {
+            if (tokenEquals(bytes, tokenStarts[INDEX_OF_REPORT_FORMAT],
+                    tokenEnds[INDEX_OF_REPORT_FORMAT],
+                    REPORT_FORMAT_TOKENS[i])) {
+                return REPORT_FORMATS[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the file a report command asked to write to, as typed.
+     * @return the file, or null if there is no third token
+     */
+    String getReportFile() {
+        return has(INDEX_OF_REPORT_FILE) ? token(INDEX_OF_REPORT_FILE) : null;
+    }
+
+    /**
+     * Checks if a STATS command asked for the statistics to be reset.
+     * @return True if the second token is exactly "RESET", false if not.
+     */
+    boolean isStatsReset() {
+        return has(INDEX_OF_STATS_OPTION) && tokenEquals(bytes,
+                tokenStarts[INDEX_OF_STATS_OPTION],
+                tokenEnds[INDEX_OF_STATS_OPTION], STATS_RESET);
+    }
+
+    /**
+     * Gets the last name, as typed.
+     * @return the last name
+     */
+    String getLname() {
+        return token(INDEX_OF_LNAME);
+    }
+
+    /**
+     * Gets the DOB token, as typed.
+     * @return the DOB token
+     */
+    String getDobToken() {
+        return token(INDEX_OF_DOB);
+    }
+
+    /**
+     * Checks if the DOB token is three whole numbers, MONTH/DAY/YEAR.
+     * It may still not be a date on the calendar.
+     * @return True if it is, false if not.
+     */
+    boolean isDobWellFormed() {
+        return dobWellFormed;
+    }
+
+    /**
+     * Gets the month of the DOB, if isDobWellFormed().
+     * @return the month number
+     */
+    int getDobMonth() {
+        return dobMonth;
+    }
+
+    /**
+     * Gets the day of the DOB, if isDobWellFormed().
+     * @return the day
+     */
+    int getDobDay() {
+        return dobDay;
+    }
+
+    /**
+     * Gets the year of the DOB, if isDobWellFormed().
+     * @return the year
+     */
+    int getDobYear() {
+        return dobYear;
+    }
+
+    /**
+     * Checks if the line has an amount token.
+     * @return True if it has, false if not.
+     */
+    boolean hasAmount() {
+        return has(INDEX_OF_AMOUNT);
+    }
+
+    /**
+     * Gets the amount.
+     * @return the amount in cents, or NOT_A_NUMBER if the token is not a
+     * valid amount
+     */
+    long getAmount() {
+        return amount;
+    }
+
+    /**
+     * Checks if the amount, as typed and before it is rounded to the cent,
+     * is below a number of cents. An amount with more than 2 cent digits
+     * is compared in dollars, as Double.parseDouble() reads it, so
+     * 1999.999 is below 2000.00 though it rounds to it.
+     * @param cents the bound, in cents
+     * @return True if the amount is below the bound, false if not or if
+     * the token is not a valid amount.
+     */
+    boolean isAmountBelow(long cents) {
+        if (amount == NOT_A_NUMBER) {
+            return false;
+        }
+        if (amountExact) {
+            return amount < cents;
+        }
+        int from = tokenStarts[INDEX_OF_AMOUNT];
+        int to = tokenEnds[INDEX_OF_AMOUNT];
+        double dollars = Double.parseDouble(
+                new String(bytes, from, to - from, charset));
+        return dollars < (double) cents / Money.CENTS_PER_DOLLAR;
+    }
+
+    /**
+     * Checks if the line has a campus code or loyalty token.
+     * @return True if it has, false if not.
+     */
+    boolean hasCampusOrLoyalty() {
+        return has(INDEX_OF_CAMPUS_OR_LOYALTY);
+    }
+
+    /**
+     * Gets the campus code of a College Checking account.
+     * @return the campus code, or NOT_A_NUMBER if it is not a number
+     */
+    long getCampusCode() {
+        return campusOrLoyalty;
+    }
+
+    /**
+     * Gets the loyalty status of a Savings account.
+     * @return the loyalty status, or NOT_A_NUMBER if it is not a number
+     */
+    long getLoyalty() {
+        return campusOrLoyalty;
+    }
+}
@@ -1,11 +1,241 @@
 package bank;
 
+import bank.output.AsyncSink;
+import bank.output.BufferedSink;
+import bank.output.OutputSink;
+import bank.persistence.AccountSnapshot;
+import bank.persistence.MappedAccountStore;
+import bank.persistence.SyncPolicy;
+import bank.persistence.TransactionLog;
+import bank.shard.ShardConnection;
+import bank.stats.CommandStats;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * This is a runner class which calls the Transaction Manager
+ * Options:
+ *      --store FILE        keep the bank in a memory-mapped file
+ *      --parallelism N     threads used by the UB command
+ *      --log FILE          append every change to a write-ahead log,
+ *                          replaying it first
+ *      --sync POLICY       when the log is forced to disk: command,
+ *                          records:N or millis:N (default command);
+ *                          records and millis acknowledge changes
+ *                          before they are on disk
+ *      --snapshot FILE     load the bank from a snapshot, if the file
+ *                          exists, and write snapshots there on SNAP
+ *      --batch FILE        run the command lines in the file instead of
+ *                          reading the keyboard
+ *      --output MODE       how output is written: direct, buffered or
+ *                          async (default direct, or buffered with
+ *                          --batch)
+ *      --stats             time every command, per phase, for the STATS
+ *                          command
+ *      --shards LIST       route commands to the ShardServers at the
+ *                          comma separated HOST:PORT addresses instead of
+ *                          running a bank here
  * @author Dharmik Patel and Krish Patel
  */
 public class RunProject2 {
-    public static void main(String[] args) {
-        new TransactionManager().run();
+    private static final String OPTION_STORE = "--store";
+    private static final String OPTION_PARALLELISM = "--parallelism";
+    private static final String OPTION_LOG = "--log";
+    private static final String OPTION_SYNC = "--sync";
+    private static final String OPTION_SNAPSHOT = "--snapshot";
+    private static final String OPTION_BATCH = "--batch";
+    private static final String OPTION_OUTPUT = "--output";
+    private static final String OPTION_STATS = "--stats";
+    private static final String OPTION_SHARDS = "--shards";
+    private static final String SHARD_SEPARATOR = ",";
+    private static final String OUTPUT_DIRECT = "direct";
+    private static final String OUTPUT_BUFFERED = "buffered";
+    private static final String OUTPUT_ASYNC = "async";
+    private static final int OUTPUT_BUFFER_CHARS = 1 << 16;
+    private static final int OUTPUT_QUEUE_CHUNKS = 64;
+    private static final long OUTPUT_FLUSH_MILLIS = 100;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    public static void main(String[] args) throws IOException {
+        Path storePath = null;
+        int parallelism = 1;
+        Path logPath = null;
+        SyncPolicy syncPolicy = SyncPolicy.perCommand();
+        Path snapshotPath = null;
+        Path batchPath = null;
+        String outputMode = null;
+        boolean recordStats = false;
+        String[] shardAddresses = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case OPTION_STORE -> storePath = Path.of(args[++i]);
+                    case OPTION_PARALLELISM ->
+                            parallelism = Integer.parseInt(args[++i]);
+                    case OPTION_LOG -> logPath = Path.of(args[++i]);
+                    case OPTION_SYNC ->
+                            syncPolicy = SyncPolicy.parse(args[++i]);
+                    case OPTION_SNAPSHOT -> snapshotPath = Path.of(args[++i]);
+                    case OPTION_BATCH -> batchPath = Path.of(args[++i]);
+                    case OPTION_OUTPUT -> outputMode = args[++i];
+                    case OPTION_STATS -> recordStats = true;
+                    case OPTION_SHARDS ->
+                            shardAddresses = args[++i].split(SHARD_SEPARATOR);
+                    default -> throw new IllegalArgumentException(args[i]);
+                }
+            }
+            if (storePath != null
+                    && (logPath != null || snapshotPath != null)) {
+                throw new IllegalArgumentException(OPTION_STORE);
+            }
+            if (shardAddresses != null && (storePath != null
+                    || logPath != null || snapshotPath != null
+                    || parallelism != 1 || recordStats)) {
+                throw new IllegalArgumentException(OPTION_SHARDS);
+            }
+            if (outputMode == null) {
+                outputMode = batchPath == null
+                        ? OUTPUT_DIRECT : OUTPUT_BUFFERED;
+            } else if (!(outputMode.equals(OUTPUT_DIRECT)
+                    || outputMode.equals(OUTPUT_BUFFERED)
+                    || outputMode.equals(OUTPUT_ASYNC))) {
+                throw new IllegalArgumentException(outputMode);
+            }
+        } catch (IndexOutOfBoundsException | IllegalArgumentException err) {
+            System.out.println("Usage: RunProject2 [--store FILE | [--log FILE "
+                    + "[--sync POLICY]] [--snapshot FILE]] [--parallelism N] "
+                    + "[--batch FILE] [--output direct|buffered|async] "
+                    + "[--stats]");
+            System.out.println("       RunProject2 --shards HOST:PORT,... "
+                    + "[--batch FILE] [--output direct|buffered|async]");
+            return;
+        }
+        if (shardAddresses != null) {
+            route(shardAddresses, batchPath, outputMode);
+            return;
+        }
+        if (storePath != null) {
+            try (MappedAccountStore store =
+                         MappedAccountStore.open(storePath)) {
+                run(new AccountDatabase(store), null, parallelism, batchPath,
+                        outputMode, recordStats);
+            }
+            return;
+        }
+        long startNanos = System.nanoTime();
+        AccountDatabase accountDatabase = new AccountDatabase();
+        long logPosition = 0;
+        if (snapshotPath != null && Files.exists(snapshotPath)) {
+            AccountSnapshot snapshot = AccountSnapshot.load(snapshotPath);
+            accountDatabase = new AccountDatabase(snapshot);
+            logPosition = snapshot.getLogPosition();
+        }
+        if (logPath == null) {
+            if (snapshotPath != null) {
+                reportStartup(startNanos, 0);
+            }
+            run(accountDatabase, snapshotPath, parallelism, batchPath,
+                    outputMode, recordStats);
+            return;
+        }
+        try (TransactionLog log = TransactionLog.open(logPath, syncPolicy)) {
+            if (logPosition > log.size()) {
+                throw new IOException("Transaction log " + logPath
+                        + " is older than snapshot " + snapshotPath);
+            }
+            reportStartup(startNanos, log.replay(accountDatabase, logPosition));
+            accountDatabase.setTransactionLog(log);
+            run(accountDatabase, snapshotPath, parallelism, batchPath,
+                    outputMode, recordStats);
+            System.err.println(log.getStatistics());
+        }
+    }
+
+    /**
+     * Prints how long the bank took to load, to standard error.
+     * @param startNanos System.nanoTime() before loading started
+     * @param replayed the number of log records replayed
+     */
+    private static void reportStartup(long startNanos, long replayed) {
+        System.err.printf("Bank loaded in %d ms, %d log records replayed.\n",
+                (System.nanoTime() - startNanos) / NANOS_PER_MILLI, replayed);
+    }
+
+    /**
+     * Runs the Transaction Manager on the given bank.
+     * @param accountDatabase the bank
+     * @param snapshotPath the snapshot file, or null if SNAP is not allowed
+     * @param parallelism threads used by the UB command
+     * @param batchPath the file of command lines, or null to read the
+     * keyboard
+     * @param outputMode how output is written
+     * @param recordStats True to time every command for STATS
+     */
+    private static void run(AccountDatabase accountDatabase,
+                            Path snapshotPath, int parallelism,
+                            Path batchPath, String outputMode,
+                            boolean recordStats) throws IOException {
+        accountDatabase.setMonthEndParallelism(parallelism);
+        try (OutputSink out = makeOutputSink(outputMode)) {
+            TransactionManager transactionManager = new TransactionManager(
+                    accountDatabase, snapshotPath, out);
+            if (recordStats) {
+                transactionManager.setCommandStats(new CommandStats());
+            }
+            if (batchPath == null) {
+                transactionManager.run();
+            } else {
+                transactionManager.runBatch(batchPath);
+            }
+        }
+    }
+
+    /**
+     * Runs a ShardRouter over the shards at the given addresses.
+     * @param shardAddresses the shards, as "HOST:PORT", in shard order
+     * @param batchPath the file of command lines, or null to read the
+     * keyboard
+     * @param outputMode how output is written
+     */
+    private static void route(String[] shardAddresses, Path batchPath,
+                              String outputMode) throws IOException {
+        List<ShardConnection> shards = new ArrayList<>();
+        try (OutputSink out = makeOutputSink(outputMode)) {
+            for (String address : shardAddresses) {
+                shards.add(ShardConnection.connect(address.trim()));
+            }
+            ShardRouter router = new ShardRouter(shards, out);
+            if (batchPath == null) {
+                router.run();
+            } else {
+                router.runBatch(batchPath);
+            }
+        } finally {
+            for (ShardConnection shard : shards) {
+                shard.close();
+            }
+        }
+    }
+
+    /**
+     * Makes the sink output is written to.
+     * @param outputMode direct, buffered or async
+     * @return the sink, writing to System.out
+     */
+    private static OutputSink makeOutputSink(String outputMode) {
+        return switch (outputMode) {
+            case OUTPUT_BUFFERED -> new BufferedSink(System.out,
+                    Charset.defaultCharset(), OUTPUT_BUFFER_CHARS,
+                    OUTPUT_FLUSH_MILLIS);
+            case OUTPUT_ASYNC -> new AsyncSink(System.out,
+                    Charset.defaultCharset(), OUTPUT_BUFFER_CHARS,
+                    OUTPUT_QUEUE_CHUNKS, OUTPUT_FLUSH_MILLIS);
+            default -> OutputSink.standardOutput();
+        };
     }
 }
@@ -0,0 +1,445 @@
+package bank;
+
+import bank.accounts.Account;
+import bank.output.OutputSink;
+import bank.output.ReportFormat;
+import bank.output.ReportType;
+import bank.output.ReportWriter;
+import bank.personaldata.Date;
+import bank.personaldata.Profile;
+import bank.shard.ShardConnection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * This class is the front end of a sharded bank. It reads the same
+ * command lines as the Transaction Manager and prints the same output,
+ * but the accounts live in ShardServers, each owning the accounts of the
+ * holders that hash to it.
+ * O, C, D and W lines go to the shard owning their holder, which runs
+ * them and sends back what it printed. A holder's shard is picked from
+ * the hash of its Profile, which is worked out from the folded names and
+ * date of birth alone, so it is the same in every JVM and for every
+ * spelling case of the name. A customer's accounts are all on one shard,
+ * so the shard can check C and CC against each other. Lines too broken to
+ * name a holder go to shard 0, which only prints their error.
+ * P, PI and UB are scattered to every shard at once; each sends back its
+ * accounts in listing order (after applying fees and interests for UB),
+ * and the router merges them into one sorted report, so the report is
+ * the same as one bank holding every account would print.
+ * UB first asks every shard to prepare, and is applied only once every
+ * shard has answered, so a shard that is down stops UB on all of them.
+ * A shard failing after that may leave UB applied on some shards only;
+ * the router then prints which shards applied it and runs no more lines,
+ * since the shards no longer hold what one bank would.
+ * Lines longer than ShardConnection.MAX_LINE_BYTES are not sent to a
+ * shard.
+ * SNAP and STATS are run by every shard, and their output printed in
+ * shard order.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class ShardRouter {
+    private static final int INTERACTIVE_BUFFER_SIZE = 1 << 13;
+    private static final int BATCH_BUFFER_SIZE = 1 << 20;
+    private static final int GOLDEN_RATIO = 0x9E3779B9;
+    private final ShardConnection[] shards;
+    private final ParsedCommand command;
+    private final OutputSink out;
+    //True once UB was applied by some shards only. no line is run after
+    private boolean halted;
+
+    /**
+     * Makes a router over the given shards, printing to the given sink.
+     * @param shards the connections to the shards, in shard order; a
+     * bank must always be run with its shards in the same order
+     * @param out where acknowledgements and reports are printed
+     */
+    public ShardRouter(List<ShardConnection> shards, OutputSink out) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("There must be a shard");
+        }
+        this.shards = shards.toArray(new ShardConnection[0]);
+        this.out = out;
+        command = new ParsedCommand(Charset.defaultCharset());
+    }
+
+    /**
+     * Finds the shard owning a holder's accounts.
+     * @param holder the holder
+     * @param numShards the number of shards
+     * @return the shard number, 0 to numShards - 1
+     */
+    public static int shardOf(Profile holder, int numShards) {
+        int mixed = holder.hashCode() * GOLDEN_RATIO;
+        return (int) ((Integer.toUnsignedLong(mixed) * numShards) >>> 32);
+    }
+
+    /**
+     * Runs command lines typed on the keyboard, as
+     * TransactionManager.run() does.
+     */
+    public void run() {
+        out.println("Transaction Manager is running.");
+        out.flush();
+        try {
+            runLines(Channels.newChannel(System.in), INTERACTIVE_BUFFER_SIZE,
+                    true);
+        } catch (IOException err) {
+            throw new UncheckedIOException(err);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Runs every command line in the file, as
+     * TransactionManager.runBatch() does, without reporting the rate.
+     * @param path the file of command lines
+     * @return the number of command lines run
+     * @throws IOException if the file cannot be read
+     */
+    public long runBatch(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            out.println("Transaction Manager is running.");
+            return runLines(channel, BATCH_BUFFER_SIZE, false);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Runs every command line read from the stream, as
+     * TransactionManager.run(InputStream) does. The stream is not closed.
+     * @param in the command lines
+     * @return the number of command lines run
+     * @throws IOException if the stream cannot be read
+     */
+    public long run(InputStream in) throws IOException {
+        try {
+            out.println("Transaction Manager is running.");
+            return runLines(Channels.newChannel(in), BATCH_BUFFER_SIZE,
+                    false);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Runs every command line read from the channel, until CMD_QUIT("Q")
+     * or the end of input.
+     * @param channel the input
+     * @param bufferSize the size of the read buffer in bytes
+     * @param flushEveryLine True to flush the sink after every line
+     * @return the number of command lines run
+     */
+    private long runLines(ReadableByteChannel channel, int bufferSize,
+                          boolean flushEveryLine) throws IOException {
+        LineReader lineReader = new LineReader(channel, bufferSize);
+        long numCommands = 0;
+        boolean running = true;
+        while (running && lineReader.next()) {
+            running = processLine(lineReader.array(),
+                    lineReader.lineStart(), lineReader.lineEnd());
+            numCommands++;
+            if (flushEveryLine) {
+                out.flush();
+            }
+        }
+        return numCommands;
+    }
+
+    /**
+     * Runs a single command line on the shards. The sink is not flushed.
+     * @param bytes holds the command line
+     * @param from the start of the line
+     * @param to the end of the line, without the line separator
+     * @return False if the line is CMD_QUIT("Q"), true if more lines
+     * should be run.
+     */
+    public boolean processLine(byte[] bytes, int from, int to) {
+        if (halted) {
+            out.println("The shards no longer agree, no more lines are run.");
+            return false;
+        }
+        command.parse(bytes, from, to);
+        switch (command.getCommand()) {
+            case OPEN, CLOSE, DEPOSIT, WITHDRAW ->
+                    forward(shardOfLine(), bytes, from, to);
+            case PRINT -> report(ReportType.ACCOUNTS);
+            case DISPLAY_INT_FEE -> report(ReportType.FEES_AND_INTERESTS);
+            case APPLY_INT_FEE -> report(ReportType.UPDATED_BALANCES);
+            case SNAPSHOT, STATS -> broadcast(bytes, from, to);
+            case QUIT -> {
+                out.println("Transaction Manager is terminated.");
+                out.flush();
+            }
+            case EMPTY -> {}
+            default -> out.println("Invalid command!");
+        }
+        return !command.isQuitLine() && !halted;
+    }
+
+    /**
+     * Checks that a line is short enough to send to a shard, printing an
+     * error if it is not.
+     * @param from the start of the line
+     * @param to the end of the line
+     * @return True if it is, false if not.
+     */
+    private boolean fitsShard(int from, int to) {
+        if (to - from > ShardConnection.MAX_LINE_BYTES) {
+            out.println("Command line too long.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the shard owning the holder the parsed line names.
+     * @return the shard number, 0 if the line names no valid holder
+     */
+    private int shardOfLine() {
+        if (!command.hasProfile() || !command.isDobWellFormed()) {
+            return 0;
+        }
+        Profile holder = new Profile(command.getFname(), command.getLname(),
+                Date.of(command.getDobMonth(), command.getDobDay(),
+                        command.getDobYear()));
+        return shardOf(holder, shards.length);
+    }
+
+    /**
+     * Runs a command line on one shard, and prints what it printed.
+     * @param shard the shard number
+     * @param bytes holds the command line
+     * @param from the start of the line
+     * @param to the end of the line
+     */
+    private void forward(int shard, byte[] bytes, int from, int to) {
+        if (!fitsShard(from, to)) return;
+        try {
+            shards[shard].sendLine(bytes, from, to);
+            out.print(shards[shard].receiveOutput());
+        } catch (IOException err) {
+            shardFailed(shard, err);
+        }
+    }
+
+    /**
+     * Runs a command line on every shard at once, and prints what each
+     * printed, in shard order.
+     * @param bytes holds the command line
+     * @param from the start of the line
+     * @param to the end of the line
+     */
+    private void broadcast(byte[] bytes, int from, int to) {
+        if (!fitsShard(from, to)) return;
+        boolean[] sent = new boolean[shards.length];
+        for (int shard = 0; shard < shards.length; shard++) {
+            try {
+                shards[shard].sendLine(bytes, from, to);
+                sent[shard] = true;
+            } catch (IOException err) {
+                shardFailed(shard, err);
+            }
+        }
+        for (int shard = 0; shard < shards.length; shard++) {
+            if (!sent[shard]) continue;
+            try {
+                String printed = shards[shard].receiveOutput();
+                out.printf("Shard %d (%s):\n", shard,
+                        shards[shard].getAddress());
+                out.print(printed);
+            } catch (IOException err) {
+                shardFailed(shard, err);
+            }
+        }
+    }
+
+    /**
+     * Gathers the accounts of every shard and prints a report of them, or
+     * writes it to the file the command names, in the format the command
+     * names (TEXT if none), as the Transaction Manager does.
+     * @param type the report
+     */
+    private void report(ReportType type) {
+        ReportFormat format = command.getReportFormat();
+        String file = format == null ? null : command.getReportFile();
+        if (format == null) {
+            format = ReportFormat.TEXT;
+        }
+        Account[][] parts = gather(type == ReportType.UPDATED_BALANCES);
+        if (parts == null) return;
+        if (file == null) {
+            try (ReportWriter report = ReportWriter.toSink(format, out)) {
+                writeReport(type, parts, report);
+            }
+            return;
+        }
+        long rows;
+        try (FileChannel channel = FileChannel.open(Path.of(file),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             ReportWriter report = ReportWriter.toChannel(format, channel)) {
+            writeReport(type, parts, report);
+            rows = report.getRows();
+        } catch (IOException | UncheckedIOException
+                 | InvalidPathException err) {
+            out.printf("Report failed: %s\n", err.getMessage());
+            return;
+        }
+        out.printf("Report of %d accounts written to %s.\n", rows, file);
+    }
+
+    /**
+     * Asks every shard for its accounts at once, and waits for them all.
+     * Every shard that was sent the request is read from, even if another
+     * failed, so no reply is left behind for the next request.
+     * For UB, every shard must first answer prepareMonthEnd(); if a shard
+     * then fails, the router halts.
+     * @param monthEnd True to have the shards apply fees and interests
+     * first
+     * @return the accounts of each shard in listing order, by shard, or
+     * null if a shard failed
+     */
+    private Account[][] gather(boolean monthEnd) {
+        if (monthEnd && !prepareMonthEnd()) {
+            out.println("UB was not applied by any shard.");
+            return null;
+        }
+        Account[][] parts = new Account[shards.length][];
+        boolean[] sent = new boolean[shards.length];
+        boolean failed = false;
+        for (int shard = 0; shard < shards.length; shard++) {
+            try {
+                if (monthEnd) {
+                    shards[shard].sendMonthEnd();
+                } else {
+                    shards[shard].sendList();
+                }
+                sent[shard] = true;
+            } catch (IOException err) {
+                shardFailed(shard, err);
+                failed = true;
+            }
+        }
+        for (int shard = 0; shard < shards.length; shard++) {
+            if (!sent[shard]) continue;
+            try {
+                parts[shard] = shards[shard].receiveAccounts();
+            } catch (IOException err) {
+                shardFailed(shard, err);
+                failed = true;
+            }
+        }
+        if (failed && monthEnd) {
+            halt(parts);
+        }
+        return failed ? null : parts;
+    }
+
+    /**
+     * Asks every shard at once whether it can run UB, and waits for them
+     * all.
+     * @return True if every shard answered, false if any failed
+     */
+    private boolean prepareMonthEnd() {
+        boolean[] sent = new boolean[shards.length];
+        boolean ready = true;
+        for (int shard = 0; shard < shards.length; shard++) {
+            try {
+                shards[shard].sendPrepareMonthEnd();
+                sent[shard] = true;
+            } catch (IOException err) {
+                shardFailed(shard, err);
+                ready = false;
+            }
+        }
+        for (int shard = 0; shard < shards.length; shard++) {
+            if (!sent[shard]) continue;
+            try {
+                shards[shard].receiveReady();
+            } catch (IOException err) {
+                shardFailed(shard, err);
+                ready = false;
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * Prints which shards applied a UB that failed on others, and stops
+     * the router from running any more lines.
+     * @param parts the accounts each shard sent back, null for a shard
+     * that failed
+     */
+    private void halt(Account[][] parts) {
+        StringBuilder applied = new StringBuilder();
+        for (int shard = 0; shard < parts.length; shard++) {
+            if (parts[shard] != null) {
+                applied.append(applied.length() == 0 ? "" : ", ")
+                        .append("shard ").append(shard).append(" (")
+                        .append(shards[shard].getAddress()).append(')');
+            }
+        }
+        out.printf("UB was applied by %s only, no more lines are run.\n",
+                applied.length() == 0 ? "no shard that answered" : applied);
+        halted = true;
+    }
+
+    /**
+     * Writes a report of the accounts of every shard, merged into listing
+     * order. Each shard's accounts are sorted already, so the merge takes
+     * the first of the shards' next accounts each time.
+     * @param type the report
+     * @param parts the accounts of each shard, in listing order
+     * @param report where the report is written
+     */
+    private static void writeReport(ReportType type, Account[][] parts,
+                                    ReportWriter report) {
+        int[] next = new int[parts.length];
+        PriorityQueue<Integer> heads = new PriorityQueue<>(
+                Math.max(1, parts.length), (a, b) ->
+                parts[a][next[a]].compareTo(parts[b][next[b]]));
+        for (int shard = 0; shard < parts.length; shard++) {
+            if (parts[shard].length > 0) {
+                heads.add(shard);
+            }
+        }
+        if (heads.isEmpty()) {
+            report.empty(type);
+            return;
+        }
+        report.begin(type);
+        while (!heads.isEmpty()) {
+            int shard = heads.poll();
+            report.row(parts[shard][next[shard]++]);
+            if (next[shard] < parts[shard].length) {
+                heads.add(shard);
+            }
+        }
+        report.end();
+    }
+
+    /**
+     * Prints that a shard could not be reached.
+     * @param shard the shard number
+     * @param err what went wrong
+     */
+    private void shardFailed(int shard, IOException err) {
+        out.printf("Shard %d (%s) failed: %s\n", shard,
+                shards[shard].getAddress(), err.getMessage());
+    }
+}
@@ -1,10 +1,27 @@
 package bank;
 
 import bank.accounts.*;
+import bank.events.TransactionEvent;
 import bank.personaldata.Campus;
 import bank.personaldata.Date;
+import bank.output.OutputSink;
+import bank.output.ReportFormat;
+import bank.output.ReportType;
+import bank.output.ReportWriter;
 import bank.personaldata.Profile;
-import java.util.Scanner;
+import bank.stats.CommandStats;
+import bank.stats.CommandStats.Phase;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * This class interfaces with the user via the command line.
@@ -12,64 +29,332 @@ import java.util.Scanner;
  * or multiple command lines at a time.
  * This class handles all errors and exceptions, and displays
  * the appropriate error messages.
+ * Batch mode reads the command lines from a file instead of the
+ * keyboard, and prints exactly what interactive mode would print for the
+ * same lines.
+ * Every line is parsed straight from its bytes into one reused
+ * ParsedCommand, so parsing makes no garbage.
+ * Everything is printed to an OutputSink. Interactive mode flushes it
+ * after every line; batch mode only on Q and at the end of the file, and
+ * whenever the sink's own thresholds say so.
+ * P, PI and UB may be followed by a report format (TEXT, CSV or JSON)
+ * and a file to write the report to instead of printing it.
+ * Given CommandStats, every line is timed per command in its parse,
+ * validate, database and output phases; STATS prints the times, and
+ * STATS RESET prints and then clears them.
+ * Every O, C, D and W line is recorded as a Flight Recorder
+ * TransactionEvent, with its outcome, when a recording is on.
  * @author Dharmik Patel and Krish Patel
  */
 public class TransactionManager {
-    private static final String CMD_OPEN = "O";
-    private static final String CMD_CLOSE = "C";
-    private static final String CMD_DEPOSIT = "D";
-    private static final String CMD_WITHDRAW = "W";
-    private static final String CMD_PRINT = "P";
-    private static final String CMD_DISPLAY_INT_FEE = "PI";
-    private static final String CMD_APPLY_INT_FEE = "UB";
-    private static final String CMD_QUIT = "Q";
-    private static final String CMD_EMPTY = "";
-    private static final int INDEX_OF_CMD_IN_INPUT = 0;
-    private static final int INDEX_OF_ACCOUNT_TYPE_IN_INPUT = 1;
-    private static final int INDEX_OF_FNAME_IN_INPUT = 2;
-    private static final int INDEX_OF_LNAME_IN_INPUT = 3;
-    private static final int INDEX_OF_DOB_IN_INPUT = 4;
-    private static final int INDEX_OF_BALANCE_IN_INPUT = 5;
-    private static final int INDEX_OF_CAMPUS_IN_INPUT = 6;
-    private static final int INDEX_OF_LOYALTY_STATUS_IN_INPUT = 6;
     private static final int CLOSING = 0;
     private static final int OPENING = 1;
     private static final int DEPOSITING = 2;
     private static final int WITHDRAWING = 3;
-    private AccountDatabase accountDatabase;
+    private static final int INTERACTIVE_BUFFER_SIZE = 1 << 13;
+    private static final int BATCH_BUFFER_SIZE = 1 << 20;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private final AccountDatabase accountDatabase;
+    private final Path snapshotPath;
+    private final ParsedCommand command;
+    private final OutputSink out;
     private int currentTask;
+    //per command and phase times of every line, or null if not recorded
+    private CommandStats stats;
+
+    /**
+     * Instantiates a TransactionManager working on a new, empty bank.
+     */
+    public TransactionManager() {
+        this(new AccountDatabase());
+    }
+
+    /**
+     * Instantiates a TransactionManager working on the given bank.
+     * @param accountDatabase the bank to run transactions against
+     */
+    public TransactionManager(AccountDatabase accountDatabase) {
+        this(accountDatabase, null);
+    }
+
+    /**
+     * Instantiates a TransactionManager working on the given bank, which
+     * the SNAP command writes a snapshot of.
+     * @param accountDatabase the bank to run transactions against
+     * @param snapshotPath the snapshot file, or null if SNAP is not allowed
+     */
+    public TransactionManager(AccountDatabase accountDatabase,
+                              Path snapshotPath) {
+        this(accountDatabase, snapshotPath, OutputSink.standardOutput());
+    }
+
+    /**
+     * Instantiates a TransactionManager working on the given bank, and
+     * printing to the given sink.
+     * @param accountDatabase the bank to run transactions against
+     * @param snapshotPath the snapshot file, or null if SNAP is not allowed
+     * @param out where acknowledgements and reports are printed
+     */
+    public TransactionManager(AccountDatabase accountDatabase,
+                              Path snapshotPath, OutputSink out) {
+        this.accountDatabase = accountDatabase;
+        this.snapshotPath = snapshotPath;
+        this.out = out;
+        command = new ParsedCommand(Charset.defaultCharset());
+    }
+
+    /**
+     * Records the time of every command line run from now on, per command
+     * and phase, into the given statistics, which STATS prints.
+     * @param stats the statistics, or null to stop recording
+     */
+    public void setCommandStats(CommandStats stats) {
+        this.stats = stats;
+    }
 
     /**
      * This is the run method to make the CLI work.
      * Will run until CMD_QUIT("Q") is inputted
-     * The last line of input must end in a "\n" new line character.
+     * or the input ends.
      */
     public void run(){
-        accountDatabase = new AccountDatabase();
-        System.out.println("Transaction Manager is running.");
-        Scanner scanner = new Scanner(System.in);
-        String currentFullLine;
-        do {
-            currentFullLine = scanner.nextLine();
-            String[] commands = currentFullLine.split("\\s+");
-            switch (commands[INDEX_OF_CMD_IN_INPUT]){
-                case CMD_OPEN -> open(commands);
-                case CMD_CLOSE -> close(commands);
-                case CMD_DEPOSIT -> deposit(commands);
-                case CMD_WITHDRAW -> withdraw(commands);
-                case CMD_PRINT ->
-                        accountDatabase.printSorted();
-                case CMD_DISPLAY_INT_FEE ->
-                        accountDatabase.printFeesAndInterests();
-                case CMD_APPLY_INT_FEE ->
-                        accountDatabase.printUpdatedBalances();
-                case CMD_QUIT -> System.out.println(
-                        "Transaction Manager is terminated.");
-                case CMD_EMPTY -> {}
-                default -> System.out.println("Invalid command!");
+        out.println("Transaction Manager is running.");
+        out.flush();
+        try {
+            runLines(Channels.newChannel(System.in), INTERACTIVE_BUFFER_SIZE,
+                    true);
+        } catch (IOException err) {
+            throw new UncheckedIOException(err);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Runs every command line in the file, until CMD_QUIT("Q") or the end
+     * of the file. The file is read through a large buffer, and the sink
+     * is not flushed after every line. The number of commands per second
+     * is reported on standard error.
+     * @param path the file of command lines
+     * @return the number of command lines run
+     * @throws IOException if the file cannot be read
+     */
+    public long runBatch(Path path) throws IOException {
+        long numCommands = 0;
+        long startNanos = System.nanoTime();
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            out.println("Transaction Manager is running.");
+            numCommands = runLines(channel, BATCH_BUFFER_SIZE, false);
+        } finally {
+            out.flush();
+        }
+        double seconds = (System.nanoTime() - startNanos) / NANOS_PER_SECOND;
+        System.err.printf("%d commands in %.3f s (%.0f commands/sec).\n",
+                numCommands, seconds, numCommands / seconds);
+        return numCommands;
+    }
+
+    /**
+     * Runs every command line read from the stream, until CMD_QUIT("Q")
+     * or the end of the stream, through the same large buffer as
+     * runBatch(), without flushing the sink after every line or reporting
+     * the rate. The stream is not closed.
+     * @param in the command lines
+     * @return the number of command lines run
+     * @throws IOException if the stream cannot be read
+     */
+    public long run(InputStream in) throws IOException {
+        try {
+            out.println("Transaction Manager is running.");
+            return runLines(Channels.newChannel(in), BATCH_BUFFER_SIZE,
+                    false);
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Runs every command line read from the channel, until CMD_QUIT("Q")
+     * or the end of input.
+     * @param channel the input
+     * @param bufferSize the size of the read buffer in bytes
+     * @param flushEveryLine True to flush the sink after every line
+     * @return the number of command lines run
+     * @throws IOException if the input cannot be read
+     */
+    private long runLines(ReadableByteChannel channel, int bufferSize,
+                          boolean flushEveryLine) throws IOException {
+        LineReader lineReader = new LineReader(channel, bufferSize);
+        long numCommands = 0;
+        boolean running = true;
+        while (running && lineReader.next()) {
+            running = processLine(lineReader.array(),
+                    lineReader.lineStart(), lineReader.lineEnd());
+            numCommands++;
+            if (flushEveryLine) {
+                out.flush();
+            }
+        }
+        return numCommands;
+    }
+
+    /**
+     * Runs a single command line, as run() and runBatch() do for every
+     * line they read. The sink is not flushed.
+     * @param bytes holds the command line
+     * @param from the start of the line
+     * @param to the end of the line, without the line separator
+     * @return False if the line is CMD_QUIT("Q"), true if more lines
+     * should be run.
+     */
+    public boolean processLine(byte[] bytes, int from, int to) {
+        if (stats != null) {
+            stats.startLine();
+        }
+        command.parse(bytes, from, to);
+        enterPhase(Phase.VALIDATE);
+        switch (command.getCommand()){
+            case OPEN, CLOSE, DEPOSIT, WITHDRAW -> transaction();
+            case PRINT -> report(ReportType.ACCOUNTS);
+            case DISPLAY_INT_FEE -> report(ReportType.FEES_AND_INTERESTS);
+            case APPLY_INT_FEE -> report(ReportType.UPDATED_BALANCES);
+            case SNAPSHOT -> snapshot();
+            case STATS -> stats();
+            case QUIT -> {
+                enterPhase(Phase.OUTPUT);
+                out.println("Transaction Manager is terminated.");
+                out.flush();
+            }
+            case EMPTY -> {}
+            default -> {
+                enterPhase(Phase.OUTPUT);
+                out.println("Invalid command!");
+            }
+        }
+        if (stats != null) {
+            stats.endLine(command.getCommand());
+        }
+        return !command.isQuitLine();
+    }
+
+    /**
+     * Runs an O, C, D or W line, and records it as a TransactionEvent if
+     * a recording wants it.
+     */
+    private void transaction() {
+        TransactionEvent event = TransactionEvent.beginIfRecording();
+        TransactionResult result = switch (command.getCommand()) {
+            case OPEN -> open();
+            case CLOSE -> close();
+            case DEPOSIT -> deposit();
+            default -> withdraw();
+        };
+        if (event != null && event.shouldCommit()) {
+            AccountTypeCommand accountType = command.getAccountType();
+            event.setCommand(command.getCommand().getToken());
+            event.setAccountType(
+                    accountType == null ? null : accountType.name());
+            event.setOutcome(result.name());
+            event.commit();
+        }
+    }
+
+    /**
+     * Moves the line being timed into the given phase, if statistics are
+     * being recorded.
+     * @param phase the phase the line goes into
+     */
+    private void enterPhase(Phase phase) {
+        if (stats != null) {
+            stats.enterPhase(phase);
+        }
+    }
+
+    /**
+     * Prints the statistics recorded so far, then clears them if the
+     * command is STATS RESET.
+     */
+    private void stats() {
+        enterPhase(Phase.OUTPUT);
+        if (stats == null) {
+            out.println("Statistics are not being recorded.");
+            return;
+        }
+        out.print(stats.appendTo(new StringBuilder()).toString());
+        if (command.isStatsReset()) {
+            stats.reset();
+            out.println("Statistics reset.");
+        }
+    }
+
+    /**
+     * Prints a report, or writes it to the file the command names, in the
+     * format the command names (TEXT if none).
+     * @param type the report
+     */
+    private void report(ReportType type) {
+        ReportFormat format = command.getReportFormat();
+        String file = format == null ? null : command.getReportFile();
+        if (format == null) {
+            format = ReportFormat.TEXT;
+        }
+        enterPhase(Phase.DATABASE);
+        if (file == null) {
+            try (ReportWriter report = ReportWriter.toSink(format, out)) {
+                writeReport(type, report);
             }
-        } while (!(currentFullLine.equals(CMD_QUIT)));
-        scanner.close();
+            return;
+        }
+        long rows;
+        try (FileChannel channel = FileChannel.open(Path.of(file),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             ReportWriter report = ReportWriter.toChannel(format, channel)) {
+            writeReport(type, report);
+            rows = report.getRows();
+        } catch (IOException | UncheckedIOException
+                 | InvalidPathException err) {
+            enterPhase(Phase.OUTPUT);
+            out.printf("Report failed: %s\n", err.getMessage());
+            return;
+        }
+        enterPhase(Phase.OUTPUT);
+        out.printf("Report of %d accounts written to %s.\n", rows, file);
+    }
+
+    /**
+     * Writes a report of the bank.
+     * @param type the report
+     * @param report where the report is written
+     */
+    private void writeReport(ReportType type, ReportWriter report) {
+        switch (type) {
+            case ACCOUNTS -> accountDatabase.printSorted(report);
+            case FEES_AND_INTERESTS ->
+                    accountDatabase.printFeesAndInterests(report);
+            case UPDATED_BALANCES ->
+                    accountDatabase.printUpdatedBalances(report);
+        }
+    }
+
+    /**
+     * Writes a snapshot of the bank to the snapshot file.
+     */
+    private void snapshot() {
+        if (snapshotPath == null) {
+            out.println("Snapshot file not set.");
+            return;
+        }
+        enterPhase(Phase.DATABASE);
+        try {
+            int written = accountDatabase.writeSnapshot(snapshotPath);
+            enterPhase(Phase.OUTPUT);
+            out.printf("Snapshot of %d accounts written.\n", written);
+        } catch (IOException err) {
+            enterPhase(Phase.OUTPUT);
+            out.printf("Snapshot failed: %s\n", err.getMessage());
+        }
     }
 
     /**
@@ -91,25 +376,33 @@ public class TransactionManager {
      *      type of account restrictions,
      *      invalid campus codes,
      *      invalid amounts.
-     * @param commands Data to make an account from.
+     * @return how the command ended
      */
-    private void open(String[] commands) {
+    private TransactionResult open() {
         currentTask = OPENING;
-        AccountTypeCommand accountType = getAndCheckAccountType(commands);
-        if (accountType == null) return;
+        AccountTypeCommand accountType = getAndCheckAccountType();
+        if (accountType == null) return TransactionResult.REJECTED;
 
-        Account accountToAdd = makeAccount(commands, accountType);
-        if (accountToAdd == null) return;
+        Account accountToAdd = makeAccount(accountType);
+        if (accountToAdd == null) return TransactionResult.REJECTED;
 
-        if (accountTypeRestrictionCheck(accountType, accountToAdd)) return;
-        if(!accountDatabase.open(accountToAdd)) {
-            System.out.printf("%s(%s) is already in the database.\n",
-                    accountToAdd.getHolder(), accountType.name());
-            return;
+        if (accountTypeRestrictionCheck(accountType, accountToAdd)) {
+            return TransactionResult.ALREADY_OPEN;
         }
-        System.out.printf("%s(%s) opened.\n",
-                accountToAdd.getHolder(),
+        //as typed; the bank may swap in the customer's existing profile
+        Profile holder = accountToAdd.getHolder();
+        enterPhase(Phase.DATABASE);
+        boolean opened = accountDatabase.open(accountToAdd);
+        enterPhase(Phase.OUTPUT);
+        if(!opened) {
+            out.printf("%s(%s) is already in the database.\n",
+                    holder, accountType.name());
+            return TransactionResult.ALREADY_OPEN;
+        }
+        out.printf("%s(%s) opened.\n",
+                holder,
                 accountType.name());
+        return TransactionResult.OK;
     }
 
     /**
@@ -119,81 +412,92 @@ public class TransactionManager {
      * or the data tokens do not matter.
      * C ACCOUNT_TYPE FNAME LNAME DOB
      * Handles errors as well.
-     * @param commands Data to identify what account to close
+     * @return how the command ended
      */
-    private void close(String[] commands){
+    private TransactionResult close(){
         currentTask = CLOSING;
-        AccountTypeCommand accountType = getAndCheckAccountType(commands);
-        if (accountType == null) return;
+        AccountTypeCommand accountType = getAndCheckAccountType();
+        if (accountType == null) return TransactionResult.REJECTED;
 
-        Account accountToClose = makeAccount(commands, accountType);
-        if (accountToClose == null) return;
+        Account accountToClose = makeAccount(accountType);
+        if (accountToClose == null) return TransactionResult.REJECTED;
 
-        if(!accountDatabase.close(accountToClose)){
-            System.out.printf("%s(%s) is not in the database.\n",
+        enterPhase(Phase.DATABASE);
+        boolean closed = accountDatabase.close(accountToClose);
+        enterPhase(Phase.OUTPUT);
+        if(!closed){
+            out.printf("%s(%s) is not in the database.\n",
                     accountToClose.getHolder(), accountType.name());
-            return;
+            return TransactionResult.NOT_FOUND;
         }
-        System.out.printf("%s(%s) has been closed.\n",
+        out.printf("%s(%s) has been closed.\n",
                 accountToClose.getHolder(),
                 accountType.name());
+        return TransactionResult.OK;
     }
 
     /**
      * This method deposits money into the given account.
-     * @param commands CLI Args
+     * D ACCOUNT_TYPE FNAME LNAME DOB AMOUNT
+     * @return how the command ended
      */
-    private void deposit(String[] commands){
+    private TransactionResult deposit(){
         currentTask = DEPOSITING;
-        AccountTypeCommand accountType = getAndCheckAccountType(commands);
-        if (accountType == null) return;
+        AccountTypeCommand accountType = getAndCheckAccountType();
+        if (accountType == null) return TransactionResult.REJECTED;
+        Profile holder = makeAndCheckProfile();
+        if (holder == null) return TransactionResult.REJECTED;
+        long amount = getAndCheckAmount();
+        if (amount == -1) return TransactionResult.REJECTED;
 
-        Account accountWithAmountOfMoneyToDeposit =
-                makeAccount(commands, accountType);
-        if (accountWithAmountOfMoneyToDeposit == null) return;
-
-        boolean isAccountOpenBank = accountDatabase.contains(
-                accountWithAmountOfMoneyToDeposit);
-        if(isAccountOpenBank){
-            accountDatabase.deposit(accountWithAmountOfMoneyToDeposit);
-            System.out.printf("%s(%s) Deposit - balance updated.\n",
-                    accountWithAmountOfMoneyToDeposit.getHolder(),
-                    accountType.name());
-        }
-        else {
-            System.out.printf("%s(%s) is not in the database.\n",
-                    accountWithAmountOfMoneyToDeposit.getHolder(),
-                    accountType.name());
+        enterPhase(Phase.DATABASE);
+        TransactionResult result =
+                accountDatabase.deposit(holder, accountType, amount);
+        enterPhase(Phase.OUTPUT);
+        switch (result) {
+            case OK -> out.printf(
+                    "%s(%s) Deposit - balance updated.\n",
+                    holder, accountType.name());
+            case BALANCE_TOO_LARGE -> out.printf(
+                    "%s(%s) Deposit - balance would be too large.\n",
+                    holder, accountType.name());
+            case NOT_FOUND -> out.printf(
+                    "%s(%s) is not in the database.\n",
+                    holder, accountType.name());
         }
+        return result;
     }
 
     /**
      * This method withdraws money from the account.
-     * @param commands CLI Args
+     * W ACCOUNT_TYPE FNAME LNAME DOB AMOUNT
+     * @return how the command ended
      */
-    private void withdraw(String[] commands){
+    private TransactionResult withdraw(){
         currentTask = WITHDRAWING;
-        AccountTypeCommand accountType = getAndCheckAccountType(commands);
-        if (accountType == null) return;
-
-        Account accountWithAmountOfMoneyToWithdraw =
-                makeAccount(commands, accountType);
-        if (accountWithAmountOfMoneyToWithdraw == null) return;
-        boolean isAccountOpenBank = accountDatabase.contains(
-                accountWithAmountOfMoneyToWithdraw);
-        if(isAccountOpenBank)
-            if(accountDatabase.withdraw(accountWithAmountOfMoneyToWithdraw))
-                System.out.printf("%s(%s) Withdraw - balance updated.\n",
-                        accountWithAmountOfMoneyToWithdraw.getHolder(),
-                        accountType.name());
-            else
-                System.out.printf("%s(%s) Withdraw - insufficient fund.\n",
-                        accountWithAmountOfMoneyToWithdraw.getHolder(),
-                        accountType.name());
-        else
-            System.out.printf("%s(%s) is not in the database.\n",
-                    accountWithAmountOfMoneyToWithdraw.getHolder(),
-                    accountType.name());
+        AccountTypeCommand accountType = getAndCheckAccountType();
+        if (accountType == null) return TransactionResult.REJECTED;
+        Profile holder = makeAndCheckProfile();
+        if (holder == null) return TransactionResult.REJECTED;
+        long amount = getAndCheckAmount();
+        if (amount == -1) return TransactionResult.REJECTED;
+
+        enterPhase(Phase.DATABASE);
+        TransactionResult result =
+                accountDatabase.withdraw(holder, accountType, amount);
+        enterPhase(Phase.OUTPUT);
+        switch (result) {
+            case OK -> out.printf(
+                    "%s(%s) Withdraw - balance updated.\n",
+                    holder, accountType.name());
+            case INSUFFICIENT_FUNDS -> out.printf(
+                    "%s(%s) Withdraw - insufficient fund.\n",
+                    holder, accountType.name());
+            case NOT_FOUND -> out.printf(
+                    "%s(%s) is not in the database.\n",
+                    holder, accountType.name());
+        }
+        return result;
     }
 
     /**
@@ -209,7 +513,7 @@ public class TransactionManager {
                 && accountDatabase.contains(
                 accountToAdd.getHolder(),
                 AccountTypeCommand.C)){
-            System.out.printf("%s(%s) is already in the database.\n",
+            out.printf("%s(%s) is already in the database.\n",
                     accountToAdd.getHolder(), AccountTypeCommand.CC.name());
             return true;
         }
@@ -217,7 +521,7 @@ public class TransactionManager {
                 && accountDatabase.contains(
                 accountToAdd.getHolder(),
                 AccountTypeCommand.CC)){
-            System.out.printf("%s(%s) is already in the database.\n",
+            out.printf("%s(%s) is already in the database.\n",
                     accountToAdd.getHolder(), AccountTypeCommand.C.name());
             return true;
         }
@@ -225,37 +529,35 @@ public class TransactionManager {
     }
 
     /**
-     * THis method will make an valid account
-     * @param commands CLI Args
+     * THis method will make an valid account to open or close.
      * @param accountType The type of account
      * @return returns a valid account, null if not valid
      */
     private Account makeAccount(
-            String[] commands, AccountTypeCommand accountType) {
+            AccountTypeCommand accountType) {
         Account account = null;
         switch (accountType){
-            case C -> account = makeCheckingAccount(commands);
-            case CC -> account = makeCollegeCheckingAccount(commands);
-            case S -> account = makeSavingsAccount(commands);
-            case MM -> account = makeMoneyMarketAccount(commands);
+            case C -> account = makeCheckingAccount();
+            case CC -> account = makeCollegeCheckingAccount();
+            case S -> account = makeSavingsAccount();
+            case MM -> account = makeMoneyMarketAccount();
         }
         return account;
     }
 
     /**
      * This method makes a checking account.
-     * @param commands CLI Args
      * @return A valid checking account or null
      */
-    private Checking makeCheckingAccount(String[] commands){
-        Profile profile = makeAndCheckProfile(commands);
+    private Checking makeCheckingAccount(){
+        Profile profile = makeAndCheckProfile();
         if(profile == null) return null;
 
         if(currentTask == CLOSING){
             return new Checking(profile);
         }
         else{
-            double balanceAmount = getAndCheckAmount(commands);
+            long balanceAmount = getAndCheckAmount();
             if(balanceAmount == -1) return null;
             return new Checking(profile, balanceAmount);
         }
@@ -263,75 +565,67 @@ public class TransactionManager {
 
     /**
      * This method makes a college checking account
-     * @param commands CLI Args
      * @return a valid college checking account or null
      */
-    private CollegeChecking makeCollegeCheckingAccount(String[] commands){
-        Profile profile = makeAndCheckProfile(commands);
+    private CollegeChecking makeCollegeCheckingAccount(){
+        Profile profile = makeAndCheckProfile();
         if(profile == null) return null;
         if(currentTask == CLOSING){
             return new CollegeChecking(profile);
         } else {
-            double balanceAmount = getAndCheckAmount(commands);
+            long balanceAmount = getAndCheckAmount();
             if (balanceAmount == -1) return null;
-            if(currentTask == OPENING){
-                if(profile.getAge() >= MoneyMarket.MAX_AGE){
-                    System.out.printf("DOB invalid: %s over 24.\n",
-                            profile.getDOB());
-                    return null;
-                }
-                Campus campus = getAndCheckCampus(commands);
-                if (campus == null) return null;
-                return new CollegeChecking(profile, balanceAmount, campus);
+            if(profile.getAge() >= MoneyMarket.MAX_AGE){
+                out.printf("DOB invalid: %s over 24.\n",
+                        profile.getDOB());
+                return null;
             }
-            return new CollegeChecking(profile, balanceAmount);
+            Campus campus = getAndCheckCampus();
+            if (campus == null) return null;
+            return new CollegeChecking(profile, balanceAmount, campus);
         }
     }
 
     /**
      * This method makes a valid savings account
-     * @param commands CLI Args
      * @return a savings account or null
      */
-    private Savings makeSavingsAccount(String[] commands){
-        Profile profile = makeAndCheckProfile(commands);
+    private Savings makeSavingsAccount(){
+        Profile profile = makeAndCheckProfile();
         if(profile == null) return null;
 
         if(currentTask == CLOSING){
             return new Savings(profile);
         } else {
-            double balanceAmount = getAndCheckAmount(commands);
+            long balanceAmount = getAndCheckAmount();
             if (balanceAmount == -1) return null;
-            if(currentTask == OPENING){
-                int isLoyal = getAndCheckLoyalty(commands);
-                if (isLoyal == -1) return null;
-                return new Savings(profile, balanceAmount, isLoyal == 1);
-            }
-            return new Savings(profile, balanceAmount);
+            int isLoyal = getAndCheckLoyalty();
+            if (isLoyal == -1) return null;
+            return new Savings(profile, balanceAmount, isLoyal == 1);
         }
     }
 
     /**
-     * This method makes a valid money market account
-     * @param commands CLI Args
+     * This method makes a valid money market account. The opening amount
+     * is checked against the minimum as typed, before it is rounded to the
+     * cent.
      * @return a money market account or null
      */
-    private MoneyMarket makeMoneyMarketAccount(String[] commands){
-        Profile profile = makeAndCheckProfile(commands);
+    private MoneyMarket makeMoneyMarketAccount(){
+        Profile profile = makeAndCheckProfile();
         if(profile == null) return null;
 
         if(currentTask == CLOSING){
             return new MoneyMarket(profile);
         }else {
-            double balanceAmount = getAndCheckAmount(commands);
+            long balanceAmount = getAndCheckAmount();
             if (balanceAmount == -1) return null;
-            if(currentTask == OPENING){
-                if (balanceAmount < MoneyMarket.ACCOUNT_THRESHOLD) {
-                    System.out.printf("Minimum of $%.0f to open a Money " +
-                                    "Market account.\n",
-                            (MoneyMarket.ACCOUNT_THRESHOLD));
-                    return null;
-                }
+            if (command.isAmountBelow(MoneyMarket.ACCOUNT_THRESHOLD)) {
+                out.printf("Minimum of $%d to open a Money " +
+                                "Market account.\n",
+                        (MoneyMarket.ACCOUNT_THRESHOLD
+                                / Money.CENTS_PER_DOLLAR));
+                return null;
             }
             return new MoneyMarket(profile, balanceAmount);
         }
@@ -339,25 +633,26 @@ public class TransactionManager {
 
     /**
      * This method makes a valid Profile
-     * @param commands CLI Args
      * @return a valid profile or null
      */
-    private Profile makeAndCheckProfile(String[] commands){
-        String fname, lname, dob;
-        try{
-            fname = commands[INDEX_OF_FNAME_IN_INPUT];
-            lname = commands[INDEX_OF_LNAME_IN_INPUT];
-            dob = commands[INDEX_OF_DOB_IN_INPUT];
-        }catch (ArrayIndexOutOfBoundsException err){
+    private Profile makeAndCheckProfile(){
+        if(!command.hasProfile()){
             missingDataOutput();
             return null;
         }
-        Date date = getAndCheckDOB(dob);
+        Date date = getAndCheckDOB();
         if(date == null) return null;
 
+        String fname = command.getFname();
+        String lname = command.getLname();
+        if (Profile.isNameTooLong(fname) || Profile.isNameTooLong(lname)) {
+            out.printf("Name invalid: a name cannot be longer than %d "
+                    + "bytes.\n", Profile.MAX_NAME_BYTES);
+            return null;
+        }
         Profile profileToReturn = new Profile(fname, lname, date);
         if(profileToReturn.getAge() < Account.MIN_AGE){
-            System.out.printf("DOB invalid: %s under 16.\n",
+            out.printf("DOB invalid: %s under 16.\n",
                     profileToReturn.getDOB());
             return null;
         }
@@ -366,18 +661,20 @@ public class TransactionManager {
 
     /**
      * Utility method to make and validate the DOB.
-     * @param date date start time in format "MONTH/DAY/YEAR"
+     * A DOB that is not three numbers "MONTH/DAY/YEAR" is not a valid
+     * calendar date either.
      * @return returns a valid Date. Null if not valid
      */
-    private Date getAndCheckDOB(String date) {
-        Date dob = new Date(date);
-        if(!(dob.isValid())){
-            System.out.printf("DOB invalid: %s not a valid calendar date!\n",
-                    date);
+    private Date getAndCheckDOB() {
+        Date dob = command.isDobWellFormed() ? Date.of(command.getDobMonth(),
+                command.getDobDay(), command.getDobYear()) : null;
+        if(dob == null || !(dob.isValid())){
+            out.printf("DOB invalid: %s not a valid calendar date!\n",
+                    command.getDobToken());
             return null;
         } else if (!(dob.isLessThanPresentDate())) {
-            System.out.printf("DOB invalid: %s cannot be today or a " +
-                            "future day.\n", date);
+            out.printf("DOB invalid: %s cannot be today or a " +
+                            "future day.\n", command.getDobToken());
             return null;
         }
         return dob;
@@ -385,47 +682,40 @@ public class TransactionManager {
 
     /**
      * Method to make account type
-     * @param commands CLI Args
      * @return A valid AccountType or null
      */
-    private AccountTypeCommand getAndCheckAccountType(String[] commands) {
-        AccountTypeCommand accountType;
-        try {
-            accountType = AccountTypeCommand.valueOf(
-                    commands[INDEX_OF_ACCOUNT_TYPE_IN_INPUT]);
-        }catch (IndexOutOfBoundsException | IllegalArgumentException err) {
+    private AccountTypeCommand getAndCheckAccountType() {
+        AccountTypeCommand accountType = command.getAccountType();
+        if (accountType == null) {
             missingDataOutput();
-            return null;
         }
         return accountType;
     }
 
     /**
-     * Method to make Double amount from string
-     * @param commands CLI Args
-     * @return A valid amount or null
+     * Method to get the amount in cents from a dollar token,
+     * rounded to the nearest cent.
+     * @return A valid amount or -1
      */
-    private double getAndCheckAmount(String[] commands){
-        double balanceAmount;
-        try {
-            balanceAmount = Double.parseDouble(
-                    commands[TransactionManager.INDEX_OF_BALANCE_IN_INPUT]);
-        } catch (ArrayIndexOutOfBoundsException err){
+    private long getAndCheckAmount(){
+        if(!command.hasAmount()){
             missingDataOutput();
             return -1;
-        } catch (NumberFormatException err){
-            System.out.println("Not a valid amount.");
+        }
+        long balanceAmount = command.getAmount();
+        if(balanceAmount == ParsedCommand.NOT_A_NUMBER){
+            out.println("Not a valid amount.");
             return -1;
         }
         if(balanceAmount <= 0) {
             if(currentTask == OPENING)
-                System.out.println(
+                out.println(
                         "Initial deposit cannot be 0 or negative.");
             else if(currentTask == DEPOSITING)
-                System.out.println(
+                out.println(
                         "Deposit - amount cannot be 0 or negative.");
             else if(currentTask == WITHDRAWING)
-                System.out.println(
+                out.println(
                         "Withdraw - amount cannot be 0 or negative.");
             return -1;
         }
@@ -434,44 +724,40 @@ public class TransactionManager {
 
     /**
      * Method to make a valid Campus
-     * @param commands CLI Args
      * @return A valid Campus or null
      */
-    private Campus getAndCheckCampus(String[] commands){
-        Campus campus;
-        try{
-            int campusIndex = Integer.parseInt(
-                    commands[INDEX_OF_CAMPUS_IN_INPUT]);
-            if(campusIndex >= Campus.values().length){
-                System.out.println("Invalid campus code.");
-                return null;
-            }
-            campus = Campus.values()[campusIndex];
-        } catch (IndexOutOfBoundsException | NumberFormatException err){
+    private Campus getAndCheckCampus(){
+        long campusIndex = command.getCampusCode();
+        if(!command.hasCampusOrLoyalty()
+                || campusIndex == ParsedCommand.NOT_A_NUMBER
+                || campusIndex < 0){
             missingDataOutput();
             return null;
         }
-        return campus;
+        if(campusIndex >= Campus.values().length){
+            out.println("Invalid campus code.");
+            return null;
+        }
+        return Campus.values()[(int) campusIndex];
     }
 
     /**
-     * Method to parse the CLI to get a valid loyalty status
-     * @param commands CLI Args
-     * @return A valid amloyalty status(0 or 1) ount or -1
+     * Method to get a valid loyalty status.
+     * A missing or non-numeric status prints the error twice, as it
+     * always has.
+     * @return A valid loyalty status(0 or 1) or -1
      */
-    private int getAndCheckLoyalty(String[] commands){
-        int isLoyal = -1;
-        try{
-            isLoyal = Integer.parseInt(
-                    commands[INDEX_OF_LOYALTY_STATUS_IN_INPUT]);
-        } catch (IndexOutOfBoundsException | NumberFormatException err){
+    private int getAndCheckLoyalty(){
+        long isLoyal = command.getLoyalty();
+        if(!command.hasCampusOrLoyalty()
+                || isLoyal == ParsedCommand.NOT_A_NUMBER){
             missingDataOutput();
         }
         if(!(isLoyal == 0 || isLoyal == 1)){
             missingDataOutput();
             return -1;
         }
-        return isLoyal;
+        return (int) isLoyal;
     }
 
     /**
@@ -479,10 +765,10 @@ public class TransactionManager {
      */
     private void missingDataOutput(){
         if(currentTask == OPENING)
-            System.out.println("Missing data for opening an account.");
+            out.println("Missing data for opening an account.");
         else if(currentTask == CLOSING)
-            System.out.println("Missing data for closing an account.");
+            out.println("Missing data for closing an account.");
         else
-            System.out.println("Missing data for making an account.");
+            out.println("Missing data for making an account.");
     }
 }
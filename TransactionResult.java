@@ -0,0 +1,18 @@
+package bank;
+
+/**
+ * This enum class represents the outcome of a deposit or withdrawal made
+ * through the keyed AccountDatabase methods, and of every O, C, D and W
+ * command the Transaction Manager runs: those can also be rejected by its
+ * checks, or open an account the bank already has. A deposit is refused
+ * with BALANCE_TOO_LARGE if the balance would not fit in a long.
+ * @author Dharmik Patel and Krish Patel
+ */
+public enum TransactionResult {
+    OK,
+    NOT_FOUND,
+    INSUFFICIENT_FUNDS,
+    ALREADY_OPEN,
+    BALANCE_TOO_LARGE,
+    REJECTED
+}
@@ -1,42 +1,90 @@
 package bank.accounts;
 
+import bank.personaldata.Month;
 import bank.personaldata.Profile;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
 /**
  * Represents an abstract data type of Account.
+ * All amounts of money are whole numbers of cents, see Money.
+ * While the account is in a bank, its balance and the rest of its state
+ * that changes live in a row of the bank's ColumnarAccountStore, and the
+ * account only names the row; otherwise they live in the account.
+ * The balance is only changed by compare-and-set, so deposits and
+ * withdrawals are atomic without a lock.
  * @author Dharmik Patel and Krish Patel
  */
 public abstract class Account implements Comparable<Account>{
     public static final int MIN_AGE = 16;
+    protected static final long MONTHS_PER_YEAR = Month.values().length - 1;
+    private static final VarHandle BALANCE;
     protected Profile holder;
-    protected double  balance;
+    //in cents, while the account is not in a bank
+    protected volatile long balance;
+    //the store holding the account's state, or null if not in a bank
+    ColumnarAccountStore columns;
+    int row; //the account's row in columns
+    private AccountKey key;
+
+    static {
+        try {
+            BALANCE = MethodHandles.lookup().findVarHandle(
+                    Account.class, "balance", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
 
     /**
      * All subclasses need to override this method,
      * to calculate the interest accumulated.
-     * @return The amount of interest accumulated.
+     * @return The amount of interest accumulated, in cents.
      */
-    public abstract double monthlyInterest();
+    public abstract long monthlyInterest();
 
     /**
      * All subclasses need to override this method,
      * to calculate the fee that will be charged.
-     * @return The amount of fee to be charged.
+     * @return The amount of fee to be charged, in cents.
      */
-    public abstract double monthlyFee();
+    public abstract long monthlyFee();
+
+    /**
+     * All subclasses need to override this method,
+     * to identify which type of account they are.
+     * @return The account type.
+     */
+    public abstract AccountTypeCommand getAccountType();
+
+    /**
+     * All subclasses need to override this method, to append the account
+     * as it is shown in reports, without making a String first.
+     * @param out the builder to append to
+     * @return out
+     */
+    public abstract StringBuilder appendTo(StringBuilder out);
 
     /**
      * The bare minimum to withdraw money from an account.
      * Subclasses may override this method, if more functionally is needed
      * for specific account types.
-     * @param amount the amount to withdraw
+     * @param amount the amount to withdraw, in cents
+     * @return True if there was enough money, false if not.
      */
-    public boolean withdraw(double amount){
-        if(balance >= amount){
-            balance-=amount;
-            return true;
+    public boolean withdraw(long amount){
+        if (columns != null) {
+            return columns.withdraw(row, amount);
         }
-        return false;
+        long current;
+        do {
+            current = balance;
+            if (current < amount) {
+                return false;
+            }
+        } while (!BALANCE.compareAndSet(this, current, current - amount));
+        return true;
     }
 
     /**
@@ -47,39 +95,103 @@ public abstract class Account implements Comparable<Account>{
         return holder;
     }
 
+    /**
+     * Replaces the holder with an equal Profile, so that every account of
+     * one customer shares the same Profile object.
+     * Only called by the bank, before the account is shared with other
+     * threads.
+     * @param canonical the profile to share, equal to the current holder
+     * @throws IllegalArgumentException if the profiles are not equal
+     */
+    public void shareHolder(Profile canonical) {
+        if (!holder.equals(canonical)) {
+            throw new IllegalArgumentException(
+                    "Not the same holder: " + canonical);
+        }
+        holder = canonical;
+        key = null;
+    }
+
+    /**
+     * Get the key identifying this account in the bank, made on first use.
+     * @return the account key
+     */
+    public AccountKey getKey() {
+        if (key == null) {
+            key = new AccountKey(holder, getAccountType());
+        }
+        return key;
+    }
+
     /**
      * The bare minimum to deposit money into an account.
      * Subclasses may override this method, if more functionally is needed
      * for specific account types.
-     * @param amount the amount to add
+     * @param amount the amount to add, in cents
+     * @return True if deposited, false if the balance would grow past
+     * the largest a long holds, in which case nothing is deposited.
      */
-    public void deposit(double amount){
-        balance+=amount;
+    public boolean deposit(long amount){
+        if (columns != null) {
+            return columns.deposit(row, amount);
+        }
+        long current;
+        long updated;
+        do {
+            current = balance;
+            try {
+                updated = Math.addExact(current, amount);
+            } catch (ArithmeticException err) {
+                return false;
+            }
+        } while (!BALANCE.compareAndSet(this, current, updated));
+        return true;
     }
 
     /**
      * Getter method to get the current balance
-     * @return The current balance
+     * @return The current balance, in cents
+     */
+    public long getBalance() {
+        return columns == null ? balance : columns.getBalance(row);
+    }
+
+    /**
+     * Gets one byte of the binary sort key of the account: the sort rank
+     * of its type, followed by the sort key of its holder. Comparing keys
+     * byte by byte, as unsigned values, orders accounts as compareTo()
+     * does, which lets listings be radix sorted.
+     * @param index the index of the byte
+     * @return the byte, 0 to 255, or -1 past the end of the key
      */
-    public double getBalance() {
-        return balance;
+    public int getSortKeyByte(int index) {
+        return index == 0 ? getAccountType().getSortRank()
+                : holder.getSortKeyByte(index - 1);
     }
 
     /**
      * Compares two Accounts of any type. If and only if, Account types are
      * same, then will it compare based on Profiles.
+     * Account types are ordered by their sort rank, the order of the names
+     * of their classes.
      * @param o the object to be compared.
      * @return Negative Value if this < o. 0 if equal, Positive Value if this
      * > o
      */
     @Override
     public int compareTo(Account o) {
-        if(this.getClass().getSimpleName().equals(
-                o.getClass().getSimpleName())){
-            return holder.compareTo(o.holder);
-        }
-        return this.getClass().getSimpleName().compareTo(
-                o.getClass().getSimpleName());
+        int order = Integer.compare(getAccountType().getSortRank(),
+                o.getAccountType().getSortRank());
+        return order == 0 ? holder.compareTo(o.holder) : order;
+    }
+
+    /**
+     * Returns the Account as it is shown in reports, see appendTo().
+     * @return The account in the format of its type.
+     */
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder()).toString();
     }
 
     /**
@@ -91,8 +203,7 @@ public abstract class Account implements Comparable<Account>{
     public boolean equals(Object o) {
         if(o instanceof Account){
             Account account = (Account) o;
-            return this.getClass().getSimpleName().equals(
-                    account.getClass().getSimpleName())
+            return getAccountType() == account.getAccountType()
                     && holder.equals(account.holder);
         }
         return false;
@@ -0,0 +1,57 @@
+package bank.accounts;
+
+import bank.personaldata.Profile;
+
+/**
+ * Immutable hash key identifying an account in the bank: the holder's
+ * Profile and the account type. The hash and equality of the holder are
+ * those of the Profile, worked out once from its sort key, so a key is
+ * made without folding or copying a name. Two accounts have equal keys if
+ * and only if Account.equals() considers them the same.
+ * @author Dharmik Patel and Krish Patel
+ */
+public final class AccountKey {
+    private static final int HASH_MULTIPLIER = 31;
+    private final Profile holder; //usually the Profile the bank interned
+    private final AccountTypeCommand accountType;
+    private final int hash;
+
+    /**
+     * Instantiates a key for the given holder and account type.
+     * @param holder Profile of the account holder
+     * @param accountType the account type
+     */
+    public AccountKey(Profile holder, AccountTypeCommand accountType) {
+        this.holder = holder;
+        this.accountType = accountType;
+        this.hash = HASH_MULTIPLIER * holder.hashCode()
+                + accountType.ordinal();
+    }
+
+    /**
+     * Checks if two keys identify the same account. Keys of interned
+     * holders share the Profile, so the holders compare as the same object.
+     * @param o Object to compare to.
+     * @return True if equal, false if not.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o instanceof AccountKey) {
+            AccountKey key = (AccountKey) o;
+            return hash == key.hash
+                    && accountType == key.accountType
+                    && holder.equals(key.holder);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the hash code computed when the key was made.
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
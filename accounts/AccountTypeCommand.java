@@ -2,6 +2,8 @@ package bank.accounts;
 
 /**
  * This utility enum class represents all possible account types
+ * Listings order account types by the name of their class, which is not
+ * the order they are declared in; getSortRank() gives that order.
  * @author Dharmik Patel and Krish Patel
  */
 public enum AccountTypeCommand {
@@ -10,6 +12,17 @@ public enum AccountTypeCommand {
     S(Savings.class.getSimpleName()),
     MM(MoneyMarket.class.getSimpleName());
     private final String fullName;
+    private int sortRank; //position of fullName among all the full names
+
+    static {
+        for (AccountTypeCommand type : values()) {
+            for (AccountTypeCommand other : values()) {
+                if (other.fullName.compareTo(type.fullName) < 0) {
+                    type.sortRank++;
+                }
+            }
+        }
+    }
 
     /**
      * This constructor is used by JVM, makes all the AccountTypeCommand
@@ -20,6 +33,15 @@ public enum AccountTypeCommand {
         this.fullName = fullName;
     }
 
+    /**
+     * Gets the position of this account type in listings, which order
+     * account types by the name of their class.
+     * @return the rank, 0 for the first account type listed
+     */
+    public int getSortRank() {
+        return sortRank;
+    }
+
     /**
      * Overrides toString method to return an account type's full name.
      * @return the account type's full name
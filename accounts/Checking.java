@@ -1,17 +1,15 @@
 package bank.accounts;
 
-import bank.personaldata.Month;
 import bank.personaldata.Profile;
-import java.text.DecimalFormat;
 
 /**
  * Represents a specific type of Account: Checking
  * @author Dharmik Patel and Krish Patel
  */
 public class Checking extends Account{
-    private static final double ANNUAL_INTEREST_RATE = 1.0;
-    private static final double MONTHLY_FEE = 12.00;
-    private static final double MONTHLY_FEE_THRESHOLD = 1000.00;
+    private static final long ANNUAL_INTEREST_RATE = 100; //basis points
+    private static final long MONTHLY_FEE = 12_00;
+    private static final long MONTHLY_FEE_THRESHOLD = 1000_00;
 
     /**
      * Allocates and instantiates a Checking Account, with the given data.
@@ -25,9 +23,9 @@ public class Checking extends Account{
     /**
      * Allocates and instantiates a Checking Account, with the given data.
      * @param holder Profile of the account holder
-     * @param balance The starting balance in the account
+     * @param balance The starting balance in the account, in cents
      */
-    public Checking(Profile holder, double balance){
+    public Checking(Profile holder, long balance){
         this.holder = holder;
         this.balance = balance;
     }
@@ -37,10 +35,20 @@ public class Checking extends Account{
      * @return The amount of interest, if applied.
      */
     @Override
-    public double monthlyInterest() {
-        double monthlyInterest =
-                ANNUAL_INTEREST_RATE / (Month.values().length - 1);
-        return balance * (monthlyInterest / 100);
+    public long monthlyInterest() {
+        return interestOn(getBalance());
+    }
+
+    /**
+     * Calculates the monthly interest of a Checking account with the
+     * given balance. Used by monthlyInterest() and by batch month-end runs
+     * that keep balances outside of Account objects.
+     * @param balance the balance, in cents
+     * @return The amount of interest, in cents.
+     */
+    public static long interestOn(long balance) {
+        return Money.monthlyInterest(balance, ANNUAL_INTEREST_RATE,
+                MONTHS_PER_YEAR);
     }
 
     /**
@@ -48,20 +56,41 @@ public class Checking extends Account{
      * @return The amount of fee, if charged.
      */
     @Override
-    public double monthlyFee() {
+    public long monthlyFee() {
+        return feeOn(getBalance());
+    }
+
+    /**
+     * Calculates the monthly fee of a Checking account with the given
+     * balance.
+     * @param balance the balance, in cents
+     * @return The amount of fee, in cents.
+     */
+    public static long feeOn(long balance) {
         if(balance < MONTHLY_FEE_THRESHOLD)
             return MONTHLY_FEE;
         return 0;
     }
 
     /**
-     * Returns the Account in the format:
+     * Identifies this account as a Checking account.
+     * @return AccountTypeCommand.C
+     */
+    @Override
+    public AccountTypeCommand getAccountType() {
+        return AccountTypeCommand.C;
+    }
+
+    /**
+     * Appends the Account in the format:
      * "Checking::HOLDER::Balance AMOUNT,.2f"
-     * @return The account in the specified format.
+     * @param out the builder to append to
+     * @return out
      */
     @Override
-    public String toString() {
-        return String.format("Checking::%s::Balance $%s", holder,
-                new DecimalFormat("#,##0.00").format(balance));
+    public StringBuilder appendTo(StringBuilder out) {
+        holder.appendTo(out.append("Checking::"));
+        return Money.appendFormatted(out.append("::Balance $"),
+                getBalance());
     }
 }
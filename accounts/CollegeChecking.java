@@ -1,14 +1,13 @@
 package bank.accounts;
 import bank.personaldata.Campus;
 import bank.personaldata.Profile;
-import java.text.DecimalFormat;
 
 /**
  * Represents a specific type of Checking Account: College Checking
  * @author Dharmik Patel and Krish Patel
  */
 public class CollegeChecking extends Checking{
-    private static final double MONTHLY_FEE = 0;
+    private static final long MONTHLY_FEE = 0;
     private final Campus campus;
 
     /**
@@ -26,9 +25,9 @@ public class CollegeChecking extends Checking{
      * given data. Only used to make an account with the same profile, and
      * an amountOfChange that indicates how much deposit or withdraw.
      * @param holder Profile of the account holder
-     * @param amountOfChange amount to deposit or withdraw
+     * @param amountOfChange amount to deposit or withdraw, in cents
      */
-    public CollegeChecking(Profile holder, double amountOfChange){
+    public CollegeChecking(Profile holder, long amountOfChange){
         super(holder, amountOfChange);
         campus = null;
     }
@@ -37,34 +36,61 @@ public class CollegeChecking extends Checking{
      * Allocates and instantiates a College Checking Account, with the
      * given data.
      * @param holder Profile of the account holder
-     * @param balance The starting balance in the account
+     * @param balance The starting balance in the account, in cents
      * @param campus The location of the holder
      */
-    public CollegeChecking(Profile holder, double balance, Campus campus){
+    public CollegeChecking(Profile holder, long balance, Campus campus){
         super(holder, balance);
         this.campus = campus;
     }
 
+    /**
+     * Gets the campus of the holder
+     * @return the campus, or null if this account only identifies one
+     */
+    public Campus getCampus() {
+        return campus;
+    }
+
     /**
      * Overrides the monthlyFee() method from super, because a
      * College Checking Account has no monthly fee. MONTHLY_FEE = 0
      * @return returns the monthly fee
      */
     @Override
-    public double monthlyFee() {
+    public long monthlyFee() {
+        return feeOn(getBalance());
+    }
+
+    /**
+     * Calculates the monthly fee of a College Checking account, which is
+     * always MONTHLY_FEE(0).
+     * @param balance the balance, in cents
+     * @return The amount of fee, in cents.
+     */
+    public static long feeOn(long balance) {
         return MONTHLY_FEE;
     }
 
     /**
-     * Returns the Account in the format:
+     * Identifies this account as a College Checking account.
+     * @return AccountTypeCommand.CC
+     */
+    @Override
+    public AccountTypeCommand getAccountType() {
+        return AccountTypeCommand.CC;
+    }
+
+    /**
+     * Appends the Account in the format:
      * "College Checking::HOLDER::Balance AMOUNT,.2f::CAMPUS"
-     * @return The account in the specified format.
+     * @param out the builder to append to
+     * @return out
      */
     @Override
-    public String toString() {
-        return String.format("College Checking::%s::Balance $%s::%s",
-                holder,
-                new DecimalFormat("#,##0.00").format(balance),
-                campus);
+    public StringBuilder appendTo(StringBuilder out) {
+        holder.appendTo(out.append("College Checking::"));
+        Money.appendFormatted(out.append("::Balance $"), getBalance());
+        return out.append("::").append(campus);
     }
 }
@@ -0,0 +1,259 @@
+package bank.accounts;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+/**
+ * This struct-of-arrays implementation is where a bank keeps the state of
+ * its accounts that changes: one row per account, in parallel primitive
+ * arrays of balance, account type code, loyalty status and number of
+ * withdrawals. While an account is in a bank it only names its row;
+ * deposits, withdrawals and every read of its balance go to the columns,
+ * and closing it copies its state back into the Account object.
+ * The month-end kernel runs as a single loop over these arrays, without
+ * touching Account objects or making virtual calls.
+ * Balances and withdrawal counts of distinct rows, or the same row, may be
+ * changed by different threads at once. Adding, moving and removing rows,
+ * resizing and month-end runs must not run alongside anything else.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class ColumnarAccountStore {
+    private static final VarHandle BALANCES =
+            MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle WITHDRAWALS =
+            MethodHandles.arrayElementVarHandle(int[].class);
+    private static final byte FREE = 0; //type code of a row with no account
+    private static final byte TYPE_C = typeCodeOf(AccountTypeCommand.C);
+    private static final byte TYPE_CC = typeCodeOf(AccountTypeCommand.CC);
+    private static final byte TYPE_S = typeCodeOf(AccountTypeCommand.S);
+    private long[] balances; //in cents
+    private byte[] typeCodes; //AccountTypeCommand ordinals + 1, or FREE
+    private boolean[] loyal; //only used by Savings
+    private int[] withdrawals; //this month, only used by Money Market
+
+    /**
+     * Instantiates a store with the given number of empty rows.
+     * @param capacity the number of rows
+     */
+    public ColumnarAccountStore(int capacity) {
+        balances = new long[capacity];
+        typeCodes = new byte[capacity];
+        loyal = new boolean[capacity];
+        withdrawals = new int[capacity];
+    }
+
+    /**
+     * Gets the type code a row of the given account type holds.
+     * @param accountType the account type
+     * @return the type code
+     */
+    private static byte typeCodeOf(AccountTypeCommand accountType) {
+        return (byte) (accountType.ordinal() + 1);
+    }
+
+    /**
+     * Gets the number of rows, used or not.
+     * @return the capacity
+     */
+    public int capacity() {
+        return balances.length;
+    }
+
+    /**
+     * Changes the number of rows. Rows past the new capacity must be
+     * empty.
+     * @param capacity the number of rows
+     */
+    public void resize(int capacity) {
+        balances = Arrays.copyOf(balances, capacity);
+        typeCodes = Arrays.copyOf(typeCodes, capacity);
+        loyal = Arrays.copyOf(loyal, capacity);
+        withdrawals = Arrays.copyOf(withdrawals, capacity);
+    }
+
+    /**
+     * Moves the state of an account into an empty row, and makes the
+     * account use it from now on.
+     * @param account the account, not in any bank
+     * @param row the row
+     * @throws IllegalStateException if the account is in a bank already
+     */
+    public void add(Account account, int row) {
+        if (account.columns != null) {
+            throw new IllegalStateException(
+                    "Account is in a bank already: " + account);
+        }
+        balances[row] = account.balance;
+        typeCodes[row] = typeCodeOf(account.getAccountType());
+        loyal[row] = account instanceof Savings
+                && ((Savings) account).isLoyal;
+        withdrawals[row] = account instanceof MoneyMarket
+                ? ((MoneyMarket) account).getOwnWithdrawals() : 0;
+        account.row = row;
+        account.columns = this;
+    }
+
+    /**
+     * Copies the state of an account back into it, and empties its row.
+     * @param account the account, in this store
+     */
+    public void remove(Account account) {
+        int row = account.row;
+        account.balance = balances[row];
+        if (account instanceof MoneyMarket) {
+            ((MoneyMarket) account).setOwnWithdrawals(withdrawals[row]);
+        }
+        account.columns = null;
+        clear(row);
+    }
+
+    /**
+     * Moves the state of an account into an empty row.
+     * @param account the account, in this store
+     * @param row the row to move it to
+     */
+    public void move(Account account, int row) {
+        int from = account.row;
+        balances[row] = balances[from];
+        typeCodes[row] = typeCodes[from];
+        loyal[row] = loyal[from];
+        withdrawals[row] = withdrawals[from];
+        account.row = row;
+        clear(from);
+    }
+
+    /**
+     * Empties a row.
+     * @param row the row
+     */
+    private void clear(int row) {
+        balances[row] = 0;
+        typeCodes[row] = FREE;
+        loyal[row] = false;
+        withdrawals[row] = 0;
+    }
+
+    /**
+     * Gets the balance of a row.
+     * @param row the row
+     * @return the balance, in cents
+     */
+    long getBalance(int row) {
+        return (long) BALANCES.getVolatile(balances, row);
+    }
+
+    /**
+     * Adds to the balance of a row by compare-and-set.
+     * @param row the row
+     * @param amount the amount to add, in cents
+     * @return True if deposited, false if the balance would grow past the
+     * largest a long holds, in which case nothing is deposited.
+     */
+    boolean deposit(int row, long amount) {
+        long current;
+        long updated;
+        do {
+            current = getBalance(row);
+            try {
+                updated = Math.addExact(current, amount);
+            } catch (ArithmeticException err) {
+                return false;
+            }
+        } while (!BALANCES.compareAndSet(balances, row, current, updated));
+        return true;
+    }
+
+    /**
+     * Takes from the balance of a row by compare-and-set, if it is large
+     * enough.
+     * @param row the row
+     * @param amount the amount to take, in cents
+     * @return True if there was enough money, false if not.
+     */
+    boolean withdraw(int row, long amount) {
+        long current;
+        do {
+            current = getBalance(row);
+            if (current < amount) {
+                return false;
+            }
+        } while (!BALANCES.compareAndSet(balances, row, current,
+                current - amount));
+        return true;
+    }
+
+    /**
+     * Gets the loyalty status of a row.
+     * @param row the row
+     * @return True if loyal, false if not.
+     */
+    boolean isLoyal(int row) {
+        return loyal[row];
+    }
+
+    /**
+     * Gets the number of withdrawals of a row.
+     * @param row the row
+     * @return the withdrawals this month
+     */
+    int getNumOfWithdrawals(int row) {
+        return (int) WITHDRAWALS.getVolatile(withdrawals, row);
+    }
+
+    /**
+     * Counts one more withdrawal for a row.
+     * @param row the row
+     */
+    void countWithdrawal(int row) {
+        WITHDRAWALS.getAndAdd(withdrawals, row, 1);
+    }
+
+    /**
+     * Resets the number of withdrawals of a row to zero.
+     * @param row the row
+     */
+    void resetWithdrawals(int row) {
+        WITHDRAWALS.setVolatile(withdrawals, row, 0);
+    }
+
+    /**
+     * Applies one month of interest and fees to every account in the rows
+     * in [from, to), skipping empty rows: interest is deposited, then the
+     * fee is withdrawn if the balance covers it, then the Money Market
+     * withdrawal count is reset. Rows are independent, so disjoint ranges
+     * may run on different threads.
+     * @param from the first row
+     * @param to one past the last row
+     */
+    public void applyMonthEnd(int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte type = typeCodes[i];
+            if (type == FREE) continue;
+            long balance = balances[i];
+            long fee;
+            if (type == TYPE_C) {
+                balance = Money.addInterest(balance,
+                        Checking.interestOn(balance));
+                fee = Checking.feeOn(balance);
+            } else if (type == TYPE_CC) {
+                balance = Money.addInterest(balance,
+                        Checking.interestOn(balance));
+                fee = CollegeChecking.feeOn(balance);
+            } else if (type == TYPE_S) {
+                balance = Money.addInterest(balance,
+                        Savings.interestOn(balance, loyal[i]));
+                fee = Savings.feeOn(balance);
+            } else {
+                balance = Money.addInterest(balance,
+                        MoneyMarket.interestOn(balance));
+                fee = MoneyMarket.feeOn(balance, withdrawals[i]);
+                withdrawals[i] = 0;
+            }
+            if (balance >= fee) {
+                balance -= fee;
+            }
+            balances[i] = balance;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package bank.accounts;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Utility class for money amounts, which the bank keeps as a whole number
+ * of cents in a long. Interest is rounded to the nearest cent with
+ * RoundingMode.HALF_EVEN (banker's rounding). Interest is worked out
+ * exactly for any balance, and adding it never wraps a balance around.
+ * @author Dharmik Patel and Krish Patel
+ */
+public final class Money {
+    public static final long CENTS_PER_DOLLAR = 100;
+    public static final long BASIS_POINTS_PER_UNIT = 10_000;
+    public static final RoundingMode ROUNDING = RoundingMode.HALF_EVEN;
+    private static final int CENT_SCALE = 2;
+    private static final long THOUSAND = 1000;
+
+    /**
+     * Not used, this class only has static methods.
+     */
+    private Money() {
+    }
+
+    /**
+     * Converts a dollar amount to cents, rounding to the nearest cent.
+     * @param dollars the amount in dollars
+     * @return the amount in cents
+     * @throws ArithmeticException if the amount is not finite or does not
+     * fit in a long number of cents
+     */
+    public static long toCents(double dollars) {
+        if (!Double.isFinite(dollars)) {
+            throw new ArithmeticException("Not a finite amount: " + dollars);
+        }
+        return BigDecimal.valueOf(dollars)
+                .setScale(CENT_SCALE, ROUNDING)
+                .unscaledValue()
+                .longValueExact();
+    }
+
+    /**
+     * Calculates one month of interest on a balance, rounded to the cent.
+     * @param balance the balance in cents
+     * @param annualRate the annual interest rate in basis points,
+     * 1% being 100 basis points
+     * @param monthsPerYear the number of months the rate is split over
+     * @return the monthly interest in cents
+     */
+    public static long monthlyInterest(long balance, long annualRate,
+                                       long monthsPerYear) {
+        long divisor = monthsPerYear * BASIS_POINTS_PER_UNIT;
+        long product = balance * annualRate;
+        if (Math.multiplyHigh(balance, annualRate) == product >> 63) {
+            return divide(product, divisor);
+        }
+        return new BigDecimal(BigInteger.valueOf(balance)
+                .multiply(BigInteger.valueOf(annualRate)))
+                .divide(BigDecimal.valueOf(divisor), 0, ROUNDING)
+                .longValueExact();
+    }
+
+    /**
+     * Adds interest to a balance, stopping at the largest balance a long
+     * holds instead of wrapping around.
+     * @param balance the balance in cents
+     * @param interest the interest in cents, not negative
+     * @return the new balance in cents
+     */
+    public static long addInterest(long balance, long interest) {
+        long sum = balance + interest;
+        return sum < balance ? Long.MAX_VALUE : sum;
+    }
+
+    /**
+     * Divides two longs, rounding the quotient HALF_EVEN.
+     * @param dividend the number to divide
+     * @param divisor the positive number to divide by
+     * @return the rounded quotient
+     */
+    private static long divide(long dividend, long divisor) {
+        long quotient = Math.floorDiv(dividend, divisor);
+        long twiceRemainder = 2 * Math.floorMod(dividend, divisor);
+        if (twiceRemainder > divisor
+                || (twiceRemainder == divisor && (quotient & 1) != 0)) {
+            quotient++;
+        }
+        return quotient;
+    }
+
+    /**
+     * Formats an amount in the format "#,##0.00", e.g. 1,234.50
+     * @param cents the amount in cents
+     * @return The amount in the specified format.
+     */
+    public static String format(long cents) {
+        return appendFormatted(new StringBuilder(), cents).toString();
+    }
+
+    /**
+     * Appends an amount in the format "#,##0.00", e.g. 1,234.50, without
+     * making any objects. Gives the same text as format().
+     * @param out the builder to append to
+     * @param cents the amount in cents
+     * @return out
+     */
+    public static StringBuilder appendFormatted(StringBuilder out,
+                                                long cents) {
+        return append(out, cents, true);
+    }
+
+    /**
+     * Appends an amount in the format "0.00", e.g. 1234.50, without
+     * grouping and without making any objects. Used where the amount is
+     * read back by other programs.
+     * @param out the builder to append to
+     * @param cents the amount in cents
+     * @return out
+     */
+    public static StringBuilder appendPlain(StringBuilder out, long cents) {
+        return append(out, cents, false);
+    }
+
+    /**
+     * Appends an amount with two decimal places. Works on the negated
+     * amount, so Long.MIN_VALUE needs no special case.
+     * @param out the builder to append to
+     * @param cents the amount in cents
+     * @param grouped True to separate thousands with commas
+     * @return out
+     */
+    private static StringBuilder append(StringBuilder out, long cents,
+                                        boolean grouped) {
+        long negated = cents < 0 ? cents : -cents;
+        if (cents < 0) {
+            out.append('-');
+        }
+        long dollars = -(negated / CENTS_PER_DOLLAR);
+        int fraction = (int) -(negated % CENTS_PER_DOLLAR);
+        if (grouped) {
+            appendGrouped(out, dollars);
+        } else {
+            out.append(dollars);
+        }
+        return out.append('.')
+                .append((char) ('0' + fraction / 10))
+                .append((char) ('0' + fraction % 10));
+    }
+
+    /**
+     * Appends a whole number of dollars with commas between thousands.
+     * @param out the builder to append to
+     * @param dollars the dollars, not negative
+     */
+    private static void appendGrouped(StringBuilder out, long dollars) {
+        long group = 1;
+        while (dollars / group >= THOUSAND) {
+            group *= THOUSAND;
+        }
+        out.append(dollars / group);
+        while (group > 1) {
+            group /= THOUSAND;
+            int digits = (int) (dollars / group % THOUSAND);
+            out.append(',')
+                    .append((char) ('0' + digits / 100))
+                    .append((char) ('0' + digits / 10 % 10))
+                    .append((char) ('0' + digits % 10));
+        }
+    }
+}
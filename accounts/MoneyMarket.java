@@ -1,22 +1,23 @@
 package bank.accounts;
 
-import bank.personaldata.Month;
 import bank.personaldata.Profile;
-import java.text.DecimalFormat;
+
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents a specific type of Saving Account: Money Market
  * @author Dharmik Patel and Krish Patel
  */
 public class MoneyMarket extends Savings{
-    private static final double ANNUAL_INTEREST_RATE_LOYAL = 4.75;
-    private static final double ANNUAL_INTEREST_RATE_NOT_LOYAL = 4.50;
-    private static final double MONTHLY_FEE = 25.0;
-    public static final double ACCOUNT_THRESHOLD = 2000;
-    private static final double WITHDRAW_THRESHOLD = 3;
-    private static final double FEE_TOO_MANY_WITHDRAWALS = 10;
+    private static final long ANNUAL_INTEREST_RATE_LOYAL = 475; //basis points
+    private static final long ANNUAL_INTEREST_RATE_NOT_LOYAL = 450;
+    private static final long MONTHLY_FEE = 25_00;
+    public static final long ACCOUNT_THRESHOLD = 2000_00;
+    private static final int WITHDRAW_THRESHOLD = 3;
+    private static final long FEE_TOO_MANY_WITHDRAWALS = 10_00;
     public static final int MAX_AGE = 24;
-    private int numOfWithdrawals;
+    //withdrawals this month, while the account is not in a bank
+    private final AtomicInteger numOfWithdrawals = new AtomicInteger();
     /**
      * Allocates and instantiates a MoneyMarket Account, with the given data.
      * Only used to make an account to match closing functions.
@@ -31,11 +32,22 @@ public class MoneyMarket extends Savings{
      * Loyalty is True by default bc balance >= 2000;
      * Sets the number of withdrawals to 0.
      * @param holder Profile of the account holder
-     * @param balance The starting balance in the account
+     * @param balance The starting balance in the account, in cents
+     */
+    public MoneyMarket(Profile holder, long balance){
+        super(holder, balance, true);
+    }
+
+    /**
+     * Allocates and instantiates a Money Market Account restored from
+     * storage, with withdrawals already made this month.
+     * @param holder Profile of the account holder
+     * @param balance The balance in the account, in cents
+     * @param numOfWithdrawals The withdrawals made this month
      */
-    public MoneyMarket(Profile holder, double balance){
+    public MoneyMarket(Profile holder, long balance, int numOfWithdrawals){
         super(holder, balance, true);
-        numOfWithdrawals = 0;
+        this.numOfWithdrawals.set(numOfWithdrawals);
     }
 
     /**
@@ -43,7 +55,60 @@ public class MoneyMarket extends Savings{
      * when fees and interests are applied.
      */
     public void resetWithdrawal() {
-        this.numOfWithdrawals = 0;
+        if (columns != null) {
+            columns.resetWithdrawals(row);
+        } else {
+            numOfWithdrawals.set(0);
+        }
+    }
+
+    /**
+     * Gets the number of withdrawals made since fees and interests were
+     * last applied.
+     * @return the number of withdrawals
+     */
+    public int getNumOfWithdrawals() {
+        return columns == null ? numOfWithdrawals.get()
+                : columns.getNumOfWithdrawals(row);
+    }
+
+    /**
+     * Gets the number of withdrawals kept in the account itself, for
+     * moving them into a ColumnarAccountStore.
+     * @return the number of withdrawals
+     */
+    int getOwnWithdrawals() {
+        return numOfWithdrawals.get();
+    }
+
+    /**
+     * Sets the number of withdrawals kept in the account itself, when
+     * they are moved out of a ColumnarAccountStore.
+     * @param withdrawals the number of withdrawals
+     */
+    void setOwnWithdrawals(int withdrawals) {
+        numOfWithdrawals.set(withdrawals);
+    }
+
+    /**
+     * Gets the loyalty status, which for a Money Market account is
+     * whether the balance is at least ACCOUNT_THRESHOLD. It is worked out
+     * from the balance, so it is never out of date.
+     * @return True if the holder is loyal, false if not.
+     */
+    @Override
+    public boolean isLoyal() {
+        return isLoyal(getBalance());
+    }
+
+    /**
+     * Gets the loyalty status of a Money Market account with the given
+     * balance.
+     * @param balance the balance, in cents
+     * @return True if balance >= ACCOUNT_THRESHOLD, false if not.
+     */
+    public static boolean isLoyal(long balance) {
+        return balance >= ACCOUNT_THRESHOLD;
     }
 
     /**
@@ -51,15 +116,20 @@ public class MoneyMarket extends Savings{
      * @return The amount of interest, if applied.
      */
     @Override
-    public double monthlyInterest() {
-        double monthlyInterest;
-        if(isLoyal)
-            monthlyInterest = ANNUAL_INTEREST_RATE_LOYAL /
-                    (Month.values().length - 1);
-        else
-            monthlyInterest = ANNUAL_INTEREST_RATE_NOT_LOYAL /
-                    (Month.values().length - 1);
-        return (balance * monthlyInterest / 100);
+    public long monthlyInterest() {
+        return interestOn(getBalance());
+    }
+
+    /**
+     * Calculates the monthly interest of a Money Market account with the
+     * given balance, which also decides the loyalty status.
+     * @param balance the balance, in cents
+     * @return The amount of interest, in cents.
+     */
+    public static long interestOn(long balance) {
+        long annualRate = isLoyal(balance) ? ANNUAL_INTEREST_RATE_LOYAL
+                : ANNUAL_INTEREST_RATE_NOT_LOYAL;
+        return Money.monthlyInterest(balance, annualRate, MONTHS_PER_YEAR);
     }
 
     /**
@@ -68,8 +138,19 @@ public class MoneyMarket extends Savings{
      * @return The amount of fee, if charged.
      */
     @Override
-    public double monthlyFee() {
-        double totalFee = 0;
+    public long monthlyFee() {
+        return feeOn(getBalance(), getNumOfWithdrawals());
+    }
+
+    /**
+     * Calculates the monthly fee of a Money Market account with the given
+     * balance and number of withdrawals.
+     * @param balance the balance, in cents
+     * @param numOfWithdrawals the withdrawals made this month
+     * @return The amount of fee, in cents.
+     */
+    public static long feeOn(long balance, int numOfWithdrawals) {
+        long totalFee = 0;
         if(balance < ACCOUNT_THRESHOLD)
             totalFee += MONTHLY_FEE;
         if(numOfWithdrawals > WITHDRAW_THRESHOLD)
@@ -79,45 +160,48 @@ public class MoneyMarket extends Savings{
 
     /**
      * Called by the AccountDatabase.withdraw() only. Updates withdrawal
-     * counter and loyalty status based on account balance.
-     * @param amount amount to deduct
+     * counter if the money was withdrawn.
+     * @param amount amount to deduct, in cents
      * @return True if able to withdraw, false if not.
      */
     @Override
-    public boolean withdraw(double amount) {
-        if(balance >= amount){
-            balance-=amount;
-            numOfWithdrawals++;
-            isLoyal = balance >= ACCOUNT_THRESHOLD;
+    public boolean withdraw(long amount) {
+        if(super.withdraw(amount)){
+            if (columns != null) {
+                columns.countWithdrawal(row);
+            } else {
+                numOfWithdrawals.incrementAndGet();
+            }
             return true;
         }
         return false;
     }
 
     /**
-     * Called by the AccountDatabase.deposit() only.
-     * Updates loyalty status based on account balance.
-     * @param amount amount to add
+     * Identifies this account as a Money Market account.
+     * @return AccountTypeCommand.MM
      */
     @Override
-    public void deposit(double amount) {
-        super.deposit(amount);
-        isLoyal = balance >= ACCOUNT_THRESHOLD;
+    public AccountTypeCommand getAccountType() {
+        return AccountTypeCommand.MM;
     }
 
     /**
-     * Returns the Account in the format
+     * Appends the Account in the format
      * "Money Market::HOLDER::Balance AMOUNT,.2f::ISLOYAL::withdrawal:
-     * WITHDRAWALS"
-     * @return The account in the specified format.
+     * WITHDRAWALS". The balance is read once, so the loyalty shown always
+     * matches it.
+     * @param out the builder to append to
+     * @return out
      */
     @Override
-    public String toString() {
-        return String.format(
-                "Money Market::Savings::%s::Balance $%s::%swithdrawal: %d",
-                holder,
-                new DecimalFormat("#,##0.00").format(balance),
-                isLoyal? "is loyal::" : "",
-                numOfWithdrawals);
+    public StringBuilder appendTo(StringBuilder out) {
+        long current = getBalance();
+        holder.appendTo(out.append("Money Market::Savings::"));
+        Money.appendFormatted(out.append("::Balance $"), current);
+        if (isLoyal(current)) {
+            out.append("::is loyal");
+        }
+        return out.append("::withdrawal: ").append(getNumOfWithdrawals());
     }
 }
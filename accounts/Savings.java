@@ -1,8 +1,6 @@
 package bank.accounts;
 
-import bank.personaldata.Month;
 import bank.personaldata.Profile;
-import java.text.DecimalFormat;
 
 
 /**
@@ -10,11 +8,11 @@ import java.text.DecimalFormat;
  * @author Dharmik Patel and Krish Patel
  */
 public class Savings extends Account{
-    private static final double ANNUAL_INTEREST_RATE_LOYAL = 4.25;
-    private static final double ANNUAL_INTEREST_RATE_NOT_LOYAL = 4.00;
-    private static final double MONTHLY_FEE = 25.00;
-    private static final double MONTHLY_FEE_THRESHOLD = 500.00;
-    protected boolean isLoyal;
+    private static final long ANNUAL_INTEREST_RATE_LOYAL = 425; //basis points
+    private static final long ANNUAL_INTEREST_RATE_NOT_LOYAL = 400;
+    private static final long MONTHLY_FEE = 25_00;
+    private static final long MONTHLY_FEE_THRESHOLD = 500_00;
+    protected boolean isLoyal; //while the account is not in a bank
 
     /**
      * Allocates and instantiates a Savings Account, with the given data.
@@ -30,19 +28,19 @@ public class Savings extends Account{
      * Only used to make an account with the same profile, and
      * an amountOfChange that indicates how much deposit or withdraw.
      * @param holder Profile of the account holder
-     * @param amountOfChange amount to deposit or withdraw
+     * @param amountOfChange amount to deposit or withdraw, in cents
      */
-    public Savings(Profile holder, double amountOfChange){
+    public Savings(Profile holder, long amountOfChange){
         this.holder = holder;
         this.balance = amountOfChange;
     }
     /**
      * Allocates and instantiates a Savings Account, with the given data.
      * @param holder Profile of the account holder
-     * @param balance The starting balance in the account
+     * @param balance The starting balance in the account, in cents
      * @param isLoyal The loyalty status of the holder
      */
-    public Savings(Profile holder, double balance, boolean isLoyal){
+    public Savings(Profile holder, long balance, boolean isLoyal){
         this.holder = holder;
         this.balance = balance;
         this.isLoyal = isLoyal;
@@ -53,15 +51,30 @@ public class Savings extends Account{
      * @return The amount of interest, if applied.
      */
     @Override
-    public double monthlyInterest() {
-        double monthlyInterest = 0;
-        if(isLoyal)
-            monthlyInterest = ANNUAL_INTEREST_RATE_LOYAL /
-                    (Month.values().length - 1);
-        else
-            monthlyInterest = ANNUAL_INTEREST_RATE_NOT_LOYAL /
-                    (Month.values().length - 1);
-        return (balance * monthlyInterest / 100);
+    public long monthlyInterest() {
+        return interestOn(getBalance(), isLoyal());
+    }
+
+    /**
+     * Calculates the monthly interest of a Savings account with the given
+     * balance and loyalty status. Used by monthlyInterest() and by batch
+     * month-end runs that keep balances outside of Account objects.
+     * @param balance the balance, in cents
+     * @param isLoyal the loyalty status of the holder
+     * @return The amount of interest, in cents.
+     */
+    public static long interestOn(long balance, boolean isLoyal) {
+        long annualRate = isLoyal ? ANNUAL_INTEREST_RATE_LOYAL
+                : ANNUAL_INTEREST_RATE_NOT_LOYAL;
+        return Money.monthlyInterest(balance, annualRate, MONTHS_PER_YEAR);
+    }
+
+    /**
+     * Gets the loyalty status of the holder.
+     * @return True if the holder is loyal, false if not.
+     */
+    public boolean isLoyal() {
+        return columns == null ? isLoyal : columns.isLoyal(row);
     }
 
     /**
@@ -69,22 +82,40 @@ public class Savings extends Account{
      * @return The amount of fee, if charged.
      */
     @Override
-    public double monthlyFee() {
+    public long monthlyFee() {
+        return feeOn(getBalance());
+    }
+
+    /**
+     * Calculates the monthly fee of a Savings account with the given
+     * balance.
+     * @param balance the balance, in cents
+     * @return The amount of fee, in cents.
+     */
+    public static long feeOn(long balance) {
         if(balance < MONTHLY_FEE_THRESHOLD)
             return MONTHLY_FEE;
         return 0;
     }
     /**
-     * Returns the Account in the format
+     * Identifies this account as a Savings account.
+     * @return AccountTypeCommand.S
+     */
+    @Override
+    public AccountTypeCommand getAccountType() {
+        return AccountTypeCommand.S;
+    }
+
+    /**
+     * Appends the Account in the format
      * "Savings::HOLDER::Balance AMOUNT,.2f::ISLOYAL"
-     * @return The account in the specified format.
+     * @param out the builder to append to
+     * @return out
      */
     @Override
-    public String toString() {
-        return String.format(
-                "Savings::%s::Balance $%s%s",
-                holder,
-                new DecimalFormat("#,##0.00").format(balance),
-                isLoyal ? "::is loyal" : "");
+    public StringBuilder appendTo(StringBuilder out) {
+        holder.appendTo(out.append("Savings::"));
+        Money.appendFormatted(out.append("::Balance $"), getBalance());
+        return isLoyal() ? out.append("::is loyal") : out;
     }
 }
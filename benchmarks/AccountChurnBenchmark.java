@@ -0,0 +1,89 @@
+package bank.benchmarks;
+
+import bank.AccountDatabase;
+import bank.accounts.Account;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks opening and closing accounts in a bank of the
+ * given size. Each changes the bank, so each iteration is one batch of
+ * BATCH_SIZE calls, timed as a whole; before every batch the accounts it
+ * opens are closed again and the accounts it closes are opened again, so
+ * every batch starts from a bank of the same size.
+ * @author Dharmik Patel and Krish Patel
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10, batchSize = AccountChurnBenchmark.BATCH_SIZE)
+@Measurement(iterations = 20, batchSize = AccountChurnBenchmark.BATCH_SIZE)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class AccountChurnBenchmark {
+    static final int BATCH_SIZE = 10_000;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private AccountDatabase accountDatabase;
+    //accounts the open benchmark opens, not in the bank before a batch
+    private List<Account> toOpen;
+    //accounts the close benchmark closes, in the bank before a batch
+    private List<Account> toClose;
+    //next account of the batch
+    private int next;
+
+    /**
+     * Makes the bank, and the accounts opened and closed in it.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        accountDatabase = Banks.bank(size);
+        toOpen = Banks.accounts(size, BATCH_SIZE);
+        toClose = Banks.accounts(size + BATCH_SIZE, BATCH_SIZE);
+    }
+
+    /**
+     * Puts the bank back as it was before the last batch: closes the
+     * accounts it opened and opens the accounts it closed.
+     */
+    @Setup(Level.Iteration)
+    public void resetBatch() {
+        for (Account account : toOpen) {
+            accountDatabase.close(account);
+        }
+        accountDatabase.openAll(toClose);
+        next = 0;
+    }
+
+    /**
+     * open() of an account not in the bank.
+     * @return True
+     */
+    @Benchmark
+    public boolean open() {
+        return accountDatabase.open(toOpen.get(next++));
+    }
+
+    /**
+     * close() of an account in the bank.
+     * @return True
+     */
+    @Benchmark
+    public boolean close() {
+        return accountDatabase.close(toClose.get(next++));
+    }
+}
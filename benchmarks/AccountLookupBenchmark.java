@@ -0,0 +1,130 @@
+package bank.benchmarks;
+
+import bank.AccountDatabase;
+import bank.accounts.Account;
+import bank.accounts.AccountTypeCommand;
+import bank.personaldata.Profile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks finding accounts in a bank of the given size:
+ * contains() by account and by holder and type, for accounts in the bank
+ * and not, and findByHolder(). Every lookup uses a Profile made apart
+ * from the bank's own, as a parsed command does, so keys are compared
+ * byte by byte and not matched by reference.
+ * @author Dharmik Patel and Krish Patel
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class AccountLookupBenchmark {
+    private static final int NUM_PROBES = 1 << 14;
+    private static final int PROBE_MASK = NUM_PROBES - 1;
+    private static final long SEED = 20_23;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private AccountDatabase accountDatabase;
+    //accounts in the bank, drawn at random, each with its own Profile
+    private Account[] present;
+    //accounts not in the bank
+    private Account[] absent;
+    //next probe used by each benchmark, wrapping at NUM_PROBES
+    private int next;
+
+    /**
+     * Makes the bank and the accounts looked up in it.
+     */
+    @Setup
+    public void setUp() {
+        accountDatabase = Banks.bank(size);
+        SplittableRandom random = new SplittableRandom(SEED);
+        present = new Account[NUM_PROBES];
+        absent = new Account[NUM_PROBES];
+        for (int i = 0; i < NUM_PROBES; i++) {
+            present[i] = Banks.account(random.nextInt(size));
+            absent[i] = Banks.account(size + i);
+        }
+    }
+
+    /**
+     * Gets the next probe position.
+     * @return the position in present and absent
+     */
+    private int nextProbe() {
+        return next++ & PROBE_MASK;
+    }
+
+    /**
+     * contains(Account) for an account in the bank.
+     * @return True
+     */
+    @Benchmark
+    public boolean containsAccount() {
+        return accountDatabase.contains(present[nextProbe()]);
+    }
+
+    /**
+     * contains(Account) for an account not in the bank.
+     * @return False
+     */
+    @Benchmark
+    public boolean containsMissingAccount() {
+        return accountDatabase.contains(absent[nextProbe()]);
+    }
+
+    /**
+     * contains(Profile, AccountTypeCommand) for an account in the bank.
+     * @return True
+     */
+    @Benchmark
+    public boolean containsHolderAndType() {
+        Account account = present[nextProbe()];
+        return accountDatabase.contains(account.getHolder(),
+                account.getAccountType());
+    }
+
+    /**
+     * contains(Profile, AccountTypeCommand) for a holder in the bank
+     * asking after every type, as the C and CC checks of open do.
+     * @return the number of types the holder has
+     */
+    @Benchmark
+    public int containsEveryType() {
+        Profile holder = present[nextProbe()].getHolder();
+        int held = 0;
+        for (AccountTypeCommand accountType : AccountTypeCommand.values()) {
+            if (accountDatabase.contains(holder, accountType)) {
+                held++;
+            }
+        }
+        return held;
+    }
+
+    /**
+     * findByHolder() for a holder in the bank.
+     * @return the accounts of the holder
+     */
+    @Benchmark
+    public List<Account> findByHolder() {
+        return accountDatabase.findByHolder(present[nextProbe()].getHolder());
+    }
+}
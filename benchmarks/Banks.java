@@ -0,0 +1,103 @@
+package bank.benchmarks;
+
+import bank.AccountDatabase;
+import bank.accounts.Account;
+import bank.accounts.Checking;
+import bank.accounts.CollegeChecking;
+import bank.accounts.MoneyMarket;
+import bank.accounts.Savings;
+import bank.personaldata.Campus;
+import bank.personaldata.Date;
+import bank.personaldata.Profile;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * This class makes the banks the benchmarks run against. Account number i
+ * is the same account in every run and every benchmark: its holder has a
+ * first name made from i, so no two accounts share a key, and a last name,
+ * date of birth, type and balance drawn from a generator seeded with i.
+ * @author Dharmik Patel and Krish Patel
+ */
+final class Banks {
+    private static final String[] LAST_NAMES = {
+            "Patel", "Smith", "Johnson", "Williams", "Brown", "Jones",
+            "Garcia", "Miller", "Davis", "Rodriguez", "Martinez", "Lee",
+            "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Kim",
+            "Thomas", "Taylor", "Moore", "Jackson", "Martin", "Nguyen",
+            "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez",
+            "Lewis", "Robinson"
+    };
+    private static final int FIRST_YEAR = 1950;
+    private static final int YEARS = 50;
+    private static final int MONTHS = 12;
+    private static final int DAYS = 28; //valid in every month
+    private static final int NUM_TYPES = 4;
+    private static final long MAX_BALANCE = 10_000_00;
+    private static final int RADIX = 36;
+
+    /**
+     * Not used; every method is static.
+     */
+    private Banks() {
+    }
+
+    /**
+     * Makes the holder of account number i.
+     * @param i the account number
+     * @return the holder
+     */
+    static Profile holder(int i) {
+        SplittableRandom random = new SplittableRandom(i);
+        return new Profile("Holder" + Integer.toString(i, RADIX),
+                LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+                Date.of(1 + random.nextInt(MONTHS), 1 + random.nextInt(DAYS),
+                        FIRST_YEAR + random.nextInt(YEARS)));
+    }
+
+    /**
+     * Makes account number i, with a new holder Profile each call.
+     * @param i the account number
+     * @return the account
+     */
+    static Account account(int i) {
+        SplittableRandom random = new SplittableRandom(-1 - (long) i);
+        Profile holder = holder(i);
+        long balance = random.nextLong(MAX_BALANCE);
+        return switch (random.nextInt(NUM_TYPES)) {
+            case 0 -> new Checking(holder, balance);
+            case 1 -> new CollegeChecking(holder, balance,
+                    Campus.values()[random.nextInt(Campus.values().length)]);
+            case 2 -> new Savings(holder, balance, random.nextBoolean());
+            default -> new MoneyMarket(holder,
+                    MoneyMarket.ACCOUNT_THRESHOLD + balance);
+        };
+    }
+
+    /**
+     * Makes accounts number from to from + count - 1.
+     * @param from the first account number
+     * @param count the number of accounts
+     * @return the accounts
+     */
+    static List<Account> accounts(int from, int count) {
+        List<Account> accounts = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            accounts.add(account(i));
+        }
+        return accounts;
+    }
+
+    /**
+     * Makes a bank holding accounts number 0 to size - 1.
+     * @param size the number of accounts
+     * @return the bank
+     */
+    static AccountDatabase bank(int size) {
+        AccountDatabase accountDatabase = new AccountDatabase(size);
+        accountDatabase.openAll(accounts(0, size));
+        return accountDatabase;
+    }
+}
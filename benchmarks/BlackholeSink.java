@@ -0,0 +1,45 @@
+package bank.benchmarks;
+
+import bank.output.OutputSink;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * This class is an OutputSink that hands everything printed to a JMH
+ * Blackhole, so benchmarks pay for making the output but not for writing
+ * it anywhere, and the JIT cannot skip making it.
+ * @author Dharmik Patel and Krish Patel
+ */
+final class BlackholeSink implements OutputSink {
+    private final Blackhole blackhole;
+
+    /**
+     * Makes a sink consuming into the given Blackhole.
+     * @param blackhole the Blackhole of the benchmark
+     */
+    BlackholeSink(Blackhole blackhole) {
+        this.blackhole = blackhole;
+    }
+
+    /**
+     * Consumes the text.
+     * @param text the text
+     */
+    @Override
+    public void print(String text) {
+        blackhole.consume(text);
+    }
+
+    /**
+     * Does nothing; nothing is held back.
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * Does nothing; there is nothing to release.
+     */
+    @Override
+    public void close() {
+    }
+}
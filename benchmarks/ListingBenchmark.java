@@ -0,0 +1,98 @@
+package bank.benchmarks;
+
+import bank.AccountDatabase;
+import bank.accounts.Account;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks the reports that go through every account of a
+ * bank of the given size, printed in TEXT to a sink that throws the text
+ * away:
+ *      sortAndList      P right after a close and an open, so the
+ *                       accounts are sorted again first
+ *      list             P with the sorted order still cached; the
+ *                       difference from sortAndList is the sort
+ *      updateBalances   UB, applying fees and interests on "parallelism"
+ *                       threads
+ * @author Dharmik Patel and Krish Patel
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class ListingBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    @Param({"1"})
+    public int parallelism;
+
+    private AccountDatabase accountDatabase;
+    //account closed and opened again to make the bank sort again
+    private Account churned;
+    private BlackholeSink out;
+
+    /**
+     * Makes the bank.
+     * @param blackhole where the printed text goes
+     */
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        accountDatabase = Banks.bank(size);
+        accountDatabase.setMonthEndParallelism(parallelism);
+        churned = Banks.account(size / 2);
+        out = new BlackholeSink(blackhole);
+    }
+
+    /**
+     * Stops the threads of UB.
+     */
+    @TearDown
+    public void tearDown() {
+        accountDatabase.setMonthEndParallelism(1);
+    }
+
+    /**
+     * Closes and opens an account, then prints every account sorted.
+     */
+    @Benchmark
+    public void sortAndList() {
+        accountDatabase.close(churned);
+        accountDatabase.open(churned);
+        accountDatabase.printSorted(out);
+    }
+
+    /**
+     * Prints every account in the sorted order already cached.
+     */
+    @Benchmark
+    public void list() {
+        accountDatabase.printSorted(out);
+    }
+
+    /**
+     * Applies fees and interests to every account, printing the new
+     * balances. Balances drift from run to run, as they would month to
+     * month.
+     */
+    @Benchmark
+    public void updateBalances() {
+        accountDatabase.printUpdatedBalances(out);
+    }
+}
@@ -0,0 +1,91 @@
+package bank.benchmarks;
+
+import bank.personaldata.Date;
+import bank.personaldata.Profile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks parsing dates and working out ages, over the
+ * dates of birth and holders of a bank of the given size, taken in turn.
+ * The size decides how much of the work fits in the CPU caches.
+ * @author Dharmik Patel and Krish Patel
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class PersonalDataBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    //dates of birth as typed, "MONTH/DAY/YEAR"
+    private String[] dates;
+    private Profile[] holders;
+    //next date and holder used
+    private int next;
+
+    /**
+     * Makes the dates and holders.
+     */
+    @Setup
+    public void setUp() {
+        dates = new String[size];
+        holders = new Profile[size];
+        for (int i = 0; i < size; i++) {
+            holders[i] = Banks.holder(i);
+            dates[i] = holders[i].getDOB().toString();
+        }
+    }
+
+    /**
+     * Gets the next position, wrapping at size.
+     * @return the position in dates and holders
+     */
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == size ? 0 : index + 1;
+        return index;
+    }
+
+    /**
+     * Parses a date of birth, as every command naming an account does.
+     * @return the date
+     */
+    @Benchmark
+    public Date parseDate() {
+        return new Date(dates[nextIndex()]);
+    }
+
+    /**
+     * Parses a date of birth and checks it, as opening an account does.
+     * @return True if the date is valid and before today
+     */
+    @Benchmark
+    public boolean parseAndCheckDate() {
+        Date date = new Date(dates[nextIndex()]);
+        return date.isValid() && date.isLessThanPresentDate();
+    }
+
+    /**
+     * Works out the age of a holder today.
+     * @return the age in years
+     */
+    @Benchmark
+    public int getAge() {
+        return holders[nextIndex()].getAge();
+    }
+}
@@ -0,0 +1,139 @@
+package bank.benchmarks;
+
+import bank.AccountDatabase;
+import bank.TransactionManager;
+import bank.accounts.Account;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.Charset;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class benchmarks the Transaction Manager running one command line,
+ * from its bytes through parsing and dispatch to the bank and the
+ * printed acknowledgement, against a bank of the given size:
+ *      transactions     D and W lines, in pairs of the same amount on the
+ *                       same account, so balances stay put
+ *      mixed            the same, with an O line for an account already
+ *                       in the bank and an invalid command mixed in
+ * @author Dharmik Patel and Krish Patel
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class TransactionManagerBenchmark {
+    private static final int NUM_LINES = 1 << 14;
+    private static final int LINE_MASK = NUM_LINES - 1;
+    //of every MIXED_CYCLE mixed lines, the last two are an O and an invalid
+    private static final int MIXED_CYCLE = 8;
+    private static final long SEED = 20_23;
+    private static final String AMOUNT = "10.00";
+    private static final String OPEN_AMOUNT = "2500";
+    private static final String CAMPUS_OR_LOYALTY = "0";
+    private static final String INVALID_COMMAND = "Z";
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private TransactionManager transactionManager;
+    //D and W lines, in the platform charset as the manager reads them
+    private byte[][] transactions;
+    //D and W lines with O and invalid lines mixed in
+    private byte[][] mixed;
+    //next line run, wrapping at NUM_LINES
+    private int next;
+
+    /**
+     * Makes the bank, the Transaction Manager and the command lines.
+     * @param blackhole where the printed text goes
+     */
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        AccountDatabase accountDatabase = Banks.bank(size);
+        transactionManager = new TransactionManager(accountDatabase, null,
+                new BlackholeSink(blackhole));
+        SplittableRandom random = new SplittableRandom(SEED);
+        transactions = new byte[NUM_LINES][];
+        mixed = new byte[NUM_LINES][];
+        for (int i = 0; i < NUM_LINES; i += 2) {
+            Account account = Banks.account(random.nextInt(size));
+            transactions[i] = line("D", account, AMOUNT);
+            transactions[i + 1] = line("W", account, AMOUNT);
+            if (i % MIXED_CYCLE == MIXED_CYCLE - 2) {
+                mixed[i] = line("O", account,
+                        OPEN_AMOUNT + " " + CAMPUS_OR_LOYALTY);
+                mixed[i + 1] = encode(INVALID_COMMAND);
+            } else {
+                mixed[i] = transactions[i];
+                mixed[i + 1] = transactions[i + 1];
+            }
+        }
+    }
+
+    /**
+     * Makes a command line naming an account.
+     * @param command the command token
+     * @param account the account
+     * @param rest the tokens after the date of birth
+     * @return the line
+     */
+    private static byte[] line(String command, Account account,
+                               String rest) {
+        return encode(command + " " + account.getAccountType().name() + " "
+                + account.getHolder().getFname() + " "
+                + account.getHolder().getLname() + " "
+                + account.getHolder().getDOB() + " " + rest);
+    }
+
+    /**
+     * Encodes a line as the Transaction Manager reads it.
+     * @param line the line
+     * @return its bytes
+     */
+    private static byte[] encode(String line) {
+        return line.getBytes(Charset.defaultCharset());
+    }
+
+    /**
+     * Runs a line.
+     * @param lines the lines to take it from
+     * @return True, as no line quits
+     */
+    private boolean run(byte[][] lines) {
+        byte[] line = lines[next++ & LINE_MASK];
+        return transactionManager.processLine(line, 0, line.length);
+    }
+
+    /**
+     * Runs the next D or W line.
+     * @return True
+     */
+    @Benchmark
+    public boolean transactions() {
+        return run(transactions);
+    }
+
+    /**
+     * Runs the next line of the mix.
+     * @return True
+     */
+    @Benchmark
+    public boolean mixed() {
+        return run(mixed);
+    }
+}
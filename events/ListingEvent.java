@@ -0,0 +1,53 @@
+package bank.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This Flight Recorder event covers writing one P, PI or UB report, with
+ * the lock wait, any sort it needed and, for UB, the month-end run.
+ * @author Dharmik Patel and Krish Patel
+ */
+@Name(ListingEvent.NAME)
+@Label("Listing")
+@Category(TransactionEvent.CATEGORY)
+@Description("A report of every account, in sorted order")
+public class ListingEvent extends Event {
+    public static final String NAME = "bank.Listing";
+    @Label("Report")
+    @Description("The ReportType written")
+    private String report;
+    @Label("Format")
+    @Description("TEXT, CSV or JSON")
+    private String format;
+    @Label("Rows")
+    @Description("The number of accounts listed")
+    private int rows;
+
+    /**
+     * Sets the report written.
+     * @param report the name of the ReportType
+     */
+    public void setReport(String report) {
+        this.report = report;
+    }
+
+    /**
+     * Sets the layout the report was written in.
+     * @param format the name of the ReportFormat
+     */
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    /**
+     * Sets the number of accounts listed.
+     * @param rows the number of accounts
+     */
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+}
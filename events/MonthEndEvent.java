@@ -0,0 +1,53 @@
+package bank.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This Flight Recorder event covers one month-end pass applying fees and
+ * interests to every account, for UB or for a UB replayed from the log.
+ * @author Dharmik Patel and Krish Patel
+ */
+@Name(MonthEndEvent.NAME)
+@Label("Month End")
+@Category(TransactionEvent.CATEGORY)
+@Description("Fees and interests applied to every account")
+public class MonthEndEvent extends Event {
+    public static final String NAME = "bank.MonthEnd";
+    @Label("Rows")
+    @Description("The number of accounts updated")
+    private int rows;
+    @Label("Parallelism")
+    @Description("The number of threads the chunks ran on")
+    private int parallelism;
+    @Label("Report")
+    @Description("Whether the new balances were rendered for a report")
+    private boolean report;
+
+    /**
+     * Sets the number of accounts updated.
+     * @param rows the number of accounts
+     */
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * Sets the number of threads the chunks ran on.
+     * @param parallelism the number of threads
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets whether the new balances were rendered for a report.
+     * @param report True if they were, false if not
+     */
+    public void setReport(boolean report) {
+        this.report = report;
+    }
+}
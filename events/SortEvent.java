@@ -0,0 +1,31 @@
+package bank.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * This Flight Recorder event covers one radix sort of the accounts, which
+ * a listing or month-end run needs after an open or close.
+ * @author Dharmik Patel and Krish Patel
+ */
+@Name(SortEvent.NAME)
+@Label("Account Sort")
+@Category(TransactionEvent.CATEGORY)
+@Description("The accounts radix sorted by account type and profile")
+public class SortEvent extends Event {
+    public static final String NAME = "bank.Sort";
+    @Label("Rows")
+    @Description("The number of accounts sorted")
+    private int rows;
+
+    /**
+     * Sets the number of accounts sorted.
+     * @param rows the number of accounts
+     */
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+}
@@ -0,0 +1,81 @@
+package bank.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * This Flight Recorder event covers one O, C, D or W command line, from
+ * the start of its checks to the end of printing its acknowledgement.
+ * Every transaction runs down the same few frames, so no stack trace is
+ * taken; the thread and duration are enough to line it up with GC pauses
+ * and lock waits.
+ * Transactions are the hot path, and the Transaction Manager's line
+ * handling is too big for the JIT to inline shouldCommit() into, so an
+ * event made there is not optimized away. beginIfRecording() makes none
+ * unless a recording has this event enabled, so with none a transaction
+ * costs one check of the cached event type.
+ * @author Dharmik Patel and Krish Patel
+ */
+@Name(TransactionEvent.NAME)
+@Label("Transaction")
+@Category(TransactionEvent.CATEGORY)
+@Description("An open, close, deposit or withdrawal command line")
+@StackTrace(false)
+public class TransactionEvent extends Event {
+    public static final String NAME = "bank.Transaction";
+    static final String CATEGORY = "Bank";
+    //looked up once, so the hot path only asks whether it is enabled
+    private static final EventType TYPE =
+            EventType.getEventType(TransactionEvent.class);
+    @Label("Command")
+    @Description("O, C, D or W")
+    private String command;
+    @Label("Account Type")
+    @Description("C, CC, S or MM, or null if the line had none")
+    private String accountType;
+    @Label("Outcome")
+    @Description("The TransactionResult of the command")
+    private String outcome;
+
+    /**
+     * Begins an event if a recording has this event enabled.
+     * @return the begun event, or null if no recording wants it
+     */
+    public static TransactionEvent beginIfRecording() {
+        if (!TYPE.isEnabled()) {
+            return null;
+        }
+        TransactionEvent event = new TransactionEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Sets the command token.
+     * @param command the token
+     */
+    public void setCommand(String command) {
+        this.command = command;
+    }
+
+    /**
+     * Sets the account type token.
+     * @param accountType the token, or null if the line had none
+     */
+    public void setAccountType(String accountType) {
+        this.accountType = accountType;
+    }
+
+    /**
+     * Sets how the transaction ended.
+     * @param outcome the name of the TransactionResult
+     */
+    public void setOutcome(String outcome) {
+        this.outcome = outcome;
+    }
+}
@@ -0,0 +1,272 @@
+package bank.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class collects printed text into chunks on the calling thread, and
+ * hands full chunks to a writer thread through a bounded queue, so the
+ * caller never waits on the destination unless the queue is full.
+ * The writer thread also writes out a partial chunk once the queue has
+ * been empty for flushMillis, so output keeps moving when little is
+ * printed.
+ * flush() waits until everything printed so far has been written.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class AsyncSink implements OutputSink {
+    private static final String THREAD_NAME = "output-writer";
+    private final OutputStream destination;
+    private final Writer writer;
+    private final int chunkChars;
+    private final long flushMillis;
+    private final ArrayBlockingQueue<Chunk> queue;
+    private final Thread writerThread;
+    //guards pending and closed. chunks are only queued while holding it
+    private final ReentrantLock lock;
+    //text printed since the last chunk was handed to the writer thread
+    private StringBuilder pending;
+    //set by the writer thread if the destination fails
+    private volatile IOException failure;
+    private boolean closed;
+
+    /**
+     * A piece of text for the writer thread. A chunk with a latch also
+     * asks for the destination to be flushed, and the latch is counted
+     * down once it is. A chunk with no text stops the writer thread.
+     */
+    private static final class Chunk {
+        private final String text;
+        private final CountDownLatch flushed;
+
+        /**
+         * Makes a chunk.
+         * @param text the text, or null to stop the writer thread
+         * @param flushed counted down once flushed, or null
+         */
+        private Chunk(String text, CountDownLatch flushed) {
+            this.text = text;
+            this.flushed = flushed;
+        }
+    }
+
+    /**
+     * Makes a sink writing to the given stream, and starts its writer
+     * thread.
+     * @param destination the stream the text is written to
+     * @param charset the charset the text is encoded in
+     * @param chunkChars the size of a chunk, in characters
+     * @param queueChunks the most chunks waiting for the writer thread
+     * @param flushMillis the most time a partial chunk waits
+     */
+    public AsyncSink(OutputStream destination, Charset charset,
+                     int chunkChars, int queueChunks, long flushMillis) {
+        if (chunkChars < 1 || queueChunks < 1 || flushMillis < 1) {
+            throw new IllegalArgumentException(
+                    "Chunk size, queue size and flush time must be at least 1");
+        }
+        this.destination = destination;
+        writer = new OutputStreamWriter(destination, charset);
+        this.chunkChars = chunkChars;
+        this.flushMillis = flushMillis;
+        queue = new ArrayBlockingQueue<>(queueChunks);
+        pending = new StringBuilder(chunkChars);
+        lock = new ReentrantLock();
+        writerThread = new Thread(this::writeChunks, THREAD_NAME);
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Adds the text to the current chunk, handing the chunk to the writer
+     * thread once it is full.
+     * @param text the text
+     */
+    @Override
+    public void print(String text) {
+        lock.lock();
+        try {
+            checkOpen();
+            pending.append(text);
+            if (pending.length() >= chunkChars) {
+                enqueue(new Chunk(takePending(), null));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hands the current chunk to the writer thread, and waits until it and
+     * every chunk before it are written and the destination is flushed.
+     */
+    @Override
+    public void flush() {
+        CountDownLatch flushed = new CountDownLatch(1);
+        lock.lock();
+        try {
+            checkOpen();
+            enqueue(new Chunk(takePending(), flushed));
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flushed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkFailure();
+    }
+
+    /**
+     * Flushes, and stops the writer thread. The stream stays open.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (closed) return;
+        } finally {
+            lock.unlock();
+        }
+        flush();
+        lock.lock();
+        try {
+            closed = true;
+            enqueue(new Chunk(null, null));
+        } finally {
+            lock.unlock();
+        }
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Takes the text of the current chunk and starts a new one.
+     * Caller must hold the lock.
+     * @return the text of the current chunk
+     */
+    private String takePending() {
+        String text = pending.toString();
+        pending.setLength(0);
+        return text;
+    }
+
+    /**
+     * Hands a chunk to the writer thread, waiting while the queue is full.
+     * @param chunk the chunk
+     */
+    private void enqueue(Chunk chunk) {
+        checkFailure();
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while printing", e);
+        }
+    }
+
+    /**
+     * Throws if the sink is closed.
+     */
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Output sink is closed");
+        }
+    }
+
+    /**
+     * Throws the failure of the writer thread, if it had one.
+     */
+    private void checkFailure() {
+        IOException e = failure;
+        if (e != null) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Runs on the writer thread. Writes every chunk, and a partial chunk
+     * that has waited flushMillis, until told to stop.
+     */
+    private void writeChunks() {
+        try {
+            while (true) {
+                Chunk chunk = queue.poll(flushMillis, TimeUnit.MILLISECONDS);
+                if (chunk == null) {
+                    writeIdlePending();
+                    continue;
+                }
+                if (chunk.text == null) return;
+                write(chunk.text);
+                if (chunk.flushed != null) {
+                    flushDestination();
+                    chunk.flushed.countDown();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs on the writer thread once the queue has been empty for
+     * flushMillis. Takes the partial chunk and writes it out, unless a
+     * caller is printing right now; it never waits for the lock, so a
+     * caller blocked on a full queue while holding it cannot deadlock.
+     */
+    private void writeIdlePending() {
+        String text = null;
+        if (lock.tryLock()) {
+            try {
+                //anything queued holds earlier text, so it goes first
+                if (queue.isEmpty()) {
+                    text = takePending();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (text != null && !text.isEmpty()) {
+            write(text);
+            flushDestination();
+        }
+    }
+
+    /**
+     * Writes text to the destination, recording a failure instead of
+     * throwing it, since the writer thread has nobody to throw to.
+     * @param text the text
+     */
+    private void write(String text) {
+        if (text.isEmpty() || failure != null) return;
+        try {
+            writer.write(text);
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    /**
+     * Flushes the destination, recording a failure instead of throwing it.
+     */
+    private void flushDestination() {
+        if (failure != null) return;
+        try {
+            writer.flush();
+            destination.flush();
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package bank.output;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class collects printed text in a buffer on the calling thread, and
+ * writes it out once the buffer holds flushChars characters, or once
+ * flushMillis have passed since the last write-out when more text is
+ * printed, or when flush() is called.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class BufferedSink implements OutputSink {
+    private final OutputStream destination;
+    private final Writer writer;
+    private final long flushNanos;
+    private long lastFlushNanos;
+
+    /**
+     * Makes a sink writing to the given stream.
+     * @param destination the stream the text is written to
+     * @param charset the charset the text is encoded in
+     * @param flushChars the size of the buffer, in characters
+     * @param flushMillis the most time text waits in the buffer while
+     * more is printed
+     */
+    public BufferedSink(OutputStream destination, Charset charset,
+                        int flushChars, long flushMillis) {
+        if (flushChars < 1 || flushMillis < 1) {
+            throw new IllegalArgumentException(
+                    "Flush thresholds must be at least 1");
+        }
+        this.destination = destination;
+        writer = new BufferedWriter(
+                new OutputStreamWriter(destination, charset), flushChars);
+        flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        lastFlushNanos = System.nanoTime();
+    }
+
+    /**
+     * Adds the text to the buffer, writing the buffer out if it is full
+     * or has waited too long.
+     * @param text the text
+     */
+    @Override
+    public synchronized void print(String text) {
+        try {
+            writer.write(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (System.nanoTime() - lastFlushNanos >= flushNanos) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes out the buffer and flushes the stream.
+     */
+    @Override
+    public synchronized void flush() {
+        try {
+            writer.flush();
+            destination.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        lastFlushNanos = System.nanoTime();
+    }
+
+    /**
+     * Writes out the buffer. The stream stays open.
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+}
@@ -0,0 +1,63 @@
+package bank.output;
+
+import java.io.Closeable;
+
+/**
+ * This interface is where the Transaction Manager and the bank print
+ * their acknowledgements and reports. Implementations decide when the
+ * text actually reaches its destination; flush() forces it there.
+ * @author Dharmik Patel and Krish Patel
+ */
+public interface OutputSink extends Closeable {
+
+    /**
+     * Gets a sink that prints straight to System.out, whatever System.out
+     * is at the time of each call.
+     * @return the standard output sink
+     */
+    static OutputSink standardOutput() {
+        return StandardOutputSink.INSTANCE;
+    }
+
+    /**
+     * Prints the text.
+     * @param text the text
+     */
+    void print(String text);
+
+    /**
+     * Prints the text followed by the line separator.
+     * @param text the text
+     */
+    default void println(String text) {
+        print(text);
+        println();
+    }
+
+    /**
+     * Prints the line separator.
+     */
+    default void println() {
+        print(System.lineSeparator());
+    }
+
+    /**
+     * Prints the arguments formatted by String.format().
+     * @param format the format string
+     * @param args the arguments
+     */
+    default void printf(String format, Object... args) {
+        print(String.format(format, args));
+    }
+
+    /**
+     * Sends everything printed so far to the destination.
+     */
+    void flush();
+
+    /**
+     * Flushes, and releases the sink. The destination is not closed.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,300 @@
+package bank.output;
+
+import bank.accounts.Account;
+import bank.accounts.CollegeChecking;
+import bank.accounts.Money;
+import bank.accounts.MoneyMarket;
+import bank.accounts.Savings;
+import bank.personaldata.Campus;
+import bank.personaldata.Date;
+import bank.personaldata.Profile;
+
+/**
+ * The layouts a report can be written in. TEXT is the layout the bank
+ * has always printed; CSV and JSON are for other programs, with plain
+ * amounts ("1234.50") and ISO dates ("2001-02-28").
+ * Every method appends to a builder the caller reuses, so rendering a
+ * row makes no objects.
+ * CSV columns: type, first_name, last_name, dob, balance, campus, loyal,
+ * withdrawals, then fee and monthly_interest for the fee report. Columns
+ * that do not apply to an account type are empty.
+ * JSON: an array with one object per line, with the same fields; fields
+ * that do not apply are null.
+ * @author Dharmik Patel and Krish Patel
+ */
+public enum ReportFormat {
+    TEXT,
+    CSV,
+    JSON;
+
+    private static final String EMPTY_BANK = "Account Database is empty!";
+    private static final String END_OF_LIST = "*end of list.\n";
+    private static final String CSV_COLUMNS =
+            "type,first_name,last_name,dob,balance,campus,loyal,withdrawals";
+    private static final String CSV_FEE_COLUMNS = ",fee,monthly_interest";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * Appends what comes before the first row.
+     * @param out the builder to append to
+     * @param type the report
+     */
+    public void appendHeader(StringBuilder out, ReportType type) {
+        switch (this) {
+            case TEXT -> out.append('\n').append(type.getTitle())
+                    .append(System.lineSeparator());
+            case CSV -> {
+                out.append(CSV_COLUMNS);
+                if (type.hasFeeAndInterest()) {
+                    out.append(CSV_FEE_COLUMNS);
+                }
+                out.append('\n');
+            }
+            case JSON -> out.append('[');
+        }
+    }
+
+    /**
+     * Appends one row of the report.
+     * @param out the builder to append to
+     * @param type the report
+     * @param account the account of the row
+     * @param first True if this is the first row of the report
+     */
+    public void appendRow(StringBuilder out, ReportType type,
+                          Account account, boolean first) {
+        switch (this) {
+            case TEXT -> appendTextRow(out, type, account);
+            case CSV -> appendCsvRow(out, type, account);
+            case JSON -> appendJsonRow(out, type, account, first);
+        }
+    }
+
+    /**
+     * Appends what comes after the last row.
+     * @param out the builder to append to
+     * @param type the report
+     * @param rows the number of rows written
+     */
+    public void appendFooter(StringBuilder out, ReportType type, long rows) {
+        switch (this) {
+            case TEXT -> out.append(END_OF_LIST)
+                    .append(System.lineSeparator());
+            case CSV -> { }
+            case JSON -> out.append(rows == 0 ? "]\n" : "\n]\n");
+        }
+    }
+
+    /**
+     * Appends the whole report of a bank with no accounts.
+     * @param out the builder to append to
+     * @param type the report
+     */
+    public void appendEmpty(StringBuilder out, ReportType type) {
+        if (this == TEXT) {
+            out.append(EMPTY_BANK).append(System.lineSeparator());
+        } else {
+            appendHeader(out, type);
+            appendFooter(out, type, 0);
+        }
+    }
+
+    /**
+     * Appends a row in the text layout. Rows of the fee report end in
+     * '\n', the others in the line separator, as they always have.
+     * @param out the builder to append to
+     * @param type the report
+     * @param account the account
+     */
+    private static void appendTextRow(StringBuilder out, ReportType type,
+                                      Account account) {
+        account.appendTo(out);
+        if (type.hasFeeAndInterest()) {
+            Money.appendFormatted(out.append("::fee $"),
+                    account.monthlyFee());
+            Money.appendFormatted(out.append("::monthly interest $"),
+                    account.monthlyInterest());
+            out.append('\n');
+        } else {
+            out.append(System.lineSeparator());
+        }
+    }
+
+    /**
+     * Appends a row in the CSV layout.
+     * @param out the builder to append to
+     * @param type the report
+     * @param account the account
+     */
+    private static void appendCsvRow(StringBuilder out, ReportType type,
+                                     Account account) {
+        Profile holder = account.getHolder();
+        long balance = account.getBalance();
+        out.append(account.getAccountType().name()).append(',');
+        appendCsvText(out, holder.getFname());
+        out.append(',');
+        appendCsvText(out, holder.getLname());
+        appendIsoDate(out.append(','), holder.getDOB());
+        Money.appendPlain(out.append(','), balance);
+        out.append(',');
+        Campus campus = campusOf(account);
+        if (campus != null) {
+            out.append(campus.name());
+        }
+        out.append(',');
+        if (account instanceof Savings) {
+            out.append(isLoyal(account, balance));
+        }
+        out.append(',');
+        if (account instanceof MoneyMarket moneyMarket) {
+            out.append(moneyMarket.getNumOfWithdrawals());
+        }
+        if (type.hasFeeAndInterest()) {
+            Money.appendPlain(out.append(','), account.monthlyFee());
+            Money.appendPlain(out.append(','), account.monthlyInterest());
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Appends a row in the JSON layout.
+     * @param out the builder to append to
+     * @param type the report
+     * @param account the account
+     * @param first True if this is the first row of the report
+     */
+    private static void appendJsonRow(StringBuilder out, ReportType type,
+                                      Account account, boolean first) {
+        Profile holder = account.getHolder();
+        long balance = account.getBalance();
+        out.append(first ? "\n" : ",\n");
+        out.append("{\"type\":\"").append(account.getAccountType().name());
+        appendJsonText(out.append("\",\"first_name\":"), holder.getFname());
+        appendJsonText(out.append(",\"last_name\":"), holder.getLname());
+        appendIsoDate(out.append(",\"dob\":\""), holder.getDOB());
+        Money.appendPlain(out.append("\",\"balance\":"), balance);
+        out.append(",\"campus\":");
+        Campus campus = campusOf(account);
+        if (campus == null) {
+            out.append("null");
+        } else {
+            out.append('"').append(campus.name()).append('"');
+        }
+        out.append(",\"loyal\":");
+        if (account instanceof Savings) {
+            out.append(isLoyal(account, balance));
+        } else {
+            out.append("null");
+        }
+        out.append(",\"withdrawals\":");
+        if (account instanceof MoneyMarket moneyMarket) {
+            out.append(moneyMarket.getNumOfWithdrawals());
+        } else {
+            out.append("null");
+        }
+        if (type.hasFeeAndInterest()) {
+            Money.appendPlain(out.append(",\"fee\":"), account.monthlyFee());
+            Money.appendPlain(out.append(",\"monthly_interest\":"),
+                    account.monthlyInterest());
+        }
+        out.append('}');
+    }
+
+    /**
+     * Gets the campus of an account.
+     * @param account the account
+     * @return the campus, or null if the account has none
+     */
+    private static Campus campusOf(Account account) {
+        return account instanceof CollegeChecking collegeChecking
+                ? collegeChecking.getCampus() : null;
+    }
+
+    /**
+     * Gets the loyalty status of a Savings account. A Money Market
+     * account's status is worked out from the balance already read, so
+     * it matches the balance in the row.
+     * @param account the Savings or Money Market account
+     * @param balance the balance shown in the row
+     * @return True if loyal, false if not.
+     */
+    private static boolean isLoyal(Account account, long balance) {
+        return account instanceof MoneyMarket
+                ? MoneyMarket.isLoyal(balance) : ((Savings) account).isLoyal();
+    }
+
+    /**
+     * Appends a date as "YYYY-MM-DD".
+     * @param out the builder to append to
+     * @param date the date
+     */
+    private static void appendIsoDate(StringBuilder out, Date date) {
+        int year = date.getYear();
+        for (int digits = 1000; digits > 1 && year < digits; digits /= 10) {
+            out.append('0');
+        }
+        out.append(year).append('-');
+        appendTwoDigits(out, date.getMonth().ordinal() + 1);
+        out.append('-');
+        appendTwoDigits(out, date.getDay());
+    }
+
+    /**
+     * Appends a number from 0 to 99 as two digits.
+     * @param out the builder to append to
+     * @param number the number
+     */
+    private static void appendTwoDigits(StringBuilder out, int number) {
+        out.append((char) ('0' + number / 10))
+                .append((char) ('0' + number % 10));
+    }
+
+    /**
+     * Appends a CSV field, quoted if it holds a comma, quote or line
+     * break, with quotes doubled.
+     * @param out the builder to append to
+     * @param text the field
+     */
+    private static void appendCsvText(StringBuilder out, String text) {
+        boolean quoted = false;
+        for (int i = 0; i < text.length() && !quoted; i++) {
+            char c = text.charAt(i);
+            quoted = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quoted) {
+            out.append(text);
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    /**
+     * Appends a JSON string, escaping quotes, backslashes and control
+     * characters.
+     * @param out the builder to append to
+     * @param text the string
+     */
+    private static void appendJsonText(StringBuilder out, String text) {
+        out.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < ' ') {
+                out.append("\\u00").append(HEX_DIGITS[c >> 4])
+                        .append(HEX_DIGITS[c & 0xF]);
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+}
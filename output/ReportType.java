@@ -0,0 +1,42 @@
+package bank.output;
+
+/**
+ * The reports the bank can print, with the title each one has in the
+ * text layout and whether its rows show the monthly fee and interest.
+ * @author Dharmik Patel and Krish Patel
+ */
+public enum ReportType {
+    ACCOUNTS("*Accounts sorted by account type and profile.", false),
+    FEES_AND_INTERESTS("*list of accounts with fee and monthly interest",
+            true),
+    UPDATED_BALANCES("*list of accounts with fees and interests applied.",
+            false);
+    private final String title;
+    private final boolean hasFeeAndInterest;
+
+    /**
+     * Makes a report type.
+     * @param title the title line of the text layout
+     * @param hasFeeAndInterest True if rows show the fee and interest
+     */
+    ReportType(String title, boolean hasFeeAndInterest) {
+        this.title = title;
+        this.hasFeeAndInterest = hasFeeAndInterest;
+    }
+
+    /**
+     * Gets the title line of the text layout.
+     * @return the title
+     */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Checks if rows of this report show the monthly fee and interest.
+     * @return True if they do, false if not.
+     */
+    public boolean hasFeeAndInterest() {
+        return hasFeeAndInterest;
+    }
+}
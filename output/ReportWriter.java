@@ -0,0 +1,229 @@
+package bank.output;
+
+import bank.accounts.Account;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class streams a report into one reusable buffer, in a
+ * ReportFormat, and hands the buffer to its destination every
+ * BUFFER_CHARS characters: either an OutputSink, or a FileChannel the
+ * text is encoded into as UTF-8 without going through Strings. Rows are
+ * rendered straight into the buffer, so a report of any size makes a
+ * fixed number of objects per BUFFER_CHARS characters, not per row.
+ * A report is written by begin(), row() for each account and end(), or
+ * by empty() alone for a bank with no accounts.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class ReportWriter implements Closeable {
+    public static final int BUFFER_CHARS = 1 << 16;
+    private static final int BYTES_PER_CHAR = 3; //most UTF-8 bytes per char
+    private final ReportFormat format;
+    private final OutputSink sink;
+    private final FileChannel channel;
+    private final CharsetEncoder encoder;
+    private final ByteBuffer bytes;
+    //text not yet handed to the destination
+    private final StringBuilder buffer;
+    private ReportType type;
+    private long rows;
+
+    /**
+     * Makes a writer for exactly one of a sink and a channel.
+     * @param format the layout of the report
+     * @param sink the sink to print to, or null
+     * @param channel the channel to write to, or null
+     */
+    private ReportWriter(ReportFormat format, OutputSink sink,
+                         FileChannel channel) {
+        this.format = format;
+        this.sink = sink;
+        this.channel = channel;
+        buffer = new StringBuilder(BUFFER_CHARS + BUFFER_CHARS / 4);
+        if (channel == null) {
+            encoder = null;
+            bytes = null;
+        } else {
+            encoder = StandardCharsets.UTF_8.newEncoder();
+            bytes = ByteBuffer.allocateDirect(BUFFER_CHARS * BYTES_PER_CHAR);
+        }
+    }
+
+    /**
+     * Makes a writer that prints the report to a sink.
+     * @param format the layout of the report
+     * @param out the sink
+     * @return the writer
+     */
+    public static ReportWriter toSink(ReportFormat format, OutputSink out) {
+        return new ReportWriter(format, out, null);
+    }
+
+    /**
+     * Makes a writer that writes the report to a file channel as UTF-8,
+     * from the channel's current position.
+     * @param format the layout of the report
+     * @param channel the channel, open for writing
+     * @return the writer
+     */
+    public static ReportWriter toChannel(ReportFormat format,
+                                         FileChannel channel) {
+        return new ReportWriter(format, null, channel);
+    }
+
+    /**
+     * Gets the layout the report is written in.
+     * @return the format
+     */
+    public ReportFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Starts a report.
+     * @param type the report
+     */
+    public void begin(ReportType type) {
+        this.type = type;
+        rows = 0;
+        format.appendHeader(buffer, type);
+    }
+
+    /**
+     * Writes one row of the report.
+     * @param account the account of the row
+     */
+    public void row(Account account) {
+        format.appendRow(buffer, type, account, rows == 0);
+        rows++;
+        if (buffer.length() >= BUFFER_CHARS) {
+            drain();
+        }
+    }
+
+    /**
+     * Writes rows already rendered by ReportFormat.appendRow(), e.g. by
+     * several threads each rendering a part of the report.
+     * @param text the rendered rows
+     * @param count the number of rows in the text
+     */
+    public void rows(CharSequence text, int count) {
+        buffer.append(text);
+        rows += count;
+        if (buffer.length() >= BUFFER_CHARS) {
+            drain();
+        }
+    }
+
+    /**
+     * Ends the report.
+     */
+    public void end() {
+        format.appendFooter(buffer, type, rows);
+        drain();
+    }
+
+    /**
+     * Writes the whole report of a bank with no accounts.
+     * @param type the report
+     */
+    public void empty(ReportType type) {
+        this.type = type;
+        rows = 0;
+        format.appendEmpty(buffer, type);
+        drain();
+    }
+
+    /**
+     * Gets the number of rows in the report so far.
+     * @return the number of rows
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Hands the buffered text to the destination. A sink still decides
+     * when the text reaches its own destination.
+     */
+    public void flush() {
+        drain();
+    }
+
+    /**
+     * Hands the buffered text to the destination, or encodes it into the
+     * channel. A character split across two drains (half of a surrogate
+     * pair) stays in the buffer for the next one.
+     */
+    private void drain() {
+        if (sink != null) {
+            if (buffer.length() > 0) {
+                sink.print(buffer.toString());
+                buffer.setLength(0);
+            }
+            return;
+        }
+        CharBuffer chars = CharBuffer.wrap(buffer);
+        encode(chars, false);
+        buffer.delete(0, chars.position());
+    }
+
+    /**
+     * Encodes characters into the channel.
+     * @param chars the characters
+     * @param endOfInput True if no more characters follow
+     */
+    private void encode(CharBuffer chars, boolean endOfInput) {
+        try {
+            CoderResult result;
+            do {
+                result = encoder.encode(chars, bytes, endOfInput);
+                if (result.isError()) {
+                    result.throwException();
+                }
+                writeBytes();
+            } while (result.isOverflow());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes every encoded byte to the channel.
+     */
+    private void writeBytes() throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        bytes.clear();
+    }
+
+    /**
+     * Hands the rest of the text to the destination. The sink or channel
+     * is not closed.
+     */
+    @Override
+    public void close() {
+        drain();
+        if (channel != null) {
+            encode(CharBuffer.wrap(buffer), true);
+            buffer.setLength(0);
+            encoder.flush(bytes);
+            try {
+                writeBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            encoder.reset();
+        }
+    }
+}
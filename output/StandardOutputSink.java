@@ -0,0 +1,60 @@
+package bank.output;
+
+/**
+ * This class prints straight to System.out, looked up on every call, so
+ * System.setOut() takes effect at once.
+ * @author Dharmik Patel and Krish Patel
+ */
+final class StandardOutputSink implements OutputSink {
+    static final StandardOutputSink INSTANCE = new StandardOutputSink();
+
+    /**
+     * Only INSTANCE is needed.
+     */
+    private StandardOutputSink() {
+    }
+
+    /**
+     * Prints the text to System.out.
+     * @param text the text
+     */
+    @Override
+    public void print(String text) {
+        System.out.print(text);
+    }
+
+    /**
+     * Prints the text and a line separator to System.out.
+     * @param text the text
+     */
+    @Override
+    public void println(String text) {
+        System.out.println(text);
+    }
+
+    /**
+     * Prints the arguments formatted to System.out.
+     * @param format the format string
+     * @param args the arguments
+     */
+    @Override
+    public void printf(String format, Object... args) {
+        System.out.printf(format, args);
+    }
+
+    /**
+     * Flushes System.out.
+     */
+    @Override
+    public void flush() {
+        System.out.flush();
+    }
+
+    /**
+     * Flushes System.out, which stays open.
+     */
+    @Override
+    public void close() {
+        flush();
+    }
+}
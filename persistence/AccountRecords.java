@@ -0,0 +1,116 @@
+package bank.persistence;
+
+import bank.accounts.Account;
+import bank.accounts.AccountTypeCommand;
+import bank.accounts.Checking;
+import bank.accounts.CollegeChecking;
+import bank.accounts.MoneyMarket;
+import bank.accounts.Savings;
+import bank.personaldata.Campus;
+import bank.personaldata.Date;
+import bank.personaldata.Profile;
+
+/**
+ * Utility class shared by the storage formats, to turn the parts of an
+ * account into fixed-width fields and back.
+ * @author Dharmik Patel and Krish Patel
+ */
+final class AccountRecords {
+    static final int NONE = 0;
+
+    /**
+     * Not used, this class only has static methods.
+     */
+    private AccountRecords() {
+    }
+
+    /**
+     * Encodes a date as year * 10000 + month * 100 + day.
+     * @param date the date
+     * @return the encoded date
+     */
+    static int encodeDate(Date date) {
+        return date.toPacked();
+    }
+
+    /**
+     * Decodes a date encoded by encodeDate().
+     * @param date the encoded date
+     * @return the date
+     */
+    static Date decodeDate(int date) {
+        return Date.ofPacked(date);
+    }
+
+    /**
+     * Encodes a date as the number of days since 1/1/1970.
+     * @param date the date, which must be a valid calendar date
+     * @return the epoch day
+     */
+    static int encodeEpochDay(Date date) {
+        return date.toEpochDay();
+    }
+
+    /**
+     * Decodes a date encoded by encodeEpochDay().
+     * @param epochDay the epoch day
+     * @return the date
+     */
+    static Date decodeEpochDay(int epochDay) {
+        return Date.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Encodes the campus of a College Checking account.
+     * @param account the account
+     * @return the campus ordinal + 1, or NONE(0) if it has no campus
+     */
+    static int encodeCampus(Account account) {
+        Campus campus = account instanceof CollegeChecking
+                ? ((CollegeChecking) account).getCampus() : null;
+        return campus == null ? NONE : campus.ordinal() + 1;
+    }
+
+    /**
+     * Gets the loyalty status of a Savings account.
+     * @param account the account
+     * @return True if loyal, false if not or not a Savings account.
+     */
+    static boolean isLoyal(Account account) {
+        return account instanceof Savings && ((Savings) account).isLoyal();
+    }
+
+    /**
+     * Gets the withdrawals of a Money Market account.
+     * @param account the account
+     * @return the withdrawals this month, 0 if not a Money Market account
+     */
+    static int withdrawalsOf(Account account) {
+        return account instanceof MoneyMarket
+                ? ((MoneyMarket) account).getNumOfWithdrawals() : 0;
+    }
+
+    /**
+     * Makes an account from its stored fields.
+     * @param accountType the account type
+     * @param holder the holder
+     * @param balance the balance, in cents
+     * @param campus the campus ordinal + 1, or NONE(0)
+     * @param isLoyal the loyalty status
+     * @param numOfWithdrawals the withdrawals this month
+     * @return the account
+     */
+    static Account makeAccount(AccountTypeCommand accountType,
+                               Profile holder, long balance, int campus,
+                               boolean isLoyal, int numOfWithdrawals) {
+        return switch (accountType) {
+            case C -> new Checking(holder, balance);
+            case CC -> campus == NONE
+                    ? new CollegeChecking(holder, balance)
+                    : new CollegeChecking(holder, balance,
+                    Campus.values()[campus - 1]);
+            case S -> new Savings(holder, balance, isLoyal);
+            case MM -> new MoneyMarket(holder, balance, numOfWithdrawals);
+        };
+    }
+}
@@ -0,0 +1,225 @@
+package bank.persistence;
+
+import bank.accounts.Account;
+import bank.accounts.AccountTypeCommand;
+import bank.personaldata.Date;
+import bank.personaldata.Profile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * This class is a compact binary copy of every account in a bank, taken at
+ * a known position in the transaction log. A restart loads the snapshot
+ * and replays only the log written after it.
+ * File layout:
+ *      header      magic, version (ints), log position (long),
+ *                  number of names, number of accounts (ints)
+ *      names       every distinct first and last name once, as a short
+ *                  length + UTF-8 bytes
+ *      accounts    RECORD_SIZE bytes each, names as indexes into names
+ *      checksum    CRC32 of everything before it (int)
+ * Record layout, RECORD_SIZE bytes:
+ *      0  type         ordinal of AccountTypeCommand
+ *      1  campus       ordinal of Campus + 1, 0 if none
+ *      2  loyal        1 if loyal, 0 if not
+ *      4  withdrawals  made this month
+ *      8  fname        index of the name
+ *     12  lname        index of the name
+ *     16  dob          days since 1/1/1970
+ *     20  balance      in cents
+ * A snapshot is written to a temporary file and then moved over the old
+ * one, so a crash while writing leaves the old snapshot whole.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class AccountSnapshot {
+    public static final int RECORD_SIZE = 28;
+    private static final int MAGIC = 0x534E4150; //"SNAP"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+    private final List<Account> accounts;
+    private final long logPosition;
+
+    /**
+     * Makes a loaded snapshot.
+     * @param accounts the accounts in the snapshot
+     * @param logPosition the log position the snapshot was taken at
+     */
+    private AccountSnapshot(List<Account> accounts, long logPosition) {
+        this.accounts = accounts;
+        this.logPosition = logPosition;
+    }
+
+    /**
+     * Gets the accounts in the snapshot, in the order they were written.
+     * @return the accounts
+     */
+    public List<Account> getAccounts() {
+        return accounts;
+    }
+
+    /**
+     * Gets the position in the transaction log the snapshot was taken at.
+     * Every record before it is already in the snapshot.
+     * @return the log position, 0 if the bank had no log
+     */
+    public long getLogPosition() {
+        return logPosition;
+    }
+
+    /**
+     * Writes a snapshot of the accounts. Caller must make sure none of
+     * them change while it is written.
+     * @param path the snapshot file, replaced if it exists
+     * @param accounts the accounts of the bank
+     * @param logPosition the log position the accounts are up to date with
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, Collection<Account> accounts,
+                             long logPosition) throws IOException {
+        HashMap<String, Integer> nameIndexes = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        for (Account account : accounts) {
+            addName(account.getHolder().getFname(), nameIndexes, names);
+            addName(account.getHolder().getLname(), nameIndexes, names);
+        }
+        Path temporary = path.resolveSibling(
+                path.getFileName() + TEMPORARY_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            CRC32 checksum = new CRC32();
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(logPosition)
+                    .putInt(names.size()).putInt(accounts.size());
+            for (String name : names) {
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < Short.BYTES + bytes.length) {
+                    flush(buffer, channel, checksum);
+                }
+                buffer.putShort((short) bytes.length).put(bytes);
+            }
+            for (Account account : accounts) {
+                if (buffer.remaining() < RECORD_SIZE) {
+                    flush(buffer, channel, checksum);
+                }
+                Profile holder = account.getHolder();
+                buffer.put((byte) account.getAccountType().ordinal());
+                buffer.put((byte) AccountRecords.encodeCampus(account));
+                buffer.put((byte) (AccountRecords.isLoyal(account) ? 1 : 0));
+                buffer.put((byte) 0);
+                buffer.putInt(AccountRecords.withdrawalsOf(account));
+                buffer.putInt(nameIndexes.get(holder.getFname()));
+                buffer.putInt(nameIndexes.get(holder.getLname()));
+                buffer.putInt(AccountRecords.encodeEpochDay(holder.getDOB()));
+                buffer.putLong(account.getBalance());
+            }
+            flush(buffer, channel, checksum);
+            buffer.putInt((int) checksum.getValue());
+            flush(buffer, channel, checksum);
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Gives the name an index in the name dictionary, if it has none yet.
+     * @param name the name
+     * @param nameIndexes maps every name so far to its index
+     * @param names every name so far, in index order
+     */
+    private static void addName(String name,
+                                HashMap<String, Integer> nameIndexes,
+                                List<String> names) {
+        if (nameIndexes.putIfAbsent(name, names.size()) == null) {
+            names.add(name);
+        }
+    }
+
+    /**
+     * Writes out the buffer, adding its bytes to the checksum, and clears
+     * it for more.
+     * @param buffer the write buffer
+     * @param channel the file
+     * @param checksum the running checksum of the file
+     */
+    private static void flush(ByteBuffer buffer, FileChannel channel,
+                              CRC32 checksum) throws IOException {
+        buffer.flip();
+        checksum.update(buffer.array(), 0, buffer.limit());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Loads a snapshot written by write().
+     * @param path the snapshot file
+     * @return the loaded snapshot
+     * @throws IOException if the file cannot be read, or is not a whole
+     * snapshot
+     */
+    public static AccountSnapshot load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + Integer.BYTES
+                    || size > Integer.MAX_VALUE) {
+                throw new IOException("Not a bank snapshot: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, size);
+            CRC32 checksum = new CRC32();
+            checksum.update(buffer.slice(0, (int) size - Integer.BYTES));
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(Integer.BYTES)
+                    != VERSION || buffer.getInt((int) size - Integer.BYTES)
+                    != (int) checksum.getValue()) {
+                throw new IOException("Not a bank snapshot: " + path);
+            }
+            buffer.position(2 * Integer.BYTES);
+            long logPosition = buffer.getLong();
+            String[] names = new String[buffer.getInt()];
+            int numAccounts = buffer.getInt();
+            for (int i = 0; i < names.length; i++) {
+                byte[] bytes = new byte[buffer.getShort()];
+                buffer.get(bytes);
+                names[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            AccountTypeCommand[] accountTypes = AccountTypeCommand.values();
+            HashMap<Integer, Date> dates = new HashMap<>();
+            List<Account> accounts = new ArrayList<>(numAccounts);
+            for (int i = 0; i < numAccounts; i++) {
+                AccountTypeCommand accountType = accountTypes[buffer.get()];
+                int campus = buffer.get();
+                boolean isLoyal = buffer.get() == 1;
+                buffer.get();
+                int numOfWithdrawals = buffer.getInt();
+                String fname = names[buffer.getInt()];
+                String lname = names[buffer.getInt()];
+                Date dob = dates.computeIfAbsent(buffer.getInt(),
+                        AccountRecords::decodeEpochDay);
+                long balance = buffer.getLong();
+                accounts.add(AccountRecords.makeAccount(accountType,
+                        new Profile(fname, lname, dob), balance, campus,
+                        isLoyal, numOfWithdrawals));
+            }
+            return new AccountSnapshot(accounts, logPosition);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package bank.persistence;
+
+import bank.accounts.Account;
+import bank.accounts.AccountTypeCommand;
+import bank.personaldata.Date;
+import bank.personaldata.Profile;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Utility class that sends accounts over a stream, with every field a
+ * snapshot keeps, so the copy lists, and works out fees and interests,
+ * exactly as the account it was made from. Shards use it to send their
+ * accounts to the router.
+ * Layout: the number of accounts (int), then per account
+ *      type         ordinal of AccountTypeCommand (byte)
+ *      campus       ordinal of Campus + 1, 0 if none (byte)
+ *      loyal        1 if loyal, 0 if not (byte)
+ *      withdrawals  made this month (int)
+ *      fname        modified UTF-8
+ *      lname        modified UTF-8
+ *      dob          days since 1/1/1970 (int)
+ *      balance      in cents (long)
+ * @author Dharmik Patel and Krish Patel
+ */
+public final class AccountTransfer {
+    private static final AccountTypeCommand[] ACCOUNT_TYPES =
+            AccountTypeCommand.values();
+
+    /**
+     * Not used, this class only has static methods.
+     */
+    private AccountTransfer() {
+    }
+
+    /**
+     * Writes the accounts, in the order given.
+     * @param out the stream
+     * @param accounts the accounts
+     * @throws IOException if the stream cannot be written
+     */
+    public static void write(DataOutput out, Account[] accounts)
+            throws IOException {
+        out.writeInt(accounts.length);
+        for (Account account : accounts) {
+            Profile holder = account.getHolder();
+            out.writeByte(account.getAccountType().ordinal());
+            out.writeByte(AccountRecords.encodeCampus(account));
+            out.writeByte(AccountRecords.isLoyal(account) ? 1 : 0);
+            out.writeInt(AccountRecords.withdrawalsOf(account));
+            out.writeUTF(holder.getFname());
+            out.writeUTF(holder.getLname());
+            out.writeInt(AccountRecords.encodeEpochDay(holder.getDOB()));
+            out.writeLong(account.getBalance());
+        }
+    }
+
+    /**
+     * Reads accounts written by write().
+     * @param in the stream
+     * @return the accounts, in the order they were written
+     * @throws IOException if the stream cannot be read, or ends early
+     */
+    public static Account[] read(DataInput in) throws IOException {
+        int numAccounts = in.readInt();
+        if (numAccounts < 0) {
+            throw new IOException("Not an account count: " + numAccounts);
+        }
+        Account[] accounts = new Account[numAccounts];
+        for (int i = 0; i < numAccounts; i++) {
+            int type = in.readUnsignedByte();
+            if (type >= ACCOUNT_TYPES.length) {
+                throw new IOException("Not an account type: " + type);
+            }
+            int campus = in.readUnsignedByte();
+            boolean isLoyal = in.readUnsignedByte() == 1;
+            int numOfWithdrawals = in.readInt();
+            String fname = in.readUTF();
+            String lname = in.readUTF();
+            Date dob = AccountRecords.decodeEpochDay(in.readInt());
+            long balance = in.readLong();
+            accounts[i] = AccountRecords.makeAccount(ACCOUNT_TYPES[type],
+                    new Profile(fname, lname, dob), balance, campus,
+                    isLoyal, numOfWithdrawals);
+        }
+        return accounts;
+    }
+}
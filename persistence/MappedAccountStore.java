@@ -0,0 +1,698 @@
+package bank.persistence;
+
+import bank.accounts.Account;
+import bank.accounts.AccountKey;
+import bank.accounts.AccountTypeCommand;
+import bank.personaldata.Profile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * This class keeps the accounts of a bank in a memory-mapped file of
+ * fixed-width records, so the bank survives a restart. Records are
+ * changed in place and the OS page cache decides when they reach disk.
+ * The file is mapped in segments of SEGMENT_RECORDS records, so it can
+ * grow past the 2GB limit of a single mapping.
+ * Record layout, RECORD_SIZE bytes:
+ *      0  type      ordinal of AccountTypeCommand + 1, 0 if free
+ *      1  campus    ordinal of Campus + 1, 0 if none
+ *      2  loyal     1 if loyal, 0 if not
+ *      3  fname length in bytes
+ *      4  lname length in bytes
+ *      8  balance   in cents
+ *     16  withdrawals made this month; in a free record, the next free
+ *                   record + 1, or 0 at the end of the free list
+ *     20  dob       as year * 10000 + month * 100 + day
+ *     24  fname     UTF-8, NAME_BYTES bytes
+ *     88  lname     UTF-8, NAME_BYTES bytes
+ * Records are found through a hash index kept in a second mapped file
+ * (see indexFileOf()): an open-addressing table of longs, each the hash
+ * of an account key in the high half and its record number + 1 in the
+ * low half, 0 if the slot is empty. Since the index and the free list
+ * are on disk, opening a store reads no records; accounts are read when
+ * they are asked for. The header is marked dirty while the store is
+ * open, and a store that was not closed is opened by scanning every
+ * record to build the index and the free list again.
+ * Distinct records may be written by different threads at once, and
+ * records may be looked up alongside each other; changes to the set of
+ * records, and loading accounts, must not run alongside anything else.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class MappedAccountStore implements Closeable {
+    public static final int NAME_BYTES = Profile.MAX_NAME_BYTES;
+    public static final int RECORD_SIZE = 152;
+    private static final int MAGIC = 0x42414E4B; //"BANK"
+    //version 1 stores had no index file, and are upgraded by a scan
+    private static final int OLD_VERSION = 1;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 64;
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_VERSION = 4;
+    private static final int HEADER_RECORD_SIZE = 8;
+    private static final int HEADER_NUM_RECORDS = 12;
+    private static final int HEADER_NUM_LIVE = 16;
+    private static final int HEADER_FREE_HEAD = 20;
+    private static final int HEADER_CLEAN = 24;
+    private static final int HEADER_INDEX_SLOTS = 28;
+    private static final int SEGMENT_RECORDS = 1 << 16;
+    private static final long SEGMENT_BYTES =
+            (long) SEGMENT_RECORDS * RECORD_SIZE;
+    private static final int TYPE = 0;
+    private static final int CAMPUS = 1;
+    private static final int LOYAL = 2;
+    private static final int FNAME_LENGTH = 3;
+    private static final int LNAME_LENGTH = 4;
+    private static final int BALANCE = 8;
+    private static final int WITHDRAWALS = 16;
+    private static final int NEXT_FREE = WITHDRAWALS;
+    private static final int DOB = 20;
+    private static final int FNAME = 24;
+    private static final int LNAME = FNAME + NAME_BYTES;
+    private static final int FREE = 0;
+    private static final int CLEAN = 1;
+    private static final int DIRTY = 0;
+    private static final int NO_RECORD = -1;
+    private static final int MIN_INDEX_SLOTS = 1 << 10;
+    private static final int INDEX_SEGMENT_SLOTS = 1 << 17;
+    //the index grows once more than 1/INDEX_LOAD_DIVISOR slots are used
+    private static final int INDEX_LOAD_DIVISOR = 2;
+    private static final int EMPTY_SLOT = 0;
+    private static final long RECORD_BITS = 0xFFFFFFFFL;
+    private static final long FIBONACCI_MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private final FileChannel channel;
+    private final FileChannel indexChannel;
+    private final MappedByteBuffer header;
+    private final List<MappedByteBuffer> segments;
+    private final List<MappedByteBuffer> indexSegments;
+    //number of records ever used, live or free. records after it are empty
+    private int numRecords;
+    //number of slots in the index, a power of 2
+    private int indexSlots;
+    //maps the key of every account loaded from or put into the store to
+    //its record number, so writes through do not probe the index
+    private final HashMap<AccountKey, Integer> records;
+    //record numbers of the accounts in records
+    private final BitSet loaded;
+
+    /**
+     * Opens the store, mapping the header, every segment in use and the
+     * index, and builds the index again if the store was not closed.
+     * @param channel the file, open for reading and writing
+     * @param indexChannel the index file, open for reading and writing
+     */
+    private MappedAccountStore(FileChannel channel, FileChannel indexChannel)
+            throws IOException {
+        this.channel = channel;
+        this.indexChannel = indexChannel;
+        segments = new ArrayList<>();
+        indexSegments = new ArrayList<>();
+        records = new HashMap<>();
+        loaded = new BitSet();
+        boolean isNew = channel.size() == 0;
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (isNew) {
+            header.putInt(HEADER_MAGIC, MAGIC);
+            header.putInt(HEADER_VERSION, VERSION);
+            header.putInt(HEADER_RECORD_SIZE, RECORD_SIZE);
+            header.putInt(HEADER_NUM_RECORDS, 0);
+            header.putInt(HEADER_CLEAN, DIRTY);
+        } else if (header.getInt(HEADER_MAGIC) != MAGIC
+                || (header.getInt(HEADER_VERSION) != VERSION
+                && header.getInt(HEADER_VERSION) != OLD_VERSION)
+                || header.getInt(HEADER_RECORD_SIZE) != RECORD_SIZE) {
+            throw new IOException("Not an account store file.");
+        }
+        numRecords = header.getInt(HEADER_NUM_RECORDS);
+        while ((long) segments.size() * SEGMENT_RECORDS < numRecords) {
+            mapSegment();
+        }
+        indexSlots = header.getInt(HEADER_INDEX_SLOTS);
+        if (header.getInt(HEADER_VERSION) == VERSION
+                && header.getInt(HEADER_CLEAN) == CLEAN
+                && indexSlots >= MIN_INDEX_SLOTS
+                && Integer.bitCount(indexSlots) == 1
+                && indexChannel.size() >= (long) indexSlots * Long.BYTES) {
+            mapIndex();
+        } else {
+            rebuild();
+        }
+        header.putInt(HEADER_CLEAN, DIRTY);
+        header.force();
+    }
+
+    /**
+     * Opens the store in the given file, making the file if needed, with
+     * its index in indexFileOf(path).
+     * Only the header, segments and index are mapped; accounts are read by
+     * load() and loadRest().
+     * @param path the file of the store
+     * @return the opened store
+     * @throws IOException if the file cannot be opened or is not a store
+     */
+    public static MappedAccountStore open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        FileChannel indexChannel = null;
+        try {
+            indexChannel = FileChannel.open(indexFileOf(path),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            return new MappedAccountStore(channel, indexChannel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            if (indexChannel != null) {
+                indexChannel.close();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the file the index of a store is kept in: the file of the
+     * store, with ".index" added to its name.
+     * @param path the file of the store
+     * @return the file of its index
+     */
+    public static Path indexFileOf(Path path) {
+        return path.resolveSibling(path.getFileName() + ".index");
+    }
+
+    /**
+     * Maps the next segment of the file, growing the file if needed.
+     */
+    private void mapSegment() throws IOException {
+        long position = HEADER_SIZE + segments.size() * SEGMENT_BYTES;
+        segments.add(channel.map(FileChannel.MapMode.READ_WRITE, position,
+                SEGMENT_BYTES));
+    }
+
+    /**
+     * Maps the index file in segments of INDEX_SEGMENT_SLOTS slots, or as
+     * one segment if it is smaller, growing the file to indexSlots slots.
+     */
+    private void mapIndex() throws IOException {
+        indexSegments.clear();
+        int segmentSlots = Math.min(indexSlots, INDEX_SEGMENT_SLOTS);
+        for (long slot = 0; slot < indexSlots; slot += segmentSlots) {
+            indexSegments.add(indexChannel.map(
+                    FileChannel.MapMode.READ_WRITE, slot * Long.BYTES,
+                    (long) segmentSlots * Long.BYTES));
+        }
+    }
+
+    /**
+     * Gets the segment holding the given record.
+     * @param record the record number
+     * @return the segment
+     */
+    private MappedByteBuffer segmentOf(int record) {
+        return segments.get(record / SEGMENT_RECORDS);
+    }
+
+    /**
+     * Gets the offset of the given record inside its segment.
+     * @param record the record number
+     * @return the offset in bytes
+     */
+    private static int offsetOf(int record) {
+        return (record % SEGMENT_RECORDS) * RECORD_SIZE;
+    }
+
+    /**
+     * Reads one slot of the index.
+     * @param slot the slot number
+     * @return the entry, or EMPTY_SLOT(0)
+     */
+    private long getSlot(int slot) {
+        return indexSegments.get(slot / INDEX_SEGMENT_SLOTS)
+                .getLong((slot % INDEX_SEGMENT_SLOTS) * Long.BYTES);
+    }
+
+    /**
+     * Writes one slot of the index.
+     * @param slot the slot number
+     * @param entry the entry, or EMPTY_SLOT(0)
+     */
+    private void setSlot(int slot, long entry) {
+        indexSegments.get(slot / INDEX_SEGMENT_SLOTS)
+                .putLong((slot % INDEX_SEGMENT_SLOTS) * Long.BYTES, entry);
+    }
+
+    /**
+     * Gets the slot a hash is looked up from first.
+     * @param hash the hash of an account key
+     * @return the slot number
+     */
+    private int homeSlot(int hash) {
+        return (int) ((hash * FIBONACCI_MULTIPLIER)
+                >>> (Long.SIZE - Integer.numberOfTrailingZeros(indexSlots)));
+    }
+
+    /**
+     * Makes an index entry.
+     * @param hash the hash of the account key
+     * @param record the record number
+     * @return the entry
+     */
+    private static long entryOf(int hash, int record) {
+        return ((long) hash << Integer.SIZE) | (record + 1L);
+    }
+
+    /**
+     * Gets the hash an index entry was made with.
+     * @param entry the entry
+     * @return the hash
+     */
+    private static int hashOf(long entry) {
+        return (int) (entry >>> Integer.SIZE);
+    }
+
+    /**
+     * Gets the record number of an index entry.
+     * @param entry the entry
+     * @return the record number
+     */
+    private static int recordOf(long entry) {
+        return (int) (entry & RECORD_BITS) - 1;
+    }
+
+    /**
+     * Finds the index slot of an account, or the empty slot it would go
+     * in. Reads a record only when its hash and type match.
+     * @param holder the profile of the account holder
+     * @param accountType the account type
+     * @param hash the hash of the account key
+     * @return the slot number
+     */
+    private int findSlot(Profile holder, AccountTypeCommand accountType,
+                         int hash) {
+        int mask = indexSlots - 1;
+        for (int slot = homeSlot(hash); ; slot = (slot + 1) & mask) {
+            long entry = getSlot(slot);
+            if (entry == EMPTY_SLOT) {
+                return slot;
+            }
+            if (hashOf(entry) == hash) {
+                int record = recordOf(entry);
+                MappedByteBuffer segment = segmentOf(record);
+                int offset = offsetOf(record);
+                if (segment.get(offset + TYPE) == accountType.ordinal() + 1
+                        && readHolder(segment, offset).equals(holder)) {
+                    return slot;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the record of an account, without loading it.
+     * @param holder the profile of the account holder
+     * @param accountType the account type
+     * @return the record number, or NO_RECORD(-1)
+     */
+    private int findRecord(Profile holder, AccountTypeCommand accountType) {
+        long entry = getSlot(findSlot(holder, accountType,
+                new AccountKey(holder, accountType).hashCode()));
+        return entry == EMPTY_SLOT ? NO_RECORD : recordOf(entry);
+    }
+
+    /**
+     * Adds a record to the index, growing the index first if it is too
+     * full. The account must not be in the index.
+     * @param hash the hash of the account key
+     * @param record the record number
+     */
+    private void indexRecord(int hash, int record) throws IOException {
+        if (size() + 1 > indexSlots / INDEX_LOAD_DIVISOR) {
+            long[] entries = new long[size()];
+            int numEntries = 0;
+            for (int slot = 0; slot < indexSlots; slot++) {
+                long entry = getSlot(slot);
+                if (entry != EMPTY_SLOT) {
+                    entries[numEntries++] = entry;
+                }
+            }
+            resizeIndex(indexSlots * 2, entries, numEntries);
+        }
+        insertEntry(entryOf(hash, record));
+    }
+
+    /**
+     * Puts an entry in the first empty slot from its home slot.
+     * @param entry the entry
+     */
+    private void insertEntry(long entry) {
+        int mask = indexSlots - 1;
+        int slot = homeSlot(hashOf(entry));
+        while (getSlot(slot) != EMPTY_SLOT) {
+            slot = (slot + 1) & mask;
+        }
+        setSlot(slot, entry);
+    }
+
+    /**
+     * Maps the index at a new number of slots, empty, and puts the given
+     * entries back in.
+     * @param slots the number of slots, a power of 2
+     * @param entries the entries to put back
+     * @param numEntries the number of entries
+     */
+    private void resizeIndex(int slots, long[] entries, int numEntries)
+            throws IOException {
+        indexSlots = slots;
+        mapIndex();
+        for (int slot = 0; slot < indexSlots; slot++) {
+            setSlot(slot, EMPTY_SLOT);
+        }
+        for (int i = 0; i < numEntries; i++) {
+            insertEntry(entries[i]);
+        }
+        header.putInt(HEADER_INDEX_SLOTS, indexSlots);
+    }
+
+    /**
+     * Empties a slot of the index, moving back the entries after it that
+     * could not be put in their home slot, so lookups never stop short.
+     * @param slot the slot number
+     */
+    private void deleteSlot(int slot) {
+        int mask = indexSlots - 1;
+        int hole = slot;
+        for (int next = (hole + 1) & mask; ; next = (next + 1) & mask) {
+            long entry = getSlot(next);
+            if (entry == EMPTY_SLOT) {
+                break;
+            }
+            int home = homeSlot(hashOf(entry));
+            //moves the entry unless its home is cyclically in (hole, next]
+            boolean homeAfterHole = hole <= next
+                    ? hole < home && home <= next
+                    : hole < home || home <= next;
+            if (!homeAfterHole) {
+                setSlot(hole, entry);
+                hole = next;
+            }
+        }
+        setSlot(hole, EMPTY_SLOT);
+    }
+
+    /**
+     * Scans every record to build the index, the free list and the number
+     * of live records again, for a store that was not closed or has no
+     * index yet.
+     */
+    private void rebuild() throws IOException {
+        long[] entries = new long[numRecords];
+        int numEntries = 0;
+        int freeHead = 0;
+        for (int record = numRecords - 1; record >= 0; record--) {
+            MappedByteBuffer segment = segmentOf(record);
+            int offset = offsetOf(record);
+            byte type = segment.get(offset + TYPE);
+            if (type == FREE) {
+                segment.putInt(offset + NEXT_FREE, freeHead);
+                freeHead = record + 1;
+            } else {
+                AccountTypeCommand accountType =
+                        AccountTypeCommand.values()[type - 1];
+                int hash = new AccountKey(readHolder(segment, offset),
+                        accountType).hashCode();
+                entries[numEntries++] = entryOf(hash, record);
+            }
+        }
+        header.putInt(HEADER_VERSION, VERSION);
+        header.putInt(HEADER_NUM_LIVE, numEntries);
+        header.putInt(HEADER_FREE_HEAD, freeHead);
+        int slots = MIN_INDEX_SLOTS;
+        while (numEntries > slots / INDEX_LOAD_DIVISOR) {
+            slots *= 2;
+        }
+        resizeIndex(slots, entries, numEntries);
+    }
+
+    /**
+     * Checks if the store holds the account of the given type held by the
+     * given person, without loading it.
+     * @param holder the profile of the account holder
+     * @param accountType the account type
+     * @return True if it does, false if not.
+     */
+    public boolean contains(Profile holder, AccountTypeCommand accountType) {
+        return findRecord(holder, accountType) != NO_RECORD;
+    }
+
+    /**
+     * Reads the account of the given type held by the given person, if it
+     * has not been loaded or put yet.
+     * @param holder the profile of the account holder
+     * @param accountType the account type
+     * @return the account, or null if the store does not hold it or it
+     * was loaded before
+     */
+    public Account load(Profile holder, AccountTypeCommand accountType) {
+        int record = findRecord(holder, accountType);
+        if (record == NO_RECORD || loaded.get(record)) {
+            return null;
+        }
+        return loadRecord(record);
+    }
+
+    /**
+     * Reads every live record that has not been loaded or put yet.
+     * @return the accounts, in record order
+     */
+    public List<Account> loadRest() {
+        List<Account> accounts = new ArrayList<>(size() - records.size());
+        for (int record = 0; record < numRecords; record++) {
+            if (!loaded.get(record)
+                    && segmentOf(record).get(offsetOf(record) + TYPE)
+                    != FREE) {
+                accounts.add(loadRecord(record));
+            }
+        }
+        return accounts;
+    }
+
+    /**
+     * Reads the account held in a record, and notes it as loaded.
+     * @param record the record number
+     * @return the account
+     */
+    private Account loadRecord(int record) {
+        Account account = readAccount(segmentOf(record), offsetOf(record));
+        records.put(account.getKey(), record);
+        loaded.set(record);
+        return account;
+    }
+
+    /**
+     * Makes the account held in a record.
+     * @param segment the segment of the record
+     * @param offset the offset of the record in the segment
+     * @return the account
+     */
+    private static Account readAccount(MappedByteBuffer segment, int offset) {
+        AccountTypeCommand accountType =
+                AccountTypeCommand.values()[segment.get(offset + TYPE) - 1];
+        return AccountRecords.makeAccount(accountType,
+                readHolder(segment, offset),
+                segment.getLong(offset + BALANCE),
+                segment.get(offset + CAMPUS),
+                segment.get(offset + LOYAL) == 1,
+                segment.getInt(offset + WITHDRAWALS));
+    }
+
+    /**
+     * Makes the profile of the holder of the account in a record.
+     * @param segment the segment of the record
+     * @param offset the offset of the record in the segment
+     * @return the profile
+     */
+    private static Profile readHolder(MappedByteBuffer segment, int offset) {
+        String fname = readName(segment, offset + FNAME,
+                segment.get(offset + FNAME_LENGTH));
+        String lname = readName(segment, offset + LNAME,
+                segment.get(offset + LNAME_LENGTH));
+        return new Profile(fname, lname,
+                AccountRecords.decodeDate(segment.getInt(offset + DOB)));
+    }
+
+    /**
+     * Reads a name stored as UTF-8.
+     * @param segment the segment of the record
+     * @param offset the offset of the name in the segment
+     * @param length the length of the name in bytes
+     * @return the name
+     */
+    private static String readName(MappedByteBuffer segment, int offset,
+                                   int length) {
+        byte[] bytes = new byte[length & 0xFF];
+        segment.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a new account into a free record, or a record at the end.
+     * The account must not be in the store.
+     * @param account the account to add
+     * @throws IllegalArgumentException if a name of the holder is longer
+     * than NAME_BYTES bytes in UTF-8
+     * @throws IOException if the file cannot grow
+     */
+    public void put(Account account) throws IOException {
+        byte[] fname = encodeName(account.getHolder().getFname());
+        byte[] lname = encodeName(account.getHolder().getLname());
+        int freeHead = header.getInt(HEADER_FREE_HEAD);
+        int record;
+        if (freeHead == 0) {
+            if (numRecords == segments.size() * SEGMENT_RECORDS) {
+                mapSegment();
+            }
+            record = numRecords;
+        } else {
+            record = freeHead - 1;
+        }
+        indexRecord(account.getKey().hashCode(), record);
+        if (freeHead == 0) {
+            numRecords++;
+            header.putInt(HEADER_NUM_RECORDS, numRecords);
+        } else {
+            header.putInt(HEADER_FREE_HEAD,
+                    segmentOf(record).getInt(offsetOf(record) + NEXT_FREE));
+        }
+        MappedByteBuffer segment = segmentOf(record);
+        int offset = offsetOf(record);
+        segment.putInt(offset + DOB,
+                AccountRecords.encodeDate(account.getHolder().getDOB()));
+        segment.put(offset + FNAME_LENGTH, (byte) fname.length);
+        segment.put(offset + FNAME, fname);
+        segment.put(offset + LNAME_LENGTH, (byte) lname.length);
+        segment.put(offset + LNAME, lname);
+        segment.put(offset + CAMPUS,
+                (byte) AccountRecords.encodeCampus(account));
+        writeState(segment, offset, account);
+        segment.put(offset + TYPE,
+                (byte) (account.getAccountType().ordinal() + 1));
+        header.putInt(HEADER_NUM_LIVE, size() + 1);
+        records.put(account.getKey(), record);
+        loaded.set(record);
+    }
+
+    /**
+     * Encodes a name as UTF-8, checking that it fits in a record.
+     * @param name the name
+     * @return the encoded name
+     */
+    private static byte[] encodeName(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > NAME_BYTES) {
+            throw new IllegalArgumentException(
+                    "Name longer than " + NAME_BYTES + " bytes: " + name);
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the current balance, loyalty status and withdrawals of an
+     * account loaded from or put into the store back into its record.
+     * @param account the account that changed
+     */
+    public void update(Account account) {
+        Integer record = records.get(account.getKey());
+        if (record != null) {
+            writeState(segmentOf(record), offsetOf(record), account);
+        }
+    }
+
+    /**
+     * Writes the parts of an account that change into its record.
+     * Locks the account so that, of two threads updating the same
+     * account, the one writing last writes the latest balance.
+     * @param segment the segment of the record
+     * @param offset the offset of the record in the segment
+     * @param account the account
+     */
+    private static void writeState(MappedByteBuffer segment, int offset,
+                                   Account account) {
+        synchronized (account) {
+            segment.putLong(offset + BALANCE, account.getBalance());
+            segment.put(offset + LOYAL,
+                    (byte) (AccountRecords.isLoyal(account) ? 1 : 0));
+            segment.putInt(offset + WITHDRAWALS,
+                    AccountRecords.withdrawalsOf(account));
+        }
+    }
+
+    /**
+     * Frees the record of an account loaded from or put into the store,
+     * so it can be reused.
+     * @param account the account that was closed
+     */
+    public void remove(Account account) {
+        Integer record = records.remove(account.getKey());
+        if (record == null) {
+            return;
+        }
+        deleteSlot(findSlot(account.getHolder(), account.getAccountType(),
+                account.getKey().hashCode()));
+        loaded.clear(record);
+        MappedByteBuffer segment = segmentOf(record);
+        int offset = offsetOf(record);
+        segment.put(offset + TYPE, (byte) FREE);
+        segment.putInt(offset + NEXT_FREE, header.getInt(HEADER_FREE_HEAD));
+        header.putInt(HEADER_FREE_HEAD, record + 1);
+        header.putInt(HEADER_NUM_LIVE, size() - 1);
+    }
+
+    /**
+     * Gets the number of accounts in the store.
+     * @return the number of live records
+     */
+    public int size() {
+        return header.getInt(HEADER_NUM_LIVE);
+    }
+
+    /**
+     * Gets the number of records the file holds, live or free, which only
+     * grows when no freed record is left to reuse.
+     * @return the number of records
+     */
+    public int getNumRecords() {
+        return numRecords;
+    }
+
+    /**
+     * Flushes every mapped change to the files, marks the store as closed
+     * cleanly, and closes it.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            for (MappedByteBuffer segment : segments) {
+                segment.force();
+            }
+            for (MappedByteBuffer segment : indexSegments) {
+                segment.force();
+            }
+            header.putInt(HEADER_CLEAN, CLEAN);
+            header.force();
+        } finally {
+            try {
+                channel.close();
+            } finally {
+                indexChannel.close();
+            }
+        }
+    }
+}
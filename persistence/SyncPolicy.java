@@ -0,0 +1,123 @@
+package bank.persistence;
+
+/**
+ * Decides when the transaction log forces its records to disk.
+ * Every record is written to the file before the transaction is
+ * acknowledged, so it survives the process crashing. Surviving the machine
+ * crashing or losing power also needs the record forced to disk:
+ * PER_COMMAND acknowledges a transaction only once its record is on disk,
+ * with records logged at the same time sharing one fsync.
+ * EVERY_N_RECORDS and EVERY_N_MILLIS acknowledge a transaction BEFORE its
+ * record is on disk, so a machine crash can lose up to the last n records
+ * or n milliseconds of acknowledged transactions. They trade that for
+ * far fewer fsyncs.
+ * @author Dharmik Patel and Krish Patel
+ */
+public final class SyncPolicy {
+    private static final String PER_COMMAND_NAME = "command";
+    private static final String RECORDS_PREFIX = "records:";
+    private static final String MILLIS_PREFIX = "millis:";
+
+    /**
+     * The ways the log can group records into one fsync.
+     */
+    public enum Mode {
+        PER_COMMAND,
+        EVERY_N_RECORDS,
+        EVERY_N_MILLIS
+    }
+
+    private final Mode mode;
+    private final long interval;
+
+    /**
+     * Makes a policy.
+     * @param mode the mode
+     * @param interval records or milliseconds between syncs, unused by
+     * PER_COMMAND
+     */
+    private SyncPolicy(Mode mode, long interval) {
+        if (interval < 1) {
+            throw new IllegalArgumentException(
+                    "Sync interval must be at least 1: " + interval);
+        }
+        this.mode = mode;
+        this.interval = interval;
+    }
+
+    /**
+     * Makes a policy that syncs after every command.
+     * @return the policy
+     */
+    public static SyncPolicy perCommand() {
+        return new SyncPolicy(Mode.PER_COMMAND, 1);
+    }
+
+    /**
+     * Makes a policy that syncs once every n records.
+     * @param records the number of records per sync
+     * @return the policy
+     */
+    public static SyncPolicy everyRecords(int records) {
+        return new SyncPolicy(Mode.EVERY_N_RECORDS, records);
+    }
+
+    /**
+     * Makes a policy that syncs once every n milliseconds, if anything
+     * was written.
+     * @param millis the milliseconds between syncs
+     * @return the policy
+     */
+    public static SyncPolicy everyMillis(long millis) {
+        return new SyncPolicy(Mode.EVERY_N_MILLIS, millis);
+    }
+
+    /**
+     * Makes a policy from its command line form:
+     * "command", "records:N" or "millis:N".
+     * @param policy the policy as text
+     * @return the policy
+     * @throws IllegalArgumentException if the text is not a policy
+     */
+    public static SyncPolicy parse(String policy) {
+        if (policy.equals(PER_COMMAND_NAME)) {
+            return perCommand();
+        } else if (policy.startsWith(RECORDS_PREFIX)) {
+            return everyRecords(Integer.parseInt(
+                    policy.substring(RECORDS_PREFIX.length())));
+        } else if (policy.startsWith(MILLIS_PREFIX)) {
+            return everyMillis(Long.parseLong(
+                    policy.substring(MILLIS_PREFIX.length())));
+        }
+        throw new IllegalArgumentException("Not a sync policy: " + policy);
+    }
+
+    /**
+     * Gets the mode of the policy.
+     * @return the mode
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Gets the records or milliseconds between syncs.
+     * @return the interval
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Returns the policy in its command line form.
+     * @return the policy as text
+     */
+    @Override
+    public String toString() {
+        return switch (mode) {
+            case PER_COMMAND -> PER_COMMAND_NAME;
+            case EVERY_N_RECORDS -> RECORDS_PREFIX + interval;
+            case EVERY_N_MILLIS -> MILLIS_PREFIX + interval;
+        };
+    }
+}
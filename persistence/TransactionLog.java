@@ -0,0 +1,443 @@
+package bank.persistence;
+
+import bank.AccountDatabase;
+import bank.accounts.Account;
+import bank.accounts.AccountTypeCommand;
+import bank.personaldata.Profile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * This class is an append-only write-ahead log of every accepted open,
+ * close, deposit, withdraw and month-end update. Each record is written to
+ * the file before the transaction is acknowledged, and is forced to disk
+ * according to a SyncPolicy. Records are written under the log's monitor,
+ * but forced under a separate lock, so threads keep writing while one
+ * fsync runs. Under the PER_COMMAND policy each caller waits until an
+ * fsync started after its record was written has finished; callers that
+ * wait at the same time share one fsync (group commit).
+ * A failed fsync, even on the timer thread, is kept and thrown again by
+ * every later append, sync and close, since the records it should have
+ * made durable may be lost.
+ * Replaying the log into an empty bank rebuilds it.
+ * Record layout: length (int), CRC32 of the payload (int), payload.
+ * Payload: operation, account type, campus, loyal (bytes), amount (long),
+ * dob (int), fname and lname (short length + UTF-8 each, at most
+ * Profile.MAX_NAME_BYTES).
+ * @author Dharmik Patel and Krish Patel
+ */
+public class TransactionLog implements Closeable {
+    private static final byte OP_OPEN = 1;
+    private static final byte OP_CLOSE = 2;
+    private static final byte OP_DEPOSIT = 3;
+    private static final byte OP_WITHDRAW = 4;
+    private static final byte OP_MONTH_END = 5;
+    private static final int FRAME_HEADER_SIZE = 8;
+    private static final int FIXED_PAYLOAD_SIZE = 20;
+    private static final int MAX_RECORD_SIZE = 1 << 16;
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private final FileChannel channel;
+    private final SyncPolicy policy;
+    private final ByteBuffer record;
+    private final CRC32 checksum;
+    private final ScheduledExecutorService syncTimer;
+    //held while forcing; taken before the monitor, never while holding it
+    private final Object syncLock = new Object();
+    private long numRecords; //records written
+    //records known to be on disk, changed holding syncLock and the monitor
+    private long syncedRecords;
+    private long numSyncs;
+    private IOException syncFailure; //the first failed fsync, or null
+    private final long startNanos;
+
+    /**
+     * Opens the log.
+     * @param channel the log file, open for reading and writing
+     * @param policy when to force records to disk
+     */
+    private TransactionLog(FileChannel channel, SyncPolicy policy) {
+        this.channel = channel;
+        this.policy = policy;
+        record = ByteBuffer.allocate(MAX_RECORD_SIZE);
+        checksum = new CRC32();
+        startNanos = System.nanoTime();
+        if (policy.getMode() == SyncPolicy.Mode.EVERY_N_MILLIS) {
+            syncTimer = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task, "transaction-log-sync");
+                thread.setDaemon(true);
+                return thread;
+            });
+            syncTimer.scheduleAtFixedRate(this::syncQuietly,
+                    policy.getInterval(), policy.getInterval(),
+                    TimeUnit.MILLISECONDS);
+        } else {
+            syncTimer = null;
+        }
+    }
+
+    /**
+     * Opens the log in the given file, making the file if needed.
+     * New records are appended after the existing ones.
+     * @param path the log file
+     * @param policy when to force records to disk
+     * @return the opened log
+     * @throws IOException if the file cannot be opened
+     */
+    public static TransactionLog open(Path path, SyncPolicy policy)
+            throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        return new TransactionLog(channel, policy);
+    }
+
+    /**
+     * Logs that an account was opened.
+     * @param account the account, with its starting balance
+     */
+    public void logOpen(Account account) {
+        append(OP_OPEN, account, account.getBalance());
+    }
+
+    /**
+     * Logs that an account was closed.
+     * @param account the account
+     */
+    public void logClose(Account account) {
+        append(OP_CLOSE, account, 0);
+    }
+
+    /**
+     * Logs a deposit.
+     * @param account the account deposited to
+     * @param amount the amount deposited, in cents
+     */
+    public void logDeposit(Account account, long amount) {
+        append(OP_DEPOSIT, account, amount);
+    }
+
+    /**
+     * Logs a successful withdrawal.
+     * @param account the account withdrawn from
+     * @param amount the amount withdrawn, in cents
+     */
+    public void logWithdraw(Account account, long amount) {
+        append(OP_WITHDRAW, account, amount);
+    }
+
+    /**
+     * Logs that fees and interests were applied to every account.
+     */
+    public void logMonthEnd() {
+        append(OP_MONTH_END, null, 0);
+    }
+
+    /**
+     * Writes a record and syncs if the policy says so. Under PER_COMMAND,
+     * returns only once the record is on disk.
+     * @param operation the operation
+     * @param account the account, or null for a month-end update
+     * @param amount the amount of money, in cents
+     */
+    private void append(byte operation, Account account, long amount) {
+        long written;
+        boolean due;
+        synchronized (this) {
+            if (syncFailure != null) {
+                throw new UncheckedIOException(syncFailure);
+            }
+            written = write(operation, account, amount);
+            due = policy.getMode() == SyncPolicy.Mode.PER_COMMAND
+                    || (policy.getMode() == SyncPolicy.Mode.EVERY_N_RECORDS
+                    && written - syncedRecords >= policy.getInterval());
+        }
+        if (due) {
+            try {
+                syncThrough(written);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Encodes a record and writes it to the file. Caller must hold the
+     * monitor.
+     * @param operation the operation
+     * @param account the account, or null for a month-end update
+     * @param amount the amount of money, in cents
+     * @return the number of records written, with this one
+     */
+    private long write(byte operation, Account account, long amount) {
+        record.clear();
+        record.position(FRAME_HEADER_SIZE);
+        record.put(operation);
+        if (account == null) {
+            record.put((byte) 0).put((byte) 0).put((byte) 0);
+            record.putLong(0).putInt(0).putShort((short) 0)
+                    .putShort((short) 0);
+        } else {
+            Profile holder = account.getHolder();
+            record.put((byte) account.getAccountType().ordinal());
+            record.put((byte) AccountRecords.encodeCampus(account));
+            record.put((byte) (AccountRecords.isLoyal(account) ? 1 : 0));
+            record.putLong(amount);
+            record.putInt(AccountRecords.encodeDate(holder.getDOB()));
+            putName(holder.getFname());
+            putName(holder.getLname());
+        }
+        int payloadLength = record.position() - FRAME_HEADER_SIZE;
+        checksum.reset();
+        checksum.update(record.array(), FRAME_HEADER_SIZE, payloadLength);
+        record.putInt(0, payloadLength);
+        record.putInt(Integer.BYTES, (int) checksum.getValue());
+        record.flip();
+        try {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ++numRecords;
+    }
+
+    /**
+     * Writes a name as a short length followed by its UTF-8 bytes.
+     * @param name the name
+     * @throws IllegalArgumentException if the name is longer than
+     * Profile.MAX_NAME_BYTES bytes in UTF-8
+     */
+    private void putName(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Profile.MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Name longer than "
+                    + Profile.MAX_NAME_BYTES + " bytes: " + name);
+        }
+        record.putShort((short) bytes.length);
+        record.put(bytes);
+    }
+
+    /**
+     * Forces every record written so far to disk, if any are not yet.
+     * @throws IOException if the file cannot be synced, now or before
+     */
+    public void sync() throws IOException {
+        long written;
+        synchronized (this) {
+            written = numRecords;
+        }
+        syncThrough(written);
+    }
+
+    /**
+     * Makes sure the first target records are on disk. A caller that finds
+     * another thread forcing waits for it, and returns without an fsync of
+     * its own if that one covered its records.
+     * @param target the number of records that must be on disk
+     * @throws IOException if the file cannot be synced, now or before
+     */
+    private void syncThrough(long target) throws IOException {
+        synchronized (syncLock) {
+            long written;
+            synchronized (this) {
+                if (syncFailure != null) {
+                    throw syncFailure;
+                }
+                if (syncedRecords >= target) return;
+                written = numRecords;
+            }
+            try {
+                channel.force(false);
+            } catch (IOException e) {
+                synchronized (this) {
+                    syncFailure = e;
+                }
+                throw e;
+            }
+            synchronized (this) {
+                syncedRecords = written;
+                numSyncs++;
+            }
+        }
+    }
+
+    /**
+     * Syncs from the timer thread. A failure is kept for the next append,
+     * sync or close to throw, and the timer keeps running.
+     */
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (IOException e) {
+            //kept in syncFailure by syncThrough()
+        }
+    }
+
+    /**
+     * Replays every record from the given position into the bank, without
+     * logging them again. A torn record at the end of the log, left by a
+     * crash during a write, is cut off so new records follow the last
+     * whole one.
+     * @param accountDatabase the bank to apply the records to
+     * @param from the position in the log to start from
+     * @return the number of records replayed
+     * @throws IOException if the log cannot be read
+     */
+    public synchronized long replay(AccountDatabase accountDatabase,
+                                    long from) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        buffer.limit(0);
+        long position = from;
+        long replayed = 0;
+        while (true) {
+            if (buffer.remaining() < FRAME_HEADER_SIZE
+                    && !fill(buffer, position, FRAME_HEADER_SIZE)) break;
+            int length = buffer.getInt(buffer.position());
+            int expectedChecksum = buffer.getInt(
+                    buffer.position() + Integer.BYTES);
+            if (length < 1 || length > MAX_RECORD_SIZE - FRAME_HEADER_SIZE)
+                break;
+            if (buffer.remaining() < FRAME_HEADER_SIZE + length
+                    && !fill(buffer, position, FRAME_HEADER_SIZE + length))
+                break;
+            checksum.reset();
+            checksum.update(buffer.array(),
+                    buffer.position() + FRAME_HEADER_SIZE, length);
+            if ((int) checksum.getValue() != expectedChecksum) break;
+            buffer.position(buffer.position() + FRAME_HEADER_SIZE);
+            apply(buffer, accountDatabase);
+            position += FRAME_HEADER_SIZE + length;
+            replayed++;
+        }
+        if (position < channel.size()) {
+            channel.truncate(position);
+        }
+        channel.position(channel.size());
+        return replayed;
+    }
+
+    /**
+     * Refills the read buffer from the log, starting at the given position.
+     * @param buffer the read buffer
+     * @param position the position in the log of the buffer's next byte
+     * @param needed the bytes needed in the buffer
+     * @return True if the buffer now has the bytes needed, false if the
+     * log ends first.
+     */
+    private boolean fill(ByteBuffer buffer, long position, int needed)
+            throws IOException {
+        buffer.clear();
+        long readPosition = position;
+        while (buffer.position() < needed) {
+            int read = channel.read(buffer, readPosition);
+            if (read < 0) break;
+            readPosition += read;
+        }
+        buffer.flip();
+        return buffer.remaining() >= needed;
+    }
+
+    /**
+     * Decodes one record payload and applies it to the bank.
+     * @param buffer the read buffer, at the start of the payload
+     * @param accountDatabase the bank
+     */
+    private static void apply(ByteBuffer buffer,
+                              AccountDatabase accountDatabase) {
+        byte operation = buffer.get();
+        AccountTypeCommand accountType =
+                AccountTypeCommand.values()[buffer.get()];
+        int campus = buffer.get();
+        boolean isLoyal = buffer.get() == 1;
+        long amount = buffer.getLong();
+        int dob = buffer.getInt();
+        String fname = getName(buffer);
+        String lname = getName(buffer);
+        if (operation == OP_MONTH_END) {
+            accountDatabase.applyMonthEnd();
+            return;
+        }
+        Profile holder =
+                new Profile(fname, lname, AccountRecords.decodeDate(dob));
+        switch (operation) {
+            case OP_OPEN -> accountDatabase.open(AccountRecords.makeAccount(
+                    accountType, holder, amount, campus, isLoyal, 0));
+            case OP_CLOSE -> accountDatabase.close(AccountRecords.makeAccount(
+                    accountType, holder, amount, campus, isLoyal, 0));
+            case OP_DEPOSIT ->
+                    accountDatabase.deposit(holder, accountType, amount);
+            case OP_WITHDRAW ->
+                    accountDatabase.withdraw(holder, accountType, amount);
+            default -> throw new IllegalStateException(
+                    "Unknown log operation: " + operation);
+        }
+    }
+
+    /**
+     * Reads a name written by putName().
+     * @param buffer the read buffer
+     * @return the name
+     */
+    private static String getName(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the position just after the last record written.
+     * @return the size of the log in bytes
+     * @throws IOException if the size cannot be read
+     */
+    public synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Describes how many records were logged, how many fsyncs that took,
+     * and the records logged per second since the log was opened.
+     * @return the statistics
+     */
+    public synchronized String getStatistics() {
+        double seconds = (double) (System.nanoTime() - startNanos)
+                / NANOS_PER_SECOND;
+        return String.format("Transaction log (sync %s): %d records, "
+                        + "%d syncs, %.0f records/sec.",
+                policy, numRecords, numSyncs, numRecords / seconds);
+    }
+
+    /**
+     * Syncs every record still not on disk, and closes the log. The file is
+     * closed even if the sync fails.
+     * @throws IOException if the records cannot be synced, now or before
+     */
+    @Override
+    public void close() throws IOException {
+        if (syncTimer != null) {
+            syncTimer.shutdown();
+        }
+        synchronized (syncLock) {
+            try {
+                sync();
+            } finally {
+                synchronized (this) {
+                    channel.close();
+                }
+            }
+        }
+    }
+}
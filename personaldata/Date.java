@@ -4,16 +4,32 @@ import java.util.Calendar;
  * Done, need to include JUNIT testing
  * Represents a specific instant of a given date.
  * Imported from Project 1
+ * The date is packed into one int, year * 10000 + month * 100 + day, so
+ * comparing, hashing and checking dates is arithmetic on that int and
+ * makes no objects. NON_A_MONTH is month 13. A day that does not fit in
+ * two digits is kept as day 0, and a year past MAX_YEAR as MAX_YEAR (or
+ * MIN_YEAR); neither can be a date of birth.
+ * Dates are immutable, so of() hands out the same Date for the same day
+ * from a small cache instead of making a new one each time.
  * @author Dharmik Patel and Krish Patel
  */
 public class Date implements Comparable<Date> {
     public static final int QUADRENNIAL = 4;
     public static final int CENTENNIAL = 100;
     public static final int QUATERCENTENNIAL = 400;
+    public static final int MAX_YEAR = 214_747;
+    public static final int MIN_YEAR = -MAX_YEAR;
+    private static final int YEAR_FACTOR = 10_000;
+    private static final int MONTH_FACTOR = 100;
+    private static final int MAX_DAY = 99;
+    private static final int CACHE_SIZE = 1 << 12;
+    private static final char SEPARATOR = '/';
+    private static final int RADIX = 10;
+    private static final Month[] MONTHS = Month.values();
+    //recently made dates, by a hash of their packed form
+    private static final Date[] CACHE = new Date[CACHE_SIZE];
     public static final Date PRESENT_DATE = Date.getThePresentDay();
-    private final int year;
-    private final Month month;
-    private final int day;
+    private final int packed; //year * 10000 + month * 100 + day
 
     /**
      * Allocates a Date object and initializes it so that it represents
@@ -21,16 +37,135 @@ public class Date implements Comparable<Date> {
      * @param date Takes in a String date: MONTH/DAY/YEAR;Example: 09/06/2023
      */
     public Date(String date) {
-        String[] tokens = date.split("/");
-        this.year = Integer.parseInt(tokens[2]);
-        int monthNumber = Integer.parseInt(tokens[0]);
-        if (monthNumber <= Month.MAX_NUM_OF_MONTH && monthNumber >=
-                Month.MIN_NUM_OF_MONTH) {
-            this.month = Month.values()[monthNumber - 1];
-        } else {
-            this.month = Month.NON_A_MONTH;
+        int daySeparator = date.indexOf(SEPARATOR);
+        int yearSeparator = date.indexOf(SEPARATOR, daySeparator + 1);
+        if (daySeparator < 0 || yearSeparator < 0) {
+            throw new IllegalArgumentException("Not a date: " + date);
         }
-        this.day = Integer.parseInt(tokens[1]);
+        int yearEnd = date.indexOf(SEPARATOR, yearSeparator + 1);
+        packed = pack(
+                Integer.parseInt(date, 0, daySeparator, RADIX),
+                Integer.parseInt(date, daySeparator + 1, yearSeparator,
+                        RADIX),
+                Integer.parseInt(date, yearSeparator + 1,
+                        yearEnd < 0 ? date.length() : yearEnd, RADIX));
+    }
+
+    /**
+     * Allocates a Date object from its month number, day and year.
+     * A month number out of range makes a Date that is not valid, as with
+     * Date(String).
+     * @param monthNumber the month, 1 to 12
+     * @param day the day of the month
+     * @param year the year
+     */
+    public Date(int monthNumber, int day, int year) {
+        packed = pack(monthNumber, day, year);
+    }
+
+    /**
+     * Allocates a Date object from its packed form.
+     * @param packed year * 10000 + month * 100 + day
+     */
+    private Date(int packed) {
+        this.packed = packed;
+    }
+
+    /**
+     * Gets the Date for a month number, day and year, reusing a cached
+     * Date for the same day if there is one.
+     * @param monthNumber the month, 1 to 12
+     * @param day the day of the month
+     * @param year the year
+     * @return the date
+     */
+    public static Date of(int monthNumber, int day, int year) {
+        return ofPacked(pack(monthNumber, day, year));
+    }
+
+    /**
+     * Gets the Date for a packed year * 10000 + month * 100 + day, as
+     * given by toPacked(), reusing a cached Date if there is one.
+     * @param packed the packed date
+     * @return the date
+     */
+    public static Date ofPacked(int packed) {
+        int slot = (packed ^ (packed >>> 16)) & (CACHE_SIZE - 1);
+        Date date = CACHE[slot];
+        if (date == null || date.packed != packed) {
+            date = new Date(packed);
+            CACHE[slot] = date;
+        }
+        return date;
+    }
+
+    /**
+     * Gets the Date of a day counted from 1/1/1970, worked out with the
+     * proleptic Gregorian calendar.
+     * @param epochDay the days since 1/1/1970, negative before it
+     * @return the date
+     */
+    public static Date ofEpochDay(int epochDay) {
+        long days = epochDay + 719_468L; //days from 3/1/0000
+        long era = Math.floorDiv(days, 146_097L);
+        long dayOfEra = days - era * 146_097L;
+        long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524
+                - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra
+                - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153; //March is 0
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3
+                : shiftedMonth - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return of(month, day, (int) year);
+    }
+
+    /**
+     * Packs a month number, day and year into one int. A month out of
+     * range becomes NON_A_MONTH, a day that does not fit becomes 0, and a
+     * year is kept between MIN_YEAR and MAX_YEAR.
+     * @param monthNumber the month, 1 to 12
+     * @param day the day of the month
+     * @param year the year
+     * @return year * 10000 + month * 100 + day
+     */
+    private static int pack(int monthNumber, int day, int year) {
+        if (monthNumber > Month.MAX_NUM_OF_MONTH
+                || monthNumber < Month.MIN_NUM_OF_MONTH) {
+            monthNumber = Month.NON_A_MONTH.ordinal() + 1;
+        }
+        if (day < 0 || day > MAX_DAY) {
+            day = 0;
+        }
+        year = Math.max(MIN_YEAR, Math.min(MAX_YEAR, year));
+        return year * YEAR_FACTOR + monthNumber * MONTH_FACTOR + day;
+    }
+
+    /**
+     * Gets the packed form of the date, year * 10000 + month * 100 + day,
+     * which orders the same way as the dates.
+     * @return the packed date
+     */
+    public int toPacked() {
+        return packed;
+    }
+
+    /**
+     * Gets the number of days from 1/1/1970 to this date, with the
+     * proleptic Gregorian calendar. Only meaningful for a valid date.
+     * @return the epoch day, negative before 1/1/1970
+     */
+    public int toEpochDay() {
+        int monthNumber = getMonthNumber();
+        long year = getYear() - (monthNumber <= 2 ? 1 : 0);
+        long era = Math.floorDiv(year, 400L);
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153 * (monthNumber > 2 ? monthNumber - 3
+                : monthNumber + 9) + 2) / 5 + getDay() - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100
+                + dayOfYear;
+        return (int) (era * 146_097L + dayOfEra - 719_468L);
     }
 
     /**
@@ -38,7 +173,7 @@ public class Date implements Comparable<Date> {
      * @return the year
      */
     public int getYear() {
-        return year;
+        return Math.floorDiv(packed, YEAR_FACTOR);
     }
 
     /**
@@ -46,7 +181,15 @@ public class Date implements Comparable<Date> {
      * @return the month
      */
     public Month getMonth() {
-        return month;
+        return MONTHS[getMonthNumber() - 1];
+    }
+
+    /**
+     * Gets the month as a number, NON_A_MONTH being 13.
+     * @return the month number
+     */
+    private int getMonthNumber() {
+        return getMonthAndDay() / MONTH_FACTOR;
     }
 
     /**
@@ -54,7 +197,30 @@ public class Date implements Comparable<Date> {
      * @return the day
      */
     public int getDay() {
-        return day;
+        return getMonthAndDay() % MONTH_FACTOR;
+    }
+
+    /**
+     * Gets the month and day as month * 100 + day, which orders days in
+     * the same way within any year.
+     * @return the month and day
+     */
+    private int getMonthAndDay() {
+        return Math.floorMod(packed, YEAR_FACTOR);
+    }
+
+    /**
+     * Gets the age, in whole years, of someone born on this date, on the
+     * given day. The age goes up on the birthday itself.
+     * @param day the day to work out the age on
+     * @return the age
+     */
+    public int getAgeOn(Date day) {
+        int age = day.getYear() - getYear();
+        if (getMonthAndDay() > day.getMonthAndDay()) {
+            age--;
+        }
+        return age;
     }
 
     /**
@@ -150,7 +316,9 @@ public class Date implements Comparable<Date> {
      * @return True if the date is a valid calendar date. False if it is not.
      */
     public boolean isValid() {
-        if (month.equals(Month.FEBRUARY)) {
+        Month month = getMonth();
+        int day = getDay();
+        if (month == Month.FEBRUARY) {
             if (isLeapYear()) {
                 return day >= Month.MIN_NUM_OF_DAYS &&
                         day <= Month.DAYS_IN_FEB_LEAP;
@@ -158,7 +326,7 @@ public class Date implements Comparable<Date> {
                 return day >= Month.MIN_NUM_OF_DAYS &&
                         day <= Month.DAYS_IN_FEB_NON_LEAP;
             }
-        } else if (month.equals(Month.NON_A_MONTH)) {
+        } else if (month == Month.NON_A_MONTH) {
             return false;
         } else {
             return day >= Month.MIN_NUM_OF_DAYS &&
@@ -172,7 +340,7 @@ public class Date implements Comparable<Date> {
      * False if given date occurs on or after PRESENT_DATE.
      */
     public boolean isLessThanPresentDate() {
-        return this.compareTo(PRESENT_DATE) <= 0;
+        return packed <= PRESENT_DATE.packed;
     }
 
     /**
@@ -184,8 +352,7 @@ public class Date implements Comparable<Date> {
         int todayDay = today.get(Calendar.DATE);
         int todayMonth = today.get(Calendar.MONTH)+1;
         int todayYear = today.get(Calendar.YEAR);
-        return new Date(String.format("%d/%d/%d", todayMonth, todayDay,
-                todayYear));
+        return new Date(todayMonth, todayDay, todayYear);
     }
 
     /**
@@ -193,6 +360,7 @@ public class Date implements Comparable<Date> {
      * @return True if year is a leap year. False if year is not a leap year.
      */
     private boolean isLeapYear() {
+        int year = getYear();
         if (year % QUADRENNIAL == 0) {
             if (year % CENTENNIAL == 0) {
                 if (year % QUATERCENTENNIAL == 0) {
@@ -216,20 +384,37 @@ public class Date implements Comparable<Date> {
     public boolean equals(Object obj) {
         if (obj instanceof Date) {
             Date d2 = (Date) obj;
-            return this.day == d2.day && this.month == d2.month &&
-                    this.year == d2.year;
+            return this.packed == d2.packed;
         }
         return false;
     }
 
+    /**
+     * Hash code consistent with equals.
+     * @return Returns the packed day, month, and year.
+     */
+    @Override
+    public int hashCode() {
+        return packed;
+    }
+
     /**
      * Overrides the default toString method.
      * @return Returns a string in the format "MONTH/DAY/YEAR"
      */
     @Override
     public String toString() {
-        return String.format("%d/%d/%d",
-                month.ordinal() + 1, day, year);
+        return appendTo(new StringBuilder()).toString();
+    }
+
+    /**
+     * Appends the date in the format "MONTH/DAY/YEAR".
+     * @param out the builder to append to
+     * @return out
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        return out.append(getMonthNumber()).append(SEPARATOR)
+                .append(getDay()).append(SEPARATOR).append(getYear());
     }
 
     /**
@@ -241,17 +426,7 @@ public class Date implements Comparable<Date> {
      */
     @Override
     public int compareTo(Date date2) {
-        if (this.year > date2.year) {
-            return 1;
-        } else if (this.year < date2.year) {
-            return -1;
-        } else {
-            if (!(this.month.equals(date2.month))) {
-                return this.month.compareTo(date2.month);
-            } else {
-                return Integer.compare(this.day, date2.day);
-            }
-        }
+        return Integer.compare(this.packed, date2.packed);
     }
 
     /**
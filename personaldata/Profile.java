@@ -1,13 +1,40 @@
 package bank.personaldata;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 /**
  * Represents a specific person who has an account with the bank.
+ * Names are matched without regard to case. Each profile builds a binary
+ * sort key when it is made: the case-folded last name, the case-folded
+ * first name and the DOB, encoded so that comparing keys byte by byte,
+ * as unsigned values, gives the order of compareTo(). equals(),
+ * hashCode() and compareTo() all work on the key, so no name is folded
+ * or compared as a String again; the bank interns profiles, so a
+ * customer's accounts share one Profile and usually compare as the same
+ * object.
+ * Key layout: each name as its folded UTF-16 chars, a char below 0x7F as
+ * one byte (char + 1) and any other as three bytes (0x80 | bits 14-15,
+ * bits 7-13, bits 0-6), ended by a 0 byte; then the packed DOB with its
+ * sign bit flipped, as 4 bytes big-endian.
+ * A name may be at most MAX_NAME_BYTES long in UTF-8, so it fits in a
+ * record of the memory-mapped store and of the transaction log.
  * @author Dharmik Patel and Krish Patel
  */
 public class Profile implements Comparable<Profile>{
+    public static final int MAX_NAME_BYTES = 64;
+    //most UTF-8 bytes a single UTF-16 char can take
+    private static final int MAX_BYTES_PER_CHAR = 3;
+    private static final int ONE_BYTE_LIMIT = 0x7F;
+    private static final int THREE_BYTE_MARK = 0x80;
+    private static final int SEVEN_BITS = 0x7F;
+    private static final int END_OF_NAME = 0;
+    private static final int DOB_BYTES = Integer.BYTES;
     private final String fname;
     private final String lname;
     private final Date dob;
+    private final byte[] sortKey; //folded lname, folded fname and dob
+    private final int hash; //hashCode(), of the sort key
 
     /**
      * Instantiates a profile, with the given first name, last name, and dob.
@@ -19,6 +46,123 @@ public class Profile implements Comparable<Profile>{
         this.fname = fname;
         this.lname = lname;
         this.dob = dob;
+        sortKey = new byte[keyLength(lname) + keyLength(fname) + DOB_BYTES];
+        int position = putName(lname, 0);
+        position = putName(fname, position);
+        int packedDob = dob.toPacked() ^ Integer.MIN_VALUE;
+        for (int shift = Integer.SIZE - Byte.SIZE; shift >= 0;
+             shift -= Byte.SIZE) {
+            sortKey[position++] = (byte) (packedDob >>> shift);
+        }
+        hash = Arrays.hashCode(sortKey);
+    }
+
+    /**
+     * Checks if a name is longer than MAX_NAME_BYTES in UTF-8. Names short
+     * enough to fit whatever their chars are checked without encoding.
+     * @param name the name
+     * @return True if the name is too long, false if not.
+     */
+    public static boolean isNameTooLong(String name) {
+        if (name.length() <= MAX_NAME_BYTES / MAX_BYTES_PER_CHAR) {
+            return false;
+        }
+        return name.getBytes(StandardCharsets.UTF_8).length > MAX_NAME_BYTES;
+    }
+
+    /**
+     * Gets the number of key bytes a name takes, with its end byte.
+     * @param name the name
+     * @return the number of bytes
+     */
+    private static int keyLength(String name) {
+        int length = 1;
+        for (int i = 0; i < name.length(); ) {
+            int codePoint = name.codePointAt(i);
+            i += Character.charCount(codePoint);
+            int c = foldCodePoint(codePoint);
+            if (Character.isBmpCodePoint(c)) {
+                length += c < ONE_BYTE_LIMIT ? 1 : 3;
+            } else {
+                length += 6;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Writes a case-folded name into the sort key, with its end byte.
+     * @param name the name
+     * @param position where in the key the name starts
+     * @return where in the key the name ends
+     */
+    private int putName(String name, int position) {
+        for (int i = 0; i < name.length(); ) {
+            int codePoint = name.codePointAt(i);
+            i += Character.charCount(codePoint);
+            int c = foldCodePoint(codePoint);
+            if (Character.isBmpCodePoint(c)) {
+                position = putChar((char) c, position);
+            } else {
+                position = putChar(Character.highSurrogate(c), position);
+                position = putChar(Character.lowSurrogate(c), position);
+            }
+        }
+        sortKey[position++] = END_OF_NAME;
+        return position;
+    }
+
+    /**
+     * Writes one char of a name into the sort key.
+     * @param c the char
+     * @param position where in the key the char starts
+     * @return where in the key the char ends
+     */
+    private int putChar(char c, int position) {
+        if (c < ONE_BYTE_LIMIT) {
+            sortKey[position++] = (byte) (c + 1);
+        } else {
+            sortKey[position++] = (byte) (THREE_BYTE_MARK | (c >>> 14));
+            sortKey[position++] = (byte) ((c >>> 7) & SEVEN_BITS);
+            sortKey[position++] = (byte) (c & SEVEN_BITS);
+        }
+        return position;
+    }
+
+    /**
+     * Case-folds one character the way String.equalsIgnoreCase() matches
+     * it, so two names are equal ignoring case exactly when their folded
+     * forms are equal.
+     * @param c the code point
+     * @return the folded code point
+     */
+    private static int foldCodePoint(int c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Gets one byte of the binary sort key.
+     * @param index the index of the byte
+     * @return the byte, 0 to 255, or -1 past the end of the key
+     */
+    public int getSortKeyByte(int index) {
+        return index < sortKey.length ? sortKey[index] & 0xFF : -1;
+    }
+
+    /**
+     * Gets the first name of the person
+     * @return first name
+     */
+    public String getFname() {
+        return fname;
+    }
+
+    /**
+     * Gets the last name of the person
+     * @return last name
+     */
+    public String getLname() {
+        return lname;
     }
 
     /**
@@ -35,47 +179,55 @@ public class Profile implements Comparable<Profile>{
      * @return The age of the person
      */
     public int getAge(){
-        int age = Date.PRESENT_DATE.getYear() - dob.getYear();
-        Date newDate = new Date(String.format("%s/%s/%s",
-                dob.getMonth().ordinal()+1, dob.getDay(),
-                Date.PRESENT_DATE.getYear()));
-        if(!(newDate.isLessThanPresentDate()))
-            age--;
-        return age;
+        return dob.getAgeOn(Date.PRESENT_DATE);
     }
 
     /**
-     * Checks if two profiles are the same, based on name and date of birth
+     * Checks if two profiles are the same, based on name and date of birth.
+     * Names are matched ignoring case. Interned profiles are the same
+     * object, and profiles of different people almost always differ in
+     * hash, so the names are rarely compared.
      * @param obj Object to compare to.
      * @return True if equal, false if not.
      */
     @Override
     public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
         if(obj instanceof Profile){
             Profile profile = (Profile) obj;
-            return fname.equalsIgnoreCase(profile.fname) &&
-                    lname.equalsIgnoreCase(profile.lname) &&
-                    dob.equals(profile.dob);
+            return hash == profile.hash &&
+                    Arrays.equals(sortKey, profile.sortKey);
         }
         return false;
     }
 
+    /**
+     * Hash code consistent with equals, so names that differ only by case
+     * hash the same. Computed when the profile is made.
+     * @return the hash code
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
     /**
      * Compares two Profiles, in the order: last name, first name,
-     * and date of birth.
+     * and date of birth. Names are compared case-folded, so the order is
+     * consistent with equals(): "de Luca" and "De Luca" are the same
+     * person, and sort next to each other. Compares the sort keys.
      * @param o the object to be compared.
      * @return Negative Value if this < o, 0 if equal, Positive value if
      * this > o
      */
     @Override
     public int compareTo(Profile o) {
-        if(lname.compareTo(o.lname) == 0){
-            if(fname.compareTo(o.fname) == 0){
-                return dob.compareTo(o.dob);
-            }
-            return fname.compareTo(o.fname);
+        if (this == o) {
+            return 0;
         }
-        return lname.compareTo(o.lname);
+        return Arrays.compareUnsigned(sortKey, o.sortKey);
     }
 
     /**
@@ -84,6 +236,16 @@ public class Profile implements Comparable<Profile>{
      */
     @Override
     public String toString() {
-        return String.format("%s %s %s", fname, lname, dob);
+        return appendTo(new StringBuilder()).toString();
+    }
+
+    /**
+     * Appends the Profile in the format: "fname lname dob"
+     * @param out the builder to append to
+     * @return out
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        out.append(fname).append(' ').append(lname).append(' ');
+        return dob.appendTo(out);
     }
 }
@@ -0,0 +1,181 @@
+package bank.shard;
+
+import bank.accounts.Account;
+import bank.persistence.AccountTransfer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class is the router's connection to one ShardServer. Every request
+ * is sent with a send method and its reply read with the matching receive
+ * method, so the router can send a request to every shard before reading
+ * any reply, and the shards work on it at the same time.
+ * Replies come back in the order the requests were sent.
+ * UB is sent in two steps: every shard is asked to prepare, and only once
+ * each has answered is every shard sent the month-end itself, so a shard
+ * that is down stops UB before any shard applies it.
+ * Not thread-safe.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class ShardConnection implements Closeable {
+    static final byte REQUEST_LINE = 1;
+    static final byte REQUEST_LIST = 2;
+    static final byte REQUEST_MONTH_END = 3;
+    static final byte REQUEST_PREPARE_MONTH_END = 4;
+    static final byte READY = 1;
+    static final int BUFFER_SIZE = 1 << 16;
+    //longest command line a shard runs: far more than a line naming two
+    //names of Profile.MAX_NAME_BYTES takes, and room for a report path
+    public static final int MAX_LINE_BYTES = 1 << 13;
+    private final String address;
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    /**
+     * Connects to a shard.
+     * @param host the host the shard runs on
+     * @param port the port it listens on
+     * @throws IOException if the shard cannot be reached
+     */
+    public ShardConnection(String host, int port) throws IOException {
+        address = host + ":" + port;
+        socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port));
+            in = new DataInputStream(new BufferedInputStream(
+                    socket.getInputStream(), BUFFER_SIZE));
+            out = new DataOutputStream(new BufferedOutputStream(
+                    socket.getOutputStream(), BUFFER_SIZE));
+        } catch (IOException err) {
+            socket.close();
+            throw err;
+        }
+    }
+
+    /**
+     * Connects to a shard given as "HOST:PORT".
+     * @param address the host and port
+     * @return the connection
+     * @throws IOException if the shard cannot be reached
+     * @throws IllegalArgumentException if the address has no port
+     */
+    public static ShardConnection connect(String address) throws IOException {
+        int colon = address.lastIndexOf(':');
+        if (colon < 0) {
+            throw new IllegalArgumentException("Not HOST:PORT: " + address);
+        }
+        return new ShardConnection(address.substring(0, colon),
+                Integer.parseInt(address.substring(colon + 1)));
+    }
+
+    /**
+     * Gets the address of the shard.
+     * @return "HOST:PORT"
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * Sends a command line for the shard's Transaction Manager to run.
+     * The reply is read with receiveOutput().
+     * @param bytes holds the command line
+     * @param from the start of the line
+     * @param to the end of the line, without the line separator
+     * @throws IOException if the request cannot be sent
+     * @throws IllegalArgumentException if the line is longer than
+     * MAX_LINE_BYTES
+     */
+    public void sendLine(byte[] bytes, int from, int to) throws IOException {
+        if (to - from > MAX_LINE_BYTES) {
+            throw new IllegalArgumentException(
+                    "Line longer than " + MAX_LINE_BYTES + " bytes");
+        }
+        out.writeByte(REQUEST_LINE);
+        out.writeInt(to - from);
+        out.write(bytes, from, to - from);
+        out.flush();
+    }
+
+    /**
+     * Reads what the shard printed for a line sent by sendLine().
+     * @return the printed text
+     * @throws IOException if the reply cannot be read
+     */
+    public String receiveOutput() throws IOException {
+        byte[] text = new byte[in.readInt()];
+        in.readFully(text);
+        return new String(text, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Asks the shard for its accounts in listing order. The reply is read
+     * with receiveAccounts().
+     * @throws IOException if the request cannot be sent
+     */
+    public void sendList() throws IOException {
+        out.writeByte(REQUEST_LIST);
+        out.flush();
+    }
+
+    /**
+     * Asks the shard whether it can run UB. The reply is read with
+     * receiveReady().
+     * @throws IOException if the request cannot be sent
+     */
+    public void sendPrepareMonthEnd() throws IOException {
+        out.writeByte(REQUEST_PREPARE_MONTH_END);
+        out.flush();
+    }
+
+    /**
+     * Reads the reply to sendPrepareMonthEnd().
+     * @throws IOException if the reply cannot be read, or is not READY
+     */
+    public void receiveReady() throws IOException {
+        int reply = in.readByte();
+        if (reply != READY) {
+            throw new IOException("Not ready for UB: " + reply);
+        }
+    }
+
+    /**
+     * Asks the shard to apply fees and interests to every account, as UB
+     * does, and send its accounts in listing order with their new
+     * balances. The reply is read with receiveAccounts(). Should only be
+     * sent once every shard has answered sendPrepareMonthEnd().
+     * @throws IOException if the request cannot be sent
+     */
+    public void sendMonthEnd() throws IOException {
+        out.writeByte(REQUEST_MONTH_END);
+        out.flush();
+    }
+
+    /**
+     * Reads the accounts sent for sendList() or sendMonthEnd().
+     * @return copies of the shard's accounts, in listing order
+     * @throws IOException if the reply cannot be read
+     */
+    public Account[] receiveAccounts() throws IOException {
+        return AccountTransfer.read(in);
+    }
+
+    /**
+     * Closes the connection. The shard keeps running.
+     * @throws IOException if the socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,279 @@
+package bank.shard;
+
+import bank.AccountDatabase;
+import bank.TransactionManager;
+import bank.output.OutputSink;
+import bank.persistence.AccountSnapshot;
+import bank.persistence.AccountTransfer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * This class is one shard of a sharded bank: a process owning its own
+ * AccountDatabase, serving the requests a ShardRouter sends it over TCP.
+ * The router sends each shard only the accounts whose holders hash to it,
+ * so the shard runs command lines with a plain Transaction Manager.
+ * Requests, each a kind byte and then:
+ *      LINE        the length (int) and bytes of a command line, at most
+ *                  ShardConnection.MAX_LINE_BYTES; the reply is the length
+ *                  (int) and UTF-8 bytes of what it printed
+ *      LIST        nothing; the reply is the accounts in listing order,
+ *                  as written by AccountTransfer
+ *      PREPARE_MONTH_END
+ *                  nothing; the reply is the byte READY
+ *      MONTH_END   nothing; applies fees and interests to every account,
+ *                  then replies as LIST does
+ * A connection sending a longer line, or an unknown request, is dropped.
+ * Every connection has its own thread, and requests from all of them run
+ * one at a time, so each sees the bank as the last one left it.
+ * Options:
+ *      --port N            the port to listen on (default 0, any free one)
+ *      --bind ADDRESS      the address to listen on (default the loopback
+ *                          address)
+ *      --snapshot FILE     load the shard from a snapshot, if the file
+ *                          exists, and write snapshots there on SNAP
+ *      --parallelism N     threads used by the UB command
+ * @author Dharmik Patel and Krish Patel
+ */
+public class ShardServer implements Closeable {
+    private static final String OPTION_PORT = "--port";
+    private static final String OPTION_BIND = "--bind";
+    private static final String OPTION_SNAPSHOT = "--snapshot";
+    private static final String OPTION_PARALLELISM = "--parallelism";
+    private final AccountDatabase accountDatabase;
+    private final TransactionManager transactionManager;
+    //collects what the Transaction Manager prints for the current line
+    private final StringBuilder printed;
+    private final ServerSocket serverSocket;
+    private final Thread acceptor;
+
+    /**
+     * Makes a shard serving the given bank on the loopback address. It
+     * takes no connections until start() is called.
+     * @param accountDatabase the shard's bank
+     * @param snapshotPath the snapshot file, or null if SNAP is not allowed
+     * @param port the port to listen on, 0 for any free one
+     * @throws IOException if the port cannot be listened on
+     */
+    public ShardServer(AccountDatabase accountDatabase, Path snapshotPath,
+                       int port) throws IOException {
+        this(accountDatabase, snapshotPath, new InetSocketAddress(
+                InetAddress.getLoopbackAddress(), port));
+    }
+
+    /**
+     * Makes a shard serving the given bank. It takes no connections until
+     * start() is called.
+     * @param accountDatabase the shard's bank
+     * @param snapshotPath the snapshot file, or null if SNAP is not allowed
+     * @param address the address and port to listen on
+     * @throws IOException if the address cannot be listened on
+     */
+    public ShardServer(AccountDatabase accountDatabase, Path snapshotPath,
+                       InetSocketAddress address) throws IOException {
+        this.accountDatabase = accountDatabase;
+        printed = new StringBuilder();
+        transactionManager = new TransactionManager(accountDatabase,
+                snapshotPath, new OutputSink() {
+            @Override
+            public void print(String text) {
+                printed.append(text);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        serverSocket = new ServerSocket();
+        serverSocket.bind(address);
+        acceptor = new Thread(this::acceptConnections,
+                "shard-" + serverSocket.getLocalPort());
+    }
+
+    /**
+     * Gets the port the shard listens on.
+     * @return the port
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Starts taking connections, on a thread of its own.
+     */
+    public void start() {
+        acceptor.start();
+    }
+
+    /**
+     * Waits until the shard is closed.
+     * @throws InterruptedException if the wait is interrupted
+     */
+    public void join() throws InterruptedException {
+        acceptor.join();
+    }
+
+    /**
+     * Stops taking connections. Connections already open end once their
+     * router closes them.
+     * @throws IOException if the socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+    }
+
+    /**
+     * Takes connections until the shard is closed, serving each on a
+     * daemon thread.
+     */
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException err) {
+                return; //closed
+            }
+            Thread connection = new Thread(() -> serve(socket),
+                    acceptor.getName() + "-" + socket.getPort());
+            connection.setDaemon(true);
+            connection.start();
+        }
+    }
+
+    /**
+     * Serves the requests of one connection until the router closes it.
+     * @param socket the connection
+     */
+    private void serve(Socket socket) {
+        try (socket) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    socket.getInputStream(), ShardConnection.BUFFER_SIZE));
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(socket.getOutputStream(),
+                            ShardConnection.BUFFER_SIZE));
+            while (true) {
+                int kind = in.read();
+                if (kind < 0) return;
+                byte[] line = null;
+                if (kind == ShardConnection.REQUEST_LINE) {
+                    int length = in.readInt();
+                    if (length < 0
+                            || length > ShardConnection.MAX_LINE_BYTES) {
+                        throw new IOException("Bad line length: " + length);
+                    }
+                    line = new byte[length];
+                    in.readFully(line);
+                }
+                synchronized (this) {
+                    handle(kind, line, out);
+                }
+                out.flush();
+            }
+        } catch (EOFException | SocketException err) {
+            //the router went away mid request
+        } catch (IOException err) {
+            System.err.printf("Shard connection failed: %s\n",
+                    err.getMessage());
+        }
+    }
+
+    /**
+     * Runs one request and writes its reply. Caller must hold the lock on
+     * this shard.
+     * @param kind the kind of request
+     * @param line the command line of a LINE request, null for others
+     * @param out where the reply is written
+     * @throws IOException if the reply cannot be written, or the kind is
+     * not known
+     */
+    private void handle(int kind, byte[] line, DataOutputStream out)
+            throws IOException {
+        switch (kind) {
+            case ShardConnection.REQUEST_LINE -> {
+                printed.setLength(0);
+                transactionManager.processLine(line, 0, line.length);
+                byte[] text = printed.toString()
+                        .getBytes(StandardCharsets.UTF_8);
+                out.writeInt(text.length);
+                out.write(text);
+            }
+            case ShardConnection.REQUEST_LIST -> AccountTransfer.write(out,
+                    accountDatabase.getSortedAccounts());
+            case ShardConnection.REQUEST_PREPARE_MONTH_END ->
+                    out.writeByte(ShardConnection.READY);
+            case ShardConnection.REQUEST_MONTH_END -> {
+                accountDatabase.applyMonthEnd();
+                AccountTransfer.write(out,
+                        accountDatabase.getSortedAccounts());
+            }
+            default -> throw new IOException("Not a request: " + kind);
+        }
+    }
+
+    /**
+     * Starts a shard and serves until the process is stopped.
+     * @param args the options
+     * @throws IOException if the snapshot cannot be loaded or the port
+     * cannot be listened on
+     * @throws InterruptedException if the wait is interrupted
+     */
+    public static void main(String[] args)
+            throws IOException, InterruptedException {
+        int port = 0;
+        InetAddress bindAddress = InetAddress.getLoopbackAddress();
+        Path snapshotPath = null;
+        int parallelism = 1;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case OPTION_PORT -> port = Integer.parseInt(args[++i]);
+                    case OPTION_BIND ->
+                            bindAddress = InetAddress.getByName(args[++i]);
+                    case OPTION_SNAPSHOT -> snapshotPath = Path.of(args[++i]);
+                    case OPTION_PARALLELISM ->
+                            parallelism = Integer.parseInt(args[++i]);
+                    default -> throw new IllegalArgumentException(args[i]);
+                }
+            }
+        } catch (IndexOutOfBoundsException | IllegalArgumentException
+                 | IOException err) {
+            System.out.println("Usage: ShardServer [--port N] "
+                    + "[--bind ADDRESS] [--snapshot FILE] [--parallelism N]");
+            return;
+        }
+        AccountDatabase accountDatabase =
+                snapshotPath != null && Files.exists(snapshotPath)
+                        ? new AccountDatabase(
+                                AccountSnapshot.load(snapshotPath))
+                        : new AccountDatabase();
+        accountDatabase.setMonthEndParallelism(parallelism);
+        try (ShardServer shard = new ShardServer(accountDatabase, snapshotPath,
+                new InetSocketAddress(bindAddress, port))) {
+            shard.start();
+            System.out.printf("Shard listening on %s:%d.\n",
+                    bindAddress.getHostAddress(), shard.getPort());
+            shard.join();
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package bank.stats;
+
+import bank.Command;
+
+import java.util.Arrays;
+
+/**
+ * This class records how long the Transaction Manager spends on each
+ * command, split into the phases of a command line, in a LatencyHistogram
+ * per command and phase, plus one for the whole line.
+ * The Transaction Manager calls startLine() before parsing, enterPhase()
+ * at each phase boundary, and endLine() once the line is done. A phase
+ * the line never entered is not recorded, so the count of a phase is the
+ * number of lines of that command that reached it.
+ * Every histogram is made up front, so recording allocates nothing.
+ * Not thread-safe, like LatencyHistogram.
+ * @author Dharmik Patel and Krish Patel
+ */
+public final class CommandStats {
+    /**
+     * The phases of a command line, in order.
+     */
+    public enum Phase {
+        PARSE("parse"),
+        VALIDATE("validate"),
+        DATABASE("database"),
+        OUTPUT("output");
+        private final String label;
+
+        /**
+         * This constructor is used by JVM, makes all the Phase enums.
+         * @param label the name printed for the phase
+         */
+        Phase(String label) {
+            this.label = label;
+        }
+
+        /**
+         * Gets the name printed for the phase.
+         * @return the label
+         */
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    private static final Command[] COMMANDS = Command.values();
+    private static final Phase[] PHASES = Phase.values();
+    private static final String TOTAL_LABEL = "total";
+    private static final String EMPTY_LABEL = "(empty)";
+    private static final String INVALID_LABEL = "(invalid)";
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final double NANOS_PER_MICRO = 1e3;
+    private static final String HEADER = String.format(
+            "%-9s %-9s %10s %10s %10s %10s %10s %10s\n", "COMMAND",
+            "PHASE", "COUNT", "P50", "P90", "P99", "P99.9", "MAX");
+    private static final String ROW_LABELS = "%-9s %-9s %10d";
+    private static final String ROW_VALUE = " %10.2f";
+    //[command ordinal][phase ordinal]
+    private final LatencyHistogram[][] phaseLatency;
+    //[command ordinal], the whole line
+    private final LatencyHistogram[] lineLatency;
+    //time spent in each phase by the current line, in nanoseconds
+    private final long[] lineNanos;
+    //bit (1 << phase ordinal) is set once the current line entered it
+    private int enteredPhases;
+    private Phase phase;
+    private long lineStartNanos;
+    private long phaseStartNanos;
+
+    /**
+     * Makes empty statistics.
+     */
+    public CommandStats() {
+        phaseLatency = new LatencyHistogram[COMMANDS.length][PHASES.length];
+        lineLatency = new LatencyHistogram[COMMANDS.length];
+        for (int c = 0; c < COMMANDS.length; c++) {
+            for (int p = 0; p < PHASES.length; p++) {
+                phaseLatency[c][p] = new LatencyHistogram();
+            }
+            lineLatency[c] = new LatencyHistogram();
+        }
+        lineNanos = new long[PHASES.length];
+    }
+
+    /**
+     * Starts timing a line, in the PARSE phase.
+     */
+    public void startLine() {
+        long now = System.nanoTime();
+        lineStartNanos = now;
+        phaseStartNanos = now;
+        Arrays.fill(lineNanos, 0);
+        phase = Phase.PARSE;
+        enteredPhases = 1 << Phase.PARSE.ordinal();
+    }
+
+    /**
+     * Ends the phase the line is in, and starts the given one. Entering a
+     * phase again adds to the time already spent in it.
+     * @param next the phase the line goes into
+     */
+    public void enterPhase(Phase next) {
+        long now = System.nanoTime();
+        lineNanos[phase.ordinal()] += now - phaseStartNanos;
+        phaseStartNanos = now;
+        phase = next;
+        enteredPhases |= 1 << next.ordinal();
+    }
+
+    /**
+     * Ends the line, recording the time of every phase it entered and of
+     * the whole line under its command.
+     * @param command the command of the line
+     */
+    public void endLine(Command command) {
+        long now = System.nanoTime();
+        lineNanos[phase.ordinal()] += now - phaseStartNanos;
+        LatencyHistogram[] byPhase = phaseLatency[command.ordinal()];
+        for (int p = 0; p < PHASES.length; p++) {
+            if ((enteredPhases & (1 << p)) != 0) {
+                byPhase[p].record(lineNanos[p]);
+            }
+        }
+        lineLatency[command.ordinal()].record(now - lineStartNanos);
+    }
+
+    /**
+     * Gets the histogram of one phase of one command.
+     * @param command the command
+     * @param phase the phase
+     * @return the histogram, which must not be changed
+     */
+    public LatencyHistogram getLatency(Command command, Phase phase) {
+        return phaseLatency[command.ordinal()][phase.ordinal()];
+    }
+
+    /**
+     * Gets the histogram of whole lines of one command.
+     * @param command the command
+     * @return the histogram, which must not be changed
+     */
+    public LatencyHistogram getLatency(Command command) {
+        return lineLatency[command.ordinal()];
+    }
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public void reset() {
+        for (int c = 0; c < COMMANDS.length; c++) {
+            for (int p = 0; p < PHASES.length; p++) {
+                phaseLatency[c][p].reset();
+            }
+            lineLatency[c].reset();
+        }
+    }
+
+    /**
+     * Appends a table of the count, p50, p90, p99, p99.9 and max time, in
+     * microseconds, of each phase and of the whole line, for every
+     * command run at least once.
+     * @param out the builder to append to
+     * @return out
+     */
+    public StringBuilder appendTo(StringBuilder out) {
+        out.append("Command statistics, in microseconds:\n").append(HEADER);
+        boolean anyRecorded = false;
+        for (Command command : COMMANDS) {
+            LatencyHistogram line = lineLatency[command.ordinal()];
+            if (line.getCount() == 0) continue;
+            anyRecorded = true;
+            String label = labelOf(command);
+            for (Phase p : PHASES) {
+                LatencyHistogram histogram =
+                        phaseLatency[command.ordinal()][p.ordinal()];
+                if (histogram.getCount() > 0) {
+                    appendRow(out, label, p.getLabel(), histogram);
+                }
+            }
+            appendRow(out, label, TOTAL_LABEL, line);
+        }
+        if (!anyRecorded) {
+            out.append("No commands recorded.\n");
+        }
+        return out;
+    }
+
+    /**
+     * Appends one row of the table.
+     * @param out the builder to append to
+     * @param command the command label
+     * @param phase the phase label
+     * @param histogram the times of the phase
+     */
+    private static void appendRow(StringBuilder out, String command,
+                                  String phase, LatencyHistogram histogram) {
+        out.append(String.format(ROW_LABELS, command, phase,
+                histogram.getCount()));
+        for (double percentile : PERCENTILES) {
+            out.append(String.format(ROW_VALUE,
+                    histogram.getValueAtPercentile(percentile)
+                            / NANOS_PER_MICRO));
+        }
+        out.append(String.format(ROW_VALUE,
+                histogram.getMax() / NANOS_PER_MICRO)).append('\n');
+    }
+
+    /**
+     * Gets the name printed for a command.
+     * @param command the command
+     * @return its token, or a name in parentheses if it has none
+     */
+    private static String labelOf(Command command) {
+        if (command == Command.INVALID) return INVALID_LABEL;
+        if (command == Command.EMPTY) return EMPTY_LABEL;
+        return command.getToken();
+    }
+}
@@ -0,0 +1,145 @@
+package bank.stats;
+
+import java.util.Arrays;
+
+/**
+ * This class is a histogram of latencies in nanoseconds, laid out like an
+ * HdrHistogram: values below SUB_BUCKETS are counted exactly, and every
+ * power of two above that is split into SUB_BUCKETS / 2 buckets, so a
+ * value is reported to within 1/64 (about 1.6%) of what it was.
+ * Every bucket is in one array made up front, so recording a value is an
+ * array increment and allocates nothing.
+ * Not thread-safe: values must be recorded, and read, by one thread at a
+ * time.
+ * @author Dharmik Patel and Krish Patel
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_BUCKET_BITS = SUB_BUCKET_BITS - 1;
+    private static final int HALF_BUCKETS = 1 << HALF_BUCKET_BITS;
+    private static final int NUM_BUCKETS = indexOf(Long.MAX_VALUE) + 1;
+    private static final double PERCENT = 100.0;
+    private final long[] counts;
+    private long totalCount;
+    private long totalValue; //sum of every value, for the mean
+    private long maxValue;
+
+    /**
+     * Makes an empty histogram.
+     */
+    public LatencyHistogram() {
+        counts = new long[NUM_BUCKETS];
+    }
+
+    /**
+     * Finds the bucket a value is counted in.
+     * @param value the value, not negative
+     * @return the index of its bucket in counts
+     */
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value)
+                - SUB_BUCKET_BITS;
+        return (shift << HALF_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * Gets the largest value counted in a bucket.
+     * @param index the index of the bucket
+     * @return the largest value of the bucket
+     */
+    private static long highestValueOf(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index >>> HALF_BUCKET_BITS) - 1;
+        long top = (index & (HALF_BUCKETS - 1)) + HALF_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * Counts a value. Negative values, from a clock that went backwards,
+     * are counted as 0.
+     * @param value the latency, in nanoseconds
+     */
+    public void record(long value) {
+        long counted = Math.max(value, 0);
+        counts[indexOf(counted)]++;
+        totalCount++;
+        totalValue += counted;
+        if (counted > maxValue) {
+            maxValue = counted;
+        }
+    }
+
+    /**
+     * Adds every value counted by another histogram to this one.
+     * @param other the other histogram, which is not changed
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        totalValue += other.totalValue;
+        maxValue = Math.max(maxValue, other.maxValue);
+    }
+
+    /**
+     * Forgets every value counted so far.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        totalValue = 0;
+        maxValue = 0;
+    }
+
+    /**
+     * Gets the number of values counted.
+     * @return the count
+     */
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * Gets the largest value counted, exactly.
+     * @return the largest value, or 0 if none were counted
+     */
+    public long getMax() {
+        return maxValue;
+    }
+
+    /**
+     * Gets the mean of the values counted, exactly.
+     * @return the mean, or 0 if none were counted
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) totalValue / totalCount;
+    }
+
+    /**
+     * Gets the value that the given percentage of the values counted are
+     * at or below, to within the precision of the buckets, and never more
+     * than the largest value.
+     * @param percentile the percentage, 0 to 100
+     * @return the value, or 0 if none were counted
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) return 0;
+        long wanted = Math.max(1, (long) Math.ceil(
+                Math.min(percentile, PERCENT) / PERCENT * totalCount));
+        long seen = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= wanted) {
+                return Math.min(highestValueOf(i), maxValue);
+            }
+        }
+        return maxValue;
+    }
+}
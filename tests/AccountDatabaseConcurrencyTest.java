@@ -0,0 +1,132 @@
+package bank.tests;
+
+import bank.AccountDatabase;
+import bank.accounts.Account;
+import bank.accounts.Checking;
+import bank.accounts.Savings;
+import bank.personaldata.Date;
+import bank.personaldata.Profile;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+/**
+ * This JUnit file stress tests deposits and withdrawals running on many
+ * threads at once against the same bank.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class AccountDatabaseConcurrencyTest {
+    private static final int NUM_THREADS = 8;
+    private static final int ROUNDS = 20_000;
+    private static final int NUM_SHARED_ACCOUNTS = 4;
+    private static final long STARTING_BALANCE = 1000_00;
+    private static final long AMOUNT = 50;
+
+    /**
+     * Runs the task on NUM_THREADS threads, all starting at once,
+     * and waits for every thread to finish.
+     * @param task the work of each thread, given the thread number
+     */
+    private static void runOnThreads(ThreadTask task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> failures = new ArrayList<>();
+        for (int t = 0; t < NUM_THREADS; t++) {
+            int threadNumber = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run(threadNumber);
+                } catch (Throwable err) {
+                    synchronized (failures) {
+                        failures.add(err);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+    }
+
+    /**
+     * The work one thread does in a stress test.
+     */
+    private interface ThreadTask {
+        void run(int threadNumber) throws Exception;
+    }
+
+    /**
+     * Makes a checking account probe holding the given amount.
+     * @param name first name of the holder
+     * @param amount the balance, or amount of the transaction, in cents
+     * @return the account
+     */
+    private static Account checking(String name, long amount) {
+        return new Checking(
+                new Profile(name, "Patel", new Date("01/10/2002")), amount);
+    }
+
+    /**
+     * Test 1: Every thread deposits and then withdraws the same amount
+     * from a few shared accounts. Balances must end where they started.
+     */
+    @Test
+    public void testSharedAccountsConserveBalance() throws Exception {
+        AccountDatabase accountDatabase = new AccountDatabase();
+        for (int i = 0; i < NUM_SHARED_ACCOUNTS; i++) {
+            accountDatabase.open(checking("Shared" + i, STARTING_BALANCE));
+        }
+        runOnThreads(threadNumber -> {
+            for (int r = 0; r < ROUNDS; r++) {
+                Account probe = checking(
+                        "Shared" + (r % NUM_SHARED_ACCOUNTS), AMOUNT);
+                assertTrue(accountDatabase.deposit(probe));
+                assertTrue(accountDatabase.withdraw(probe));
+            }
+        });
+        for (int i = 0; i < NUM_SHARED_ACCOUNTS; i++) {
+            Account account = accountDatabase.findByHolder(
+                    checking("Shared" + i, 0).getHolder()).get(0);
+            assertEquals(STARTING_BALANCE, account.getBalance());
+        }
+    }
+
+    /**
+     * Test 2: Every thread deposits into its own account while other
+     * threads open and close unrelated accounts. Each account must hold
+     * exactly the total deposited into it.
+     */
+    @Test
+    public void testDisjointAccountsWithOpenAndClose() throws Exception {
+        AccountDatabase accountDatabase = new AccountDatabase();
+        for (int t = 0; t < NUM_THREADS; t++) {
+            accountDatabase.open(checking("Own" + t, STARTING_BALANCE));
+        }
+        runOnThreads(threadNumber -> {
+            for (int r = 0; r < ROUNDS; r++) {
+                assertTrue(accountDatabase.deposit(
+                        checking("Own" + threadNumber, AMOUNT)));
+                Account temporary = new Savings(new Profile(
+                        "Temp" + threadNumber, "Patel" + r,
+                        new Date("01/10/2002")), AMOUNT, false);
+                assertTrue(accountDatabase.open(temporary));
+                assertTrue(accountDatabase.close(temporary));
+            }
+        });
+        for (int t = 0; t < NUM_THREADS; t++) {
+            Account account = accountDatabase.findByHolder(
+                    checking("Own" + t, 0).getHolder()).get(0);
+            assertEquals(STARTING_BALANCE + ROUNDS * AMOUNT,
+                    account.getBalance());
+        }
+    }
+}
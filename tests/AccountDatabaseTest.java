@@ -1,18 +1,34 @@
 package bank.tests;
 
 import bank.AccountDatabase;
+import bank.TransactionResult;
 import bank.accounts.Account;
+import bank.accounts.AccountTypeCommand;
+import bank.accounts.Checking;
 import bank.accounts.CollegeChecking;
+import bank.accounts.MoneyMarket;
 import bank.accounts.Savings;
+import bank.output.BufferedSink;
+import bank.output.ReportFormat;
+import bank.output.ReportWriter;
 import bank.personaldata.Campus;
 import bank.personaldata.Date;
 import bank.personaldata.Profile;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
 import static org.junit.Assert.*;
 
 /**
- * This JUnit file tests the close functionalities  of the bank
+ * This JUnit file tests the close, deposit and withdraw functionalities
+ * of the bank
  * @author Dharmik Patel and Krish Patel
  */
 public class AccountDatabaseTest {
@@ -82,4 +98,367 @@ public class AccountDatabaseTest {
         accountDatabase.open(account);
         assertTrue(accountDatabase.close(account));
     }
-}
\ No newline at end of file
+
+    /**
+     * Test 5: Test if the keyed AccountDatabase.deposit() method
+     * finds the account by holder and type, ignoring the case of the
+     * names, and reports NOT_FOUND for a type the holder does not have.
+     */
+    @Test
+    public void testKeyedDeposit() {
+        Date dob = new Date("01/10/2002");
+        Profile profile = new Profile("Dharmik", "Patel", dob);
+        Savings account = new Savings(profile, 300, true);
+        AccountDatabase accountDatabase = new AccountDatabase();
+        accountDatabase.open(account);
+        assertEquals(TransactionResult.OK, accountDatabase.deposit(
+                new Profile("DHARMIK", "patel", dob),
+                AccountTypeCommand.S, 200));
+        assertEquals(500, account.getBalance());
+        assertEquals(TransactionResult.NOT_FOUND, accountDatabase.deposit(
+                profile, AccountTypeCommand.MM, 200));
+    }
+
+    /**
+     * Test 6: Test if the keyed AccountDatabase.withdraw() method
+     * reports INSUFFICIENT_FUNDS, leaving the balance as it was, when
+     * the amount is more than the balance.
+     */
+    @Test
+    public void testKeyedWithdraw() {
+        Date dob = new Date("01/10/2002");
+        Profile profile = new Profile("Dharmik", "Patel", dob);
+        Savings account = new Savings(profile, 300, true);
+        AccountDatabase accountDatabase = new AccountDatabase();
+        accountDatabase.open(account);
+        assertEquals(TransactionResult.INSUFFICIENT_FUNDS,
+                accountDatabase.withdraw(profile, AccountTypeCommand.S, 301));
+        assertEquals(300, account.getBalance());
+        assertEquals(TransactionResult.OK,
+                accountDatabase.withdraw(profile, AccountTypeCommand.S, 300));
+        assertEquals(0, account.getBalance());
+    }
+
+    /**
+     * Test 7: Test if accounts of one customer, opened with the name in
+     * different cases, share one Profile, and if profiles sort ignoring
+     * case, consistently with equals().
+     */
+    @Test
+    public void testHoldersAreInterned() {
+        Date dob = new Date("01/10/2002");
+        Account savings = new Savings(
+                new Profile("Dharmik", "Patel", dob), 300, true);
+        Account collegeChecking = new CollegeChecking(
+                new Profile("DHARMIK", "PATEL", dob), 100, Campus.NB);
+        AccountDatabase accountDatabase = new AccountDatabase();
+        accountDatabase.open(savings);
+        accountDatabase.open(collegeChecking);
+        assertSame(savings.getHolder(), collegeChecking.getHolder());
+        assertEquals(2, accountDatabase.findByHolder(
+                new Profile("dharmik", "patel", dob)).size());
+        Profile apple = new Profile("Ann", "apple", dob);
+        Profile bob = new Profile("Ann", "Bob", dob);
+        assertTrue(apple.compareTo(bob) < 0);
+        assertEquals(0, apple.compareTo(new Profile("ANN", "APPLE", dob)));
+    }
+
+    /**
+     * Lists the accounts of a bank in sorted order, as CSV without the
+     * header, one account type and last name per line.
+     * @param accountDatabase the bank
+     * @return the listing
+     */
+    private static String listing(AccountDatabase accountDatabase) {
+        ByteArrayOutputStream destination = new ByteArrayOutputStream();
+        try (BufferedSink out = new BufferedSink(destination,
+                StandardCharsets.UTF_8, 1024, 60_000);
+             ReportWriter report = ReportWriter.toSink(ReportFormat.CSV, out)) {
+            accountDatabase.printSorted(report);
+        }
+        StringBuilder listed = new StringBuilder();
+        String[] lines = destination.toString(StandardCharsets.UTF_8)
+                .split("\n");
+        for (int i = 1; i < lines.length; i++) {
+            String[] columns = lines[i].split(",");
+            listed.append(columns[0]).append(' ').append(columns[2])
+                    .append('\n');
+        }
+        return listed.toString();
+    }
+
+    /**
+     * Test 8: Test if accounts are listed by account type, then last name
+     * ignoring case, first name and date of birth, and if the listing
+     * follows accounts being opened and closed after it was made.
+     */
+    @Test
+    public void testSortedListing() {
+        Date dob = new Date("01/10/2002");
+        AccountDatabase accountDatabase = new AccountDatabase();
+        accountDatabase.open(new Savings(
+                new Profile("Ann", "bob", dob), 300, true));
+        accountDatabase.open(new MoneyMarket(
+                new Profile("Ann", "Abbott", dob), 2000_00));
+        accountDatabase.open(new Checking(
+                new Profile("Zed", "Bobby", dob), 100));
+        accountDatabase.open(new Checking(
+                new Profile("Ann", "Bob", new Date("01/10/2001")), 100));
+        accountDatabase.open(new CollegeChecking(
+                new Profile("Ann", "Abbott", dob), 100, Campus.NB));
+        assertEquals("C Bob\nC Bobby\nCC Abbott\nMM Abbott\nS bob\n",
+                listing(accountDatabase));
+        accountDatabase.close(new MoneyMarket(
+                new Profile("Ann", "Abbott", dob)));
+        accountDatabase.open(new Checking(
+                new Profile("Ann", "Aaron", dob), 100));
+        assertEquals("C Aaron\nC Bob\nC Bobby\nCC Abbott\nS bob\n",
+                listing(accountDatabase));
+    }
+
+    /**
+     * Test 9: Test if the listing stays sorted as rounds of accounts, small
+     * and large, are opened, closed and opened again between listings.
+     */
+    @Test
+    public void testListingFollowsOpensAndCloses() {
+        Date dob = new Date("01/10/2002");
+        AccountDatabase accountDatabase = new AccountDatabase();
+        Account reopened = new Checking(new Profile("Ann", "Aaron", dob), 100);
+        Account kept = new Checking(new Profile("Ann", "Bob", dob), 100);
+        accountDatabase.open(reopened);
+        accountDatabase.open(kept);
+        accountDatabase.getSortedAccounts();
+        accountDatabase.close(reopened);
+        accountDatabase.open(reopened);
+        assertArrayEquals(new Account[]{reopened, kept},
+                accountDatabase.getSortedAccounts());
+        assertEquals("C Aaron\nC Bob\n", listing(accountDatabase));
+        accountDatabase.close(reopened);
+        accountDatabase.close(kept);
+
+        Random random = new Random(20);
+        List<Account> open = new ArrayList<>();
+        List<Account> gone = new ArrayList<>();
+        for (int round = 0; round < 40; round++) {
+            int changes = round % 5 == 0 ? 200 : 1 + random.nextInt(6);
+            for (int change = 0; change < changes; change++) {
+                int choice = random.nextInt(4);
+                if (!open.isEmpty() && choice == 0) {
+                    Account closing = open.remove(random.nextInt(open.size()));
+                    accountDatabase.close(closing);
+                    gone.add(closing);
+                    continue;
+                }
+                Account opening = !gone.isEmpty() && choice == 1
+                        ? gone.remove(random.nextInt(gone.size()))
+                        : new Checking(new Profile("Ann",
+                        "Name" + random.nextInt(100_000), dob), 100);
+                if (accountDatabase.open(opening)) {
+                    open.add(opening);
+                }
+            }
+            Account[] expected = open.toArray(new Account[0]);
+            Arrays.sort(expected);
+            Account[] listed = accountDatabase.getSortedAccounts();
+            assertEquals(expected.length, listed.length);
+            for (int i = 0; i < expected.length; i++) {
+                assertSame(expected[i], listed[i]);
+            }
+        }
+    }
+
+    /**
+     * Gets the array of slots of a bank, live accounts and tombstones.
+     * @param accountDatabase the bank
+     * @return the array, which must not be changed
+     */
+    private static Account[] slotsOf(AccountDatabase accountDatabase) {
+        try {
+            Field accounts = AccountDatabase.class.getDeclaredField("accounts");
+            accounts.setAccessible(true);
+            return (Account[]) accounts.get(accountDatabase);
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Opens a Checking account for each of the given number of holders.
+     * @param accountDatabase the bank
+     * @param numAccounts the number of accounts to open
+     * @return the accounts, in the order they were opened
+     */
+    private static List<Account> openMany(AccountDatabase accountDatabase,
+                                          int numAccounts) {
+        Date dob = new Date("01/10/2002");
+        List<Account> opened = new ArrayList<>();
+        for (int i = 0; i < numAccounts; i++) {
+            Account account = new Checking(
+                    new Profile("F" + i, "L", dob), 100 + i);
+            assertTrue(accountDatabase.open(account));
+            opened.add(account);
+        }
+        return opened;
+    }
+
+    /**
+     * Test 10: Test if AccountDatabase.openAll() skips accounts already in
+     * the bank, and accounts repeated in the batch, keeping the first one.
+     */
+    @Test
+    public void testOpenAllSkipsRepeats() {
+        Date dob = new Date("01/10/2002");
+        Profile dharmik = new Profile("Dharmik", "Patel", dob);
+        Profile mike = new Profile("Mike", "Ross", dob);
+        Savings inBank = new Savings(dharmik, 300, true);
+        AccountDatabase accountDatabase = new AccountDatabase();
+        accountDatabase.open(inBank);
+        Checking first = new Checking(mike, 100);
+        assertEquals(2, accountDatabase.openAll(List.of(
+                new Savings(new Profile("DHARMIK", "patel", dob), 900, false),
+                first,
+                new Checking(new Profile("mike", "ross", dob), 200),
+                new Checking(dharmik, 50))));
+        assertEquals(300, inBank.getBalance());
+        assertEquals(List.of(first), accountDatabase.findByHolder(mike));
+        assertEquals(100, accountDatabase.findByHolder(mike).get(0)
+                .getBalance());
+        assertEquals(2, accountDatabase.findByHolder(dharmik).size());
+        assertEquals("C Patel\nC Ross\nS Patel\n", listing(accountDatabase));
+    }
+
+    /**
+     * Test 11: Test if a bank made for a number of accounts holds that
+     * many without growing, and if a negative capacity is rejected.
+     */
+    @Test
+    public void testInitialCapacity() {
+        AccountDatabase accountDatabase = new AccountDatabase(1000);
+        Account[] slots = slotsOf(accountDatabase);
+        assertEquals(1000, slots.length);
+        openMany(accountDatabase, 1000);
+        assertSame(slots, slotsOf(accountDatabase));
+        assertEquals(4, slotsOf(new AccountDatabase(0)).length);
+        assertThrows(IllegalArgumentException.class,
+                () -> new AccountDatabase(-1));
+    }
+
+    /**
+     * Test 12: Test if a closed account leaves a tombstone in its slot,
+     * which lookups, transactions, listings and UB skip.
+     */
+    @Test
+    public void testTombstonesAreSkipped() {
+        AccountDatabase accountDatabase = new AccountDatabase();
+        List<Account> opened = openMany(accountDatabase, 5);
+        assertTrue(accountDatabase.close(opened.get(1)));
+        assertTrue(accountDatabase.close(opened.get(3)));
+        Account[] slots = slotsOf(accountDatabase);
+        assertNull(slots[1]);
+        assertNull(slots[3]);
+        assertSame(opened.get(4), slots[4]);
+        assertFalse(accountDatabase.contains(opened.get(3)));
+        assertEquals(TransactionResult.NOT_FOUND, accountDatabase.deposit(
+                opened.get(1).getHolder(), AccountTypeCommand.C, 1));
+        assertEquals(3, accountDatabase.getSortedAccounts().length);
+        accountDatabase.applyMonthEnd();
+        assertEquals(100 + 4, opened.get(4).getBalance());
+        assertEquals(100 + 3, opened.get(3).getBalance());
+        assertTrue(accountDatabase.open(opened.get(3)));
+        assertEquals(4, accountDatabase.getSortedAccounts().length);
+    }
+
+    /**
+     * Test 13: Test if incremental compaction, run a few slots at a time by
+     * opens and closes, moves accounts down without losing them, so every
+     * account left is found and changed through the index.
+     */
+    @Test
+    public void testCompactionKeepsIndex() {
+        AccountDatabase accountDatabase = new AccountDatabase();
+        List<Account> opened = openMany(accountDatabase, 300);
+        List<Account> live = new ArrayList<>();
+        for (int i = 0; i < opened.size(); i++) {
+            if (i % 3 == 0) {
+                live.add(opened.get(i));
+            } else {
+                assertTrue(accountDatabase.close(opened.get(i)));
+            }
+        }
+        Date dob = new Date("01/10/2002");
+        for (int i = 0; i < 20; i++) {
+            Account account = new Checking(
+                    new Profile("G" + i, "L", dob), 100);
+            accountDatabase.open(account);
+            live.add(account);
+        }
+        for (Account account : live) {
+            Profile holder = account.getHolder();
+            Profile otherCase = new Profile(holder.getFname().toLowerCase(),
+                    holder.getLname().toLowerCase(), holder.getDOB());
+            long balance = account.getBalance();
+            assertEquals(TransactionResult.OK, accountDatabase.deposit(
+                    otherCase, AccountTypeCommand.C, 1));
+            assertEquals(balance + 1, account.getBalance());
+            assertSame(account, accountDatabase.findByHolder(otherCase)
+                    .get(0));
+        }
+        accountDatabase.compact();
+        Account[] slots = slotsOf(accountDatabase);
+        for (int slot = 0; slot < slots.length; slot++) {
+            assertEquals(slot < live.size(), slots[slot] != null);
+        }
+        for (Account account : live) {
+            assertTrue(accountDatabase.contains(account));
+        }
+    }
+
+    /**
+     * Test 14: Test if the array shrinks once it is mostly empty, and if
+     * the bank still finds, opens and closes accounts after it does.
+     */
+    @Test
+    public void testShrinksWhenSparse() {
+        AccountDatabase accountDatabase = new AccountDatabase();
+        List<Account> opened = openMany(accountDatabase, 1000);
+        assertEquals(1024, slotsOf(accountDatabase).length);
+        for (int i = 10; i < opened.size(); i++) {
+            accountDatabase.close(opened.get(i));
+        }
+        accountDatabase.compact();
+        assertTrue(slotsOf(accountDatabase).length < 1024 / 4);
+        for (int i = 0; i < opened.size(); i++) {
+            assertEquals(i < 10, accountDatabase.contains(opened.get(i)));
+        }
+        for (int i = 10; i < 100; i++) {
+            assertTrue(accountDatabase.open(opened.get(i)));
+        }
+        assertEquals(100, accountDatabase.getSortedAccounts().length);
+        assertTrue(accountDatabase.close(opened.get(0)));
+        assertFalse(accountDatabase.contains(opened.get(0)));
+    }
+
+    /**
+     * Test 15: Test if AccountDatabase.compact() reclaims every tombstone,
+     * keeping the accounts left in the order they were opened.
+     */
+    @Test
+    public void testCompact() {
+        AccountDatabase accountDatabase = new AccountDatabase();
+        List<Account> opened = openMany(accountDatabase, 10);
+        List<Account> live = new ArrayList<>(opened);
+        for (int i : new int[]{0, 4, 9}) {
+            accountDatabase.close(opened.get(i));
+            live.remove(opened.get(i));
+        }
+        assertNull(slotsOf(accountDatabase)[0]);
+        accountDatabase.compact();
+        Account[] slots = slotsOf(accountDatabase);
+        for (int slot = 0; slot < slots.length; slot++) {
+            assertSame(slot < live.size() ? live.get(slot) : null,
+                    slots[slot]);
+        }
+        assertEquals(7, accountDatabase.getSortedAccounts().length);
+    }
+}
@@ -156,4 +156,33 @@ public class DateTest {
         Date date = new Date("5/5/2020");
         assertTrue(date.isValid());
     }
-}
\ No newline at end of file
+
+    /**
+     * Test 15: Tests that dates order by year, then month, then day,
+     * including years before year 0, and that equal dates are equal
+     */
+    @org.junit.Test
+    public void testPackedOrder() {
+        assertTrue(new Date("12/31/-5").compareTo(new Date("1/1/-4")) < 0);
+        assertTrue(new Date("1/31/2000").compareTo(new Date("2/1/2000")) < 0);
+        assertTrue(new Date("3/1/2001").compareTo(new Date("2/28/2001")) > 0);
+        assertEquals(new Date("02/09/2001"), Date.of(2, 9, 2001));
+        assertEquals(new Date("2/9/2001").hashCode(),
+                Date.of(2, 9, 2001).hashCode());
+    }
+
+    /**
+     * Test 16: Tests that the age goes up on the birthday, and that
+     * epoch days convert both ways
+     */
+    @org.junit.Test
+    public void testAgeAndEpochDay() {
+        Date dob = new Date("2/29/2004");
+        assertEquals(19, dob.getAgeOn(new Date("2/28/2024")));
+        assertEquals(20, dob.getAgeOn(new Date("2/29/2024")));
+        assertEquals(0, new Date("1/1/1970").toEpochDay());
+        assertEquals(12_477, dob.toEpochDay());
+        assertEquals(dob, Date.ofEpochDay(dob.toEpochDay()));
+        assertEquals(new Date("12/31/1969"), Date.ofEpochDay(-1));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,131 @@
+package bank.tests;
+
+import bank.AccountDatabase;
+import bank.TransactionManager;
+import bank.events.ListingEvent;
+import bank.events.MonthEndEvent;
+import bank.events.SortEvent;
+import bank.events.TransactionEvent;
+import bank.output.BufferedSink;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * This JUnit file tests that the Transaction Manager and the bank record
+ * their Flight Recorder events while a recording is on.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class FlightRecorderEventsTest {
+    private static final long NEVER_MILLIS = 60_000;
+
+    /**
+     * Test 1: every O, C, D and W line is recorded with its command,
+     * account type and outcome, and P and UB record a listing, a sort and
+     * a month-end run of the accounts.
+     */
+    @Test
+    public void testEventsRecorded() throws IOException {
+        List<RecordedEvent> events = record(
+                "O C John Doe 2/19/2000 599.99",
+                "O C John Doe 2/19/2000 599.99",
+                "O MM Bad Brooks 2/30/2000 2500",
+                "O S Jane Doe 10/1/2000 1500 1",
+                "W C John Doe 2/19/2000 1000",
+                "D S Jane Doe 10/1/2000 100",
+                "C MM Roy Brooks 10/31/1979",
+                "P",
+                "UB",
+                "Q");
+        List<String> transactions = new ArrayList<>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(TransactionEvent.NAME)) {
+                transactions.add(event.getString("command") + " "
+                        + event.getString("accountType") + " "
+                        + event.getString("outcome"));
+            }
+        }
+        assertEquals(List.of("O C OK", "O C ALREADY_OPEN", "O MM REJECTED",
+                "O S OK", "W C INSUFFICIENT_FUNDS", "D S OK",
+                "C MM NOT_FOUND"), transactions);
+        RecordedEvent sort = only(events, SortEvent.NAME);
+        assertEquals(2, sort.getInt("rows"));
+        RecordedEvent monthEnd = only(events, MonthEndEvent.NAME);
+        assertEquals(2, monthEnd.getInt("rows"));
+        assertEquals(1, monthEnd.getInt("parallelism"));
+        assertTrue(monthEnd.getBoolean("report"));
+        List<String> listings = new ArrayList<>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(ListingEvent.NAME)) {
+                listings.add(event.getString("report") + " "
+                        + event.getString("format") + " "
+                        + event.getInt("rows"));
+            }
+        }
+        assertEquals(List.of("ACCOUNTS TEXT 2", "UPDATED_BALANCES TEXT 2"),
+                listings);
+    }
+
+    /**
+     * Runs command lines on a new bank with the bank events recorded.
+     * @param lines the command lines
+     * @return the events recorded, in the order they ended
+     * @throws IOException if the recording cannot be written or read
+     */
+    private static List<RecordedEvent> record(String... lines)
+            throws IOException {
+        Path file = Files.createTempFile("bank", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : List.of(TransactionEvent.NAME, SortEvent.NAME,
+                    ListingEvent.NAME, MonthEndEvent.NAME)) {
+                recording.enable(name);
+            }
+            recording.start();
+            try (BufferedSink out = new BufferedSink(
+                    new ByteArrayOutputStream(), StandardCharsets.UTF_8,
+                    1024, NEVER_MILLIS)) {
+                new TransactionManager(new AccountDatabase(), null, out)
+                        .run(new ByteArrayInputStream((String.join("\n", lines)
+                                + "\n").getBytes(StandardCharsets.UTF_8)));
+            }
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            events.sort((a, b) -> a.getEndTime().compareTo(b.getEndTime()));
+            return events;
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Finds the one event of a type.
+     * @param events the events recorded
+     * @param name the name of the event type
+     * @return the event
+     */
+    private static RecordedEvent only(List<RecordedEvent> events,
+                                      String name) {
+        RecordedEvent found = null;
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)) {
+                assertNull(name + " recorded twice", found);
+                found = event;
+            }
+        }
+        assertNotNull(name + " not recorded", found);
+        return found;
+    }
+}
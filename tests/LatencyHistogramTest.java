@@ -0,0 +1,58 @@
+package bank.tests;
+
+import bank.stats.LatencyHistogram;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * This JUnit file tests that LatencyHistogram reports percentiles to
+ * within its precision.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class LatencyHistogramTest {
+    private static final long NUM_VALUES = 100_000;
+    private static final double PRECISION = 1.0 / 64;
+
+    /**
+     * Test 1: with the values 1 to NUM_VALUES counted once each, every
+     * percentile is within PRECISION of the exact one, and the count,
+     * mean and max are exact.
+     */
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = NUM_VALUES; value >= 1; value--) {
+            histogram.record(value);
+        }
+        assertEquals(NUM_VALUES, histogram.getCount());
+        assertEquals(NUM_VALUES, histogram.getMax());
+        assertEquals((NUM_VALUES + 1) / 2.0, histogram.getMean(), 1e-9);
+        for (double percentile : new double[] {1, 50, 90, 99, 99.9, 100}) {
+            long exact = (long) Math.ceil(percentile / 100 * NUM_VALUES);
+            long reported = histogram.getValueAtPercentile(percentile);
+            assertTrue(percentile + ": " + reported, reported >= exact
+                    && reported <= exact * (1 + PRECISION));
+        }
+        assertEquals(1, histogram.getValueAtPercentile(0));
+    }
+
+    /**
+     * Test 2: small values are exact, negative values count as 0, huge
+     * values fit, and reset() forgets everything.
+     */
+    @Test
+    public void testEdgesAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(100);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(0, histogram.getValueAtPercentile(30));
+        assertEquals(100, histogram.getValueAtPercentile(60));
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(0, histogram.getMax());
+    }
+}
@@ -0,0 +1,173 @@
+package bank.tests;
+
+import bank.AccountDatabase;
+import bank.TransactionResult;
+import bank.accounts.Account;
+import bank.accounts.AccountTypeCommand;
+import bank.accounts.Checking;
+import bank.accounts.MoneyMarket;
+import bank.accounts.Savings;
+import bank.persistence.MappedAccountStore;
+import bank.personaldata.Date;
+import bank.personaldata.Profile;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * This JUnit file tests that a bank kept in a memory-mapped store finds
+ * its accounts, as they were, after the store is closed and opened again.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class MappedAccountStoreTest {
+
+    /**
+     * Deletes a store, its index and the directory it is in.
+     * @param directory the directory of the store
+     * @param file the file of the store
+     */
+    private static void delete(Path directory, Path file) throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(MappedAccountStore.indexFileOf(file));
+        Files.delete(directory);
+    }
+
+    /**
+     * Test 1: balances, withdrawals and loyalty are the same after the
+     * store is opened again, and a record freed by a close is reused
+     * before the file grows.
+     */
+    @Test
+    public void testReopenKeepsAccounts() throws IOException {
+        Path directory = Files.createTempDirectory("bank");
+        Path file = directory.resolve("bank.store");
+        Date dob = new Date("01/10/2002");
+        Profile amy = new Profile("Amy", "Brooks", dob);
+        Profile roy = new Profile("Roy", "Brooks", dob);
+        try {
+            try (MappedAccountStore store = MappedAccountStore.open(file)) {
+                AccountDatabase accountDatabase = new AccountDatabase(store);
+                accountDatabase.open(new Savings(amy, 300, true));
+                accountDatabase.open(new MoneyMarket(amy, 2500_00));
+                accountDatabase.open(new Checking(roy, 100));
+                assertEquals(TransactionResult.OK, accountDatabase.deposit(
+                        amy, AccountTypeCommand.S, 50));
+                for (int i = 0; i < 2; i++) {
+                    assertEquals(TransactionResult.OK, accountDatabase
+                            .withdraw(amy, AccountTypeCommand.MM, 100_00));
+                }
+                assertTrue(accountDatabase.close(new Checking(roy)));
+                assertEquals(2, store.size());
+            }
+            try (MappedAccountStore store = MappedAccountStore.open(file)) {
+                assertEquals(2, store.size());
+                assertEquals(3, store.getNumRecords());
+                AccountDatabase accountDatabase = new AccountDatabase(store);
+                List<Account> held = accountDatabase.findByHolder(
+                        new Profile("AMY", "brooks", dob));
+                assertEquals(2, held.size());
+                for (Account account : held) {
+                    if (account instanceof MoneyMarket) {
+                        assertEquals(2300_00, account.getBalance());
+                        assertEquals(2, ((MoneyMarket) account)
+                                .getNumOfWithdrawals());
+                    } else {
+                        assertEquals(350, account.getBalance());
+                        assertTrue(((Savings) account).isLoyal());
+                    }
+                }
+                assertFalse(accountDatabase.contains(roy,
+                        AccountTypeCommand.C));
+                assertTrue(accountDatabase.open(new Checking(roy, 700)));
+                assertEquals(3, store.size());
+                assertEquals(3, store.getNumRecords());
+                assertEquals(3, accountDatabase.getSortedAccounts().length);
+            }
+        } finally {
+            delete(directory, file);
+        }
+    }
+
+    /**
+     * Test 2: a bank on a store opened again loads its accounts as
+     * holders are looked up, and lists every account once, after enough
+     * opens to grow the index and enough closes to move entries in it.
+     */
+    @Test
+    public void testAccountsLoadedAsNeeded() throws IOException {
+        Path directory = Files.createTempDirectory("bank");
+        Path file = directory.resolve("bank.store");
+        Date dob = new Date("01/10/2002");
+        try {
+            try (MappedAccountStore store = MappedAccountStore.open(file)) {
+                AccountDatabase accountDatabase = new AccountDatabase(store);
+                for (int i = 0; i < 3000; i++) {
+                    accountDatabase.open(new Checking(
+                            new Profile("F" + i, "L", dob), i));
+                }
+                for (int i = 0; i < 3000; i += 3) {
+                    accountDatabase.close(new Checking(
+                            new Profile("F" + i, "L", dob)));
+                }
+            }
+            try (MappedAccountStore store = MappedAccountStore.open(file)) {
+                AccountDatabase accountDatabase = new AccountDatabase(store);
+                for (int i = 0; i < 3000; i++) {
+                    Profile holder = new Profile("f" + i, "l", dob);
+                    assertEquals(i % 3 != 0, accountDatabase.contains(
+                            holder, AccountTypeCommand.C));
+                    if (i % 2 == 0) {
+                        accountDatabase.deposit(holder,
+                                AccountTypeCommand.C, 1);
+                    }
+                    if (i == 1500) break;
+                }
+                Account[] listed = accountDatabase.getSortedAccounts();
+                assertEquals(2000, listed.length);
+                for (int i = 1; i < listed.length; i++) {
+                    assertTrue(listed[i - 1].compareTo(listed[i]) < 0);
+                }
+                assertEquals(2 + 1, accountDatabase.findByHolder(
+                        new Profile("F2", "L", dob)).get(0).getBalance());
+                assertEquals(2999, accountDatabase.findByHolder(
+                        new Profile("F2999", "L", dob)).get(0).getBalance());
+            }
+        } finally {
+            delete(directory, file);
+        }
+    }
+
+    /**
+     * Test 3: a store opened again without being closed, as after a
+     * crash, builds its index again from the records.
+     */
+    @Test
+    public void testStoreNotClosedIsRebuilt() throws IOException {
+        Path directory = Files.createTempDirectory("bank");
+        Path file = directory.resolve("bank.store");
+        Date dob = new Date("01/10/2002");
+        Profile amy = new Profile("Amy", "Brooks", dob);
+        try (MappedAccountStore crashed = MappedAccountStore.open(file)) {
+            AccountDatabase accountDatabase = new AccountDatabase(crashed);
+            accountDatabase.open(new Savings(amy, 300, false));
+            accountDatabase.open(new Checking(amy, 100));
+            accountDatabase.close(new Savings(amy));
+            try (MappedAccountStore store = MappedAccountStore.open(file)) {
+                assertEquals(1, store.size());
+                AccountDatabase reopened = new AccountDatabase(store);
+                assertFalse(reopened.contains(amy, AccountTypeCommand.S));
+                assertEquals(100, reopened.findByHolder(amy).get(0)
+                        .getBalance());
+                assertTrue(reopened.open(new Savings(amy, 5, false)));
+                assertEquals(2, store.getNumRecords());
+            }
+        } finally {
+            delete(directory, file);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package bank.tests;
+
+import bank.output.AsyncSink;
+import bank.output.BufferedSink;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * This JUnit file tests that the buffered and asynchronous output sinks
+ * write everything printed, in order, by the time they are flushed.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class OutputSinkTest {
+    private static final int NUM_LINES = 100_000;
+    private static final long NEVER_MILLIS = 60_000;
+
+    /**
+     * Test 1: a buffered sink holds small output until it is flushed.
+     */
+    @Test
+    public void testBufferedSinkWritesOnFlush() {
+        ByteArrayOutputStream destination = new ByteArrayOutputStream();
+        BufferedSink out = new BufferedSink(destination,
+                StandardCharsets.UTF_8, 1024, NEVER_MILLIS);
+        out.printf("%s(%s) opened.\n", "John Doe 2/19/2000", "C");
+        assertEquals(0, destination.size());
+        out.flush();
+        assertEquals("John Doe 2/19/2000(C) opened.\n",
+                destination.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test 2: an asynchronous sink with a small chunk size and queue
+     * writes many lines in the order they were printed.
+     */
+    @Test
+    public void testAsyncSinkKeepsOrder() {
+        ByteArrayOutputStream destination = new ByteArrayOutputStream();
+        StringBuilder expected = new StringBuilder();
+        try (AsyncSink out = new AsyncSink(destination,
+                StandardCharsets.UTF_8, 64, 2, 1)) {
+            for (int i = 0; i < NUM_LINES; i++) {
+                out.println("line " + i);
+                expected.append("line ").append(i)
+                        .append(System.lineSeparator());
+            }
+            out.flush();
+            assertEquals(expected.toString(),
+                    destination.toString(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package bank.tests;
+
+import bank.AccountDatabase;
+import bank.accounts.Checking;
+import bank.accounts.CollegeChecking;
+import bank.accounts.Money;
+import bank.accounts.MoneyMarket;
+import bank.accounts.Savings;
+import bank.personaldata.Campus;
+import bank.personaldata.Date;
+import bank.personaldata.Profile;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * This JUnit file tests that UB prints the same report no matter how many
+ * threads apply the fees and interests.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class ParallelMonthEndTest {
+    private static final int NUM_ACCOUNTS = 50_000;
+    private static final long SEED = 2023;
+
+    /**
+     * Makes a bank with NUM_ACCOUNTS accounts of every type, the same
+     * accounts every time.
+     * @param parallelism the number of threads UB uses
+     * @return the bank
+     */
+    private static AccountDatabase makeBank(int parallelism) {
+        Random random = new Random(SEED);
+        AccountDatabase accountDatabase = new AccountDatabase(NUM_ACCOUNTS);
+        accountDatabase.setMonthEndParallelism(parallelism);
+        Date dob = new Date("01/10/2002");
+        for (int i = 0; i < NUM_ACCOUNTS; i++) {
+            Profile profile = new Profile("F" + i, "L" + (i % 97), dob);
+            long balance = random.nextInt(1_000_000);
+            switch (i % 4) {
+                case 0 -> accountDatabase.open(new Checking(profile, balance));
+                case 1 -> accountDatabase.open(
+                        new CollegeChecking(profile, balance, Campus.NW));
+                case 2 -> accountDatabase.open(
+                        new Savings(profile, balance, random.nextBoolean()));
+                default -> {
+                    MoneyMarket account = new MoneyMarket(profile, balance);
+                    for (int w = random.nextInt(6); w > 0; w--) {
+                        account.withdraw(1);
+                    }
+                    accountDatabase.open(account);
+                }
+            }
+        }
+        return accountDatabase;
+    }
+
+    /**
+     * Runs UB twice on the bank and captures what it prints.
+     * @param accountDatabase the bank
+     * @return the printed reports
+     */
+    private static String runMonthEnds(AccountDatabase accountDatabase) {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured));
+        try {
+            accountDatabase.printUpdatedBalances();
+            accountDatabase.printUpdatedBalances();
+        } finally {
+            System.setOut(stdout);
+        }
+        return captured.toString();
+    }
+
+    /**
+     * Test 1: UB on 8 threads prints the same bytes as UB on 1 thread.
+     */
+    @Test
+    public void testParallelReportMatchesSequential() {
+        String sequential = runMonthEnds(makeBank(1));
+        String parallel = runMonthEnds(makeBank(8));
+        assertEquals(sequential, parallel);
+    }
+
+    /**
+     * Test 2: UB on 4 threads, printed or not, works on an empty bank,
+     * and still prints the empty bank message.
+     */
+    @Test
+    public void testParallelEmptyBank() {
+        AccountDatabase accountDatabase = new AccountDatabase();
+        accountDatabase.setMonthEndParallelism(4);
+        try {
+            accountDatabase.applyMonthEnd();
+            assertEquals(runMonthEnds(new AccountDatabase()),
+                    runMonthEnds(accountDatabase));
+        } finally {
+            accountDatabase.setMonthEndParallelism(1);
+        }
+    }
+
+    /**
+     * Test 3: deposits, withdrawals and UB change the accounts through the
+     * columns even after compaction moved their rows, and a closed account
+     * keeps the balance and withdrawals it had, without later UBs.
+     */
+    @Test
+    public void testStateLivesInColumns() {
+        AccountDatabase accountDatabase = new AccountDatabase();
+        Date dob = new Date("01/10/2002");
+        List<MoneyMarket> accounts = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            MoneyMarket account = new MoneyMarket(
+                    new Profile("F" + i, "L", dob), 2000_00 + i);
+            accountDatabase.open(account);
+            accounts.add(account);
+        }
+        MoneyMarket first = accounts.get(0);
+        MoneyMarket last = accounts.get(299);
+        Profile lastHolder = last.getHolder();
+        for (int w = 0; w < 4; w++) {
+            assertTrue(accountDatabase.withdraw(
+                    new MoneyMarket(lastHolder, 1)));
+        }
+        assertTrue(accountDatabase.deposit(new MoneyMarket(lastHolder, 10)));
+        accountDatabase.withdraw(new MoneyMarket(first.getHolder(), 5_00));
+        for (int i = 0; i < 200; i++) {
+            accountDatabase.close(accounts.get(i));
+        }
+        accountDatabase.compact();
+        assertEquals(2000_00 + 299 - 4 + 10, last.getBalance());
+        assertEquals(4, last.getNumOfWithdrawals());
+        long expected = last.getBalance();
+        expected = Money.addInterest(expected,
+                MoneyMarket.interestOn(expected));
+        expected -= MoneyMarket.feeOn(expected, 4);
+        accountDatabase.applyMonthEnd();
+        assertEquals(expected, last.getBalance());
+        assertEquals(0, last.getNumOfWithdrawals());
+        assertEquals(1995_00, first.getBalance());
+        assertEquals(1, first.getNumOfWithdrawals());
+        assertTrue(accountDatabase.close(last));
+        assertTrue(last.deposit(1));
+        assertEquals(expected + 1, last.getBalance());
+    }
+}
@@ -0,0 +1,133 @@
+package bank.tests;
+
+import bank.AccountDatabase;
+import bank.accounts.CollegeChecking;
+import bank.accounts.MoneyMarket;
+import bank.output.BufferedSink;
+import bank.output.ReportFormat;
+import bank.output.ReportWriter;
+import bank.personaldata.Campus;
+import bank.personaldata.Date;
+import bank.personaldata.Profile;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.*;
+
+/**
+ * This JUnit file tests that reports come out the same whether they are
+ * printed or written to a file, and the CSV and JSON layouts.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class ReportWriterTest {
+    private static final int NUM_ACCOUNTS = 5_000;
+    private static final long NEVER_MILLIS = 60_000;
+
+    /**
+     * Makes a bank with a Money Market and a College Checking account.
+     * @return the bank
+     */
+    private static AccountDatabase makeSmallBank() {
+        AccountDatabase accountDatabase = new AccountDatabase();
+        accountDatabase.open(new MoneyMarket(new Profile("Roy", "Brooks",
+                new Date("10/31/1979")), 2909_10));
+        accountDatabase.open(new CollegeChecking(new Profile("Jane",
+                "Doe, \"Jr\"", new Date("1/5/2003")), 1234_567_89,
+                Campus.NB));
+        return accountDatabase;
+    }
+
+    /**
+     * Writes the fee report of a bank in a format to a string.
+     * @param accountDatabase the bank
+     * @param format the format
+     * @return the report
+     */
+    private static String feeReport(AccountDatabase accountDatabase,
+                                     ReportFormat format) {
+        ByteArrayOutputStream destination = new ByteArrayOutputStream();
+        try (BufferedSink out = new BufferedSink(destination,
+                StandardCharsets.UTF_8, 1024, NEVER_MILLIS);
+             ReportWriter report = ReportWriter.toSink(format, out)) {
+            accountDatabase.printFeesAndInterests(report);
+        }
+        return destination.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Test 1: the CSV layout has plain amounts, ISO dates, quoted names
+     * and empty columns for fields an account type does not have.
+     */
+    @Test
+    public void testCsvReport() {
+        assertEquals("type,first_name,last_name,dob,balance,campus,loyal,"
+                        + "withdrawals,fee,monthly_interest\n"
+                        + "CC,Jane,\"Doe, \"\"Jr\"\"\",2003-01-05,1234567.89,"
+                        + "NB,,,0.00,1028.81\n"
+                        + "MM,Roy,Brooks,1979-10-31,2909.10,,true,0,0.00,"
+                        + "11.52\n",
+                feeReport(makeSmallBank(), ReportFormat.CSV));
+    }
+
+    /**
+     * Test 2: the JSON layout is an array of one object per account, with
+     * null for fields an account type does not have.
+     */
+    @Test
+    public void testJsonReport() {
+        assertEquals("[\n{\"type\":\"CC\",\"first_name\":\"Jane\","
+                        + "\"last_name\":\"Doe, \\\"Jr\\\"\","
+                        + "\"dob\":\"2003-01-05\",\"balance\":1234567.89,"
+                        + "\"campus\":\"NB\",\"loyal\":null,"
+                        + "\"withdrawals\":null,\"fee\":0.00,"
+                        + "\"monthly_interest\":1028.81},\n"
+                        + "{\"type\":\"MM\",\"first_name\":\"Roy\","
+                        + "\"last_name\":\"Brooks\",\"dob\":\"1979-10-31\","
+                        + "\"balance\":2909.10,\"campus\":null,\"loyal\":true,"
+                        + "\"withdrawals\":0,\"fee\":0.00,"
+                        + "\"monthly_interest\":11.52}\n]\n",
+                feeReport(makeSmallBank(), ReportFormat.JSON));
+        assertEquals("[]\n",
+                feeReport(new AccountDatabase(), ReportFormat.JSON));
+    }
+
+    /**
+     * Test 3: a text report larger than the writer's buffer, with names
+     * that are more than one byte in UTF-8, is the same written to a file
+     * channel as printed.
+     */
+    @Test
+    public void testChannelMatchesSink() throws IOException {
+        AccountDatabase accountDatabase = new AccountDatabase();
+        for (int i = 0; i < NUM_ACCOUNTS; i++) {
+            accountDatabase.open(new MoneyMarket(new Profile("Zo\u00eb" + i,
+                    "Bront\u00eb", new Date("2/19/2000")), 2000_00 + i));
+        }
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        try (BufferedSink out = new BufferedSink(printed,
+                StandardCharsets.UTF_8, 1024, NEVER_MILLIS)) {
+            accountDatabase.printSorted(out);
+        }
+        Path file = Files.createTempFile("report", ".txt");
+        try {
+            try (FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.WRITE);
+                 ReportWriter report =
+                         ReportWriter.toChannel(ReportFormat.TEXT, channel)) {
+                accountDatabase.printSorted(report);
+                assertEquals(NUM_ACCOUNTS, report.getRows());
+            }
+            assertTrue(printed.size() > ReportWriter.BUFFER_CHARS);
+            assertArrayEquals(printed.toByteArray(), Files.readAllBytes(file));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package bank.tests;
+
+import bank.AccountDatabase;
+import bank.ShardRouter;
+import bank.TransactionManager;
+import bank.accounts.Account;
+import bank.accounts.Savings;
+import bank.output.BufferedSink;
+import bank.personaldata.Date;
+import bank.personaldata.Profile;
+import bank.shard.ShardConnection;
+import bank.shard.ShardServer;
+import bank.workload.WorkloadGenerator;
+import bank.workload.WorkloadMix;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * This JUnit file tests that a bank sharded over servers on localhost
+ * prints what one bank holding every account prints.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class ShardRouterTest {
+    private static final int NUM_SHARDS = 3;
+    private static final int NUM_COMMANDS = 3_000;
+    private static final long NEVER_MILLIS = 60_000;
+
+    /**
+     * Test 1: a generated stream with reports, followed by lines that
+     * check C against CC, match names in any case, and list in every
+     * format, prints the same through the router as through one
+     * Transaction Manager, and every shard holds some of the accounts.
+     */
+    @Test
+    public void testSameOutputAsOneBank() throws IOException {
+        WorkloadMix mix = new WorkloadMix();
+        mix.setWeights("O=10,C=2,D=40,W=40,P=1,PI=1,UB=1");
+        mix.setCustomers(300);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        byte[] generated = new WorkloadGenerator(mix, 5)
+                .generate(NUM_COMMANDS);
+        //drop the Q the generator ends with
+        stream.write(generated, 0, generated.length - "Q\n".length());
+        stream.write(String.join("\n",
+                "O C Roy Brooks 10/31/1979 100",
+                "O CC roy BROOKS 10/31/1979 100 0",
+                "D C ROY brooks 10/31/1979 50",
+                "O MM Jane Doe 2/30/2000 3000",
+                "O S Jane",
+                "X",
+                "",
+                "P CSV",
+                "PI JSON",
+                "UB",
+                "C C Roy Brooks 10/31/1979",
+                "P JSON",
+                "Q", "").getBytes(StandardCharsets.UTF_8));
+        byte[] lines = stream.toByteArray();
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try (BufferedSink out = new BufferedSink(expected,
+                StandardCharsets.UTF_8, 1024, NEVER_MILLIS)) {
+            new TransactionManager(new AccountDatabase(), null, out)
+                    .run(new ByteArrayInputStream(lines));
+        }
+
+        List<AccountDatabase> banks = new ArrayList<>();
+        List<ShardServer> servers = new ArrayList<>();
+        List<ShardConnection> shards = new ArrayList<>();
+        ByteArrayOutputStream routed = new ByteArrayOutputStream();
+        try {
+            for (int i = 0; i < NUM_SHARDS; i++) {
+                banks.add(new AccountDatabase());
+                ShardServer server = new ShardServer(banks.get(i), null, 0);
+                servers.add(server);
+                server.start();
+                shards.add(new ShardConnection("localhost",
+                        server.getPort()));
+            }
+            try (BufferedSink out = new BufferedSink(routed,
+                    StandardCharsets.UTF_8, 1024, NEVER_MILLIS)) {
+                new ShardRouter(shards, out)
+                        .run(new ByteArrayInputStream(lines));
+            }
+        } finally {
+            for (ShardConnection shard : shards) {
+                shard.close();
+            }
+            for (ShardServer server : servers) {
+                server.close();
+            }
+        }
+        assertEquals(expected.toString(StandardCharsets.UTF_8),
+                routed.toString(StandardCharsets.UTF_8));
+        for (AccountDatabase bank : banks) {
+            assertTrue(bank.getSortedAccounts().length > 0);
+        }
+    }
+
+    /**
+     * Test 2: a holder's shard does not depend on the case of the name,
+     * and is always one of the shards.
+     */
+    @Test
+    public void testShardOfHolder() {
+        Date dob = Date.of(2, 19, 2000);
+        for (int numShards = 1; numShards <= 8; numShards++) {
+            int shard = ShardRouter.shardOf(
+                    new Profile("John", "Doe", dob), numShards);
+            assertTrue(shard >= 0 && shard < numShards);
+            assertEquals(shard, ShardRouter.shardOf(
+                    new Profile("JOHN", "doe", dob), numShards));
+        }
+    }
+
+    /**
+     * Runs lines on a router, one at a time.
+     * @param router the router
+     * @param lines the lines
+     * @return what processLine() returned for the last line
+     */
+    private static boolean runLines(ShardRouter router, String... lines) {
+        boolean running = true;
+        for (String line : lines) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            running = router.processLine(bytes, 0, bytes.length);
+        }
+        return running;
+    }
+
+    /**
+     * Gets the balances of a bank, in listing order.
+     * @param bank the bank
+     * @return the balances
+     */
+    private static long[] balancesOf(AccountDatabase bank) {
+        Account[] accounts = bank.getSortedAccounts();
+        long[] balances = new long[accounts.length];
+        for (int i = 0; i < accounts.length; i++) {
+            balances[i] = accounts[i].getBalance();
+        }
+        return balances;
+    }
+
+    /**
+     * Test 3: UB with a shard that cannot be reached is applied by no
+     * shard, and the router keeps running.
+     */
+    @Test
+    public void testMonthEndNotAppliedIfAShardIsDown() throws IOException {
+        List<AccountDatabase> banks = new ArrayList<>();
+        List<ShardServer> servers = new ArrayList<>();
+        List<ShardConnection> shards = new ArrayList<>();
+        ByteArrayOutputStream routed = new ByteArrayOutputStream();
+        try {
+            for (int i = 0; i < NUM_SHARDS; i++) {
+                banks.add(new AccountDatabase());
+                ShardServer server = new ShardServer(banks.get(i), null, 0);
+                servers.add(server);
+                server.start();
+                shards.add(new ShardConnection("localhost",
+                        server.getPort()));
+            }
+            try (BufferedSink out = new BufferedSink(routed,
+                    StandardCharsets.UTF_8, 1024, NEVER_MILLIS)) {
+                ShardRouter router = new ShardRouter(shards, out);
+                for (int i = 0; i < 30; i++) {
+                    runLines(router, "O S Ann Name" + i + " 1/1/1990 1000 1");
+                }
+                List<long[]> before = new ArrayList<>();
+                for (AccountDatabase bank : banks) {
+                    before.add(balancesOf(bank));
+                }
+                shards.get(1).close();
+                assertTrue(runLines(router, "UB"));
+                for (int i = 0; i < NUM_SHARDS; i++) {
+                    assertArrayEquals(before.get(i), balancesOf(banks.get(i)));
+                }
+            }
+        } finally {
+            for (ShardConnection shard : shards) {
+                shard.close();
+            }
+            for (ShardServer server : servers) {
+                server.close();
+            }
+        }
+        String printed = routed.toString(StandardCharsets.UTF_8);
+        assertTrue(printed.contains("Shard 1 ("));
+        assertTrue(printed.endsWith("UB was not applied by any shard.\n"));
+    }
+
+    /**
+     * Test 4: a shard that fails after every shard prepared UB leaves it
+     * applied by the others; the router says which, and runs no more
+     * lines.
+     */
+    @Test
+    public void testMonthEndAppliedBySomeShardsHalts() throws IOException {
+        AccountDatabase bank = new AccountDatabase();
+        ByteArrayOutputStream routed = new ByteArrayOutputStream();
+        try (ShardServer server = new ShardServer(bank, null, 0);
+             ServerSocket failing = new ServerSocket(0, 1,
+                     InetAddress.getLoopbackAddress())) {
+            server.start();
+            //answers the prepare request with READY, then hangs up
+            Thread failingShard = new Thread(() -> {
+                try (Socket socket = failing.accept()) {
+                    InputStream in = socket.getInputStream();
+                    in.read();
+                    socket.getOutputStream().write(1);
+                    in.read();
+                } catch (IOException err) {
+                    //the test fails on what the router printed
+                }
+            });
+            failingShard.start();
+            List<ShardConnection> shards = List.of(
+                    new ShardConnection("localhost", server.getPort()),
+                    new ShardConnection("localhost", failing.getLocalPort()));
+            try (BufferedSink out = new BufferedSink(routed,
+                    StandardCharsets.UTF_8, 1024, NEVER_MILLIS)) {
+                ShardRouter router = new ShardRouter(shards, out);
+                bank.open(new Savings(new Profile("Ann", "Lee",
+                        Date.of(1, 1, 1990)), 1000_00, true));
+                assertFalse(runLines(router, "UB"));
+                assertFalse(runLines(router, "P"));
+            } finally {
+                for (ShardConnection shard : shards) {
+                    shard.close();
+                }
+            }
+        }
+        assertTrue(balancesOf(bank)[0] > 1000_00);
+        String printed = routed.toString(StandardCharsets.UTF_8);
+        assertTrue(printed.contains("UB was applied by shard 0 (localhost:"));
+        assertTrue(printed.endsWith(
+                "The shards no longer agree, no more lines are run.\n"));
+    }
+}
@@ -0,0 +1,215 @@
+package bank.tests;
+
+import bank.AccountDatabase;
+import bank.accounts.Checking;
+import bank.accounts.MoneyMarket;
+import bank.accounts.Savings;
+import bank.persistence.AccountSnapshot;
+import bank.persistence.SyncPolicy;
+import bank.persistence.TransactionLog;
+import bank.personaldata.Date;
+import bank.personaldata.Profile;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * This JUnit file tests that replaying the transaction log, alone or after
+ * a snapshot, rebuilds the bank that wrote it.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class TransactionLogTest {
+    private static final Profile ROY =
+            new Profile("Roy", "Brooks", new Date("10/31/1979"));
+    private static final Profile APRIL =
+            new Profile("April", "March", new Date("1/15/1987"));
+
+    /**
+     * Captures what printSorted() prints for the bank.
+     * @param accountDatabase the bank
+     * @return the printed list
+     */
+    private static String listing(AccountDatabase accountDatabase) {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured));
+        try {
+            accountDatabase.printSorted();
+        } finally {
+            System.setOut(stdout);
+        }
+        return captured.toString();
+    }
+
+    /**
+     * Opens the log in the file, and replays it into a new bank.
+     * @param path the log file
+     * @return the rebuilt bank
+     */
+    private static AccountDatabase replay(Path path) throws IOException {
+        AccountDatabase accountDatabase = new AccountDatabase();
+        try (TransactionLog log =
+                     TransactionLog.open(path, SyncPolicy.everyRecords(8))) {
+            log.replay(accountDatabase, 0);
+        }
+        return accountDatabase;
+    }
+
+    /**
+     * Test 1: opens, closes, deposits, withdrawals and UB all replay to
+     * the same balances and withdrawal counts.
+     */
+    @Test
+    public void testReplayRebuildsBank() throws IOException {
+        Path path = Files.createTempFile("bank", ".log");
+        try {
+            AccountDatabase accountDatabase = new AccountDatabase();
+            String expected;
+            try (TransactionLog log =
+                         TransactionLog.open(path, SyncPolicy.perCommand())) {
+                accountDatabase.setTransactionLog(log);
+                accountDatabase.open(new MoneyMarket(ROY, 2909_10));
+                accountDatabase.open(new Savings(APRIL, 1500_00, true));
+                accountDatabase.open(new Checking(APRIL, 10_00));
+                accountDatabase.withdraw(new MoneyMarket(ROY, 1000_00));
+                accountDatabase.withdraw(new MoneyMarket(ROY, 100_000_00));
+                accountDatabase.deposit(new Savings(APRIL, 12_34, false));
+                accountDatabase.close(new Checking(APRIL, 0));
+                accountDatabase.applyMonthEnd();
+                accountDatabase.withdraw(new MoneyMarket(ROY, 5_00));
+                expected = listing(accountDatabase);
+            }
+            assertEquals(expected, listing(replay(path)));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Test 2: a record torn by a crash is cut off, and records appended
+     * after it replay.
+     */
+    @Test
+    public void testTornTailIsTruncated() throws IOException {
+        Path path = Files.createTempFile("bank", ".log");
+        try {
+            AccountDatabase accountDatabase = new AccountDatabase();
+            try (TransactionLog log =
+                         TransactionLog.open(path, SyncPolicy.perCommand())) {
+                accountDatabase.setTransactionLog(log);
+                accountDatabase.open(new Checking(ROY, 10_00));
+                accountDatabase.deposit(new Checking(ROY, 5_00));
+            }
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.WRITE)) {
+                channel.truncate(channel.size() - 3);
+            }
+            AccountDatabase rebuilt = new AccountDatabase();
+            try (TransactionLog log =
+                         TransactionLog.open(path, SyncPolicy.perCommand())) {
+                assertEquals(1, log.replay(rebuilt, 0));
+                rebuilt.setTransactionLog(log);
+                rebuilt.deposit(new Checking(ROY, 1_00));
+            }
+            AccountDatabase expected = new AccountDatabase();
+            expected.open(new Checking(ROY, 11_00));
+            assertEquals(listing(expected), listing(replay(path)));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * Test 3: loading a snapshot and replaying only the log written after
+     * it rebuilds the bank.
+     */
+    @Test
+    public void testSnapshotPlusLogTail() throws IOException {
+        Path logPath = Files.createTempFile("bank", ".log");
+        Path snapshotPath = Files.createTempFile("bank", ".snap");
+        try {
+            AccountDatabase accountDatabase = new AccountDatabase();
+            try (TransactionLog log = TransactionLog.open(logPath,
+                    SyncPolicy.perCommand())) {
+                accountDatabase.setTransactionLog(log);
+                accountDatabase.open(new MoneyMarket(ROY, 2909_10));
+                accountDatabase.withdraw(new MoneyMarket(ROY, 10_00));
+                accountDatabase.open(new Savings(APRIL, 1500_00, true));
+                assertEquals(2, accountDatabase.writeSnapshot(snapshotPath));
+                accountDatabase.withdraw(new MoneyMarket(ROY, 10_00));
+                accountDatabase.close(new Savings(APRIL, 0));
+                accountDatabase.open(new Checking(APRIL, 10_00));
+            }
+            AccountSnapshot snapshot = AccountSnapshot.load(snapshotPath);
+            AccountDatabase rebuilt = new AccountDatabase(snapshot);
+            try (TransactionLog log = TransactionLog.open(logPath,
+                    SyncPolicy.perCommand())) {
+                assertEquals(3, log.replay(rebuilt, snapshot.getLogPosition()));
+            }
+            assertEquals(listing(accountDatabase), listing(rebuilt));
+        } finally {
+            Files.delete(logPath);
+            Files.delete(snapshotPath);
+        }
+    }
+
+    /**
+     * Test 4: deposits logged from many threads at once with a sync per
+     * command all replay, and share fsyncs instead of taking one each.
+     */
+    @Test
+    public void testConcurrentCommitsShareSyncs() throws Exception {
+        int numThreads = 8;
+        int depositsPerThread = 200;
+        Path path = Files.createTempFile("bank", ".log");
+        try {
+            AccountDatabase accountDatabase = new AccountDatabase();
+            String statistics;
+            try (TransactionLog log =
+                         TransactionLog.open(path, SyncPolicy.perCommand())) {
+                accountDatabase.setTransactionLog(log);
+                List<Thread> threads = new ArrayList<>();
+                for (int t = 0; t < numThreads; t++) {
+                    Profile holder = new Profile("Roy" + t, "Brooks",
+                            new Date("10/31/1979"));
+                    accountDatabase.open(new Checking(holder, 1_00));
+                    threads.add(new Thread(() -> {
+                        for (int i = 0; i < depositsPerThread; i++) {
+                            accountDatabase.deposit(
+                                    new Checking(holder, 1_00));
+                        }
+                    }));
+                }
+                for (Thread thread : threads) {
+                    thread.start();
+                }
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+                statistics = log.getStatistics();
+            }
+            assertEquals(listing(accountDatabase), listing(replay(path)));
+            Matcher counts = Pattern.compile("(\\d+) records, (\\d+) syncs")
+                    .matcher(statistics);
+            assertTrue(statistics, counts.find());
+            long numRecords = Long.parseLong(counts.group(1));
+            assertEquals(numThreads * (depositsPerThread + 1), numRecords);
+            assertTrue(statistics,
+                    Long.parseLong(counts.group(2)) <= numRecords);
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
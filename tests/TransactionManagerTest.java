@@ -0,0 +1,267 @@
+package bank.tests;
+
+import bank.AccountDatabase;
+import bank.Command;
+import bank.TransactionManager;
+import bank.output.BufferedSink;
+import bank.persistence.MappedAccountStore;
+import bank.stats.CommandStats;
+import bank.stats.CommandStats.Phase;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+
+/**
+ * This JUnit file tests that batch mode prints exactly what interactive
+ * mode prints for the same command lines.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class TransactionManagerTest {
+    private static final String COMMANDS = String.join("\r\n",
+            "O C John Doe 2/19/2000 599.99",
+            "O CC john DOE 2/19/2000 100 1",
+            "O S april March 1/15/1987 1500 1",
+            "O MM Roy Brooks 10/31/1979 2909.10",
+            "O MM Bad Brooks 2/30/2000 2500",
+            "O MM Kid Brooks 10/31/1979 abc",
+            "",
+            "D C john doe 2/19/2000 100",
+            "W MM Roy Brooks 10/31/1979 100000",
+            "W MM Roy Brooks 10/31/1979 10",
+            "X",
+            "P",
+            "PI",
+            "UB",
+            "C S april march 1/15/1987",
+            "P",
+            "Q",
+            "");
+
+    /**
+     * Runs the commands in interactive mode and captures what it prints.
+     * @return the printed output
+     */
+    private static String runInteractive() {
+        InputStream stdin = System.in;
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setIn(new ByteArrayInputStream(
+                COMMANDS.getBytes(StandardCharsets.UTF_8)));
+        System.setOut(new PrintStream(captured));
+        try {
+            new TransactionManager().run();
+        } finally {
+            System.setIn(stdin);
+            System.setOut(stdout);
+        }
+        return captured.toString();
+    }
+
+    /**
+     * Runs the commands in batch mode and captures what it prints.
+     * @return the printed output
+     */
+    private static String runBatch() throws IOException {
+        Path path = Files.createTempFile("commands", ".txt");
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured));
+        try {
+            Files.writeString(path, COMMANDS);
+            assertEquals(17, new TransactionManager().runBatch(path));
+        } finally {
+            System.setOut(stdout);
+            Files.delete(path);
+        }
+        return captured.toString();
+    }
+
+    /**
+     * Test 1: batch mode prints the same bytes as interactive mode.
+     */
+    @Test
+    public void testBatchMatchesInteractive() throws IOException {
+        assertEquals(runInteractive(), runBatch());
+    }
+
+    /**
+     * Test 2: a DOB that is not three numbers is not a valid calendar
+     * date, instead of stopping the Transaction Manager.
+     */
+    @Test
+    public void testMalformedDobIsInvalid() {
+        InputStream stdin = System.in;
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setIn(new ByteArrayInputStream(String.join("\n",
+                "O C John Doe abc 100",
+                "O C John Doe 1//2000 100",
+                "O C John Doe 1/2 100",
+                "Q", "").getBytes(StandardCharsets.UTF_8)));
+        System.setOut(new PrintStream(captured));
+        try {
+            new TransactionManager().run();
+        } finally {
+            System.setIn(stdin);
+            System.setOut(stdout);
+        }
+        assertEquals(String.join("\n",
+                "Transaction Manager is running.",
+                "DOB invalid: abc not a valid calendar date!",
+                "DOB invalid: 1//2000 not a valid calendar date!",
+                "DOB invalid: 1/2 not a valid calendar date!",
+                "Transaction Manager is terminated.", ""),
+                captured.toString().replace(System.lineSeparator(), "\n"));
+    }
+
+    /**
+     * Test 3: STATS prints how many lines of each command reached each
+     * phase without clearing them, and STATS RESET clears them after
+     * printing.
+     */
+    @Test
+    public void testStats() throws IOException {
+        CommandStats stats = new CommandStats();
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        try (BufferedSink out = new BufferedSink(printed,
+                StandardCharsets.UTF_8, 1024, 60_000)) {
+            TransactionManager transactionManager = new TransactionManager(
+                    new AccountDatabase(), null, out);
+            transactionManager.setCommandStats(stats);
+            transactionManager.run(new ByteArrayInputStream(String.join("\n",
+                    "O C John Doe 2/19/2000 599.99",
+                    "O MM Bad Brooks 2/30/2000 2500",
+                    "D C John Doe 2/19/2000 100",
+                    "STATS",
+                    "STATS RESET",
+                    "X",
+                    "Q", "").getBytes(StandardCharsets.UTF_8)));
+        }
+        String output = printed.toString(StandardCharsets.UTF_8)
+                .replace(System.lineSeparator(), "\n");
+        String[] reports = output.split("Command statistics");
+        assertEquals(3, reports.length);
+        for (int i = 1; i < reports.length; i++) {
+            assertTrue(reports[i].matches("(?s).*\nO +validate +2 .*"));
+            assertTrue(reports[i].matches("(?s).*\nO +database +1 .*"));
+            assertTrue(reports[i].matches("(?s).*\nD +total +1 .*"));
+        }
+        assertTrue(reports[2].matches("(?s).*\nSTATS +total +1 .*"));
+        assertTrue(output.contains("Statistics reset.\n"));
+        assertEquals(0, stats.getLatency(Command.OPEN).getCount());
+        assertEquals(1, stats.getLatency(Command.INVALID, Phase.OUTPUT)
+                .getCount());
+        assertEquals(0, stats.getLatency(Command.INVALID, Phase.DATABASE)
+                .getCount());
+        assertEquals(1, stats.getLatency(Command.QUIT).getCount());
+    }
+
+    /**
+     * Test 4: a bank kept in a memory-mapped store rejects a name too long
+     * for its records with an error line, and keeps running.
+     */
+    @Test
+    public void testNameTooLongForStore() throws IOException {
+        Path directory = Files.createTempDirectory("bank");
+        Path file = directory.resolve("bank.store");
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        try (MappedAccountStore store = MappedAccountStore.open(file);
+             BufferedSink out = new BufferedSink(printed,
+                     StandardCharsets.UTF_8, 1024, 60_000)) {
+            AccountDatabase accountDatabase = new AccountDatabase(store);
+            new TransactionManager(accountDatabase, null, out).run(
+                    new ByteArrayInputStream(String.join("\n",
+                            "O C " + "J".repeat(70) + " Doe 2/19/2000 100",
+                            "O C John Doe 2/19/2000 100",
+                            "Q", "").getBytes(StandardCharsets.UTF_8)));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(MappedAccountStore.indexFileOf(file));
+            Files.delete(directory);
+        }
+        assertEquals(String.join("\n",
+                "Transaction Manager is running.",
+                "Name invalid: a name cannot be longer than 64 bytes.",
+                "John Doe 2/19/2000(C) opened.",
+                "Transaction Manager is terminated.", ""),
+                printed.toString(StandardCharsets.UTF_8)
+                        .replace(System.lineSeparator(), "\n"));
+    }
+
+    /**
+     * Test 5: a Money Market account is opened only if the amount typed is
+     * at least the minimum before it is rounded to the cent, so 1999.999
+     * is rejected though it rounds to 2000.00.
+     */
+    @Test
+    public void testMoneyMarketMinimumBeforeRounding() throws IOException {
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        try (BufferedSink out = new BufferedSink(printed,
+                StandardCharsets.UTF_8, 1024, 60_000)) {
+            new TransactionManager(new AccountDatabase(), null, out).run(
+                    new ByteArrayInputStream(String.join("\n",
+                            "O MM Roy Brooks 10/31/1979 1999.999",
+                            "O MM Roy Brooks 10/31/1979 1999.99",
+                            "O MM Roy Brooks 10/31/1979 2000.001",
+                            "O MM Amy Brooks 10/31/1979 2000",
+                            "Q", "").getBytes(StandardCharsets.UTF_8)));
+        }
+        assertEquals(String.join("\n",
+                "Transaction Manager is running.",
+                "Minimum of $2000 to open a Money Market account.",
+                "Minimum of $2000 to open a Money Market account.",
+                "Roy Brooks 10/31/1979(MM) opened.",
+                "Amy Brooks 10/31/1979(MM) opened.",
+                "Transaction Manager is terminated.", ""),
+                printed.toString(StandardCharsets.UTF_8)
+                        .replace(System.lineSeparator(), "\n"));
+    }
+
+    /**
+     * Test 6: a deposit that would make a balance too large for a long is
+     * refused, and fees and interests on the largest balances neither
+     * wrap around nor go negative.
+     */
+    @Test
+    public void testBalanceNeverWrapsAround() throws IOException {
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        try (BufferedSink out = new BufferedSink(printed,
+                StandardCharsets.UTF_8, 1024, 60_000)) {
+            new TransactionManager(new AccountDatabase(), null, out).run(
+                    new ByteArrayInputStream(String.join("\n",
+                            "O MM Roy Brooks 10/31/1979 2500",
+                            "D MM Roy Brooks 10/31/1979 90000000000000000",
+                            "D MM Roy Brooks 10/31/1979 90000000000000000",
+                            "O MM Amy Brooks 10/31/1979 92000000000000000",
+                            "UB",
+                            "Q", "").getBytes(StandardCharsets.UTF_8)));
+        }
+        assertEquals(String.join("\n",
+                "Transaction Manager is running.",
+                "Roy Brooks 10/31/1979(MM) opened.",
+                "Roy Brooks 10/31/1979(MM) Deposit - balance updated.",
+                "Roy Brooks 10/31/1979(MM) Deposit - balance would be too "
+                        + "large.",
+                "Amy Brooks 10/31/1979(MM) opened.",
+                "",
+                "*list of accounts with fees and interests applied.",
+                "Money Market::Savings::Amy Brooks 10/31/1979::Balance "
+                        + "$92,233,720,368,547,758.07::is loyal::withdrawal: 0",
+                "Money Market::Savings::Roy Brooks 10/31/1979::Balance "
+                        + "$90,356,250,000,002,509.90::is loyal::withdrawal: 0",
+                "*end of list.",
+                "",
+                "Transaction Manager is terminated.", ""),
+                printed.toString(StandardCharsets.UTF_8)
+                        .replace(System.lineSeparator(), "\n"));
+    }
+}
@@ -0,0 +1,96 @@
+package bank.tests;
+
+import bank.AccountDatabase;
+import bank.Command;
+import bank.TransactionManager;
+import bank.output.BufferedSink;
+import bank.personaldata.Date;
+import bank.stats.CommandStats;
+import bank.workload.WorkloadGenerator;
+import bank.workload.WorkloadMix;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * This JUnit file tests that generated workloads are the same for a seed,
+ * follow their mix, and run through the Transaction Manager.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class WorkloadGeneratorTest {
+    private static final int NUM_COMMANDS = 2_000;
+    private static final long NEVER_MILLIS = 60_000;
+
+    /**
+     * Test 1: the same mix and seed make the same bytes, and another seed
+     * makes other bytes.
+     */
+    @Test
+    public void testSameSeedSameBytes() {
+        WorkloadMix mix = new WorkloadMix();
+        byte[] first = new WorkloadGenerator(mix, 42).generate(NUM_COMMANDS);
+        byte[] again = new WorkloadGenerator(mix, 42).generate(NUM_COMMANDS);
+        byte[] other = new WorkloadGenerator(mix, 43).generate(NUM_COMMANDS);
+        assertArrayEquals(first, again);
+        assertFalse(Arrays.equals(first, other));
+    }
+
+    /**
+     * Test 2: a mix of only deposits and withdrawals makes nothing else,
+     * and ends with Q.
+     */
+    @Test
+    public void testMixIsFollowed() {
+        WorkloadMix mix = new WorkloadMix();
+        mix.setWeights("D=1,W=1");
+        String[] lines = new String(new WorkloadGenerator(mix, 7)
+                .generate(NUM_COMMANDS), StandardCharsets.US_ASCII)
+                .split("\n");
+        assertEquals(NUM_COMMANDS + 1, lines.length);
+        for (int i = 0; i < NUM_COMMANDS; i++) {
+            assertTrue(lines[i], lines[i].startsWith("D ")
+                    || lines[i].startsWith("W "));
+        }
+        assertEquals("Q", lines[NUM_COMMANDS]);
+    }
+
+    /**
+     * Test 3: with no bad dates or codes, every O line of a stream opens
+     * an account, or finds it already open, when run through
+     * TransactionManager.run(InputStream), and every line is timed.
+     */
+    @Test
+    public void testValidOpensRun() throws IOException {
+        WorkloadMix mix = new WorkloadMix();
+        mix.setWeights("O=1");
+        mix.setInvalidDobRate(0);
+        mix.setInvalidCodeRate(0);
+        mix.setReferenceDay(Date.PRESENT_DATE);
+        byte[] stream = new WorkloadGenerator(mix, 11).generate(NUM_COMMANDS);
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        CommandStats stats = new CommandStats();
+        try (BufferedSink out = new BufferedSink(printed,
+                StandardCharsets.UTF_8, 1024, NEVER_MILLIS)) {
+            TransactionManager transactionManager = new TransactionManager(
+                    new AccountDatabase(), null, out);
+            transactionManager.setCommandStats(stats);
+            assertEquals(NUM_COMMANDS + 1, transactionManager.run(
+                    new ByteArrayInputStream(stream)));
+        }
+        String[] lines = printed.toString(StandardCharsets.UTF_8)
+                .split("\\R");
+        assertEquals("Transaction Manager is running.", lines[0]);
+        for (int i = 1; i <= NUM_COMMANDS; i++) {
+            assertTrue(lines[i], lines[i].endsWith(") opened.")
+                    || lines[i].endsWith(") is already in the database."));
+        }
+        assertEquals(NUM_COMMANDS, stats.getLatency(Command.OPEN).getCount());
+        assertEquals(1, stats.getLatency(Command.QUIT).getCount());
+    }
+}
@@ -0,0 +1,177 @@
+package bank.workload;
+
+import bank.AccountDatabase;
+import bank.Command;
+import bank.TransactionManager;
+import bank.output.BufferedSink;
+import bank.stats.CommandStats;
+import bank.stats.LatencyHistogram;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+
+/**
+ * This class runs generated command streams through the Transaction
+ * Manager end to end and reports how fast they went: commands per second,
+ * the p50, p99 and p99.9 time of a command line, and the allocation rate
+ * of the thread running them.
+ * The stream is made once, in memory, and run in several rounds, each on
+ * a new bank, so the first rounds show the JIT warming up and the later
+ * ones the steady state. Output goes through a BufferedSink into a
+ * stream that throws it away, so printing is paid for but nothing is
+ * written.
+ * Every line is timed through the Transaction Manager's CommandStats, and
+ * the times of the whole lines of every command are added up for the
+ * percentiles, so a round is timed the same way STATS times it.
+ * Allocation is counted on the thread running the Transaction Manager
+ * only; threads used by UB with --parallelism above 1 are not counted.
+ * Options:
+ *      --rounds N          rounds to run (default 5)
+ *      --parallelism N     threads used by the UB command
+ *      --stats             also print the times of every command and
+ *                          phase in the last round
+ *      and the WorkloadGenerator options, except --out
+ * @author Dharmik Patel and Krish Patel
+ */
+public class ThroughputHarness {
+    private static final String OPTION_SEED = "--seed";
+    private static final String OPTION_COMMANDS = "--commands";
+    private static final String OPTION_ROUNDS = "--rounds";
+    private static final String OPTION_PARALLELISM = "--parallelism";
+    private static final String OPTION_STATS = "--stats";
+    private static final int DEFAULT_ROUNDS = 5;
+    private static final int OUTPUT_BUFFER_CHARS = 1 << 16;
+    private static final long OUTPUT_FLUSH_MILLIS = 100;
+    private static final double NANOS_PER_SECOND = 1e9;
+    private static final double NANOS_PER_MICRO = 1e3;
+    private static final double BYTES_PER_MEGABYTE = 1 << 20;
+    private static final double P50 = 50;
+    private static final double P99 = 99;
+    private static final double P999 = 99.9;
+
+    /**
+     * Makes the stream and runs it.
+     * @param args the options
+     * @throws IOException if the stream cannot be run
+     */
+    public static void main(String[] args) throws IOException {
+        WorkloadMix mix = new WorkloadMix();
+        long seed = WorkloadGenerator.DEFAULT_SEED;
+        long numCommands = WorkloadGenerator.DEFAULT_COMMANDS;
+        int rounds = DEFAULT_ROUNDS;
+        int parallelism = 1;
+        boolean recordStats = false;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case OPTION_SEED -> seed = Long.parseLong(args[++i]);
+                    case OPTION_COMMANDS ->
+                            numCommands = Long.parseLong(args[++i]);
+                    case OPTION_ROUNDS -> rounds = Integer.parseInt(args[++i]);
+                    case OPTION_PARALLELISM ->
+                            parallelism = Integer.parseInt(args[++i]);
+                    case OPTION_STATS -> recordStats = true;
+                    default -> {
+                        if (!mix.setOption(args[i], args[++i])) {
+                            throw new IllegalArgumentException(args[i - 1]);
+                        }
+                    }
+                }
+            }
+            if (rounds < 1 || parallelism < 1) {
+                throw new IllegalArgumentException(OPTION_ROUNDS);
+            }
+        } catch (IndexOutOfBoundsException | IllegalArgumentException err) {
+            System.out.println("Usage: ThroughputHarness [--rounds N] "
+                    + "[--parallelism N] [--stats] [--seed N] "
+                    + "[--commands N] "
+                    + WorkloadGenerator.usageOfMix());
+            return;
+        }
+        byte[] stream = new WorkloadGenerator(mix, seed).generate(numCommands);
+        System.out.printf("Workload: seed %d, %d commands, %d customers, "
+                        + "%d bytes.\n", seed, numCommands, mix.getCustomers(),
+                stream.length);
+        CommandStats stats = null;
+        for (int round = 1; round <= rounds; round++) {
+            stats = new CommandStats();
+            runRound(round, stream, parallelism, stats);
+        }
+        if (recordStats) {
+            System.out.print(stats.appendTo(new StringBuilder()));
+        }
+    }
+
+    /**
+     * Runs the stream once on a new bank and prints how fast it went.
+     * @param round the number of the round
+     * @param stream the command lines
+     * @param parallelism threads used by the UB command
+     * @param stats the per command statistics to record
+     * @throws IOException if the stream cannot be run
+     */
+    private static void runRound(int round, byte[] stream, int parallelism,
+                                 CommandStats stats) throws IOException {
+        AccountDatabase accountDatabase = new AccountDatabase();
+        accountDatabase.setMonthEndParallelism(parallelism);
+        long numCommands;
+        long nanos;
+        long allocatedBytes;
+        try (BufferedSink out = new BufferedSink(
+                OutputStream.nullOutputStream(), Charset.defaultCharset(),
+                OUTPUT_BUFFER_CHARS, OUTPUT_FLUSH_MILLIS)) {
+            TransactionManager transactionManager =
+                    new TransactionManager(accountDatabase, null, out);
+            transactionManager.setCommandStats(stats);
+            long startBytes = allocatedBytes();
+            long startNanos = System.nanoTime();
+            numCommands = transactionManager.run(
+                    new ByteArrayInputStream(stream));
+            nanos = System.nanoTime() - startNanos;
+            allocatedBytes = allocatedBytes() - startBytes;
+        } finally {
+            accountDatabase.setMonthEndParallelism(1);
+        }
+        LatencyHistogram lineLatency = new LatencyHistogram();
+        for (Command command : Command.values()) {
+            lineLatency.add(stats.getLatency(command));
+        }
+        double seconds = nanos / NANOS_PER_SECOND;
+        System.out.printf("Round %d: %d commands in %.3f s (%.0f "
+                        + "commands/sec), p50 %.1f us, p99 %.1f us, p99.9 "
+                        + "%.1f us, max %.1f us, %.1f MB/s allocated (%.0f "
+                        + "bytes/command).\n",
+                round, numCommands, seconds, numCommands / seconds,
+                micros(lineLatency.getValueAtPercentile(P50)),
+                micros(lineLatency.getValueAtPercentile(P99)),
+                micros(lineLatency.getValueAtPercentile(P999)),
+                micros(lineLatency.getMax()),
+                allocatedBytes / BYTES_PER_MEGABYTE / seconds,
+                (double) allocatedBytes / numCommands);
+    }
+
+    /**
+     * Converts nanoseconds to microseconds.
+     * @param nanos the time, in nanoseconds
+     * @return the time, in microseconds
+     */
+    private static double micros(long nanos) {
+        return nanos / NANOS_PER_MICRO;
+    }
+
+    /**
+     * Gets the bytes allocated so far by the calling thread.
+     * @return the bytes, or 0 if the JVM cannot count them
+     */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean()
+                instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemoryEnabled()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+}
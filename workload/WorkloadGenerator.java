@@ -0,0 +1,371 @@
+package bank.workload;
+
+import bank.Command;
+import bank.accounts.AccountTypeCommand;
+import bank.accounts.Money;
+import bank.accounts.MoneyMarket;
+import bank.personaldata.Campus;
+import bank.personaldata.Date;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * This class makes streams of Transaction Manager command lines that look
+ * like a day at the bank, from a WorkloadMix and a seed, without any real
+ * customer data.
+ * Customer k always has the same name, date of birth, account type and
+ * opening details for a seed. O lines open customers in turn, 0 first;
+ * C, D and W lines pick among the customers opened so far by Zipf rank,
+ * so the earliest customers are the busiest, and an O line picks that way
+ * too once every customer has been opened. Closed accounts are not
+ * skipped, so some lines fail as they would for a real teller.
+ * Every random choice comes from a SplittableRandom and every weight from
+ * StrictMath, so the same mix and seed give the same bytes on every JVM.
+ * One generator makes one stream; make another with the same mix and
+ * seed to make the stream again.
+ * Options:
+ *      --seed N            the seed (default 1)
+ *      --commands N        lines made before the closing Q (default
+ *                          1,000,000)
+ *      --out FILE          write the stream to a file instead of
+ *                          standard output
+ *      and the WorkloadMix options
+ * @author Dharmik Patel and Krish Patel
+ */
+public class WorkloadGenerator {
+    public static final long DEFAULT_SEED = 1;
+    public static final long DEFAULT_COMMANDS = 1_000_000;
+    private static final String OPTION_SEED = "--seed";
+    private static final String OPTION_COMMANDS = "--commands";
+    private static final String OPTION_OUT = "--out";
+    private static final String[] FIRST_NAMES = {
+            "James", "Mary", "Robert", "Patricia", "John", "Jennifer",
+            "Michael", "Linda", "David", "Elizabeth", "William", "Barbara",
+            "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Sarah",
+            "Dharmik", "Karen", "Krish", "Priya", "Wei", "Mei", "Carlos",
+            "Sofia", "Ahmed", "Fatima", "Ivan", "Olga", "Kenji", "Yuki"
+    };
+    private static final String[] LAST_NAMES = {
+            "Patel", "Smith", "Johnson", "Williams", "Brown", "Jones",
+            "Garcia", "Miller", "Davis", "Rodriguez", "Martinez", "Lee",
+            "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Kim",
+            "Thomas", "Taylor", "Moore", "Jackson", "Martin", "Nguyen",
+            "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez",
+            "Lewis", "Robinson"
+    };
+    private static final AccountTypeCommand[] ACCOUNT_TYPES = {
+            AccountTypeCommand.C, AccountTypeCommand.CC,
+            AccountTypeCommand.S, AccountTypeCommand.MM
+    };
+    //percent of customers holding each of ACCOUNT_TYPES, summing to 100
+    private static final int[] ACCOUNT_TYPE_PERCENTS = {35, 15, 30, 20};
+    private static final int PERCENT = 100;
+    private static final int DAYS_PER_YEAR = 365;
+    //every customer is at least 17, safely past the minimum of 16
+    private static final int MIN_AGE_DAYS = 17 * 366;
+    //College Checking customers are at most 22, safely under 24
+    private static final int COLLEGE_AGE_RANGE_DAYS = 5 * DAYS_PER_YEAR;
+    private static final int AGE_RANGE_DAYS = 60 * DAYS_PER_YEAR;
+    private static final int FUTURE_RANGE_DAYS = 10 * DAYS_PER_YEAR;
+    private static final int UNDERAGE_RANGE_DAYS = 15 * DAYS_PER_YEAR;
+    private static final int NUM_INVALID_DOB_KINDS = 3;
+    private static final int NOT_A_CALENDAR_DATE = 0;
+    private static final int FUTURE_DATE = 1;
+    private static final long MIN_AMOUNT = 1_00;
+    private static final long AMOUNT_RANGE = 5000_00;
+    private static final long OPENING_RANGE = 8000_00;
+    private static final int INVALID_LOYALTY = 2;
+    private static final int INVALID_CAMPUS_RANGE = 7;
+    private static final long CUSTOMER_STRIDE = 0x9E3779B97F4A7C15L;
+    private static final int BUFFER_CHARS = 1 << 16;
+    private static final char SPACE = ' ';
+    private static final char NEW_LINE = '\n';
+    private final long seed;
+    private final SplittableRandom random;
+    private final Command[] commands;
+    //running total of the weights of commands, for picking one
+    private final double[] cumulativeWeights;
+    private final int customers;
+    //running total of the Zipf weights of customers 0..k
+    private final double[] zipfCumulative;
+    private final double invalidDobRate;
+    private final double invalidCodeRate;
+    private final double loyalRate;
+    private final int referenceEpochDay;
+    //next customer an O line opens, or customers once all are opened
+    private int nextCustomer;
+    private final StringBuilder line;
+
+    /**
+     * Makes a generator. The mix is read now, so changing it afterwards
+     * does not change the stream.
+     * @param mix the settings of the stream
+     * @param seed the seed
+     */
+    public WorkloadGenerator(WorkloadMix mix, long seed) {
+        this.seed = seed;
+        random = new SplittableRandom(seed);
+        commands = WorkloadMix.getMixedCommands();
+        cumulativeWeights = new double[commands.length];
+        double total = 0;
+        for (int i = 0; i < commands.length; i++) {
+            total += mix.getWeight(commands[i]);
+            cumulativeWeights[i] = total;
+        }
+        customers = mix.getCustomers();
+        zipfCumulative = new double[customers];
+        double zipfTotal = 0;
+        for (int k = 0; k < customers; k++) {
+            zipfTotal += 1 / StrictMath.pow(k + 1, mix.getZipfExponent());
+            zipfCumulative[k] = zipfTotal;
+        }
+        invalidDobRate = mix.getInvalidDobRate();
+        invalidCodeRate = mix.getInvalidCodeRate();
+        loyalRate = mix.getLoyalRate();
+        referenceEpochDay = mix.getReferenceDay().toEpochDay();
+        nextCustomer = 0;
+        line = new StringBuilder();
+    }
+
+    /**
+     * Writes the given number of command lines, then a Q line, as ASCII
+     * with "\n" line ends. The stream is flushed but not closed.
+     * @param numCommands the number of lines before the Q
+     * @param out where the lines are written
+     * @throws IOException if the lines cannot be written
+     */
+    public void write(long numCommands, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out,
+                StandardCharsets.US_ASCII), BUFFER_CHARS);
+        for (long i = 0; i < numCommands; i++) {
+            line.setLength(0);
+            appendNextLine();
+            writer.append(line.append(NEW_LINE));
+        }
+        writer.append(Command.QUIT.getToken()).append(NEW_LINE);
+        writer.flush();
+    }
+
+    /**
+     * Makes the given number of command lines, then a Q line, in memory.
+     * @param numCommands the number of lines before the Q
+     * @return the lines, as write() writes them
+     */
+    public byte[] generate(long numCommands) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            write(numCommands, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Picks the next command by weight and appends its line.
+     */
+    private void appendNextLine() {
+        double pick = random.nextDouble()
+                * cumulativeWeights[cumulativeWeights.length - 1];
+        int i = 0;
+        while (cumulativeWeights[i] <= pick) {
+            i++;
+        }
+        Command command = commands[i];
+        line.append(command.getToken());
+        switch (command) {
+            case OPEN -> appendOpen();
+            case CLOSE -> appendAccount(pickOpenedCustomer());
+            case DEPOSIT, WITHDRAW -> {
+                appendAccount(pickOpenedCustomer());
+                appendAmount(MIN_AMOUNT + random.nextLong(AMOUNT_RANGE));
+            }
+            default -> {}
+        }
+    }
+
+    /**
+     * Picks one of the customers opened so far by Zipf rank, or customer 0
+     * if none has been.
+     * @return the customer
+     */
+    private int pickOpenedCustomer() {
+        return pickZipf(Math.max(nextCustomer, 1));
+    }
+
+    /**
+     * Picks one of customers 0..n-1 by Zipf rank.
+     * @param n the number of customers to pick from
+     * @return the customer
+     */
+    private int pickZipf(int n) {
+        double pick = random.nextDouble() * zipfCumulative[n - 1];
+        int found = Arrays.binarySearch(zipfCumulative, 0, n, pick);
+        int customer = found >= 0 ? found + 1 : -found - 1;
+        return Math.min(customer, n - 1);
+    }
+
+    /**
+     * Makes the generator of the fixed details of a customer.
+     * @param customer the customer
+     * @return a generator giving the same numbers for every call
+     */
+    private SplittableRandom customerRandom(int customer) {
+        return new SplittableRandom(seed + (customer + 1L) * CUSTOMER_STRIDE);
+    }
+
+    /**
+     * Appends the rest of an O line: the next customer not yet opened,
+     * or a Zipf pick once all are, with the customer's opening balance
+     * and campus or loyalty code.
+     */
+    private void appendOpen() {
+        int customer = nextCustomer < customers
+                ? nextCustomer++ : pickZipf(customers);
+        SplittableRandom details = appendAccount(customer);
+        AccountTypeCommand accountType = accountTypeOf(customer);
+        long balance = details.nextLong(OPENING_RANGE) + MIN_AMOUNT;
+        if (accountType == AccountTypeCommand.MM) {
+            balance += MoneyMarket.ACCOUNT_THRESHOLD;
+        }
+        appendAmount(balance);
+        int campus = details.nextInt(Campus.values().length);
+        int loyalty = details.nextDouble() < loyalRate ? 1 : 0;
+        boolean invalidCode = random.nextDouble() < invalidCodeRate;
+        if (accountType == AccountTypeCommand.CC) {
+            line.append(SPACE).append(invalidCode ? Campus.values().length
+                    + random.nextInt(INVALID_CAMPUS_RANGE) : campus);
+        } else if (accountType == AccountTypeCommand.S) {
+            line.append(SPACE).append(invalidCode ? INVALID_LOYALTY : loyalty);
+        }
+    }
+
+    /**
+     * Gets the account type of a customer.
+     * @param customer the customer
+     * @return the account type
+     */
+    private AccountTypeCommand accountTypeOf(int customer) {
+        int pick = customerRandom(customer).nextInt(PERCENT);
+        int i = 0;
+        while (pick >= ACCOUNT_TYPE_PERCENTS[i]) {
+            pick -= ACCOUNT_TYPE_PERCENTS[i];
+            i++;
+        }
+        return ACCOUNT_TYPES[i];
+    }
+
+    /**
+     * Appends the account type, name and date of birth of a customer,
+     * or a bad date of birth as often as the mix says.
+     * @param customer the customer
+     * @return the generator of the customer's details, just past the
+     * ones appended, for the opening details
+     */
+    private SplittableRandom appendAccount(int customer) {
+        AccountTypeCommand accountType = accountTypeOf(customer);
+        SplittableRandom details = customerRandom(customer);
+        details.nextInt(PERCENT); //the account type
+        line.append(SPACE).append(accountType.name())
+                .append(SPACE).append(FIRST_NAMES[
+                        details.nextInt(FIRST_NAMES.length)])
+                .append(SPACE).append(LAST_NAMES[
+                        details.nextInt(LAST_NAMES.length)])
+                .append(SPACE);
+        int ageDays = MIN_AGE_DAYS + details.nextInt(
+                accountType == AccountTypeCommand.CC
+                        ? COLLEGE_AGE_RANGE_DAYS : AGE_RANGE_DAYS);
+        Date dob = Date.ofEpochDay(referenceEpochDay - ageDays);
+        if (random.nextDouble() < invalidDobRate) {
+            appendInvalidDob(dob);
+        } else {
+            dob.appendTo(line);
+        }
+        return details;
+    }
+
+    /**
+     * Appends a bad date of birth: not a calendar date, in the future, or
+     * under 16, in turn at random.
+     * @param dob the customer's real date of birth
+     */
+    private void appendInvalidDob(Date dob) {
+        switch (random.nextInt(NUM_INVALID_DOB_KINDS)) {
+            case NOT_A_CALENDAR_DATE -> line.append("2/30/")
+                    .append(dob.getYear());
+            case FUTURE_DATE -> Date.ofEpochDay(referenceEpochDay
+                    + DAYS_PER_YEAR + random.nextInt(FUTURE_RANGE_DAYS))
+                    .appendTo(line);
+            default -> Date.ofEpochDay(referenceEpochDay
+                    - random.nextInt(UNDERAGE_RANGE_DAYS)).appendTo(line);
+        }
+    }
+
+    /**
+     * Appends an amount of money as dollars and cents, "D.CC".
+     * @param cents the amount, in cents
+     */
+    private void appendAmount(long cents) {
+        Money.appendPlain(line.append(SPACE), cents);
+    }
+
+    /**
+     * Writes a stream to standard output or a file.
+     * @param args the options
+     * @throws IOException if the stream cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        WorkloadMix mix = new WorkloadMix();
+        long seed = DEFAULT_SEED;
+        long numCommands = DEFAULT_COMMANDS;
+        Path outPath = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case OPTION_SEED -> seed = Long.parseLong(args[++i]);
+                    case OPTION_COMMANDS ->
+                            numCommands = Long.parseLong(args[++i]);
+                    case OPTION_OUT -> outPath = Path.of(args[++i]);
+                    default -> {
+                        if (!mix.setOption(args[i], args[++i])) {
+                            throw new IllegalArgumentException(args[i - 1]);
+                        }
+                    }
+                }
+            }
+        } catch (IndexOutOfBoundsException | IllegalArgumentException err) {
+            System.out.println("Usage: WorkloadGenerator [--seed N] "
+                    + "[--commands N] [--out FILE] " + usageOfMix());
+            return;
+        }
+        WorkloadGenerator generator = new WorkloadGenerator(mix, seed);
+        if (outPath == null) {
+            generator.write(numCommands, System.out);
+        } else {
+            try (OutputStream out = Files.newOutputStream(outPath)) {
+                generator.write(numCommands, out);
+            }
+        }
+    }
+
+    /**
+     * Describes the WorkloadMix options, for usage messages.
+     * @return the options
+     */
+    static String usageOfMix() {
+        return "[--mix O=W,C=W,D=W,W=W,P=W,PI=W,UB=W] [--customers N] "
+                + "[--zipf S] [--invalid-dob RATE] [--invalid-code RATE] "
+                + "[--loyal RATE] [--reference-day M/D/YYYY]";
+    }
+}
@@ -0,0 +1,283 @@
+package bank.workload;
+
+import bank.Command;
+import bank.personaldata.Date;
+
+/**
+ * This class holds the settings a WorkloadGenerator makes command streams
+ * from: how often each command comes up, how many customers there are and
+ * how unevenly they are picked, and how often a line has a bad date of
+ * birth, campus code or loyalty code.
+ * Ages are worked out as of a fixed reference day, not today, so a seed
+ * gives the same stream whenever it is run.
+ * @author Dharmik Patel and Krish Patel
+ */
+public class WorkloadMix {
+    private static final Command[] MIXED_COMMANDS = {
+            Command.OPEN, Command.CLOSE, Command.DEPOSIT, Command.WITHDRAW,
+            Command.PRINT, Command.DISPLAY_INT_FEE, Command.APPLY_INT_FEE
+    };
+    private static final String DEFAULT_WEIGHTS =
+            "O=10,C=2,D=44,W=44,P=0.005,PI=0.005,UB=0.005";
+    private static final int DEFAULT_CUSTOMERS = 10_000;
+    private static final double DEFAULT_ZIPF_EXPONENT = 1.0;
+    private static final double DEFAULT_INVALID_DOB_RATE = 0.02;
+    private static final double DEFAULT_INVALID_CODE_RATE = 0.02;
+    private static final double DEFAULT_LOYAL_RATE = 0.5;
+    private static final Date DEFAULT_REFERENCE_DAY = Date.of(1, 1, 2026);
+    private static final String WEIGHT_SEPARATOR = ",";
+    private static final String WEIGHT_ASSIGNMENT = "=";
+    public static final String OPTION_MIX = "--mix";
+    public static final String OPTION_CUSTOMERS = "--customers";
+    public static final String OPTION_ZIPF = "--zipf";
+    public static final String OPTION_INVALID_DOB = "--invalid-dob";
+    public static final String OPTION_INVALID_CODE = "--invalid-code";
+    public static final String OPTION_LOYAL = "--loyal";
+    public static final String OPTION_REFERENCE_DAY = "--reference-day";
+    //weight of each command, by ordinal of Command; 0 if never made
+    private final double[] weights;
+    private int customers;
+    private double zipfExponent;
+    private double invalidDobRate;
+    private double invalidCodeRate;
+    private double loyalRate;
+    private Date referenceDay;
+
+    /**
+     * Makes the default mix: mostly deposits and withdrawals, a tenth
+     * opens, a few closes, a report now and then, over 10,000 customers
+     * picked with Zipf exponent 1, and 2% bad dates and codes.
+     */
+    public WorkloadMix() {
+        weights = new double[Command.values().length];
+        setWeights(DEFAULT_WEIGHTS);
+        customers = DEFAULT_CUSTOMERS;
+        zipfExponent = DEFAULT_ZIPF_EXPONENT;
+        invalidDobRate = DEFAULT_INVALID_DOB_RATE;
+        invalidCodeRate = DEFAULT_INVALID_CODE_RATE;
+        loyalRate = DEFAULT_LOYAL_RATE;
+        referenceDay = DEFAULT_REFERENCE_DAY;
+    }
+
+    /**
+     * Sets how often each command comes up, from its command line form
+     * "TOKEN=WEIGHT,...", for example "O=10,D=45,W=45". Weights are
+     * relative; commands not named are never made.
+     * @param spec the weights as text
+     * @throws IllegalArgumentException if a token is not one of O, C, D, W,
+     * P, PI and UB, a weight is negative, or every weight is 0
+     */
+    public void setWeights(String spec) {
+        double[] parsed = new double[weights.length];
+        double total = 0;
+        for (String part : spec.split(WEIGHT_SEPARATOR)) {
+            String[] tokenAndWeight = part.trim().split(WEIGHT_ASSIGNMENT);
+            if (tokenAndWeight.length != 2) {
+                throw new IllegalArgumentException("Not a weight: " + part);
+            }
+            Command command = mixedCommandOf(tokenAndWeight[0]);
+            double weight = Double.parseDouble(tokenAndWeight[1]);
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException(
+                        "Weight cannot be negative: " + part);
+            }
+            parsed[command.ordinal()] = weight;
+            total += weight;
+        }
+        if (!(total > 0)) {
+            throw new IllegalArgumentException("No command has a weight: "
+                    + spec);
+        }
+        System.arraycopy(parsed, 0, weights, 0, weights.length);
+    }
+
+    /**
+     * Finds the command a workload can be made of with the given token.
+     * @param token the token
+     * @return the command
+     * @throws IllegalArgumentException if no such command can be mixed
+     */
+    private static Command mixedCommandOf(String token) {
+        for (Command command : MIXED_COMMANDS) {
+            if (command.getToken().equals(token)) {
+                return command;
+            }
+        }
+        throw new IllegalArgumentException("Not a mixed command: " + token);
+    }
+
+    /**
+     * Sets one setting from a command line option, if it is one of the
+     * OPTION_ constants.
+     * @param option the option
+     * @param value the value that followed it
+     * @return True if the option was a mix setting, false if not.
+     * @throws IllegalArgumentException if the value is not valid
+     */
+    public boolean setOption(String option, String value) {
+        switch (option) {
+            case OPTION_MIX -> setWeights(value);
+            case OPTION_CUSTOMERS -> setCustomers(Integer.parseInt(value));
+            case OPTION_ZIPF -> setZipfExponent(Double.parseDouble(value));
+            case OPTION_INVALID_DOB ->
+                    setInvalidDobRate(Double.parseDouble(value));
+            case OPTION_INVALID_CODE ->
+                    setInvalidCodeRate(Double.parseDouble(value));
+            case OPTION_LOYAL -> setLoyalRate(Double.parseDouble(value));
+            case OPTION_REFERENCE_DAY -> {
+                Date day = new Date(value);
+                if (!day.isValid()) {
+                    throw new IllegalArgumentException(
+                            "Not a valid calendar date: " + value);
+                }
+                setReferenceDay(day);
+            }
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that a rate is a probability.
+     * @param rate the rate
+     * @return the rate
+     * @throws IllegalArgumentException if the rate is not 0 to 1
+     */
+    private static double checkRate(double rate) {
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new IllegalArgumentException(
+                    "Rate must be from 0 to 1: " + rate);
+        }
+        return rate;
+    }
+
+    /**
+     * Gets the relative weight of a command.
+     * @param command the command
+     * @return the weight, 0 if it is never made
+     */
+    public double getWeight(Command command) {
+        return weights[command.ordinal()];
+    }
+
+    /**
+     * Gets the commands a workload can be made of, in the order their
+     * weights are drawn from.
+     * @return O, C, D, W, P, PI and UB
+     */
+    static Command[] getMixedCommands() {
+        return MIXED_COMMANDS.clone();
+    }
+
+    /**
+     * Sets the number of distinct customers. Each is one account holder
+     * with one account type.
+     * @param customers the number of customers, at least 1
+     */
+    public void setCustomers(int customers) {
+        if (customers < 1) {
+            throw new IllegalArgumentException(
+                    "There must be at least 1 customer: " + customers);
+        }
+        this.customers = customers;
+    }
+
+    /**
+     * Gets the number of distinct customers.
+     * @return the number of customers
+     */
+    public int getCustomers() {
+        return customers;
+    }
+
+    /**
+     * Sets how unevenly customers are picked: customer k of those with
+     * accounts is picked with weight 1 / (k + 1)^exponent, so 0 picks
+     * evenly and larger exponents favor the first customers more.
+     * @param zipfExponent the exponent, not negative
+     */
+    public void setZipfExponent(double zipfExponent) {
+        if (!(zipfExponent >= 0)) {
+            throw new IllegalArgumentException(
+                    "Zipf exponent cannot be negative: " + zipfExponent);
+        }
+        this.zipfExponent = zipfExponent;
+    }
+
+    /**
+     * Gets how unevenly customers are picked.
+     * @return the Zipf exponent
+     */
+    public double getZipfExponent() {
+        return zipfExponent;
+    }
+
+    /**
+     * Sets the chance that a line naming an account has a bad date of
+     * birth: not a calendar date, in the future, or under 16.
+     * @param invalidDobRate the chance, 0 to 1
+     */
+    public void setInvalidDobRate(double invalidDobRate) {
+        this.invalidDobRate = checkRate(invalidDobRate);
+    }
+
+    /**
+     * Gets the chance of a bad date of birth.
+     * @return the chance, 0 to 1
+     */
+    public double getInvalidDobRate() {
+        return invalidDobRate;
+    }
+
+    /**
+     * Sets the chance that an O line for a College Checking or Savings
+     * account has a bad campus or loyalty code.
+     * @param invalidCodeRate the chance, 0 to 1
+     */
+    public void setInvalidCodeRate(double invalidCodeRate) {
+        this.invalidCodeRate = checkRate(invalidCodeRate);
+    }
+
+    /**
+     * Gets the chance of a bad campus or loyalty code.
+     * @return the chance, 0 to 1
+     */
+    public double getInvalidCodeRate() {
+        return invalidCodeRate;
+    }
+
+    /**
+     * Sets the chance that a Savings customer is loyal.
+     * @param loyalRate the chance, 0 to 1
+     */
+    public void setLoyalRate(double loyalRate) {
+        this.loyalRate = checkRate(loyalRate);
+    }
+
+    /**
+     * Gets the chance that a Savings customer is loyal.
+     * @return the chance, 0 to 1
+     */
+    public double getLoyalRate() {
+        return loyalRate;
+    }
+
+    /**
+     * Sets the day ages are worked out on. Streams meant to run without
+     * age errors should use a day close to the day they are run.
+     * @param referenceDay the day
+     */
+    public void setReferenceDay(Date referenceDay) {
+        this.referenceDay = referenceDay;
+    }
+
+    /**
+     * Gets the day ages are worked out on.
+     * @return the day
+     */
+    public Date getReferenceDay() {
+        return referenceDay;
+    }
+}